@@ -49,6 +49,35 @@ abstract public class InterferenceGraph extends Graph<Temp> {
         return 1;
     }
 
+    /**
+     * True if the two nodes interfere with one another. This should be a
+     * constant time operation.
+     * <p>
+     * Interference is a property of the Temps, so the answer does not change
+     * when nodes are removed from the graph.
+     */
+    public abstract boolean interferes(Node<Temp> a, Node<Temp> b);
+
+    /**
+     * The number of nodes that interfere with a given node and that have not
+     * been removed from the graph (by means of rmNode).
+     */
+    public abstract int degree(Node<Temp> node);
+
+    /**
+     * The number of nodes that interfere with a given node (including ones that
+     * have since been removed from the graph). Together with
+     * {@link #adjacent(Node, int)} this allows iterating over the neighbours
+     * of a node without allocating a List.
+     */
+    public abstract int adjacentCount(Node<Temp> node);
+
+    /**
+     * The i-th node that interferes with a given node, for
+     * 0 &lt;= i &lt; adjacentCount(node).
+     */
+    public abstract Node<Temp> adjacent(Node<Temp> node, int i);
+
     @Override
     protected Node<Temp> makeNode(Temp content) {
         // Create nodes that print nicer.
@@ -5,6 +5,8 @@ import codegen.AssemData;
 import codegen.AssemFragment;
 import codegen.AssemProc;
 import codegen.Assembly;
+import analysis.implementation.CoalescingRegAlloc;
+import analysis.implementation.LinearScanRegAlloc;
 import analysis.implementation.SpillingRegAlloc;
 
 /**
@@ -37,8 +39,63 @@ import analysis.implementation.SpillingRegAlloc;
  */
 public abstract class RegAlloc extends DefaultIndentable {
 
+    /**
+     * The register allocation algorithms to choose from.
+     * <p>
+     * Whatever kind is asked for, methods with more than
+     * {@link #LINEAR_SCAN_THRESHOLD} instructions are allocated with
+     * {@link #LINEAR_SCAN}, unless a different threshold is passed to
+     * {@link RegAlloc#doit(AssemProc, Kind, int)}.
+     */
+    public enum Kind {
+        /**
+         * Simple graph colouring, rerun from scratch after rewriting spills.
+         */
+        SPILLING,
+        /**
+         * Iterated register coalescing (George and Appel).
+         */
+        COALESCING,
+        /**
+         * Linear scan over live intervals. Much faster than graph colouring
+         * on very large methods, but produces somewhat worse code.
+         */
+        LINEAR_SCAN
+    }
+
+    public static final Kind DEFAULT = Kind.SPILLING;
+
+    /**
+     * Methods with more instructions than this are always allocated with
+     * {@link Kind#LINEAR_SCAN}, whatever kind of allocator was asked for,
+     * because building their interference graph would take too long.
+     */
+    public static final int LINEAR_SCAN_THRESHOLD = 5000;
+
     public static RegAlloc doit(AssemProc proc) {
-        return new SpillingRegAlloc(proc);
+        return doit(proc, DEFAULT);
+    }
+
+    public static RegAlloc doit(AssemProc proc, Kind kind) {
+        return doit(proc, kind, LINEAR_SCAN_THRESHOLD);
+    }
+
+    /**
+     * Allocate registers with the given kind of allocator, or with
+     * {@link Kind#LINEAR_SCAN} if the method has more instructions than the
+     * given threshold.
+     */
+    public static RegAlloc doit(AssemProc proc, Kind kind, int linearScanThreshold) {
+        if (proc.getBody().size() > linearScanThreshold)
+            kind = Kind.LINEAR_SCAN;
+        switch (kind) {
+            case LINEAR_SCAN:
+                return new LinearScanRegAlloc(proc);
+            case COALESCING:
+                return new CoalescingRegAlloc(proc);
+            default:
+                return new SpillingRegAlloc(proc);
+        }
     }
 
     /**
@@ -52,9 +109,13 @@ public abstract class RegAlloc extends DefaultIndentable {
      * @param assembly
      */
     public static void doit(Assembly assembly) {
+        doit(assembly, DEFAULT);
+    }
+
+    public static void doit(Assembly assembly, Kind kind) {
         for (AssemFragment frag : assembly) {
             if (frag instanceof AssemProc)
-                doit((AssemProc) frag);
+                doit((AssemProc) frag, kind);
             else if (frag instanceof AssemData)
                 ; // Ignore it
             else
@@ -0,0 +1,684 @@
+package analysis.implementation;
+
+import ir.frame.Frame;
+import ir.temp.Color;
+import ir.temp.Temp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import util.IndentingWriter;
+import util.List;
+
+import codegen.AssemProc;
+import codegen.assem.A_MOVE;
+import codegen.assem.Instr;
+
+import analysis.FlowGraph;
+import analysis.InterferenceGraph;
+import analysis.RegAlloc;
+import util.graph.Node;
+
+/**
+ * Iterated register coalescing, as described by George and Appel (and in
+ * chapter 11 of the book).
+ * <p>
+ * Nodes of the interference graph move between simplify, freeze and spill
+ * worklists; moves between worklist, active, coalesced, constrained and frozen
+ * sets. Moves are coalesced conservatively, using the Briggs test for two
+ * ordinary temps and the George test when one side is a machine register.
+ * <p>
+ * Everything is indexed by the key of the interference graph node of a Temp.
+ * The sets are represented by a state per node (or move) and the worklists
+ * by stacks of indexes. An entry on a stack whose node no longer has the
+ * matching state is stale and is simply skipped, which saves us from having
+ * to remove elements from the middle of a list.
+ * <p>
+ * When actual spills occur, the procedure body is rewritten with
+ * {@link Rewriter} and allocation starts over. Temps created by the rewriter
+ * have tiny live ranges, so they are never chosen as spill candidates unless
+ * nothing else is left.
+ */
+public class CoalescingRegAlloc extends RegAlloc {
+
+    /**
+     * Give up if we need more than this many rounds of spilling.
+     */
+    private static final int MAX_ROUNDS = 50;
+
+    // Node states
+    private static final byte PRECOLORED = 0;
+    private static final byte INITIAL = 1;
+    private static final byte SIMPLIFY = 2;
+    private static final byte FREEZE = 3;
+    private static final byte SPILL = 4;
+    private static final byte SPILLED = 5;
+    private static final byte COALESCED = 6;
+    private static final byte COLORED = 7;
+    private static final byte SELECT = 8;
+
+    // Move states
+    private static final byte M_COALESCED = 0;
+    private static final byte M_CONSTRAINED = 1;
+    private static final byte M_FROZEN = 2;
+    private static final byte M_WORKLIST = 3;
+    private static final byte M_ACTIVE = 4;
+
+    private AssemProc proc;
+    private Frame frame;
+    private String trace = "";
+
+    private Color[] colors;
+    private Map<Color, Integer> colorIndex = new HashMap<Color, Integer>();
+    private int K;
+
+    /**
+     * Temps created by the Rewriter in earlier rounds.
+     */
+    private Set<Temp> spillTemps = new HashSet<Temp>();
+
+    private int coalescedTotal = 0;
+    private int spilledTotal = 0;
+
+    // Per round data structures.
+    private InterferenceGraph ig;
+    private Node<Temp>[] nodes;
+    private byte[] state;
+    private int[] degree;
+    private int[] alias;
+    private int[] color;
+    private int[][] adjList;
+    private int[] adjCount;
+    private int[][] moveList;
+    private int[] moveCount;
+    private double[] occurrences;
+
+    private int[] moveSrc;
+    private int[] moveDst;
+    private byte[] moveState;
+
+    private IntStack simplifyWorklist;
+    private IntStack freezeWorklist;
+    private IntStack spillWorklist;
+    private IntStack worklistMoves;
+    private IntStack selectStack;
+    private IntStack coalescedNodes;
+    private IntStack spilledNodes;
+
+    /**
+     * Used to compute the union of two adjacency lists in the Briggs test.
+     */
+    private int[] mark;
+    private int markStamp = 0;
+
+    /**
+     * A growable stack of ints.
+     */
+    private static class IntStack {
+        int[] elements = new int[16];
+        int size = 0;
+
+        void push(int e) {
+            if (size == elements.length)
+                elements = Arrays.copyOf(elements, size * 2);
+            elements[size++] = e;
+        }
+
+        int pop() {
+            return elements[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    public CoalescingRegAlloc(AssemProc proc) {
+        this.proc = proc;
+        this.frame = proc.getFrame();
+        List<Temp> registers = frame.registers();
+        this.K = registers.size();
+        this.colors = new Color[K];
+        int i = 0;
+        for (Temp reg : registers) {
+            colors[i] = reg.getColor();
+            colorIndex.put(colors[i], i);
+            i++;
+        }
+
+        int round = 1;
+        while (true) {
+            FlowGraph<Instr> fg = FlowGraph.build(proc.getBody());
+            ig = fg.getInterferenceGraph();
+            ig.name = proc.getLabel().toString() + " round " + round;
+            build(fg);
+            makeWorklist();
+            do {
+                if (!isEmpty(simplifyWorklist, SIMPLIFY)) simplify();
+                else if (!isEmptyMoves(worklistMoves)) coalesce();
+                else if (!isEmpty(freezeWorklist, FREEZE)) freeze();
+                else if (!isEmpty(spillWorklist, SPILL)) selectSpill();
+                else break;
+            } while (true);
+            assignColors();
+
+            trace += "Round " + round + ": " + nodes.length + " nodes, "
+                    + coalescedNodes.size + " coalesced, "
+                    + spilledNodes.size + " spilled\n";
+            coalescedTotal += coalescedNodes.size;
+            if (spilledNodes.isEmpty())
+                break;
+            if (round >= MAX_ROUNDS) {
+                throw new Error("Register allocation did not converge after " + round + " rounds:\n" + trace);
+            }
+            rewriteProgram();
+            round++;
+        }
+        paint();
+    }
+
+    public int getCoalesced() {
+        return coalescedTotal;
+    }
+
+    public int getSpilled() {
+        return spilledTotal;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void build(FlowGraph<Instr> fg) {
+        int n = 0;
+        for (Node<Temp> node : ig.nodes())
+            n = Math.max(n, node.getKey() + 1);
+        nodes = new Node[n];
+        state = new byte[n];
+        degree = new int[n];
+        alias = new int[n];
+        color = new int[n];
+        adjList = new int[n][];
+        adjCount = new int[n];
+        moveList = new int[n][];
+        moveCount = new int[n];
+        occurrences = new double[n];
+        mark = new int[n];
+        markStamp = 0;
+
+        simplifyWorklist = new IntStack();
+        freezeWorklist = new IntStack();
+        spillWorklist = new IntStack();
+        worklistMoves = new IntStack();
+        selectStack = new IntStack();
+        coalescedNodes = new IntStack();
+        spilledNodes = new IntStack();
+
+        for (Node<Temp> node : ig.nodes()) {
+            int k = node.getKey();
+            nodes[k] = node;
+            moveList[k] = new int[2];
+            Color c = node.wrappee().getColor();
+            if (c != null) {
+                Integer ci = colorIndex.get(c);
+                if (ci == null)
+                    throw new Error("Precolored temp " + node + " is not a register of this frame");
+                state[k] = PRECOLORED;
+                color[k] = ci;
+                degree[k] = Integer.MAX_VALUE / 2;
+            } else {
+                state[k] = INITIAL;
+                color[k] = -1;
+                degree[k] = ig.degree(node);
+                int count = ig.adjacentCount(node);
+                adjList[k] = new int[Math.max(count, 4)];
+                for (int i = 0; i < count; i++)
+                    adjList[k][i] = ig.adjacent(node, i).getKey();
+                adjCount[k] = count;
+            }
+        }
+
+        List<InterferenceGraph.Move> moves = ig.moves();
+        int m = moves.size();
+        moveSrc = new int[m];
+        moveDst = new int[m];
+        moveState = new byte[m];
+        int i = 0;
+        for (InterferenceGraph.Move move : moves) {
+            moveSrc[i] = move.src.getKey();
+            moveDst[i] = move.dst.getKey();
+            moveState[i] = M_WORKLIST;
+            addMove(moveSrc[i], i);
+            if (moveDst[i] != moveSrc[i])
+                addMove(moveDst[i], i);
+            worklistMoves.push(i);
+            i++;
+        }
+
+        for (Node<Instr> node : fg.nodes()) {
+            for (Temp t : fg.def(node))
+                occurrences[ig.nodeFor(t).getKey()]++;
+            for (Temp t : fg.use(node))
+                occurrences[ig.nodeFor(t).getKey()]++;
+        }
+    }
+
+    private void addMove(int n, int m) {
+        if (moveCount[n] == moveList[n].length)
+            moveList[n] = Arrays.copyOf(moveList[n], moveCount[n] * 2);
+        moveList[n][moveCount[n]++] = m;
+    }
+
+    private void addAdj(int u, int v) {
+        if (adjCount[u] == adjList[u].length)
+            adjList[u] = Arrays.copyOf(adjList[u], adjCount[u] * 2);
+        adjList[u][adjCount[u]++] = v;
+    }
+
+    private boolean interferes(int u, int v) {
+        return ig.interferes(nodes[u], nodes[v]);
+    }
+
+    private void addEdge(int u, int v) {
+        if (u == v || interferes(u, v)) return;
+        ig.addEdge(nodes[u], nodes[v]);
+        if (state[u] != PRECOLORED) {
+            addAdj(u, v);
+            degree[u]++;
+        }
+        if (state[v] != PRECOLORED) {
+            addAdj(v, u);
+            degree[v]++;
+        }
+    }
+
+    /**
+     * Remove stale entries from the top of a worklist and report whether
+     * any real ones are left.
+     */
+    private boolean isEmpty(IntStack worklist, byte listState) {
+        while (!worklist.isEmpty() && state[worklist.elements[worklist.size - 1]] != listState)
+            worklist.size--;
+        return worklist.isEmpty();
+    }
+
+    private boolean isEmptyMoves(IntStack worklist) {
+        while (!worklist.isEmpty() && moveState[worklist.elements[worklist.size - 1]] != M_WORKLIST)
+            worklist.size--;
+        return worklist.isEmpty();
+    }
+
+    private void setState(int n, byte newState) {
+        state[n] = newState;
+        switch (newState) {
+            case SIMPLIFY:
+                simplifyWorklist.push(n);
+                break;
+            case FREEZE:
+                freezeWorklist.push(n);
+                break;
+            case SPILL:
+                spillWorklist.push(n);
+                break;
+            case COALESCED:
+                coalescedNodes.push(n);
+                break;
+            case SPILLED:
+                spilledNodes.push(n);
+                break;
+            case SELECT:
+                selectStack.push(n);
+                break;
+            default:
+        }
+    }
+
+    private void makeWorklist() {
+        for (int n = 0; n < nodes.length; n++) {
+            if (nodes[n] == null || state[n] != INITIAL) continue;
+            if (degree[n] >= K)
+                setState(n, SPILL);
+            else if (moveRelated(n))
+                setState(n, FREEZE);
+            else
+                setState(n, SIMPLIFY);
+        }
+    }
+
+    /**
+     * Adjacent(n) is adjList[n] minus the nodes on the select stack and the
+     * coalesced nodes.
+     */
+    private boolean isAdjacent(int w) {
+        return state[w] != SELECT && state[w] != COALESCED;
+    }
+
+    private boolean isNodeMove(int m) {
+        return moveState[m] == M_ACTIVE || moveState[m] == M_WORKLIST;
+    }
+
+    private boolean moveRelated(int n) {
+        for (int i = 0; i < moveCount[n]; i++)
+            if (isNodeMove(moveList[n][i])) return true;
+        return false;
+    }
+
+    private void simplify() {
+        int n = simplifyWorklist.pop();
+        setState(n, SELECT);
+        for (int i = 0; i < adjCount[n]; i++) {
+            int m = adjList[n][i];
+            if (isAdjacent(m))
+                decrementDegree(m);
+        }
+    }
+
+    private void decrementDegree(int m) {
+        int d = degree[m];
+        degree[m] = d - 1;
+        if (d == K && state[m] != PRECOLORED) {
+            enableMoves(m);
+            for (int i = 0; i < adjCount[m]; i++) {
+                int a = adjList[m][i];
+                if (isAdjacent(a))
+                    enableMoves(a);
+            }
+            if (moveRelated(m))
+                setState(m, FREEZE);
+            else
+                setState(m, SIMPLIFY);
+        }
+    }
+
+    private void enableMoves(int n) {
+        for (int i = 0; i < moveCount[n]; i++) {
+            int m = moveList[n][i];
+            if (moveState[m] == M_ACTIVE) {
+                moveState[m] = M_WORKLIST;
+                worklistMoves.push(m);
+            }
+        }
+    }
+
+    private void coalesce() {
+        int m = worklistMoves.pop();
+        int x = getAlias(moveSrc[m]);
+        int y = getAlias(moveDst[m]);
+        int u, v;
+        if (state[y] == PRECOLORED) {
+            u = y;
+            v = x;
+        } else {
+            u = x;
+            v = y;
+        }
+        if (u == v) {
+            moveState[m] = M_COALESCED;
+            addWorkList(u);
+        } else if (state[v] == PRECOLORED || interferes(u, v)) {
+            moveState[m] = M_CONSTRAINED;
+            addWorkList(u);
+            addWorkList(v);
+        } else if (state[u] == PRECOLORED ? george(u, v) : briggs(u, v)) {
+            moveState[m] = M_COALESCED;
+            combine(u, v);
+            addWorkList(u);
+        } else {
+            moveState[m] = M_ACTIVE;
+        }
+    }
+
+    private void addWorkList(int u) {
+        if (state[u] != PRECOLORED && !moveRelated(u) && degree[u] < K)
+            setState(u, SIMPLIFY);
+    }
+
+    private boolean ok(int t, int r) {
+        return degree[t] < K || state[t] == PRECOLORED || interferes(t, r);
+    }
+
+    /**
+     * George's test: v can be coalesced with the precolored u if every
+     * neighbour of v is insignificant or already interferes with u.
+     */
+    private boolean george(int u, int v) {
+        for (int i = 0; i < adjCount[v]; i++) {
+            int t = adjList[v][i];
+            if (isAdjacent(t) && !ok(t, u))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Briggs's test: the combined node has fewer than K neighbours of
+     * significant degree.
+     */
+    private boolean briggs(int u, int v) {
+        markStamp++;
+        int k = 0;
+        k += countSignificant(u);
+        k += countSignificant(v);
+        return k < K;
+    }
+
+    private int countSignificant(int n) {
+        int k = 0;
+        for (int i = 0; i < adjCount[n]; i++) {
+            int t = adjList[n][i];
+            if (isAdjacent(t) && mark[t] != markStamp) {
+                mark[t] = markStamp;
+                if (degree[t] >= K) k++;
+            }
+        }
+        return k;
+    }
+
+    private int getAlias(int n) {
+        while (state[n] == COALESCED)
+            n = alias[n];
+        return n;
+    }
+
+    private void combine(int u, int v) {
+        setState(v, COALESCED);
+        alias[v] = u;
+        for (int i = 0; i < moveCount[v]; i++)
+            addMove(u, moveList[v][i]);
+        enableMoves(v);
+        for (int i = 0; i < adjCount[v]; i++) {
+            int t = adjList[v][i];
+            if (isAdjacent(t)) {
+                addEdge(t, u);
+                decrementDegree(t);
+            }
+        }
+        if (degree[u] >= K && state[u] == FREEZE)
+            setState(u, SPILL);
+    }
+
+    private void freeze() {
+        int u = freezeWorklist.pop();
+        setState(u, SIMPLIFY);
+        freezeMoves(u);
+    }
+
+    private void freezeMoves(int u) {
+        for (int i = 0; i < moveCount[u]; i++) {
+            int m = moveList[u][i];
+            if (!isNodeMove(m)) continue;
+            int x = moveSrc[m];
+            int y = moveDst[m];
+            int v;
+            if (getAlias(y) == getAlias(u))
+                v = getAlias(x);
+            else
+                v = getAlias(y);
+            moveState[m] = M_FROZEN;
+            if (state[v] == FREEZE && !moveRelated(v) && degree[v] < K)
+                setState(v, SIMPLIFY);
+        }
+    }
+
+    private double spillCost(int n) {
+        if (spillTemps.contains(nodes[n].wrappee()))
+            return Double.POSITIVE_INFINITY;
+        return occurrences[n] / degree[n];
+    }
+
+    private void selectSpill() {
+        // Pick the cheapest candidate, dropping stale entries as we go.
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int live = 0;
+        for (int i = 0; i < spillWorklist.size; i++) {
+            int n = spillWorklist.elements[i];
+            if (state[n] != SPILL) continue;
+            spillWorklist.elements[live++] = n;
+            double cost = spillCost(n);
+            if (best == -1 || cost < bestCost) {
+                best = n;
+                bestCost = cost;
+            }
+        }
+        spillWorklist.size = live;
+        setState(best, SIMPLIFY);
+        freezeMoves(best);
+    }
+
+    /**
+     * Pick a color for n from the ones not used by its neighbours, preferring
+     * the color of a temp it is moved to or from, or -1 if there is none.
+     */
+    private int pickColor(int n, boolean[] okColors) {
+        for (int i = 0; i < moveCount[n]; i++) {
+            int m = moveList[n][i];
+            int other = getAlias(moveSrc[m]) == n ? getAlias(moveDst[m]) : getAlias(moveSrc[m]);
+            if ((state[other] == COLORED || state[other] == PRECOLORED) && okColors[color[other]])
+                return color[other];
+        }
+        for (int c = 0; c < K; c++)
+            if (okColors[c]) return c;
+        return -1;
+    }
+
+    private void assignColors() {
+        boolean[] okColors = new boolean[K];
+        while (!selectStack.isEmpty()) {
+            int n = selectStack.pop();
+            Arrays.fill(okColors, true);
+            for (int i = 0; i < adjCount[n]; i++) {
+                int w = getAlias(adjList[n][i]);
+                if (state[w] == COLORED || state[w] == PRECOLORED)
+                    okColors[color[w]] = false;
+            }
+            int c = pickColor(n, okColors);
+            if (c < 0) {
+                setState(n, SPILLED);
+            } else {
+                state[n] = COLORED;
+                color[n] = c;
+            }
+        }
+        for (int i = 0; i < coalescedNodes.size; i++) {
+            int n = coalescedNodes.elements[i];
+            color[n] = color[getAlias(n)];
+        }
+    }
+
+    /**
+     * Allocate spill slots for the actual spills (sharing slots between spills
+     * that do not interfere) and rewrite the procedure body to load and store
+     * them around each use and def.
+     */
+    private void rewriteProgram() {
+        List<Temp> spilled = List.empty();
+        Map<Temp, Color> spillMap = new HashMap<Temp, Color>();
+        java.util.List<SpillColor> slots = new java.util.ArrayList<SpillColor>();
+        java.util.List<java.util.List<Integer>> slotNodes = new java.util.ArrayList<java.util.List<Integer>>();
+
+        for (int i = 0; i < spilledNodes.size; i++) {
+            int s = spilledNodes.elements[i];
+            // The temps coalesced into a spilled node live in its spill slot too.
+            java.util.List<Integer> group = new java.util.ArrayList<Integer>();
+            group.add(s);
+            for (int j = 0; j < coalescedNodes.size; j++) {
+                int c = coalescedNodes.elements[j];
+                if (getAlias(c) == s) group.add(c);
+            }
+
+            int slot = -1;
+            for (int j = 0; j < slots.size() && slot < 0; j++) {
+                if (!interferesWithAny(group, slotNodes.get(j)))
+                    slot = j;
+            }
+            if (slot < 0) {
+                slot = slots.size();
+                slots.add(new SpillColor(frame));
+                slotNodes.add(new java.util.ArrayList<Integer>());
+            }
+            slotNodes.get(slot).addAll(group);
+            for (int n : group) {
+                Temp t = nodes[n].wrappee();
+                spilled.add(t);
+                spillMap.put(t, slots.get(slot));
+            }
+        }
+        spilledTotal += spilled.size();
+
+        Set<Temp> before = temps(proc.getBody());
+        proc.setAsm(new Rewriter(proc).rewrite(spilled, spillMap));
+        for (Temp t : temps(proc.getBody()))
+            if (!before.contains(t))
+                spillTemps.add(t);
+    }
+
+    private boolean interferesWithAny(java.util.List<Integer> as, java.util.List<Integer> bs) {
+        for (int a : as)
+            for (int b : bs)
+                if (interferes(a, b)) return true;
+        return false;
+    }
+
+    private static Set<Temp> temps(List<Instr> body) {
+        Set<Temp> result = new HashSet<Temp>();
+        for (Instr instr : body) {
+            for (Temp t : instr.def())
+                result.add(t);
+            for (Temp t : instr.use())
+                result.add(t);
+        }
+        return result;
+    }
+
+    /**
+     * Paint the Temps with their colors. Moves whose source and destination were
+     * coalesced now have the same color on both sides, so A_MOVE.dump will
+     * comment them out of the emitted assembly.
+     */
+    private void paint() {
+        for (int n = 0; n < nodes.length; n++) {
+            if (nodes[n] == null || state[n] == PRECOLORED) continue;
+            nodes[n].wrappee().paint(colors[color[n]]);
+        }
+        int redundant = 0;
+        for (Instr instr : proc.getBody()) {
+            if (instr instanceof A_MOVE) {
+                A_MOVE move = (A_MOVE) instr;
+                if (move.dst.getColor() == move.src.getColor())
+                    redundant++;
+            }
+        }
+        trace += redundant + " redundant moves\n";
+    }
+
+    @Override
+    public void dump(IndentingWriter out) {
+        out.println(trace);
+    }
+
+    @Override
+    public String getTrace() {
+        return trace;
+    }
+}
@@ -1,5 +1,6 @@
 package analysis.implementation;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -13,54 +14,295 @@ import analysis.FlowGraph;
 import analysis.InterferenceGraph;
 import util.graph.Node;
 
+/**
+ * Interference graph built from a flow graph and its liveness information.
+ * <p>
+ * Rather than storing edges twice in the cons lists of {@link Node}, this
+ * implementation numbers the nodes densely (by their key) and keeps
+ * <ul>
+ * <li> a triangular bit matrix, so that {@link #interferes} is a constant time test,
+ * <li> an int array of neighbours per node, to iterate over adjacent nodes,
+ * <li> a degree counter per node, which is kept up to date when nodes are
+ * removed with {@link #rmNode}.
+ * </ul>
+ * The nodes of this graph still answer succ() and pred() (both return the
+ * neighbours that have not been removed) so that generic Graph code, such
+ * as dump and dotString, works as before.
+ */
 public class InterferenceGraphImplementation<N> extends InterferenceGraph {
 
     private FlowGraph<N> fg;
     private LivenessImplementation<N> liveness;
     private List<Move> moves = List.empty();
 
+    /**
+     * Nodes by key.
+     */
+    private Node<Temp>[] byKey;
+    private int capacity;
+
+    /**
+     * Lower triangle of the adjacency matrix: bit (i * (i - 1) / 2 + j) is
+     * set iff i &gt; j and nodes i and j interfere.
+     */
+    private long[] matrix;
+
+    private int[][] adjacent;
+    private int[] adjacentCount;
+    private int[] degree;
+    private boolean[] removed;
+
+    /**
+     * Cached result of nodes(), while nodes have been removed.
+     */
+    private List<Node<Temp>> liveNodes;
+
     public InterferenceGraphImplementation(FlowGraph<N> fg) {
         this.fg = fg;
         this.liveness = new LivenessImplementation<>(fg);
 
+        // Create all the nodes first, so that we know how big the matrix
+        // should be before adding any edges.
+        for (Node<N> node : fg.nodes()) {
+            for (Temp def : fg.def(node))
+                nodeFor(def);
+            for (Temp use : fg.use(node))
+                nodeFor(use);
+        }
         for (Node<N> node : fg.nodes()) {
-            for (Temp def : fg.def(node)) {
-                Node<Temp> n = nodeFor(def);
-            }
-            for (Temp use : fg.use(node)) {
-                Node<Temp> n = nodeFor(use);
-            }
-
             if (fg.isMove(node)) {
+                Temp d = fg.def(node).get(0);
+                Temp s = movSource(node);
+                Node<Temp> dst = nodeFor(d);
+                moves.add(new Move(dst, nodeFor(s)));
                 for (Temp liveOut : liveness.liveOut(node)) {
-                    Temp d = fg.def(node).get(0);
-                    Temp s = movSource(node);
-
-                    Node<Temp> out = nodeFor(liveOut);
-                    Node<Temp> dst = nodeFor(d);
-
-                    moves.add(new Move(dst, nodeFor(s)));
-
-                    if (!liveOut.equals(d) && !liveOut.equals(s)) {
-                        addEdge(dst, out);
-                        addEdge(out, dst);
-                    }
+                    if (!liveOut.equals(d) && !liveOut.equals(s))
+                        addEdge(dst, nodeFor(liveOut));
                 }
             } else {
                 for (Temp def : fg.def(node)) {
                     Node<Temp> n = nodeFor(def);
                     for (Temp liveOut : liveness.liveOut(node)) {
-                        Node<Temp> out = nodeFor(liveOut);
-                        if (!liveOut.equals(def)) {
-                            addEdge(n, out);
-                            addEdge(out, n);
-                        }
+                        if (!liveOut.equals(def))
+                            addEdge(n, nodeFor(liveOut));
                     }
                 }
             }
         }
     }
 
+    /**
+     * Nodes of the interference graph. Their adjacency is not stored in the node,
+     * but looked up in the graph's arrays.
+     */
+    private class IGNode extends Node<Temp> {
+
+        IGNode(Temp content) {
+            super(InterferenceGraphImplementation.this, content);
+        }
+
+        @Override
+        public List<Node<Temp>> succ() {
+            return neighbours(this);
+        }
+
+        @Override
+        public List<Node<Temp>> pred() {
+            return neighbours(this);
+        }
+
+        @Override
+        public int inDegree() {
+            return InterferenceGraphImplementation.this.degree(this);
+        }
+
+        @Override
+        public int outDegree() {
+            return InterferenceGraphImplementation.this.degree(this);
+        }
+
+        @Override
+        public boolean goesTo(Node<Temp> n) {
+            return !removed[getKey()] && !removed[n.getKey()] && interferes(this, n);
+        }
+
+        @Override
+        public boolean comesFrom(Node<Temp> n) {
+            return goesTo(n);
+        }
+
+        @Override
+        public String toString() {
+            return wrappee().toString();
+        }
+    }
+
+    @Override
+    protected Node<Temp> makeNode(Temp content) {
+        Node<Temp> node = new IGNode(content);
+        int key = node.getKey();
+        ensureCapacity(key + 1);
+        byKey[key] = node;
+        adjacent[key] = new int[4];
+        liveNodes = null;
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ensureCapacity(int size) {
+        if (size <= capacity) return;
+        int newCapacity = Math.max(size, capacity * 2);
+        byKey = byKey == null ? new Node[newCapacity] : Arrays.copyOf(byKey, newCapacity);
+        adjacent = adjacent == null ? new int[newCapacity][] : Arrays.copyOf(adjacent, newCapacity);
+        adjacentCount = adjacentCount == null ? new int[newCapacity] : Arrays.copyOf(adjacentCount, newCapacity);
+        degree = degree == null ? new int[newCapacity] : Arrays.copyOf(degree, newCapacity);
+        removed = removed == null ? new boolean[newCapacity] : Arrays.copyOf(removed, newCapacity);
+        long bits = (long) newCapacity * (newCapacity - 1) / 2;
+        long[] newMatrix = new long[(int) ((bits + 63) >>> 6)];
+        if (matrix != null)
+            System.arraycopy(matrix, 0, newMatrix, 0, matrix.length);
+        matrix = newMatrix;
+        capacity = newCapacity;
+    }
+
+    private static long bitIndex(int i, int j) {
+        if (i < j) {
+            int t = i;
+            i = j;
+            j = t;
+        }
+        return (long) i * (i - 1) / 2 + j;
+    }
+
+    private boolean testBit(int i, int j) {
+        long b = bitIndex(i, j);
+        return (matrix[(int) (b >>> 6)] & (1L << b)) != 0;
+    }
+
+    private void setBit(int i, int j) {
+        long b = bitIndex(i, j);
+        matrix[(int) (b >>> 6)] |= 1L << b;
+    }
+
+    private void clearBit(int i, int j) {
+        long b = bitIndex(i, j);
+        matrix[(int) (b >>> 6)] &= ~(1L << b);
+    }
+
+    @Override
+    public boolean interferes(Node<Temp> a, Node<Temp> b) {
+        int i = a.getKey();
+        int j = b.getKey();
+        return i != j && testBit(i, j);
+    }
+
+    @Override
+    public int degree(Node<Temp> node) {
+        return degree[node.getKey()];
+    }
+
+    @Override
+    public int adjacentCount(Node<Temp> node) {
+        return adjacentCount[node.getKey()];
+    }
+
+    @Override
+    public Node<Temp> adjacent(Node<Temp> node, int i) {
+        return byKey[adjacent[node.getKey()][i]];
+    }
+
+    private List<Node<Temp>> neighbours(Node<Temp> node) {
+        int k = node.getKey();
+        List<Node<Temp>> result = List.empty();
+        if (removed[k]) return result;
+        for (int i = 0; i < adjacentCount[k]; i++) {
+            int other = adjacent[k][i];
+            if (!removed[other])
+                result.add(byKey[other]);
+        }
+        return result;
+    }
+
+    private void addAdjacent(int from, int to) {
+        int[] adj = adjacent[from];
+        if (adjacentCount[from] == adj.length)
+            adjacent[from] = adj = Arrays.copyOf(adj, adj.length * 2);
+        adj[adjacentCount[from]++] = to;
+    }
+
+    private void rmAdjacent(int from, int to) {
+        int[] adj = adjacent[from];
+        int n = adjacentCount[from];
+        for (int i = 0; i < n; i++) {
+            if (adj[i] == to) {
+                System.arraycopy(adj, i + 1, adj, i, n - i - 1);
+                adjacentCount[from]--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Interference edges are undirected: adding an edge from a to b also adds
+     * one from b to a.
+     */
+    @Override
+    public void addEdge(Node<Temp> from, Node<Temp> to) {
+        checkNode(from);
+        checkNode(to);
+        int i = from.getKey();
+        int j = to.getKey();
+        if (i == j || testBit(i, j)) return;
+        setBit(i, j);
+        addAdjacent(i, j);
+        addAdjacent(j, i);
+        if (!removed[j]) degree[i]++;
+        if (!removed[i]) degree[j]++;
+    }
+
+    @Override
+    public void rmEdge(Node<Temp> from, Node<Temp> to) {
+        int i = from.getKey();
+        int j = to.getKey();
+        if (i == j || !testBit(i, j)) return;
+        clearBit(i, j);
+        rmAdjacent(i, j);
+        rmAdjacent(j, i);
+        if (!removed[j]) degree[i]--;
+        if (!removed[i]) degree[j]--;
+    }
+
+    /**
+     * Removing a node only takes it out of nodes() and updates the degree
+     * of its neighbours. The interference information itself (interferes and
+     * adjacent) is left intact.
+     */
+    @Override
+    public void rmNode(Node<Temp> node) {
+        int k = node.getKey();
+        if (removed[k]) return;
+        removed[k] = true;
+        for (int i = 0; i < adjacentCount[k]; i++)
+            degree[adjacent[k][i]]--;
+        liveNodes = null;
+    }
+
+    @Override
+    public List<Node<Temp>> nodes() {
+        if (liveNodes == null) {
+            liveNodes = List.empty();
+            for (Node<Temp> node : mynodes)
+                if (!removed[node.getKey()])
+                    liveNodes.add(node);
+        }
+        return liveNodes;
+    }
+
+    private void checkNode(Node<Temp> n) {
+        if (n.getKey() >= capacity || byKey[n.getKey()] != n)
+            throw new Error("Graph.addEdge using nodes from the wrong graph");
+    }
+
     @Override
     public List<Move> moves() {
         return moves;
@@ -0,0 +1,599 @@
+package analysis.implementation;
+
+import ir.frame.Frame;
+import ir.temp.Color;
+import ir.temp.Temp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import util.IndentingWriter;
+import util.List;
+
+import codegen.AssemProc;
+import codegen.assem.A_MOVE;
+import codegen.assem.Instr;
+
+import analysis.FlowGraph;
+import analysis.RegAlloc;
+import util.graph.Node;
+
+/**
+ * Linear scan register allocation (Poletto and Sarkar), for methods that are
+ * too big to build an interference graph for.
+ * <p>
+ * Instructions are numbered in the order of the flow graph (which is the order
+ * of the procedure body). Each instruction i has two positions: 2i where it
+ * reads its uses and 2i+1 where it writes its defs. Liveness is computed per
+ * basic block, and the live interval of a Temp is the smallest range of positions
+ * that covers all the places where it is live. This is coarser than the
+ * interference graph (an interval has no holes) but it is computed in a single
+ * pass over the code.
+ * <p>
+ * Machine registers are not given a single interval. Instead we record exactly
+ * at which positions each register is live, and a Temp can only get a register
+ * that is not busy anywhere in its interval.
+ * <p>
+ * The intervals are then visited in order of their start. When no register is
+ * free, the interval that ends last is spilled. A spilled interval is split at
+ * each of its uses and defs: the {@link Rewriter} loads it from its frame slot
+ * right before every use and stores it right after every def, which leaves short
+ * intervals that are allocated in the next round. Spilled Temps whose intervals
+ * do not overlap share a frame slot.
+ */
+public class LinearScanRegAlloc extends RegAlloc {
+
+    /**
+     * Give up if we need more than this many rounds of spilling.
+     */
+    private static final int MAX_ROUNDS = 50;
+
+    private AssemProc proc;
+    private Frame frame;
+    private String trace = "";
+
+    private Color[] colors;
+    private Map<Color, Integer> colorIndex = new HashMap<Color, Integer>();
+    private int K;
+
+    /**
+     * Temps created by the Rewriter in earlier rounds. Their intervals are
+     * only one instruction long, so spilling them would not help.
+     */
+    private Set<Temp> spillTemps = new HashSet<Temp>();
+
+    private int spilledTotal = 0;
+
+    // Per round data structures.
+    private int n;
+    private Temp[] temps;
+    private int[][] uses;
+    private int[][] defs;
+    private int[] regUses;
+    private int[] regDefs;
+    private int[] hint;
+
+    private int[] blockStart;
+    private int[] blockEnd;
+    private int[][] blockSuccs;
+
+    private int words;
+    private long[] liveIn;
+    private long[] liveOut;
+    private int[] regLiveIn;
+    private int[] regLiveOut;
+
+    private int[] start;
+    private int[] end;
+
+    /**
+     * For each register, the sorted ranges of positions in which it is busy.
+     */
+    private int[][] busyStart;
+    private int[][] busyEnd;
+    private int[] busyCount;
+
+    private int[] register;
+    private boolean[] spilled;
+
+    public LinearScanRegAlloc(AssemProc proc) {
+        this.proc = proc;
+        this.frame = proc.getFrame();
+        List<Temp> registers = frame.registers();
+        this.K = registers.size();
+        if (K > 32)
+            throw new Error("LinearScanRegAlloc keeps register sets in an int, can't handle " + K + " registers");
+        this.colors = new Color[K];
+        int i = 0;
+        for (Temp reg : registers) {
+            colors[i] = reg.getColor();
+            colorIndex.put(colors[i], i);
+            i++;
+        }
+
+        int round = 1;
+        while (true) {
+            number(FlowGraph.build(proc.getBody()));
+            calculateLiveness();
+            buildIntervals();
+            int spills = scan();
+            trace += "Round " + round + ": " + n + " instructions, "
+                    + temps.length + " intervals, " + spills + " spilled\n";
+            if (spills == 0)
+                break;
+            if (round >= MAX_ROUNDS) {
+                throw new Error("Register allocation did not converge after " + round + " rounds:\n" + trace);
+            }
+            rewriteProgram();
+            round++;
+        }
+        paint();
+    }
+
+    public int getSpilled() {
+        return spilledTotal;
+    }
+
+    /**
+     * Number the instructions, Temps and basic blocks of the flow graph.
+     */
+    @SuppressWarnings("unchecked")
+    private void number(FlowGraph<Instr> fg) {
+        List<Node<Instr>> nodeList = fg.nodes();
+        n = nodeList.size();
+        Node<Instr>[] nodes = new Node[n];
+        int firstKey = Integer.MAX_VALUE;
+        for (Node<Instr> node : nodeList)
+            firstKey = Math.min(firstKey, node.getKey());
+        for (Node<Instr> node : nodeList)
+            nodes[node.getKey() - firstKey] = node;
+
+        Map<Temp, Integer> tempIndex = new HashMap<Temp, Integer>();
+        ArrayList<Temp> tempList = new ArrayList<Temp>();
+        uses = new int[n][];
+        defs = new int[n][];
+        regUses = new int[n];
+        regDefs = new int[n];
+        int[] moveSrc = new int[n];
+        int[] moveDst = new int[n];
+        for (int i = 0; i < n; i++) {
+            Instr instr = nodes[i].wrappee();
+            uses[i] = number(instr.use(), tempIndex, tempList);
+            defs[i] = number(instr.def(), tempIndex, tempList);
+            regUses[i] = registers(instr.use());
+            regDefs[i] = registers(instr.def());
+            moveSrc[i] = moveDst[i] = Integer.MIN_VALUE;
+            if (instr instanceof A_MOVE) {
+                moveSrc[i] = moveEnd(instr.use(), tempIndex);
+                moveDst[i] = moveEnd(instr.def(), tempIndex);
+            }
+        }
+        temps = tempList.toArray(new Temp[tempList.size()]);
+
+        // A move suggests giving its source and destination the same register.
+        // hint >= 0 is another Temp, hint < 0 encodes register -(hint + 1).
+        hint = new int[temps.length];
+        Arrays.fill(hint, Integer.MIN_VALUE);
+        for (int i = 0; i < n; i++) {
+            if (moveSrc[i] == Integer.MIN_VALUE || moveDst[i] == Integer.MIN_VALUE)
+                continue;
+            if (moveDst[i] >= 0 && hint[moveDst[i]] == Integer.MIN_VALUE)
+                hint[moveDst[i]] = moveSrc[i];
+            if (moveSrc[i] >= 0 && hint[moveSrc[i]] == Integer.MIN_VALUE)
+                hint[moveSrc[i]] = moveDst[i];
+        }
+
+        // A basic block starts at every node that can be reached other than
+        // by falling through from the previous node.
+        int[] blockOf = new int[n];
+        int blocks = 0;
+        for (int i = 0; i < n; i++) {
+            boolean leader = i == 0
+                    || nodes[i - 1].outDegree() != 1
+                    || nodes[i].inDegree() != 1
+                    || !nodes[i - 1].goesTo(nodes[i]);
+            if (leader)
+                blocks++;
+            blockOf[i] = blocks - 1;
+        }
+        blockStart = new int[blocks];
+        blockEnd = new int[blocks];
+        blockSuccs = new int[blocks][];
+        for (int i = n - 1; i >= 0; i--)
+            blockStart[blockOf[i]] = i;
+        for (int i = 0; i < n; i++)
+            blockEnd[blockOf[i]] = i;
+        for (int b = 0; b < blocks; b++) {
+            List<Node<Instr>> succ = nodes[blockEnd[b]].succ();
+            blockSuccs[b] = new int[succ.size()];
+            int s = 0;
+            for (Node<Instr> node : succ)
+                blockSuccs[b][s++] = blockOf[node.getKey() - firstKey];
+        }
+    }
+
+    private int[] number(List<Temp> list, Map<Temp, Integer> tempIndex, ArrayList<Temp> tempList) {
+        int count = 0;
+        for (Temp t : list)
+            if (t.getColor() == null) count++;
+        int[] result = new int[count];
+        int i = 0;
+        for (Temp t : list) {
+            if (t.getColor() != null)
+                continue;
+            Integer index = tempIndex.get(t);
+            if (index == null) {
+                index = tempList.size();
+                tempIndex.put(t, index);
+                tempList.add(t);
+            }
+            result[i++] = index;
+        }
+        return result;
+    }
+
+    private int registers(List<Temp> list) {
+        int set = 0;
+        for (Temp t : list)
+            if (t.getColor() != null)
+                set |= 1 << registerIndex(t);
+        return set;
+    }
+
+    private int registerIndex(Temp t) {
+        Integer r = colorIndex.get(t.getColor());
+        if (r == null)
+            throw new Error("Precolored temp " + t + " is not a register of this frame");
+        return r;
+    }
+
+    /**
+     * The Temp (or encoded register) on one side of a move, or MIN_VALUE
+     * if there isn't exactly one.
+     */
+    private int moveEnd(List<Temp> list, Map<Temp, Integer> tempIndex) {
+        if (list.size() != 1)
+            return Integer.MIN_VALUE;
+        Temp t = list.head();
+        if (t.getColor() != null)
+            return -(registerIndex(t) + 1);
+        return tempIndex.get(t);
+    }
+
+    /**
+     * Solve the liveness equations for the basic blocks, with the same
+     * worklist algorithm as {@link LivenessImplementation}. Machine registers
+     * are tracked in a separate int per block.
+     */
+    private void calculateLiveness() {
+        int blocks = blockStart.length;
+        words = (temps.length + 63) >>> 6;
+        long[] gen = new long[blocks * words];
+        long[] kill = new long[blocks * words];
+        int[] regGen = new int[blocks];
+        int[] regKill = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            int row = b * words;
+            for (int i = blockStart[b]; i <= blockEnd[b]; i++) {
+                for (int t : uses[i])
+                    if ((kill[row + (t >>> 6)] & (1L << t)) == 0)
+                        gen[row + (t >>> 6)] |= 1L << t;
+                for (int t : defs[i])
+                    kill[row + (t >>> 6)] |= 1L << t;
+                regGen[b] |= regUses[i] & ~regKill[b];
+                regKill[b] |= regDefs[i];
+            }
+        }
+
+        int[] predCount = new int[blocks];
+        for (int b = 0; b < blocks; b++)
+            for (int s : blockSuccs[b])
+                predCount[s]++;
+        int[][] preds = new int[blocks][];
+        for (int b = 0; b < blocks; b++)
+            preds[b] = new int[predCount[b]];
+        Arrays.fill(predCount, 0);
+        for (int b = 0; b < blocks; b++)
+            for (int s : blockSuccs[b])
+                preds[s][predCount[s]++] = b;
+
+        liveIn = new long[blocks * words];
+        liveOut = new long[blocks * words];
+        regLiveIn = new int[blocks];
+        regLiveOut = new int[blocks];
+
+        // Circular worklist, seeded last block first.
+        int[] queue = new int[blocks];
+        boolean[] queued = new boolean[blocks];
+        int head = 0, size = 0;
+        for (int b = blocks - 1; b >= 0; b--) {
+            queue[size++] = b;
+            queued[b] = true;
+        }
+        while (size > 0) {
+            int b = queue[head];
+            head = (head + 1) % blocks;
+            size--;
+            queued[b] = false;
+
+            int row = b * words;
+            int regOut = 0;
+            for (int s : blockSuccs[b]) {
+                int srow = s * words;
+                for (int w = 0; w < words; w++)
+                    liveOut[row + w] |= liveIn[srow + w];
+                regOut |= regLiveIn[s];
+            }
+            regLiveOut[b] = regOut;
+            boolean changed = false;
+            for (int w = 0; w < words; w++) {
+                long in = gen[row + w] | (liveOut[row + w] & ~kill[row + w]);
+                if (in != liveIn[row + w]) {
+                    liveIn[row + w] = in;
+                    changed = true;
+                }
+            }
+            int regIn = regGen[b] | (regOut & ~regKill[b]);
+            if (regIn != regLiveIn[b]) {
+                regLiveIn[b] = regIn;
+                changed = true;
+            }
+            if (changed) {
+                for (int p : preds[b]) {
+                    if (!queued[p]) {
+                        queued[p] = true;
+                        queue[(head + size) % blocks] = p;
+                        size++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void buildIntervals() {
+        start = new int[temps.length];
+        end = new int[temps.length];
+        Arrays.fill(start, Integer.MAX_VALUE);
+        Arrays.fill(end, -1);
+        for (int b = 0; b < blockStart.length; b++) {
+            int row = b * words;
+            extend(liveIn, row, 2 * blockStart[b]);
+            extend(liveOut, row, 2 * blockEnd[b] + 1);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int t : uses[i])
+                extend(t, 2 * i);
+            for (int t : defs[i])
+                extend(t, 2 * i + 1);
+        }
+
+        // Walk each block backwards to find the positions where registers are live.
+        int positions = 2 * n;
+        long[][] busy = new long[K][(positions + 63) >>> 6];
+        for (int b = 0; b < blockStart.length; b++) {
+            int live = regLiveOut[b];
+            for (int i = blockEnd[b]; i >= blockStart[b]; i--) {
+                mark(busy, live | regDefs[i], 2 * i + 1);
+                live = (live & ~regDefs[i]) | regUses[i];
+                mark(busy, live, 2 * i);
+            }
+        }
+        busyStart = new int[K][];
+        busyEnd = new int[K][];
+        busyCount = new int[K];
+        for (int r = 0; r < K; r++) {
+            int[] s = new int[8];
+            int[] e = new int[8];
+            int count = 0;
+            int p = 0;
+            while (p < positions) {
+                if ((busy[r][p >>> 6] & (1L << p)) == 0) {
+                    p++;
+                    continue;
+                }
+                int q = p;
+                while (q + 1 < positions && (busy[r][(q + 1) >>> 6] & (1L << (q + 1))) != 0)
+                    q++;
+                if (count == s.length) {
+                    s = Arrays.copyOf(s, count * 2);
+                    e = Arrays.copyOf(e, count * 2);
+                }
+                s[count] = p;
+                e[count] = q;
+                count++;
+                p = q + 1;
+            }
+            busyStart[r] = s;
+            busyEnd[r] = e;
+            busyCount[r] = count;
+        }
+    }
+
+    private void extend(long[] sets, int row, int position) {
+        for (int w = 0; w < words; w++) {
+            long bits = sets[row + w];
+            while (bits != 0) {
+                int t = (w << 6) + Long.numberOfTrailingZeros(bits);
+                extend(t, position);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private void extend(int t, int position) {
+        if (position < start[t]) start[t] = position;
+        if (position > end[t]) end[t] = position;
+    }
+
+    private static void mark(long[][] busy, int registers, int position) {
+        while (registers != 0) {
+            int r = Integer.numberOfTrailingZeros(registers);
+            busy[r][position >>> 6] |= 1L << position;
+            registers &= registers - 1;
+        }
+    }
+
+    /**
+     * Assign registers to the intervals in order of their start.
+     *
+     * @return the number of intervals that were spilled.
+     */
+    private int scan() {
+        int count = temps.length;
+        register = new int[count];
+        spilled = new boolean[count];
+        Arrays.fill(register, -1);
+
+        // Counting sort of the intervals by their start.
+        int positions = 2 * n;
+        int[] bucket = new int[positions + 1];
+        for (int t = 0; t < count; t++)
+            bucket[start[t] + 1]++;
+        for (int p = 0; p < positions; p++)
+            bucket[p + 1] += bucket[p];
+        int[] order = new int[count];
+        for (int t = 0; t < count; t++)
+            order[bucket[start[t]]++] = t;
+
+        boolean[] unspillable = new boolean[count];
+        for (int t = 0; t < count; t++)
+            unspillable[t] = spillTemps.contains(temps[t]);
+
+        int[] owner = new int[K];
+        Arrays.fill(owner, -1);
+        // Index of the first busy range of each register that hasn't ended yet.
+        int[] cursor = new int[K];
+        int spills = 0;
+
+        for (int t : order) {
+            int s = start[t];
+            int e = end[t];
+            int unblocked = 0;
+            int free = 0;
+            for (int r = 0; r < K; r++) {
+                if (owner[r] != -1 && end[owner[r]] < s)
+                    owner[r] = -1;
+                while (cursor[r] < busyCount[r] && busyEnd[r][cursor[r]] < s)
+                    cursor[r]++;
+                if (cursor[r] < busyCount[r] && busyStart[r][cursor[r]] <= e)
+                    continue;
+                unblocked |= 1 << r;
+                if (owner[r] == -1)
+                    free |= 1 << r;
+            }
+
+            if (free != 0) {
+                int r = Integer.numberOfTrailingZeros(free);
+                int h = hintedRegister(t);
+                if (h >= 0 && (free & (1 << h)) != 0)
+                    r = h;
+                owner[r] = t;
+                register[t] = r;
+                continue;
+            }
+
+            // No register is free: spill whichever interval ends last,
+            // but never one that was created by spilling.
+            int victim = unspillable[t] ? -1 : t;
+            int victimRegister = -1;
+            for (int r = 0; r < K; r++) {
+                if ((unblocked & (1 << r)) == 0)
+                    continue;
+                int u = owner[r];
+                if (unspillable[u])
+                    continue;
+                if (victim == -1 || end[u] > end[victim]) {
+                    victim = u;
+                    victimRegister = r;
+                }
+            }
+            if (victim == -1)
+                throw new Error("Linear scan: no register available for " + temps[t]
+                        + " in " + proc.getLabel());
+            spilled[victim] = true;
+            spills++;
+            if (victim != t) {
+                register[victim] = -1;
+                owner[victimRegister] = t;
+                register[t] = victimRegister;
+            }
+        }
+        return spills;
+    }
+
+    private int hintedRegister(int t) {
+        int h = hint[t];
+        if (h == Integer.MIN_VALUE)
+            return -1;
+        if (h < 0)
+            return -(h + 1);
+        return register[h];
+    }
+
+    /**
+     * Give each spilled Temp a frame slot and rewrite the procedure body to
+     * load and store it around each use and def. Spilled intervals that don't
+     * overlap share the same slot.
+     */
+    private void rewriteProgram() {
+        List<Temp> spilledTemps = List.empty();
+        Map<Temp, Color> spillColors = new HashMap<Temp, Color>();
+        ArrayList<SpillColor> slots = new ArrayList<SpillColor>();
+        ArrayList<Integer> slotEnd = new ArrayList<Integer>();
+        Integer[] order = new Integer[temps.length];
+        int count = 0;
+        for (int t = 0; t < temps.length; t++)
+            if (spilled[t]) order[count++] = t;
+        Arrays.sort(order, 0, count, (a, b) -> start[a] - start[b]);
+        for (int i = 0; i < count; i++) {
+            int t = order[i];
+            int slot = -1;
+            for (int k = 0; k < slots.size(); k++) {
+                if (slotEnd.get(k) < start[t]) {
+                    slot = k;
+                    break;
+                }
+            }
+            if (slot == -1) {
+                slot = slots.size();
+                slots.add(new SpillColor(frame));
+                slotEnd.add(-1);
+            }
+            slotEnd.set(slot, end[t]);
+            spilledTemps.add(temps[t]);
+            spillColors.put(temps[t], slots.get(slot));
+        }
+        spilledTotal += count;
+
+        Set<Temp> before = new HashSet<Temp>();
+        for (Instr instr : proc.getBody()) {
+            for (Temp t : instr.use()) before.add(t);
+            for (Temp t : instr.def()) before.add(t);
+        }
+        proc.setAsm(new Rewriter(proc).rewrite(spilledTemps, spillColors));
+        for (Instr instr : proc.getBody()) {
+            for (Temp t : instr.use())
+                if (!before.contains(t)) spillTemps.add(t);
+            for (Temp t : instr.def())
+                if (!before.contains(t)) spillTemps.add(t);
+        }
+    }
+
+    private void paint() {
+        for (int t = 0; t < temps.length; t++)
+            temps[t].paint(colors[register[t]]);
+    }
+
+    @Override
+    public void dump(IndentingWriter out) {
+        out.println(trace);
+    }
+
+    public String getTrace() {
+        return trace;
+    }
+}
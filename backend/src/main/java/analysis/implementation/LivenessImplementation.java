@@ -2,11 +2,11 @@ package analysis.implementation;
 
 import ir.temp.Temp;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-import util.ActiveSet;
 import util.List;
 
 import analysis.FlowGraph;
@@ -14,49 +14,254 @@ import analysis.Liveness;
 import util.graph.Node;
 
 
+/**
+ * Liveness analysis that solves the data flow equations
+ * <pre>
+ *    out[n] = U { in[s] | s in succ[n] }
+ *    in[n]  = use[n] U (out[n] - def[n])
+ * </pre>
+ * with an iterative worklist algorithm over bitsets.
+ * <p>
+ * All the Temps mentioned in the flow graph are numbered densely (in order of first
+ * appearance) so that every live-in / live-out set can be stored as a row of
+ * <code>long</code> words in one big array. Nodes are visited in postorder of the
+ * flow graph (i.e. reverse postorder of the reversed graph, which is the natural
+ * order for a backward analysis) and a node is only put back on the worklist when
+ * the live-in set of one of its successors has grown.
+ * <p>
+ * Compared to {@link ActiveSetLiveness}, this avoids allocating listeners and
+ * scanning cons lists for every element added to a set, which made the old
+ * implementation quadratic in the size of a method.
+ */
 public class LivenessImplementation<N> extends Liveness<N> {
-    private Map<Node<N>, ActiveSet<Temp>> outs;
-    private Map<Node<N>, ActiveSet<Temp>> ins;
+
+    /**
+     * Flow graph nodes, indexed by their position in g.nodes().
+     */
+    private Node<N>[] nodes;
+
+    /**
+     * Maps a node's key to its index in {@link #nodes}.
+     */
+    private int[] indexOfKey;
+
+    /**
+     * Dense numbering of all the temps mentioned in the flow graph.
+     */
+    private Temp[] temps;
+    private Map<Temp, Integer> tempIndex = new HashMap<Temp, Integer>();
+
+    private int[][] succs;
+    private int[][] preds;
+    private int[][] uses;
+    private int[][] defs;
+
+    /**
+     * Number of long words in a single bitset row.
+     */
+    private int words;
+    private long[] liveIn;
+    private long[] liveOut;
+
+    /**
+     * liveOut sets converted to Lists, computed lazily on demand.
+     */
+    private List<Temp>[] liveOutLists;
 
     public LivenessImplementation(FlowGraph<N> graph) {
         super(graph);
-        outs = new HashMap<>();
-        ins = new HashMap<>();
+        number();
         calculateLiveness();
     }
 
     @Override
     public List<Temp> liveOut(Node<N> node) {
-        return outs.get(node).getElements();
+        int i = index(node);
+        if (liveOutLists[i] == null)
+            liveOutLists[i] = toList(liveOut, i);
+        return liveOutLists[i];
     }
 
     private List<Temp> liveIn(Node<N> node) {
-        return ins.get(node).getElements();
+        return toList(liveIn, index(node));
     }
 
-    private void calculateLiveness() {
-        for (Node<N> node : g.nodes()) {
-            outs.put(node, new ActiveSet<>());
-            ins.put(node, new ActiveSet<>());
+    /**
+     * Number of distinct Temps mentioned in the flow graph.
+     */
+    public int tempCount() {
+        return temps.length;
+    }
+
+    private int index(Node<N> node) {
+        return indexOfKey[node.getKey()];
+    }
+
+    private List<Temp> toList(long[] sets, int row) {
+        List<Temp> result = List.empty();
+        int base = row * words;
+        for (int w = 0; w < words; w++) {
+            long bits = sets[base + w];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                result.add(temps[(w << 6) + bit]);
+                bits &= bits - 1;
+            }
         }
+        return result;
+    }
+
+    private int tempNumber(Temp t) {
+        Integer i = tempIndex.get(t);
+        if (i == null) {
+            i = tempIndex.size();
+            tempIndex.put(t, i);
+        }
+        return i;
+    }
+
+    private int[] tempNumbers(List<Temp> ts) {
+        int[] result = new int[ts.size()];
+        int i = 0;
+        for (Temp t : ts)
+            result[i++] = tempNumber(t);
+        return result;
+    }
 
+    /**
+     * Number the nodes and temps of the flow graph and translate its edges,
+     * uses and defs into int arrays.
+     */
+    @SuppressWarnings("unchecked")
+    private void number() {
+        int n = g.nodes().size();
+        nodes = new Node[n];
+        int maxKey = -1;
+        int i = 0;
         for (Node<N> node : g.nodes()) {
-            calculateLivenessOut(node);
-            calculateLivenessIn(node);
+            nodes[i++] = node;
+            maxKey = Math.max(maxKey, node.getKey());
+        }
+        indexOfKey = new int[maxKey + 1];
+        for (i = 0; i < n; i++)
+            indexOfKey[nodes[i].getKey()] = i;
+
+        succs = new int[n][];
+        preds = new int[n][];
+        uses = new int[n][];
+        defs = new int[n][];
+        for (i = 0; i < n; i++) {
+            Node<N> node = nodes[i];
+            defs[i] = tempNumbers(g.def(node));
+            uses[i] = tempNumbers(g.use(node));
+            succs[i] = nodeNumbers(node.succ());
+            preds[i] = nodeNumbers(node.pred());
         }
+
+        temps = new Temp[tempIndex.size()];
+        for (Map.Entry<Temp, Integer> e : tempIndex.entrySet())
+            temps[e.getValue()] = e.getKey();
+
+        words = (temps.length + 63) >>> 6;
+        liveIn = new long[n * words];
+        liveOut = new long[n * words];
+        liveOutLists = new List[n];
     }
 
-    private void calculateLivenessOut(Node<N> node) {
-        ActiveSet<Temp> out = outs.get(node);
-        for (Node<N> s : node.succ()) {
-            out.addAll(ins.get(s));
+    private int[] nodeNumbers(List<Node<N>> ns) {
+        int[] result = new int[ns.size()];
+        int i = 0;
+        for (Node<N> node : ns)
+            result[i++] = index(node);
+        return result;
+    }
+
+    /**
+     * Compute a postorder of the flow graph by depth first search from the
+     * entry node. Nodes that are unreachable from the entry are appended in
+     * the same manner, so every node appears exactly once.
+     */
+    private int[] postOrder() {
+        int n = nodes.length;
+        int[] order = new int[n];
+        int count = 0;
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        int[] nextSucc = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) continue;
+            int sp = 0;
+            stack[sp++] = root;
+            visited[root] = true;
+            while (sp > 0) {
+                int top = stack[sp - 1];
+                if (nextSucc[top] < succs[top].length) {
+                    int s = succs[top][nextSucc[top]++];
+                    if (!visited[s]) {
+                        visited[s] = true;
+                        stack[sp++] = s;
+                    }
+                } else {
+                    order[count++] = top;
+                    sp--;
+                }
+            }
         }
+        return order;
     }
 
-    private void calculateLivenessIn(Node<N> node) {
-        ActiveSet<Temp> in = ins.get(node);
-        in.addAll(g.use(node));
-        in.addAll(outs.get(node).remove(g.def(node)));
+    private void calculateLiveness() {
+        int n = nodes.length;
+        if (n == 0) return;
+
+        // The worklist is a circular queue of node indexes. Since a node is
+        // never on the list twice, n slots are enough.
+        int[] queue = postOrder();
+        boolean[] onList = new boolean[n];
+        Arrays.fill(onList, true);
+        int head = 0;
+        int size = n;
+
+        long[] newIn = new long[words];
+        while (size > 0) {
+            int i = queue[head];
+            head = (head + 1) % n;
+            size--;
+            onList[i] = false;
+
+            // out[i] = U in[s]
+            int out = i * words;
+            for (int s : succs[i]) {
+                int in = s * words;
+                for (int w = 0; w < words; w++)
+                    liveOut[out + w] |= liveIn[in + w];
+            }
+
+            // in[i] = use[i] U (out[i] - def[i])
+            System.arraycopy(liveOut, out, newIn, 0, words);
+            for (int d : defs[i])
+                newIn[d >>> 6] &= ~(1L << d);
+            for (int u : uses[i])
+                newIn[u >>> 6] |= 1L << u;
+
+            int in = i * words;
+            boolean changed = false;
+            for (int w = 0; w < words; w++) {
+                if (newIn[w] != liveIn[in + w]) {
+                    liveIn[in + w] = newIn[w];
+                    changed = true;
+                }
+            }
+            if (changed) {
+                for (int p : preds[i]) {
+                    if (!onList[p]) {
+                        onList[p] = true;
+                        queue[(head + size) % n] = p;
+                        size++;
+                    }
+                }
+            }
+        }
     }
 
     private String shortList(List<Temp> l) {
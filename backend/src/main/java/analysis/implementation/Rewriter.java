@@ -2,7 +2,9 @@ package analysis.implementation;
 
 import static util.List.list;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import util.List;
 import codegen.AssemProc;
@@ -32,15 +34,29 @@ public class Rewriter {
         collect = collect.reverse();
     }
 
+    private static boolean mentions(List<Temp> temps, Set<Temp> spilled) {
+        for (Temp t : temps)
+            if (spilled.contains(t)) return true;
+        return false;
+    }
+
     public List<Instr> rewrite(List<Temp> spilled, Map<Temp, Color> map) {
         if (beVerbose) System.out.println("Rewriting: " + proc + "\nFixing: ");
         for (Temp t : spilled) {
             if (beVerbose) System.out.println(t + " -> " + map.get(t));
         }
+        Set<Temp> spilledSet = new HashSet<Temp>();
+        for (Temp t : spilled)
+            spilledSet.add(t);
         for (Instr instr : proc.getBody()) {
             List<Temp> def = instr.def();
             List<Temp> use = instr.use();
             if (beVerbose) System.out.println("Rewriting: " + instr);
+            if (!mentions(def, spilledSet) && !mentions(use, spilledSet)) {
+                // No changes necessary
+                collect(instr);
+                continue;
+            }
             List<Temp> oldtemp = List.empty();
             List<Temp> newtemp = List.empty();
             List<Instr> flush = List.empty();
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import util.IndentingWriter;
 import util.List;
@@ -35,7 +36,7 @@ public class SimpleRegAlloc extends RegAlloc {
     private List<Color> colors;
     private List<Color> spillColors = List.empty();
     private int iteration;
-    static private int incarnation = 0;
+    static private final AtomicInteger incarnations = new AtomicInteger();
 
     /**
      * List of *actual* spills.
@@ -145,8 +146,8 @@ public class SimpleRegAlloc extends RegAlloc {
     }
 
     private boolean isColorOK(Node<Temp> node, Color color) {
-        for (Node<Temp> interferes : node.succ())
-            if (color.equals(getColor(interferes))) return false;
+        for (int i = 0, n = ig.adjacentCount(node); i < n; i++)
+            if (color.equals(getColor(ig.adjacent(node, i)))) return false;
         return true;
     }
 
@@ -169,6 +170,7 @@ public class SimpleRegAlloc extends RegAlloc {
         List<Node<Temp>> toColor = List.empty();
         List<Temp> ordering = List.empty();
         int simplified = 0;
+        int incarnation = incarnations.getAndIncrement();
 
         // Separate pre-colored nodes from other nodes.
         for (Node<Temp> node : ig.nodes())
@@ -177,7 +179,7 @@ public class SimpleRegAlloc extends RegAlloc {
 
         while (!toColor.isEmpty()) {
             for (Node<Temp> node : toColor) {
-                if (node.degree() < registers.size()){
+                if (ig.degree(node) < registers.size()){
                     // This node can be coloured, take it out and
                     // restart the simplification process
                     toColor = toColor.delete(node);
@@ -206,7 +208,6 @@ public class SimpleRegAlloc extends RegAlloc {
             }
             simplified++;
         }
-        incarnation++;
         return ordering;
     }
 
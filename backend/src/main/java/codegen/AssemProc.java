@@ -35,10 +35,16 @@ public class AssemProc extends AssemFragment {
     private Frame frame;
     private ProcFragment procIR;
     private List<Instr> asmBody;
+    private Muncher.Selection selection;
 
     public AssemProc(ProcFragment procIR) {
+        this(procIR, Muncher.Selection.MAXIMAL_MUNCH);
+    }
+
+    public AssemProc(ProcFragment procIR, Muncher.Selection selection) {
         this.frame = procIR.getFrame();
         this.procIR = procIR;
+        this.selection = selection;
         rewrite(); // Actually not "re" writing, but writing for the first time :-)
     }
 
@@ -108,7 +114,9 @@ public class AssemProc extends AssemFragment {
     }
 
     public Muncher newMuncher() {
-        return new X86_64Muncher(frame, false);
+        Muncher m = new X86_64Muncher(frame, false);
+        m.setSelection(selection);
+        return m;
     }
 
     public void rewrite() {
@@ -120,6 +128,15 @@ public class AssemProc extends AssemFragment {
         this.asmBody = procEntryExit2(m.getInstructions());
     }
 
+    /**
+     * Replace the instructions of the body, e.g. by an optimized version of them.
+     * Unlike {@link #setAsm(List)} this keeps the IR, so the body can still be
+     * rewritten from it.
+     */
+    public void setBody(List<Instr> body) {
+        asmBody = body;
+    }
+
     public void setAsm(List<Instr> body) {
         asmBody = body;
         procIR = null;
@@ -1,5 +1,6 @@
 package codegen;
 
+import codegen.muncher.Muncher;
 import translate.DataFragment;
 import translate.Fragment;
 import translate.Fragments;
@@ -19,24 +20,44 @@ import translate.ProcFragment;
  */
 public class CodeGenerator {
 
+    private final Muncher.Selection selection;
+
+    public CodeGenerator() {
+        this(Muncher.Selection.MAXIMAL_MUNCH);
+    }
+
+    /**
+     * @param selection how the muncher chooses between the rules that match a node.
+     */
+    public CodeGenerator(Muncher.Selection selection) {
+        this.selection = selection;
+    }
+
     /**
      * Convert a program from IR into assembly code using this code generator.
      */
     public Assembly apply(Fragments ir_fragments) {
         Assembly assembly = new Assembly();
-        for (Fragment fragment : ir_fragments) {
-            if (fragment instanceof ProcFragment) {
-                assembly.add(apply((ProcFragment) fragment));
-            } else if (fragment instanceof DataFragment) {
-                assembly.add(apply((DataFragment) fragment));
-            } else
-                throw new Error("Code generator doesn't know about fragments of this type");
-        }
+        for (Fragment fragment : ir_fragments)
+            assembly.add(apply(fragment));
         return assembly;
     }
 
+    /**
+     * Convert a single IR fragment into assembly code. Fragments don't depend on
+     * one another, so this may be used to convert several of them at the same time.
+     */
+    public AssemFragment apply(Fragment fragment) {
+        if (fragment instanceof ProcFragment) {
+            return apply((ProcFragment) fragment);
+        } else if (fragment instanceof DataFragment) {
+            return apply((DataFragment) fragment);
+        } else
+            throw new Error("Code generator doesn't know about fragments of this type");
+    }
+
     private AssemFragment apply(ProcFragment fragment) {
-        return new AssemProc(fragment);
+        return new AssemProc(fragment, selection);
     }
 
     private AssemFragment apply(DataFragment fragment) {
@@ -0,0 +1,122 @@
+package codegen;
+
+import ir.temp.Color;
+import ir.temp.Temp;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import util.IndentingWriter;
+import util.List;
+import x86_64sim.Program;
+import x86_64sim.parser.InstructionTemplate;
+
+import codegen.assem.A_LABEL;
+import codegen.assem.A_MOVE;
+import codegen.assem.Instr;
+
+/**
+ * Turns an Assembly straight into a Program for the simulator, instead of
+ * printing it and having the simulator parse the text. The result is the same
+ * Program as that of SimParser.parse(assembly.toString()).
+ * <p>
+ * The assem string of each distinct instruction is decoded once (see
+ * {@link InstructionTemplate}), after which making an instruction only takes
+ * filling in its registers and labels.
+ */
+public class ProgramBuilder {
+
+    private final Map<String, InstructionTemplate> templates = new HashMap<String, InstructionTemplate>();
+
+    public static Program build(Assembly assembly) {
+        return new ProgramBuilder().apply(assembly);
+    }
+
+    public Program apply(Assembly assembly) {
+        Program p = new Program();
+        for (AssemFragment fragment : assembly) {
+            if (fragment instanceof AssemProc)
+                add(p, (AssemProc) fragment);
+            else
+                add(p, (AssemData) fragment);
+        }
+        p.link();
+        return p;
+    }
+
+    private void add(Program p, AssemProc proc) {
+        p.doText();
+        p.add(proc.getLabel().toString());
+        // The entry and exit sequences only exist as text
+        StringWriter entry = new StringWriter();
+        IndentingWriter out = new IndentingWriter(entry);
+        proc.getFrame().entrySequence(out);
+        out.close();
+        template(entry.toString()).addTo(p, null);
+        for (Instr instr : proc.getBody())
+            add(p, instr);
+        StringWriter exit = new StringWriter();
+        out = new IndentingWriter(exit);
+        proc.getFrame().exitSequence(out);
+        out.close();
+        template(exit.toString()).addTo(p, null);
+    }
+
+    private void add(Program p, AssemData data) {
+        p.doData();
+        for (Instr instr : data.getBody()) {
+            if (instr instanceof A_LABEL) {
+                p.add(((A_LABEL) instr).getLabel().toString());
+            } else {
+                String quad = instr.format().trim();
+                if (!quad.startsWith(".quad"))
+                    throw new Error("Can't put " + quad + " in the static data\n");
+                p.doQuad(quad.substring(".quad".length()).trim());
+            }
+        }
+    }
+
+    private void add(Program p, final Instr instr) {
+        if (instr instanceof A_LABEL) {
+            p.add(((A_LABEL) instr).getLabel().toString());
+            return;
+        }
+        if (instr instanceof A_MOVE) {
+            // A move between Temps with the same color is commented out when printed
+            A_MOVE move = (A_MOVE) instr;
+            if (move.dst.getColor() != null && move.dst.getColor().equals(move.src.getColor()))
+                return;
+        }
+        template(instr.assem).addTo(p, new InstructionTemplate.Holes() {
+            @Override
+            public String fill(char kind, int number) {
+                switch (kind) {
+                    case 's':
+                        return register(instr.use(), number);
+                    case 'd':
+                        return register(instr.def(), number);
+                    case 'j':
+                        return instr.jumps().get(number).toString();
+                    default:
+                        throw new Error("bad Assem format");
+                }
+            }
+        });
+    }
+
+    private static String register(List<Temp> temps, int number) {
+        Temp temp = temps.get(number);
+        Color color = temp.getColor();
+        return color == null ? temp.getName() : color.toString();
+    }
+
+    private InstructionTemplate template(String assem) {
+        InstructionTemplate template = templates.get(assem);
+        if (template == null) {
+            template = InstructionTemplate.decode(assem);
+            templates.put(assem, template);
+        }
+        return template;
+    }
+}
@@ -43,6 +43,16 @@ public class A_LABEL extends Instr {
         return label;
     }
 
+    /**
+     * In the assem string of a label, `l stands for the label itself. A Label may
+     * be renamed after the instruction was made (see ir.temp.NameScope) so this is
+     * better than spelling out its name.
+     */
+    @Override
+    public String format() {
+        return assem.replace("`l", label.toString());
+    }
+
     @Override
     public void dump(IndentingWriter out) {
         out.outdent();
@@ -16,6 +16,7 @@ import ir.temp.Temp;
  * <li> `d<digit>  : insert destination operand here (i.e. def().get(<digit>) )
  * <li> `s<digit>  : insert source operand here (i.e. use().get(<digit>) )
  * <li> `j<digit>  : insert jump target here (i.e. jumps().get(<digit>) )
+ * <li> `l        : insert the label here (only for an A_LABEL)
  * <li> ``         : insert a ` here.
  * </ul>
  */
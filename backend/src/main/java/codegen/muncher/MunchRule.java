@@ -1,5 +1,7 @@
 package codegen.muncher;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import util.DefaultIndentable;
 import util.IndentingWriter;
 import util.List;
@@ -20,7 +22,7 @@ public abstract class MunchRule<N extends IRNode, R> extends DefaultIndentable {
         private MunchRule<N, R> trigger;
 
         private ExplodedRule(Pat<N> pat, MunchRule<N, R> trigger) {
-            super(pat);
+            super(pat, trigger.getCost());
             this.trigger = trigger;
         }
 
@@ -31,11 +33,25 @@ public abstract class MunchRule<N extends IRNode, R> extends DefaultIndentable {
     }
 
     public MunchRule(Pat<N> pat) {
+        this(pat, 1);
+    }
+
+    /**
+     * @param cost the cost of the instructions emitted by this rule itself, not
+     *             counting those for the subtrees it munches.
+     */
+    public MunchRule(Pat<N> pat, int cost) {
         this.pat = pat;
+        this.cost = cost;
     }
 
     private Pat<N> pat;
-    private int matched = 0;
+    private int cost;
+    /**
+     * How often this rule matched. The rules are shared by all Munchers, which may be
+     * munching on different threads.
+     */
+    private final LongAdder matched = new LongAdder();
 
     /**
      * This method is called when a rules gets triggered (because
@@ -50,10 +66,33 @@ public abstract class MunchRule<N extends IRNode, R> extends DefaultIndentable {
 
     public Matched match(N to) {
         Matched result = pat.tryMatch(to);
-        if (result != null) matched++;
+        if (result != null) matched.increment();
         return result;
     }
 
+    /**
+     * Like match(N) but binds into the given Matched, after clearing it, rather
+     * than allocating a new one.
+     */
+    public boolean match(N to, Matched into) {
+        into.clear();
+        if (!pat.matches(to, into))
+            return false;
+        matched.increment();
+        return true;
+    }
+
+    public Pat<N> getPattern() {
+        return pat;
+    }
+
+    /**
+     * The cost used to choose between rules in {@link Muncher.Selection#MINIMUM_COST} mode.
+     */
+    public int getCost() {
+        return cost;
+    }
+
     public int getPriority() {
         return pat.size();
     }
@@ -61,7 +100,7 @@ public abstract class MunchRule<N extends IRNode, R> extends DefaultIndentable {
     @Override
     public void dump(IndentingWriter out) {
         out.print(pat);
-        out.print(" ==> " + matched + " times");
+        out.print(" ==> " + matched.sum() + " times");
     }
 
     @SuppressWarnings("unchecked")
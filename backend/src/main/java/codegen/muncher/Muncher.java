@@ -1,16 +1,58 @@
 package codegen.muncher;
 
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import util.DefaultIndentable;
 import util.IndentingWriter;
 import util.List;
 import ir.frame.Frame;
 import ir.temp.Temp;
 import ir.tree.IRExp;
+import ir.tree.IRNode;
 import ir.tree.IRStm;
 import codegen.assem.Instr;
+import codegen.patterns.Matched;
 
 public abstract class Muncher extends DefaultIndentable {
 
+    /**
+     * The ways of choosing which rule to use for a node.
+     */
+    public enum Selection {
+        /**
+         * Maximal munch: use the matching rule with the largest pattern, top-down.
+         */
+        MAXIMAL_MUNCH,
+        /**
+         * Maximal munch, but trying all the rules in turn instead of only those the rule
+         * index says may match. Selects the same rules as {@link #MAXIMAL_MUNCH}, more
+         * slowly; it is there to compare against.
+         */
+        MAXIMAL_MUNCH_UNINDEXED,
+        /**
+         * Label the tree bottom-up with the cheapest way to cover each node, using
+         * the cost of each rule (see {@link MunchRule#getCost()}), and then emit that
+         * cheapest covering.
+         */
+        MINIMUM_COST
+    }
+
+    /**
+     * The cheapest rule found for a node, and the total cost of covering the node's
+     * subtree when using it.
+     */
+    static class Tile {
+        final MunchRule<?, ?> rule;
+        final int cost;
+
+        Tile(MunchRule<?, ?> rule, int cost) {
+            this.rule = rule;
+            this.cost = cost;
+        }
+    }
+
     /**
      * Accumulates a list of instructions produced by emit.
      */
@@ -24,6 +66,73 @@ public abstract class Muncher extends DefaultIndentable {
     private long nesting = 0;
     private Frame frame;
 
+    /**
+     * Scratch space for MuncherRules to bind the matched patterns in. There is one for
+     * each level of nesting, because a trigger still reads its bindings after munching
+     * the children.
+     */
+    private Matched[] scratch = new Matched[16];
+
+    private Selection selection = Selection.MAXIMAL_MUNCH;
+
+    /**
+     * The tiles chosen for the nodes labelled so far, in {@link Selection#MINIMUM_COST} mode.
+     */
+    private Map<IRNode, Tile> tiles = new IdentityHashMap<IRNode, Tile>();
+
+    public boolean isTracing() {
+        return doTrace;
+    }
+
+    Matched scratch() {
+        int level = (int) nesting;
+        if (level >= scratch.length)
+            scratch = Arrays.copyOf(scratch, level * 2);
+        if (scratch[level] == null)
+            scratch[level] = new Matched();
+        return scratch[level];
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    public void setSelection(Selection selection) {
+        this.selection = selection;
+    }
+
+    /**
+     * The cheapest tile for node (which is munched using the given rules), labelling
+     * the node and its subtrees if that hasn't been done yet.
+     */
+    <N extends IRNode, R> Tile label(MuncherRules<N, R> rules, N node) {
+        Tile tile = tiles.get(node);
+        if (tile == null) {
+            nesting++;
+            tile = rules.label(this, node);
+            nesting--;
+            tiles.put(node, tile);
+        }
+        return tile;
+    }
+
+    /**
+     * The cost of covering whatever a rule bound to one of its wildcards, assuming its
+     * trigger munches it: an IRExp, or each IRExp in a list of them (like the arguments of
+     * a CALL). Other things (Temps, Labels, constants) cost nothing.
+     */
+    int cost(Object bound) {
+        if (bound instanceof IRExp)
+            return label(expMunchers, (IRExp) bound).cost;
+        if (bound instanceof List) {
+            int cost = 0;
+            for (Object element : (List<?>) bound)
+                cost += cost(element);
+            return cost;
+        }
+        return 0;
+    }
+
     public void trace(String s) {
         if (!doTrace) return;
         for (int i = 0; i < nesting - 1; ++i)
@@ -69,7 +178,8 @@ public abstract class Muncher extends DefaultIndentable {
      */
     public void emit(Instr instr) {
         instructions.add(instr);
-        trace("Emitting " + instr);
+        if (doTrace)
+            trace("Emitting " + instr);
     }
 
     /**
@@ -5,14 +5,19 @@ import static util.List.list;
 
 import ir.tree.IRNode;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import util.DefaultIndentable;
 import util.IndentingWriter;
 import util.List;
 
+import codegen.patterns.IRPat;
 import codegen.patterns.Matched;
+import codegen.patterns.Pat;
 
 
 /**
@@ -25,11 +30,22 @@ import codegen.patterns.Matched;
  * MunchRules each time you want to use it (it is advisable to only build one instance
  * for IRStm and one for IRExp and then to keep reusing those instances, because building
  * the rules table and sorting it according to priority costs time).
+ * <p>
+ * Rather than trying every rule in turn, the rules are indexed by the kind of node
+ * their pattern matches (see {@link Pat#kind()}) and by the kinds of that node's
+ * children. To munch a node we only try the rules whose pattern agrees with the node
+ * on both counts, still in order of priority, so the selected rule is the same one a
+ * linear scan of all the rules would find.
  *
  * @author kdvolder
  */
 public class MuncherRules<N extends IRNode, R> extends DefaultIndentable {
 
+    /**
+     * The maximum number of IR children the index looks at.
+     */
+    private static final int MAX_KIDS = 4;
+
     /**
      * These are the actual rules, sorted based from highest priority to lowest.
      */
@@ -41,22 +57,175 @@ public class MuncherRules<N extends IRNode, R> extends DefaultIndentable {
      */
     private Set<String> ruleSignatures = new HashSet<String>();
 
+    /**
+     * The rules that can match each kind of node. Built the first time it is needed,
+     * once all the rules have been added, and dropped again if another rule is added.
+     * The rules are shared by all the Munchers, which may run in parallel, so it is
+     * only replaced as a whole.
+     */
+    private volatile Index<N, R> index;
+
+    private static class Index<N extends IRNode, R> {
+        final Map<Object, RuleIndex<N, R>> byKind;
+
+        /**
+         * The rules that can match any kind of node, used for kinds not in byKind.
+         */
+        final RuleIndex<N, R> anyKind;
+
+        Index(Map<Object, RuleIndex<N, R>> byKind, RuleIndex<N, R> anyKind) {
+            this.byKind = byKind;
+            this.anyKind = anyKind;
+        }
+    }
+
+    /**
+     * The rules for one kind of node, in priority order, with a table for each child
+     * position recording which rules accept which kinds of child there.
+     */
+    private static class RuleIndex<N extends IRNode, R> {
+        final MunchRule<N, R>[] rules;
+        final Map<Object, boolean[]>[] accepts;
+        final boolean[][] acceptsAny;
+
+        @SuppressWarnings("unchecked")
+        RuleIndex(ArrayList<MunchRule<N, R>> rules) {
+            this.rules = rules.toArray((MunchRule<N, R>[]) new MunchRule<?, ?>[rules.size()]);
+            this.accepts = (Map<Object, boolean[]>[]) new Map<?, ?>[MAX_KIDS];
+            this.acceptsAny = new boolean[MAX_KIDS][this.rules.length];
+            for (int k = 0; k < MAX_KIDS; k++)
+                accepts[k] = new HashMap<Object, boolean[]>();
+
+            // First find all the kinds of children that are mentioned, then record for
+            // every kind which of the rules accept it.
+            for (MunchRule<N, R> rule : this.rules) {
+                Pat<?>[] kids = rule.getPattern().kids();
+                if (kids.length > MAX_KIDS)
+                    throw new Error("Pattern has too many children to index: " + rule.brief());
+                for (int k = 0; k < kids.length; k++) {
+                    Object kind = kids[k].kind();
+                    if (kind != null && !accepts[k].containsKey(kind))
+                        accepts[k].put(kind, new boolean[this.rules.length]);
+                }
+            }
+            for (int r = 0; r < this.rules.length; r++) {
+                Pat<?>[] kids = this.rules[r].getPattern().kids();
+                for (int k = 0; k < MAX_KIDS; k++) {
+                    Object kind = k < kids.length ? kids[k].kind() : null;
+                    if (kind == null) {
+                        acceptsAny[k][r] = true;
+                        for (boolean[] accepting : accepts[k].values())
+                            accepting[r] = true;
+                    } else {
+                        accepts[k].get(kind)[r] = true;
+                    }
+                }
+            }
+        }
+
+        boolean[] accepting(N node, int k) {
+            boolean[] accepting = accepts[k].get(IRPat.kind(IRPat.kid(node, k)));
+            return accepting == null ? acceptsAny[k] : accepting;
+        }
+    }
+
     R munch(Muncher muncher, N node) {
-        //This selection / trigger mechanism is a naive linear scan of all the rules. In "real"
-        //compilers a more sophisticated algorithm would be used to speed up the matching process.
-        muncher.trace("Munching " + node.onOneLine());
-        for (MunchRule<N, R> rule : rules) {
-            // muncher.trace("  Trying rule " + rule.brief());
-            Matched match = rule.match(node);
-            if (match != null) {
-                muncher.trace("    Matched " + rule.brief() + " with bindings " + match);
-                return rule.trigger(muncher, match);
+        if (muncher.isTracing())
+            muncher.trace("Munching " + node.onOneLine());
+        if (muncher.getSelection() == Muncher.Selection.MINIMUM_COST)
+            return munchCheapest(muncher, node);
+        if (muncher.getSelection() == Muncher.Selection.MAXIMAL_MUNCH_UNINDEXED)
+            return munchLinear(muncher, node);
+
+        RuleIndex<N, R> candidates = candidates(node);
+        boolean[] kid0 = candidates.accepting(node, 0);
+        boolean[] kid1 = candidates.accepting(node, 1);
+        boolean[] kid2 = candidates.accepting(node, 2);
+        boolean[] kid3 = candidates.accepting(node, 3);
+        MunchRule<N, R>[] rules = candidates.rules;
+        Matched match = muncher.scratch();
+        for (int i = 0; i < rules.length; i++) {
+            if (!(kid0[i] && kid1[i] && kid2[i] && kid3[i]))
+                continue;
+            if (rules[i].match(node, match))
+                return trigger(muncher, rules[i], match);
+        }
+        throw new Error("No matching munch rule for this node:\n" + node);
+    }
+
+    private RuleIndex<N, R> candidates(N node) {
+        Index<N, R> index = this.index;
+        if (index == null)
+            index = reindex();
+        RuleIndex<N, R> candidates = index.byKind.get(IRPat.kind(node));
+        return candidates == null ? index.anyKind : candidates;
+    }
+
+    @SuppressWarnings("unchecked")
+    private R munchCheapest(Muncher muncher, N node) {
+        MunchRule<N, R> rule = (MunchRule<N, R>) muncher.label(this, node).rule;
+        Matched match = muncher.scratch();
+        if (!rule.match(node, match))
+            throw new Error("Cheapest rule doesn't match: " + rule.brief());
+        return trigger(muncher, rule, match);
+    }
+
+    /**
+     * Find the cheapest rule for a node. The cost of a rule is its own cost plus the cost
+     * of the cheapest covering of each of the subtrees it leaves to be munched (see
+     * {@link Muncher#cost(Object)}). Rules that cost the same are taken in order of
+     * priority, so where costs don't matter we pick the same rule as maximal munch.
+     */
+    Muncher.Tile label(Muncher muncher, N node) {
+        RuleIndex<N, R> candidates = candidates(node);
+        boolean[] kid0 = candidates.accepting(node, 0);
+        boolean[] kid1 = candidates.accepting(node, 1);
+        boolean[] kid2 = candidates.accepting(node, 2);
+        boolean[] kid3 = candidates.accepting(node, 3);
+        MunchRule<N, R>[] rules = candidates.rules;
+        Matched match = muncher.scratch();
+        MunchRule<N, R> best = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (int i = 0; i < rules.length; i++) {
+            if (!(kid0[i] && kid1[i] && kid2[i] && kid3[i]))
+                continue;
+            match.clear();
+            if (!rules[i].getPattern().matches(node, match))
+                continue;
+            int cost = rules[i].getCost();
+            for (int b = 0; b < match.size() && cost < bestCost; b++)
+                cost += muncher.cost(match.value(b));
+            if (cost < bestCost) {
+                best = rules[i];
+                bestCost = cost;
             }
         }
+        if (best == null)
+            throw new Error("No matching munch rule for this node:\n" + node);
+        return new Muncher.Tile(best, bestCost);
+    }
+
+    private R munchLinear(Muncher muncher, N node) {
+        Matched match = muncher.scratch();
+        for (MunchRule<N, R> rule : rules) {
+            if (rule.match(node, match))
+                return trigger(muncher, rule, match);
+        }
         throw new Error("No matching munch rule for this node:\n" + node);
     }
 
-    public void add(MunchRule<N, R> _munchRule) {
+    private R trigger(Muncher muncher, MunchRule<N, R> rule, Matched match) {
+        if (muncher.isTracing())
+            muncher.trace("    Matched " + rule.brief() + " with bindings " + match);
+        return rule.trigger(muncher, match);
+    }
+
+    public synchronized void add(MunchRule<N, R> _munchRule) {
+        addRule(_munchRule);
+        index = null;
+    }
+
+    private void addRule(MunchRule<N, R> _munchRule) {
         if (_munchRule.isAtomic()) {
             if (!ruleSignatures.contains(_munchRule.signature())) {
                 rules = insert(_munchRule, rules);
@@ -64,7 +233,35 @@ public class MuncherRules<N extends IRNode, R> extends DefaultIndentable {
             }
         } else
             for (MunchRule<N, R> munchRule : _munchRule.explode())
-                this.add(munchRule);
+                this.addRule(munchRule);
+    }
+
+    private synchronized Index<N, R> reindex() {
+        if (this.index != null)
+            return this.index;
+        Map<Object, ArrayList<MunchRule<N, R>>> byKind = new HashMap<Object, ArrayList<MunchRule<N, R>>>();
+        ArrayList<MunchRule<N, R>> any = new ArrayList<MunchRule<N, R>>();
+        for (MunchRule<N, R> rule : rules) {
+            Object kind = rule.getPattern().kind();
+            if (kind == null) {
+                // Rules that match anything are candidates for every kind of node.
+                any.add(rule);
+                for (ArrayList<MunchRule<N, R>> forKind : byKind.values())
+                    forKind.add(rule);
+            } else {
+                ArrayList<MunchRule<N, R>> forKind = byKind.get(kind);
+                if (forKind == null) {
+                    forKind = new ArrayList<MunchRule<N, R>>(any);
+                    byKind.put(kind, forKind);
+                }
+                forKind.add(rule);
+            }
+        }
+        Map<Object, RuleIndex<N, R>> indexed = new HashMap<Object, RuleIndex<N, R>>();
+        for (Map.Entry<Object, ArrayList<MunchRule<N, R>>> entry : byKind.entrySet())
+            indexed.put(entry.getKey(), new RuleIndex<N, R>(entry.getValue()));
+        this.index = new Index<N, R>(indexed, new RuleIndex<N, R>(any));
+        return this.index;
     }
 
     @SuppressWarnings("unchecked")
@@ -18,6 +18,16 @@ public class BINOPPat extends Pat<IRExp> {
         this.r = r;
     }
 
+    @Override
+    public Object kind() {
+        return op;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{l, r};
+    }
+
     @Override
     public void dump(IndentingWriter out) {
         out.print(op);
@@ -29,13 +39,13 @@ public class BINOPPat extends Pat<IRExp> {
     }
 
     @Override
-    public void match(IRExp toMatch, Matched matched)
-            throws codegen.patterns.Pat.Failed, ClassCastException {
+    public boolean matches(IRExp toMatch, Matched matched) {
+        if (!(toMatch instanceof BINOP))
+            return false;
         BINOP binop = (BINOP) toMatch;
-        if (op != binop.getOp()) fail();
-        l.match(binop.getLeft(), matched);
-        r.match(binop.getRight(), matched);
-        //matched.put(this, toMatch);
+        return op == binop.getOp()
+                && l.matches(binop.getLeft(), matched)
+                && r.matches(binop.getRight(), matched);
     }
 
     @SuppressWarnings("unchecked")
@@ -16,12 +16,22 @@ public class CALLPat extends Pat<IRExp> {
     }
 
     @Override
-    public void match(IRExp toMatch, Matched matched)
-            throws Failed, ClassCastException {
+    public boolean matches(IRExp toMatch, Matched matched) {
+        if (!(toMatch instanceof CALL))
+            return false;
         CALL call = (CALL) toMatch;
-        func.match(call.getFunc(), matched);
-        args.match(call.getArgs(), matched);
-        //matched.put(this, toMatch);
+        return func.matches(call.getFunc(), matched)
+                && args.matches(call.getArgs(), matched);
+    }
+
+    @Override
+    public Object kind() {
+        return CALL.class;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{func};
     }
 
     @Override
@@ -25,15 +25,25 @@ public class CJUMPPat extends Pat<IRStm> {
     }
 
     @Override
-    public void match(IRStm toMatch, Matched matched)
-            throws Failed, ClassCastException {
+    public boolean matches(IRStm toMatch, Matched matched) {
+        if (!(toMatch instanceof CJUMP))
+            return false;
         CJUMP cjump = (CJUMP) toMatch;
-        op.match(cjump.getOp(), matched);
-        l.match(cjump.getLeft(), matched);
-        r.match(cjump.getRight(), matched);
-        t.match(cjump.getTrueLabel(), matched);
-        f.match(cjump.getFalseLabel(), matched);
-        //matched.put(this, toMatch);
+        return op.matches(cjump.getOp(), matched)
+                && l.matches(cjump.getLeft(), matched)
+                && r.matches(cjump.getRight(), matched)
+                && t.matches(cjump.getTrueLabel(), matched)
+                && f.matches(cjump.getFalseLabel(), matched);
+    }
+
+    @Override
+    public Object kind() {
+        return CJUMP.class;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{l, r};
     }
 
     @Override
@@ -24,15 +24,25 @@ public class CMOVEPat extends Pat<IRStm> {
     }
 
     @Override
-    public void match(IRStm toMatch, Matched matched)
-            throws Failed, ClassCastException {
+    public boolean matches(IRStm toMatch, Matched matched) {
+        if (!(toMatch instanceof CMOVE))
+            return false;
         CMOVE cmove = (CMOVE) toMatch;
-        op.match(cmove.getOp(), matched);
-        l.match(cmove.getLeft(), matched);
-        r.match(cmove.getRight(), matched);
-        d.match(cmove.getDst(), matched);
-        s.match(cmove.getSrc(), matched);
-        //matched.put(this, toMatch);
+        return op.matches(cmove.getOp(), matched)
+                && l.matches(cmove.getLeft(), matched)
+                && r.matches(cmove.getRight(), matched)
+                && d.matches(cmove.getDst(), matched)
+                && s.matches(cmove.getSrc(), matched);
+    }
+
+    @Override
+    public Object kind() {
+        return CMOVE.class;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{l, r, d, s};
     }
 
     @Override
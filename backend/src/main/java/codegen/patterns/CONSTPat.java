@@ -14,10 +14,15 @@ public class CONSTPat extends Pat<IRExp> {
     }
 
     @Override
-    public void match(IRExp toMatch, Matched matched)
-            throws Failed, ClassCastException {
-        CONST cnst = (CONST) toMatch;
-        value.match(cnst.getValue(), matched);
+    public boolean matches(IRExp toMatch, Matched matched) {
+        if (!(toMatch instanceof CONST))
+            return false;
+        return value.matches(((CONST) toMatch).getValue(), matched);
+    }
+
+    @Override
+    public Object kind() {
+        return CONST.class;
     }
 
     @Override
@@ -15,11 +15,20 @@ public class EXPPat extends Pat<IRStm> {
     }
 
     @Override
-    public void match(IRStm toMatch, Matched m)
-            throws codegen.patterns.Pat.Failed, ClassCastException {
-        EXP e = (EXP) toMatch;
-        exp.match(e.exp, m);
-        //m.put(this, toMatch);
+    public boolean matches(IRStm toMatch, Matched m) {
+        if (!(toMatch instanceof EXP))
+            return false;
+        return exp.matches(((EXP) toMatch).exp, m);
+    }
+
+    @Override
+    public Object kind() {
+        return EXP.class;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{exp};
     }
 
     @Override
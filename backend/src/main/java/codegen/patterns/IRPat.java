@@ -3,8 +3,16 @@ package codegen.patterns;
 import util.List;
 import ir.temp.Label;
 import ir.temp.Temp;
+import ir.tree.BINOP;
+import ir.tree.CALL;
+import ir.tree.CJUMP;
+import ir.tree.CMOVE;
+import ir.tree.EXP;
 import ir.tree.IRExp;
 import ir.tree.IRStm;
+import ir.tree.JUMP;
+import ir.tree.MEM;
+import ir.tree.MOVE;
 import ir.tree.BINOP.Op;
 import ir.tree.CJUMP.RelOp;
 import codegen.patterns.CMOVEPat;
@@ -99,9 +107,60 @@ public class IRPat {
     }
 
     // Special:
+    @SafeVarargs
     public static <N> Pat<N> or(Pat<N>... pats) {
         return new OrPat<N>(pats);
     }
 
+    // Indexing, see Pat.kind() and Pat.kids():
+
+    /**
+     * The kind of an IR node, as used to index patterns: the operator of a
+     * BINOP, or the class of any other node.
+     */
+    public static Object kind(Object node) {
+        if (node == null)
+            return null;
+        if (node instanceof BINOP)
+            return ((BINOP) node).getOp();
+        return node.getClass();
+    }
+
+    /**
+     * The i-th IR child of a node, in the order in which the patterns for
+     * that kind of node list their {@link Pat#kids()}, or null if it has no
+     * such child.
+     */
+    public static Object kid(Object node, int i) {
+        if (node instanceof BINOP) {
+            BINOP binop = (BINOP) node;
+            return i == 0 ? binop.getLeft() : i == 1 ? binop.getRight() : null;
+        } else if (node instanceof MEM) {
+            return i == 0 ? ((MEM) node).exp : null;
+        } else if (node instanceof MOVE) {
+            MOVE move = (MOVE) node;
+            return i == 0 ? move.dst : i == 1 ? move.src : null;
+        } else if (node instanceof CJUMP) {
+            CJUMP cjump = (CJUMP) node;
+            return i == 0 ? cjump.left : i == 1 ? cjump.right : null;
+        } else if (node instanceof CMOVE) {
+            CMOVE cmove = (CMOVE) node;
+            switch (i) {
+                case 0: return cmove.left;
+                case 1: return cmove.right;
+                case 2: return cmove.dst;
+                case 3: return cmove.src;
+                default: return null;
+            }
+        } else if (node instanceof EXP) {
+            return i == 0 ? ((EXP) node).exp : null;
+        } else if (node instanceof JUMP) {
+            return i == 0 ? ((JUMP) node).getExp() : null;
+        } else if (node instanceof CALL) {
+            return i == 0 ? ((CALL) node).getFunc() : null;
+        }
+        return null;
+    }
+
 
 }
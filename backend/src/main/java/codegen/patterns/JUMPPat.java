@@ -15,11 +15,20 @@ public class JUMPPat extends Pat<IRStm> {
     }
 
     @Override
-    public void match(IRStm toMatch, Matched m)
-            throws Failed, ClassCastException {
-        JUMP jump = (JUMP) toMatch;
-        exp.match(jump.getExp(), m);
-        //m.put(this, toMatch);
+    public boolean matches(IRStm toMatch, Matched m) {
+        if (!(toMatch instanceof JUMP))
+            return false;
+        return exp.matches(((JUMP) toMatch).getExp(), m);
+    }
+
+    @Override
+    public Object kind() {
+        return JUMP.class;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{exp};
     }
 
     @Override
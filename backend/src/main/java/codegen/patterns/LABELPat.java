@@ -15,11 +15,15 @@ public class LABELPat extends Pat<IRStm> {
     }
 
     @Override
-    public void match(IRStm toMatch, Matched matched)
-            throws Failed, ClassCastException {
-        LABEL label = (LABEL) toMatch;
-        l.match(label.getLabel(), matched);
-        //matched.put(this, toMatch);
+    public boolean matches(IRStm toMatch, Matched matched) {
+        if (!(toMatch instanceof LABEL))
+            return false;
+        return l.matches(((LABEL) toMatch).getLabel(), matched);
+    }
+
+    @Override
+    public Object kind() {
+        return LABEL.class;
     }
 
     @Override
@@ -14,11 +14,20 @@ public class MEMPat extends Pat<IRExp> {
     }
 
     @Override
-    public void match(IRExp toMatch, Matched m)
-            throws Failed, ClassCastException {
-        MEM mem = (MEM) toMatch;
-        exp.match(mem.exp, m);
-        //m.put(this, toMatch);
+    public boolean matches(IRExp toMatch, Matched m) {
+        if (!(toMatch instanceof MEM))
+            return false;
+        return exp.matches(((MEM) toMatch).exp, m);
+    }
+
+    @Override
+    public Object kind() {
+        return MEM.class;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{exp};
     }
 
     @Override
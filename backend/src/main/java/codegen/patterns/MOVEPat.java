@@ -17,12 +17,22 @@ public class MOVEPat extends Pat<IRStm> {
     }
 
     @Override
-    public void match(IRStm toMatch, Matched m)
-            throws codegen.patterns.Pat.Failed, ClassCastException {
+    public boolean matches(IRStm toMatch, Matched m) {
+        if (!(toMatch instanceof MOVE))
+            return false;
         MOVE move = (MOVE) toMatch;
-        dst.match(move.dst, m);
-        src.match(move.src, m);
-        //m.put(this, toMatch);
+        return dst.matches(move.dst, m)
+                && src.matches(move.src, m);
+    }
+
+    @Override
+    public Object kind() {
+        return MOVE.class;
+    }
+
+    @Override
+    public Pat<?>[] kids() {
+        return new Pat<?>[]{dst, src};
     }
 
     @Override
@@ -1,7 +1,6 @@
 package codegen.patterns;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import util.DefaultIndentable;
 
@@ -11,31 +10,76 @@ import util.DefaultIndentable;
  * a map entry associating the wildcard to its value is
  * added to a map. This map is returned as the result of a
  * successful matching operation.
+ * <p>
+ * A pattern only has a handful of wildcards, so rather than a HashMap
+ * we keep the entries in a pair of small arrays and search them linearly.
+ * A Matched can be {@link #clear()}ed and reused for the next match.
  */
 public class Matched {
 
-    private Map<Wildcard<?>, Object> map = new HashMap<Wildcard<?>, Object>();
+    private Wildcard<?>[] keys = new Wildcard<?>[8];
+    private Object[] values = new Object[8];
+    private int size = 0;
 
     public <T> void put(Wildcard<T> pat, T matched) {
-        assert (!map.containsKey(pat));
-        map.put(pat, matched);
+        assert (indexOf(pat) < 0);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = pat;
+        values[size] = matched;
+        size++;
     }
 
     @SuppressWarnings("unchecked")
     public <T> T get(Pat<T> pat) {
-        return (T) map.get(pat);
+        int i = indexOf(pat);
+        return i < 0 ? null : (T) values[i];
+    }
+
+    /**
+     * The number of bindings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The value bound by the i-th binding, in the order they were made.
+     */
+    public Object value(int i) {
+        return values[i];
+    }
+
+    /**
+     * Forget all the bindings, so this can be used for another match.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    private int indexOf(Pat<?> pat) {
+        for (int i = 0; i < size; i++)
+            if (keys[i] == pat)
+                return i;
+        return -1;
     }
 
     public String toString() {
         StringBuffer sb = new StringBuffer();
-        for (Wildcard<?> w : map.keySet()) {
-            sb.append(w);
+        for (int i = 0; i < size; i++) {
+            sb.append(keys[i]);
             sb.append("->");
-            Object o = map.get(w);
+            Object o = values[i];
             if (o instanceof DefaultIndentable) {
                 sb.append(((DefaultIndentable) o).onOneLine());
             } else {
-                sb.append(map.get(w));
+                sb.append(o);
             }
             sb.append(", ");
         }
@@ -15,10 +15,15 @@ public class NAMEPat extends Pat<IRExp> {
     }
 
     @Override
-    public void match(IRExp toMatch, Matched matched)
-            throws Failed, ClassCastException {
-        NAME name = (NAME) toMatch;
-        l.match(name.getLabel(), matched);
+    public boolean matches(IRExp toMatch, Matched matched) {
+        if (!(toMatch instanceof NAME))
+            return false;
+        return l.matches(((NAME) toMatch).getLabel(), matched);
+    }
+
+    @Override
+    public Object kind() {
+        return NAME.class;
     }
 
     @Override
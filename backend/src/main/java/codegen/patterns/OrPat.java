@@ -15,13 +15,13 @@ public class OrPat<N> extends Pat<N> {
 
     private List<Pat<N>> pats;
 
+    @SafeVarargs
     public OrPat(Pat<N>... pats) {
         this.pats = List.list(pats);
     }
 
     @Override
-    public void match(N toMatch, Matched matched)
-            throws codegen.patterns.Pat.Failed, ClassCastException {
+    public boolean matches(N toMatch, Matched matched) {
         //The way we currently use these patterns, the match operation will not
         //be called unless a pattern has a fixed size.
         //It may be useful in the future to implement this method however.
@@ -39,15 +39,20 @@ public abstract class Pat<N> extends DefaultIndentable {
      */
     public Matched tryMatch(N toMatch) {
         Matched m = new Matched();
-        try {
-            match(toMatch, m);
+        if (matches(toMatch, m))
             return m;
-        } catch (ClassCastException e) {
-        } catch (Failed e) {
-        }
         return null;
     }
 
+    /**
+     * Match this pattern against a node, adding the bindings of its wildcards to
+     * matched. Unlike {@link #tryMatch(Object)} this allocates nothing, so callers
+     * that match a lot (like the muncher) can keep reusing the same Matched,
+     * clearing it before each attempt. When the match fails, matched may hold some
+     * bindings from the parts that did match.
+     */
+    public abstract boolean matches(N toMatch, Matched matched);
+
     /**
      * Retrieve a list of this pattern's sub patterns. Returns an empty list if this
      * is a "leaf" pattern.
@@ -110,20 +115,52 @@ public abstract class Pat<N> extends DefaultIndentable {
     }
 
     /**
-     * This method should only be called recursively by another match methods. To make the matcher
-     * methods easier to implement, we will catch any {@link ClassCastException} and treat it as a
-     * failure to match.
+     * Like {@link #matches(Object, Matched)}, but failing with an exception.
      *
      * @param toMatch
      * @param matched a List which should be initially empty to accumulate the children of a matched pattern.
      * @throws Failed
      */
-    public abstract void match(N toMatch, Matched matched) throws Failed, ClassCastException;
+    public final void match(N toMatch, Matched matched) throws Failed {
+        if (!matches(toMatch, matched))
+            fail();
+    }
+
+    private static final Pat<?>[] NO_KIDS = new Pat<?>[0];
+
+    /**
+     * The kind of IR node this pattern matches (see {@link IRPat#kind(Object)}), or
+     * null if it can match nodes of any kind.
+     * <p>
+     * This is used by MuncherRules to index its rules, so that for a given node it only
+     * has to try the rules that can possibly match it.
+     */
+    public Object kind() {
+        return null;
+    }
+
+    /**
+     * The sub patterns that are matched against the IR children of a node, in the order
+     * of {@link IRPat#kid(Object, int)}.
+     */
+    public Pat<?>[] kids() {
+        return NO_KIDS;
+    }
 
     public static class Failed extends Exception {
         private static final long serialVersionUID = 1L;
+
+        /**
+         * Failures are used for control flow only, so don't bother with a stack trace.
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
     }
 
+    private static final Failed FAILED = new Failed();
+
     //// Methods for creating patterns:
 
     /**
@@ -134,7 +171,7 @@ public abstract class Pat<N> extends DefaultIndentable {
     }
 
     protected void fail() throws Failed {
-        throw new Failed();
+        throw FAILED;
     }
 
     public boolean isFixedSize() {
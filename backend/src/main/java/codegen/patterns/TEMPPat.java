@@ -32,16 +32,21 @@ public class TEMPPat extends Pat<IRExp> {
     }
 
     @Override
-    public void match(IRExp toMatch, Matched matched)
-            throws Failed {
+    public boolean matches(IRExp toMatch, Matched matched) {
+        if (!(toMatch instanceof TEMP))
+            return false;
         TEMP temp = (TEMP) toMatch;
 
         Color color = temp.getColor();
-        if (color != null && !temp.getColor().isRegister())
-            fail();
+        if (color != null && !color.isRegister())
+            return false;
 
-        t.match(temp.temp, matched);
-        //matched.put(this, toMatch);
+        return t.matches(temp.temp, matched);
+    }
+
+    @Override
+    public Object kind() {
+        return TEMP.class;
     }
 
     @Override
@@ -21,8 +21,9 @@ public class Wildcard<N> extends Pat<N> {
     }
 
     @Override
-    public void match(N toMatch, Matched matched) throws Failed {
+    public boolean matches(N toMatch, Matched matched) {
         matched.put(this, toMatch);
+        return true;
     }
 
     @Override
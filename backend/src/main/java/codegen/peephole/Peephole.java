@@ -0,0 +1,154 @@
+package codegen.peephole;
+
+import ir.temp.Color;
+import ir.temp.Label;
+import ir.temp.Temp;
+
+import java.util.ArrayList;
+
+import util.List;
+
+import codegen.AssemData;
+import codegen.AssemFragment;
+import codegen.AssemProc;
+import codegen.Assembly;
+import codegen.assem.A_LABEL;
+import codegen.assem.Instr;
+
+/**
+ * A peephole optimizer for the final assembly code. It runs after register
+ * allocation, and before the code is printed, to clean up what instruction
+ * selection and register allocation leave behind, such as moves between
+ * Temps that were painted with the same register.
+ * <p>
+ * The optimizer itself knows nothing about the target machine. It keeps a table
+ * of {@link PeepholeRule}s (see e.g. X86_64Peephole) and applies them at every
+ * position in a procedure's code until none of them applies anymore.
+ * <p>
+ * Rules only look at the instructions through {@link Instr#def()}, {@link Instr#use()},
+ * {@link Instr#jumps()} and their assem string, and at the register each Temp was
+ * painted with (see {@link #register(Temp)}).
+ */
+public class Peephole {
+
+    private final ArrayList<PeepholeRule> rules = new ArrayList<PeepholeRule>();
+
+    /**
+     * The code of the procedure that is being optimized.
+     */
+    private ArrayList<Instr> code;
+
+    public void add(PeepholeRule rule) {
+        rules.add(rule);
+    }
+
+    /**
+     * Optimize the code of every procedure in the Assembly.
+     */
+    public void optimize(Assembly assembly) {
+        for (AssemFragment frag : assembly) {
+            if (frag instanceof AssemProc)
+                optimize((AssemProc) frag);
+            else if (frag instanceof AssemData)
+                ; // Nothing to do
+            else
+                throw new Error("Peephole doesn't know how to handle such fragments");
+        }
+    }
+
+    public void optimize(AssemProc proc) {
+        code = new ArrayList<Instr>();
+        for (Instr instr : proc.getBody())
+            code.add(instr);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < code.size(); i++) {
+                for (PeepholeRule rule : rules) {
+                    int before = code.size();
+                    if (rule.rewrite(this, i)) {
+                        rule.applied++;
+                        rule.removed += before - code.size();
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        List<Instr> body = List.empty();
+        for (Instr instr : code)
+            body.add(instr);
+        proc.setBody(body);
+        code = null;
+    }
+
+    /**
+     * @return The instruction at position i, or null if there is none.
+     */
+    public Instr get(int i) {
+        return i < code.size() ? code.get(i) : null;
+    }
+
+    public void remove(int i) {
+        code.remove(i);
+    }
+
+    public void replace(int i, Instr instr) {
+        code.set(i, instr);
+    }
+
+    /**
+     * The register a Temp is allocated to. Temps that are registers themselves are not
+     * painted, so we use their name.
+     */
+    public static String register(Temp t) {
+        Color color = t.getColor();
+        return color == null ? t.getName() : color.toString();
+    }
+
+    /**
+     * The text of an instruction, with each Temp replaced by its register.
+     */
+    public static String render(Instr instr) {
+        if (instr instanceof A_LABEL)
+            return instr.format();
+        List<Temp> dst = instr.def();
+        List<Temp> src = instr.use();
+        List<Label> jump = instr.jumps();
+        String assem = instr.assem;
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < assem.length(); i++) {
+            char c = assem.charAt(i);
+            if (c != '`') {
+                s.append(c);
+                continue;
+            }
+            c = assem.charAt(++i);
+            if (c == '`') {
+                s.append(c);
+                continue;
+            }
+            int n = Character.digit(assem.charAt(++i), 10);
+            if (c == 's')
+                s.append(register(src.get(n)));
+            else if (c == 'd')
+                s.append(register(dst.get(n)));
+            else if (c == 'j')
+                s.append(jump.get(n));
+            else
+                throw new Error("bad Assem format");
+        }
+        return s.toString();
+    }
+
+    /**
+     * A report of what each rule did, over all the procedures optimized so far.
+     */
+    public String getTrace() {
+        StringBuilder s = new StringBuilder();
+        for (PeepholeRule rule : rules)
+            s.append(rule).append('\n');
+        return s.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package codegen.peephole;
+
+/**
+ * A PeepholeRule looks at a few neighbouring instructions, starting at some
+ * position in the code of a procedure, and replaces them by something better
+ * (typically: by fewer instructions) if it can.
+ * <p>
+ * Rules are added to a {@link Peephole} optimizer, which keeps trying all its
+ * rules at every position in the code until none of them applies anymore. So a
+ * rule only needs to handle one small improvement and can rely on other rules
+ * (or on itself, applied again) to clean up what is left.
+ */
+public abstract class PeepholeRule {
+
+    private final String name;
+
+    /**
+     * How many times this rule was applied, and how many instructions it removed,
+     * over all the procedures optimized so far.
+     */
+    int applied;
+    int removed;
+
+    public PeepholeRule(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Try to apply this rule to the instructions starting at position i, by means of
+     * {@link Peephole#remove(int)} and {@link Peephole#replace(int, codegen.assem.Instr)}.
+     *
+     * @return whether the code was changed.
+     */
+    protected abstract boolean rewrite(Peephole code, int i);
+
+    @Override
+    public String toString() {
+        return name + ": removed " + removed + " instructions (applied " + applied + " times)";
+    }
+}
@@ -14,12 +14,14 @@ import static codegen.patterns.IRPat.MUL;
 import static codegen.patterns.IRPat.NAME;
 import static codegen.patterns.IRPat.PLUS;
 import static codegen.patterns.IRPat.TEMP;
+import static codegen.patterns.IRPat.or;
 import static ir.frame.x86_64.X86_64Frame.RAX;
 import static ir.frame.x86_64.X86_64Frame.RDX;
 import static ir.frame.x86_64.X86_64Frame.RV;
 import static ir.frame.x86_64.X86_64Frame.arguments;
 import static ir.frame.x86_64.X86_64Frame.callerSave;
 import static ir.frame.x86_64.X86_64Frame.special;
+import static util.List.cons;
 import static util.List.list;
 
 import codegen.patterns.IRPat;
@@ -60,10 +62,63 @@ public class X86_64Muncher extends Muncher {
      */
     private static final List<Temp> noTemps = List.empty();
 
+    /*
+     * Rough costs of the instructions the rules emit, in cycles of latency, used to
+     * choose the cheapest tiling in Muncher.Selection.MINIMUM_COST mode. A rule's cost
+     * is the sum of the costs of the instructions it emits itself. Register to register
+     * moves are free: the processor eliminates them when renaming registers, and the
+     * register allocator often coalesces them away anyway.
+     */
+    private static final int COST_MOVE = 0;
+    private static final int COST_MOV = 1;
+    private static final int COST_ALU = 1;
+    private static final int COST_IMUL = 3;
+    private static final int COST_LOAD = 4;
+    private static final int COST_STORE = 1;
+    private static final int COST_JMP = 1;
+    private static final int COST_CALL = 5;
+
     private static MuncherRules<IRStm, Void> sm = new MuncherRules<IRStm, Void>();
     private static MuncherRules<IRExp, Temp> em = new MuncherRules<IRExp, Temp>();
     private static MuncherRules<IRExp, Void> dm = new MuncherRules<IRExp, Void>();
 
+    // Pattern "variables" for the parts of an address, see address(Muncher, Matched).
+
+    private static final Pat<IRExp> _base_ = Pat.any();
+    private static final Pat<IRExp> _index_ = Pat.any();
+    private static final Pat<Integer> _disp_ = Pat.any();
+    private static final Pat<Integer> _ndisp_ = Pat.any();
+
+    private static final Pat<Integer> _scale_ = new Wildcard<Integer>() {
+        @Override
+        public boolean matches(Integer toMatch, Matched matched) {
+            int value = toMatch;
+            return (value == 1 || value == 2 || value == 4 || value == 8)
+                    && super.matches(toMatch, matched);
+        }
+
+        public void dump(IndentingWriter out) {
+            out.print("1|2|4|8");
+        }
+    };
+
+    /**
+     * Addresses that x86 can compute in a memory operand or a leaq: base+disp,
+     * base-disp, base+index, base+index*scale and base+(index+disp)*scale.
+     */
+    private static final Pat<IRExp> _addr_ = or(
+            PLUS(_base_, CONST(_disp_)),
+            MINUS(_base_, CONST(_ndisp_)),
+            PLUS(_base_, _index_),
+            PLUS(_base_, MUL(_index_, CONST(_scale_))),
+            PLUS(_base_, MUL(PLUS(_index_, CONST(_disp_)), CONST(_scale_))));
+
+    /**
+     * The address of a memory operand: one of the _addr_ forms, or just a base.
+     * (Not used for leaq, which would just be a move.)
+     */
+    private static final Pat<IRExp> _mem_ = or(_addr_, _base_);
+
     public X86_64Muncher(Frame frame) {
         super(frame, sm, em, dm);
     }
@@ -94,52 +149,37 @@ public class X86_64Muncher extends Muncher {
 
         final Pat<Integer> _i_ = Pat.any();
 
-        final Pat<Integer> _scale_ = new Wildcard<Integer>() {
-            @Override
-            public void match(Integer toMatch, Matched matched) throws Failed {
-                int value = (Integer) toMatch;
-                if (value == 1 || value == 2 || value == 4 || value == 8)
-                    super.match(toMatch, matched);
-                else
-                    fail();
-            }
-
-            public void dump(IndentingWriter out) {
-                out.print("1|2|4|8");
-            }
-        };
-
         // A basic set of small tiles.
 
-        dm.add(new MunchRule<IRExp, Void>(CONST(_i_)) {
+        dm.add(new MunchRule<IRExp, Void>(CONST(_i_), 0) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_QUAD(c.get(_i_)));
                 return null;
             }
         });
-        dm.add(new MunchRule<IRExp, Void>(NAME(_lab_)) {
+        dm.add(new MunchRule<IRExp, Void>(NAME(_lab_), 0) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_QUAD(c.get(_lab_)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(LABEL(_lab_)) {
+        sm.add(new MunchRule<IRStm, Void>(LABEL(_lab_), 0) {
             @Override
             protected Void trigger(Muncher m, Matched children) {
                 m.emit(A_LABEL(children.get(_lab_)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(JUMP(_e_)) {
+        sm.add(new MunchRule<IRStm, Void>(JUMP(_e_), COST_JMP) {
             protected Void trigger(Muncher m, Matched children) {
                 // Expression shouldn't need to emit indirect jumps.
                 // (assuming there's a rule to match JUMP(NAME(*))
                 throw new Error("Not implemented");
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(EXP(_e_)) {
+        sm.add(new MunchRule<IRStm, Void>(EXP(_e_), 0) {
             @Override
             protected Void trigger(Muncher m, Matched children) {
                 IRExp exp = children.get(_e_);
@@ -147,7 +187,7 @@ public class X86_64Muncher extends Muncher {
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), _e_)) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), _e_), COST_MOVE) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_MOV(c.get(_t_),
@@ -155,7 +195,7 @@ public class X86_64Muncher extends Muncher {
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(_l_), _r_)) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(_l_), _r_), COST_STORE) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 Temp d = m.munch(c.get(_l_));
@@ -164,14 +204,14 @@ public class X86_64Muncher extends Muncher {
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(JUMP(NAME(_lab_))) {
+        sm.add(new MunchRule<IRStm, Void>(JUMP(NAME(_lab_)), COST_JMP) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_JMP(c.get(_lab_)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(CJUMP(_relOp_, _l_, _r_, _thn_, _els_)) {
+        sm.add(new MunchRule<IRStm, Void>(CJUMP(_relOp_, _l_, _r_, _thn_, _els_), COST_ALU + COST_JMP) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_CMP(m.munch(c.get(_l_)), m.munch(c.get(_r_))));
@@ -180,7 +220,7 @@ public class X86_64Muncher extends Muncher {
             }
         });
 
-        sm.add(new MunchRule<IRStm, Void>(CMOVE(_relOp_, _l_, _r_, TEMP(_t_), _e_)) {
+        sm.add(new MunchRule<IRStm, Void>(CMOVE(_relOp_, _l_, _r_, TEMP(_t_), _e_), COST_ALU + COST_ALU) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_CMP(m.munch(c.get(_l_)), m.munch(c.get(_r_))));
@@ -188,14 +228,14 @@ public class X86_64Muncher extends Muncher {
                 return null;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(CALL(_l_, _es_)) {
+        em.add(new MunchRule<IRExp, Temp>(CALL(_l_, _es_), COST_CALL) {
             @Override
             protected Temp trigger(Muncher m, Matched children) {
                 // Expressions shouldn't need to emit indirect calls ( unless we implement VMT and inheritance )
                 throw new Error("Not implemented");
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(CONST(_i_)) {
+        em.add(new MunchRule<IRExp, Temp>(CONST(_i_), COST_MOV) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Temp t = new Temp();
@@ -203,7 +243,7 @@ public class X86_64Muncher extends Muncher {
                 return t;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(PLUS(_l_, _r_)) {
+        em.add(new MunchRule<IRExp, Temp>(PLUS(_l_, _r_), COST_MOVE + COST_ALU) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Temp sum = new Temp();
@@ -212,7 +252,7 @@ public class X86_64Muncher extends Muncher {
                 return sum;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(MINUS(_l_, _r_)) {
+        em.add(new MunchRule<IRExp, Temp>(MINUS(_l_, _r_), COST_MOVE + COST_ALU) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Temp res = new Temp();
@@ -221,7 +261,7 @@ public class X86_64Muncher extends Muncher {
                 return res;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(MUL(_l_, _r_)) {
+        em.add(new MunchRule<IRExp, Temp>(MUL(_l_, _r_), COST_MOVE + COST_IMUL) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Temp res = new Temp();
@@ -230,13 +270,13 @@ public class X86_64Muncher extends Muncher {
                 return res;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(TEMP(_t_)) {
+        em.add(new MunchRule<IRExp, Temp>(TEMP(_t_), 0) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 return c.get(_t_);
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(NAME(_lab_)) {
+        em.add(new MunchRule<IRExp, Temp>(NAME(_lab_), COST_MOV) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Temp t = new Temp();
@@ -244,7 +284,7 @@ public class X86_64Muncher extends Muncher {
                 return t;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(MEM(_e_)) {
+        em.add(new MunchRule<IRExp, Temp>(MEM(_e_), COST_LOAD) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Temp r = new Temp();
@@ -252,7 +292,7 @@ public class X86_64Muncher extends Muncher {
                 return r;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(CALL(NAME(_lab_), _es_)) {
+        em.add(new MunchRule<IRExp, Temp>(CALL(NAME(_lab_), _es_), COST_CALL) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Frame frame = m.getFrame();
@@ -268,107 +308,205 @@ public class X86_64Muncher extends Muncher {
         });
 
         // ********** Add new Munch Rules ***************//
-        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), CONST(_i_))) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), CONST(_i_)), COST_MOV) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_MOV(c.get(_t_), c.get(_i_)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(TEMP(_t_)), CONST(_i_))) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(TEMP(_t_)), CONST(_i_)), COST_STORE) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 m.emit(A_MOV_TO_MEM(c.get(_t_), c.get(_i_)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(_l_), MEM(_r_))) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(_l_), MEM(_r_)), COST_LOAD + COST_STORE) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
                 Temp t = new Temp();
-                m.emit(A_MOV_FROM_MEM(t, m.munch(c.get(_l_))));
-                m.emit(A_MOV_TO_MEM(m.munch(c.get(_r_)), t));
+                m.emit(A_MOV_FROM_MEM(t, m.munch(c.get(_r_))));
+                m.emit(A_MOV_TO_MEM(m.munch(c.get(_l_)), t));
+                return null;
+            }
+        });
+        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(PLUS(_l_, CONST(_i_))), _r_), COST_STORE) {
+            @Override
+            protected Void trigger(Muncher m, Matched c) {
+                m.emit(A_MOV_TO_MEM(m.munch(c.get(_l_)), c.get(_i_), m.munch(c.get(_r_))));
                 return null;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(PLUS(TEMP(_t_), CONST(_i_))) {
+
+        // Addressing modes and immediate operands.
+
+        em.add(new MunchRule<IRExp, Temp>(MEM(_mem_), COST_LOAD) {
+            @Override
+            protected Temp trigger(Muncher m, Matched c) {
+                Temp r = new Temp();
+                m.emit(A_MOV_FROM_MEM(r, address(m, c)));
+                return r;
+            }
+        });
+        em.add(new MunchRule<IRExp, Temp>(_addr_, COST_ALU) {
+            @Override
+            protected Temp trigger(Muncher m, Matched c) {
+                Temp r = new Temp();
+                m.emit(A_LEA(r, address(m, c)));
+                return r;
+            }
+        });
+        em.add(new MunchRule<IRExp, Temp>(MUL(_e_, CONST(_i_)), COST_IMUL) {
+            @Override
+            protected Temp trigger(Muncher m, Matched c) {
+                Temp res = new Temp();
+                m.emit(A_IMUL(res, m.munch(c.get(_e_)), c.get(_i_)));
+                return res;
+            }
+        });
+        em.add(new MunchRule<IRExp, Temp>(PLUS(_e_, MEM(_mem_)), COST_MOVE + COST_LOAD + COST_ALU) {
             @Override
             protected Temp trigger(Muncher m, Matched c) {
                 Temp sum = new Temp();
-                m.emit(A_MOV(sum, c.get(_t_)));
-                m.emit(A_ADD(c.get(_i_), sum));
+                m.emit(A_MOV(sum, m.munch(c.get(_e_))));
+                m.emit(A_ADD(sum, address(m, c)));
                 return sum;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), PLUS(MEM(_e_), CONST(_i_)))) {
+        em.add(new MunchRule<IRExp, Temp>(MINUS(_e_, MEM(_mem_)), COST_MOVE + COST_LOAD + COST_ALU) {
+            @Override
+            protected Temp trigger(Muncher m, Matched c) {
+                Temp res = new Temp();
+                m.emit(A_MOV(res, m.munch(c.get(_e_))));
+                m.emit(A_SUB(res, address(m, c)));
+                return res;
+            }
+        });
+        em.add(new MunchRule<IRExp, Temp>(MUL(_e_, MEM(_mem_)), COST_MOVE + COST_LOAD + COST_IMUL) {
+            @Override
+            protected Temp trigger(Muncher m, Matched c) {
+                Temp res = new Temp();
+                m.emit(A_MOV(res, m.munch(c.get(_e_))));
+                m.emit(A_IMUL(res, address(m, c)));
+                return res;
+            }
+        });
+        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), MEM(_mem_)), COST_LOAD) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
-                m.emit(A_MOV_FROM_MEM(c.get(_t_), m.munch(c.get(_e_))));
-                m.emit(A_ADD(c.get(_i_), c.get(_t_)));
+                m.emit(A_MOV_FROM_MEM(c.get(_t_), address(m, c)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), MEM(PLUS(MEM(_e_), CONST(_i_))))) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), _addr_), COST_ALU) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
-                m.emit(A_MOV_FROM_MEM(c.get(_t_), m.munch(c.get(_e_))));
-                m.emit(A_ADD(c.get(_i_), c.get(_t_)));
-                m.emit(A_MOV_FROM_MEM(c.get(_t_), c.get(_t_)));
+                m.emit(A_LEA(c.get(_t_), address(m, c)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(PLUS(_l_, CONST(_i_))), _r_)) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(_mem_), _e_), COST_STORE) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
-                m.emit(A_MOV_TO_MEM(m.munch(c.get(_l_)), c.get(_i_), m.munch(c.get(_r_))));
+                Temp s = m.munch(c.get(_e_));
+                m.emit(A_MOV_TO_MEM(address(m, c), s));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), MINUS(MEM(_e_), CONST(_i_)))) {
+        sm.add(new MunchRule<IRStm, Void>(MOVE(MEM(_mem_), CONST(_i_)), COST_STORE) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
-                m.emit(A_MOV_FROM_MEM(c.get(_t_), m.munch(c.get(_e_))));
-                m.emit(A_SUB(c.get(_i_), c.get(_t_)));
+                m.emit(A_MOV_TO_MEM(address(m, c), c.get(_i_)));
                 return null;
             }
         });
-        sm.add(new MunchRule<IRStm, Void>(MOVE(TEMP(_t_), MUL(MEM(_e_), CONST(_i_)))) {
+        sm.add(new MunchRule<IRStm, Void>(CJUMP(_relOp_, _l_, CONST(_i_), _thn_, _els_), COST_ALU + COST_JMP) {
             @Override
             protected Void trigger(Muncher m, Matched c) {
-                m.emit(A_MOV_FROM_MEM(c.get(_t_), m.munch(c.get(_e_))));
-                m.emit(A_IMUL(c.get(_i_), c.get(_t_)));
+                m.emit(A_CMP(m.munch(c.get(_l_)), c.get(_i_)));
+                m.emit(A_CJUMP(c.get(_relOp_), c.get(_thn_), c.get(_els_)));
                 return null;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(PLUS(MEM(_e_), CONST(_i_))) {
+        sm.add(new MunchRule<IRStm, Void>(CJUMP(_relOp_, _l_, MEM(_mem_), _thn_, _els_), COST_LOAD + COST_ALU + COST_JMP) {
             @Override
-            protected Temp trigger(Muncher m, Matched c) {
-                Temp sum = new Temp();
-                m.emit(A_MOV_FROM_MEM(sum, m.munch(c.get(_e_))));
-                m.emit(A_ADD(c.get(_i_), sum));
-                return sum;
+            protected Void trigger(Muncher m, Matched c) {
+                m.emit(A_CMP(m.munch(c.get(_l_)), address(m, c)));
+                m.emit(A_CJUMP(c.get(_relOp_), c.get(_thn_), c.get(_els_)));
+                return null;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(MINUS(MEM(_e_), CONST(_i_))) {
+        sm.add(new MunchRule<IRStm, Void>(CJUMP(_relOp_, MEM(_mem_), _r_, _thn_, _els_), COST_LOAD + COST_ALU + COST_JMP) {
             @Override
-            protected Temp trigger(Muncher m, Matched c) {
-                Temp sum = new Temp();
-                m.emit(A_MOV_FROM_MEM(sum, m.munch(c.get(_e_))));
-                m.emit(A_SUB(c.get(_i_), sum));
-                return sum;
+            protected Void trigger(Muncher m, Matched c) {
+                m.emit(A_CMP(address(m, c), m.munch(c.get(_r_))));
+                m.emit(A_CJUMP(c.get(_relOp_), c.get(_thn_), c.get(_els_)));
+                return null;
             }
         });
-        em.add(new MunchRule<IRExp, Temp>(MUL(MEM(_e_), CONST(_i_))) {
+        sm.add(new MunchRule<IRStm, Void>(CJUMP(_relOp_, MEM(_mem_), CONST(_i_), _thn_, _els_), COST_LOAD + COST_ALU + COST_JMP) {
             @Override
-            protected Temp trigger(Muncher m, Matched c) {
-                Temp sum = new Temp();
-                m.emit(A_MOV_FROM_MEM(sum, m.munch(c.get(_e_))));
-                m.emit(A_IMUL(c.get(_i_), sum));
-                return sum;
+            protected Void trigger(Muncher m, Matched c) {
+                m.emit(A_CMP(address(m, c), c.get(_i_)));
+                m.emit(A_CJUMP(c.get(_relOp_), c.get(_thn_), c.get(_els_)));
+                return null;
             }
         });
     }
 
+    /**
+     * A memory operand disp(base, index, scale), or the address computed by a leaq.
+     * The index may be null.
+     */
+    private static class Address {
+        final Temp base;
+        final Temp index;
+        final int scale;
+        final int disp;
+
+        Address(Temp base, Temp index, int scale, int disp) {
+            this.base = base;
+            this.index = index;
+            this.scale = scale;
+            this.disp = disp;
+        }
+
+        /**
+         * The operand, referring to the base and index as sources `s{first} and `s{first+1}.
+         */
+        String operand(int first) {
+            String regs = "`s" + first;
+            if (index != null)
+                regs += ", `s" + (first + 1) + ", " + scale;
+            return (disp == 0 ? "" : "" + disp) + "(" + regs + ")";
+        }
+
+        List<Temp> temps() {
+            return index == null ? list(base) : list(base, index);
+        }
+    }
+
+    /**
+     * Munch the base and index of an address matched by _addr_ or _mem_.
+     */
+    private static Address address(Muncher m, Matched c) {
+        Temp base = m.munch(c.get(_base_));
+        IRExp indexExp = c.get(_index_);
+        Temp index = indexExp == null ? null : m.munch(indexExp);
+        Integer scale = c.get(_scale_);
+        if (scale == null)
+            scale = 1;
+        int disp = 0;
+        Integer d = c.get(_disp_);
+        if (d != null)
+            disp = index == null ? d : d * scale;
+        Integer nd = c.get(_ndisp_);
+        if (nd != null)
+            disp = -nd;
+        return new Address(base, index, scale, disp);
+    }
+
     ///////// Helper methods to generate X86 assembly instructions //////////////////////////////////////
 
     private static Instr A_QUAD(int i) {
@@ -386,10 +524,10 @@ public class X86_64Muncher extends Muncher {
     }
 
     private static Instr A_ADD(int value, Temp dst) {
-        return new A_OPER("addq     $" + value + ", `d0", list(dst), noTemps);
+        return new A_OPER("addq     $" + value + ", `d0", list(dst), list(dst));
     }
     private static Instr A_SUB(int value, Temp dst) {
-        return new A_OPER("subq     $" + value + ", `d0", list(dst), noTemps);
+        return new A_OPER("subq     $" + value + ", `d0", list(dst), list(dst));
     }
     private static Instr A_CALL(Label fun, int nargs) {
         List<Temp> args = List.empty();
@@ -448,7 +586,7 @@ public class X86_64Muncher extends Muncher {
                 list(src, dst));
     }
     private static Instr A_IMUL(int value, Temp dst) {
-        return new A_OPER("imulq   $" + value + ", `d0", list(dst), noTemps);
+        return new A_OPER("imulq   $" + value + ", `d0", list(dst), list(dst));
     }
     private static Instr A_IDIV(Temp dst, Temp src) {
         return new A_OPER("movq    `d0, %rax\n" +
@@ -464,7 +602,7 @@ public class X86_64Muncher extends Muncher {
     }
 
     private static Instr A_LABEL(Label name) {
-        return new A_LABEL(name + ":", name);
+        return new A_LABEL("`l:", name);
     }
 
     private static Instr A_MOV(Temp t, int value) {
@@ -536,6 +674,54 @@ public class X86_64Muncher extends Muncher {
         return new A_OPER("movq    (`s0), `d0", list(d), list(ptr));
     }
 
+    private static Instr A_MOV_FROM_MEM(Temp d, Address a) {
+        return new A_OPER("movq    " + a.operand(0) + ", `d0", list(d), a.temps());
+    }
+
+    private static Instr A_MOV_TO_MEM(Address a, Temp s) {
+        return new A_OPER("movq    `s0, " + a.operand(1), noTemps, cons(s, a.temps()));
+    }
+
+    private static Instr A_MOV_TO_MEM(Address a, int value) {
+        return new A_OPER("movq    $" + value + ", " + a.operand(0), noTemps, a.temps());
+    }
+
+    private static Instr A_LEA(Temp d, Address a) {
+        return new A_OPER("leaq    " + a.operand(0) + ", `d0", list(d), a.temps());
+    }
+
+    private static Instr A_ADD(Temp dst, Address a) {
+        return new A_OPER("addq    " + a.operand(0) + ", `d0", list(dst), a.temps().append(list(dst)));
+    }
+
+    private static Instr A_SUB(Temp dst, Address a) {
+        return new A_OPER("subq    " + a.operand(0) + ", `d0", list(dst), a.temps().append(list(dst)));
+    }
+
+    private static Instr A_IMUL(Temp dst, Address a) {
+        return new A_OPER("imulq   " + a.operand(0) + ", `d0", list(dst), a.temps().append(list(dst)));
+    }
+
+    private static Instr A_IMUL(Temp dst, Temp src, int value) {
+        return new A_OPER("imulq   $" + value + ", `s0, `d0", list(dst), list(src));
+    }
+
+    private static Instr A_CMP(Temp l, int value) {
+        return new A_OPER("cmpq    $" + value + ", `s0", noTemps, list(l));
+    }
+
+    private static Instr A_CMP(Temp l, Address r) {
+        return new A_OPER("cmpq    " + r.operand(1) + ", `s0", noTemps, cons(l, r.temps()));
+    }
+
+    private static Instr A_CMP(Address l, Temp r) {
+        return new A_OPER("cmpq    `s0, " + l.operand(1), noTemps, cons(r, l.temps()));
+    }
+
+    private static Instr A_CMP(Address l, int value) {
+        return new A_OPER("cmpq    $" + value + ", " + l.operand(0), noTemps, l.temps());
+    }
+
     private static Instr A_SUB(Temp dst, Temp src) {
         return new A_OPER("subq    `s0, `d0",
                 list(dst),
@@ -0,0 +1,154 @@
+package codegen.x86_64;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ir.temp.Label;
+import ir.temp.Temp;
+import util.List;
+import codegen.assem.A_LABEL;
+import codegen.assem.A_MOVE;
+import codegen.assem.A_OPER;
+import codegen.assem.Instr;
+import codegen.peephole.Peephole;
+import codegen.peephole.PeepholeRule;
+
+import static codegen.peephole.Peephole.register;
+import static codegen.peephole.Peephole.render;
+
+/**
+ * The peephole rules for the X86_64 code produced by the {@link X86_64Muncher}
+ * (and by the spill code the register allocators add to it).
+ */
+public class X86_64Peephole extends Peephole {
+
+    /**
+     * A store of a register into memory, e.g. movq %rax, -8(%rbp)
+     */
+    private static final Pattern STORE = Pattern.compile("movq\\s+(%\\w+), (-?\\d*\\(.*\\))");
+
+    /**
+     * A load of a register from memory, e.g. movq -8(%rbp), %rax
+     */
+    private static final Pattern LOAD = Pattern.compile("movq\\s+(-?\\d*\\(.*\\)), (%\\w+)");
+
+    /**
+     * How far to look ahead for a reload.
+     */
+    private static final int WINDOW = 16;
+
+    /**
+     * Can this instruction change the contents of memory? (Only calls and stores do.)
+     */
+    private static boolean writesMemory(String text) {
+        return text.startsWith("call") || STORE.matcher(text).matches()
+                || text.matches("movq\\s+\\$-?\\d+, -?\\d*\\(.*\\)");
+    }
+
+    public X86_64Peephole() {
+
+        // movq %rax, %rax
+        add(new PeepholeRule("self move") {
+            @Override
+            protected boolean rewrite(Peephole code, int i) {
+                Instr instr = code.get(i);
+                if (!(instr instanceof A_MOVE))
+                    return false;
+                A_MOVE move = (A_MOVE) instr;
+                if (!register(move.dst).equals(register(move.src)))
+                    return false;
+                code.remove(i);
+                return true;
+            }
+        });
+
+        // movq %rax, %rbx; movq %rbx, %rax   =>   movq %rax, %rbx
+        add(new PeepholeRule("move back") {
+            @Override
+            protected boolean rewrite(Peephole code, int i) {
+                Instr first = code.get(i);
+                Instr second = code.get(i + 1);
+                if (!(first instanceof A_MOVE) || !(second instanceof A_MOVE))
+                    return false;
+                A_MOVE there = (A_MOVE) first;
+                A_MOVE back = (A_MOVE) second;
+                if (!register(there.src).equals(register(back.dst))
+                        || !register(there.dst).equals(register(back.src)))
+                    return false;
+                code.remove(i + 1);
+                return true;
+            }
+        });
+
+        // movq %rax, -8(%rbp); ...; movq -8(%rbp), %rbx   =>   movq %rax, -8(%rbp); ...; movq %rax, %rbx
+        // (and the second move goes away if %rbx is %rax). Likewise for a load followed by
+        // another load from the same place. This takes care of most reloads of spilled Temps.
+        add(new PeepholeRule("reload") {
+            @Override
+            protected boolean rewrite(Peephole code, int i) {
+                Instr first = code.get(i);
+                if (!(first instanceof A_OPER))
+                    return false;
+                String text = render(first);
+                Temp value;
+                String address;
+                Matcher m;
+                if ((m = STORE.matcher(text)).matches()) {
+                    value = first.use().head();
+                    address = m.group(2);
+                } else if ((m = LOAD.matcher(text)).matches()) {
+                    value = first.def().head();
+                    address = m.group(1);
+                    if (address.contains(register(value)))
+                        return false;
+                } else
+                    return false;
+                String reg = register(value);
+
+                // Look for a load from the same address in the rest of the basic block, while
+                // the register still holds the value that is in memory.
+                for (int j = i + 1; j <= i + WINDOW && code.get(j) != null; j++) {
+                    Instr instr = code.get(j);
+                    if (instr instanceof A_LABEL || instr.jumps() != null)
+                        return false;
+                    text = render(instr);
+                    if (instr instanceof A_OPER && (m = LOAD.matcher(text)).matches()
+                            && m.group(1).equals(address)) {
+                        Temp dst = instr.def().head();
+                        if (register(dst).equals(reg))
+                            code.remove(j);
+                        else
+                            code.replace(j, new A_MOVE("movq    `s0, `d0", dst, value));
+                        return true;
+                    }
+                    if (writesMemory(text))
+                        return false;
+                    for (Temp t : instr.def()) {
+                        if (register(t).equals(reg) || address.contains(register(t)))
+                            return false;
+                    }
+                }
+                return false;
+            }
+        });
+
+        // jmp L; L:   =>   L:
+        add(new PeepholeRule("jump to next") {
+            @Override
+            protected boolean rewrite(Peephole code, int i) {
+                Instr instr = code.get(i);
+                List<Label> jumps = instr.jumps();
+                if (!instr.assem.startsWith("jmp") || jumps == null || jumps.size() != 1)
+                    return false;
+                Label target = jumps.head();
+                for (int next = i + 1; code.get(next) instanceof A_LABEL; next++) {
+                    if (((A_LABEL) code.get(next)).getLabel().equals(target)) {
+                        code.remove(i);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,292 @@
+package driver;
+
+import ir.frame.Frame;
+import ir.frame.x86_64.X86_64Frame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import translate.Fragments;
+import translate.Translator;
+import util.SampleCode;
+import util.Utils;
+
+import codegen.AssemFragment;
+import codegen.AssemProc;
+import codegen.Assembly;
+import codegen.CodeGenerator;
+import codegen.muncher.Muncher;
+
+/**
+ * Inputs shared by the various benchmark drivers: the sample programs and
+ * synthetic MiniJava programs with very large methods, or with very many.
+ * <p>
+ * The benchmarks are meant to be run from the backend directory, so that
+ * the "sample" directory can be found.
+ */
+public class BenchmarkPrograms {
+
+    public static final Frame architecture = X86_64Frame.factory;
+
+    /**
+     * A named MiniJava program, either a sample file or a synthetic one.
+     */
+    public static class Input {
+        public final String name;
+        public final String source;
+
+        public Input(String name, String source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        public Fragments translate() throws Exception {
+            return Translator.translate(architecture, source);
+        }
+
+        public Assembly generate() throws Exception {
+            return new CodeGenerator().apply(translate());
+        }
+
+        public Assembly generate(Muncher.Selection selection) throws Exception {
+            return new CodeGenerator(selection).apply(translate());
+        }
+
+        /**
+         * Code generation results for all the procedures in this program.
+         */
+        public List<AssemProc> procs() throws Exception {
+            List<AssemProc> procs = new ArrayList<AssemProc>();
+            for (AssemFragment frag : generate())
+                if (frag instanceof AssemProc)
+                    procs.add((AssemProc) frag);
+            return procs;
+        }
+    }
+
+    /**
+     * All the sample programs that have an expected output.
+     */
+    public static List<Input> samples() {
+        List<Input> inputs = new ArrayList<Input>();
+        for (File f : SampleCode.sampleFiles("java")) {
+            if (new File(Utils.changeSuffix(f, "out")).exists())
+                inputs.add(new Input(f.getName(), Utils.getContents(f)));
+        }
+        return inputs;
+    }
+
+    /**
+     * A synthetic program whose main computation is a single method of
+     * roughly the given number of statements, using the given number of
+     * local variables.
+     * <p>
+     * The statements are arranged in a number of loops containing
+     * conditionals, so that many variables stay live across a lot of
+     * control flow, which is what makes the analysis phases expensive.
+     */
+    public static Input largeMethod(int statements, int locals) {
+        StringBuilder s = new StringBuilder();
+        s.append("class Main {\n");
+        s.append("  public static void main(String[] args) {\n");
+        s.append("    System.out.println(new Big().run(3));\n");
+        s.append("  }\n");
+        s.append("}\n");
+        s.append("class Big {\n");
+        s.append("  public int run(int n) {\n");
+        for (int v = 0; v < locals; v++)
+            s.append("    int v" + v + ";\n");
+        s.append("    int i;\n");
+        for (int v = 0; v < locals; v++)
+            s.append("    v" + v + " = " + v + ";\n");
+        appendLoops(s, statements, locals);
+        s.append("    return v0");
+        for (int v = 1; v < locals; v++)
+            s.append(" + v" + v);
+        s.append(";\n");
+        s.append("  }\n");
+        s.append("}\n");
+        return new Input("synthetic-" + statements + "x" + locals, s.toString());
+    }
+
+    /**
+     * A synthetic program with many methods, each like the one of
+     * {@link #largeMethod(int, int)}, for measuring how the back end
+     * handles a lot of procedures.
+     */
+    public static Input manyMethods(int methods, int statements, int locals) {
+        StringBuilder s = new StringBuilder();
+        s.append("class Main {\n");
+        s.append("  public static void main(String[] args) {\n");
+        s.append("    System.out.println(new Many().run(3));\n");
+        s.append("  }\n");
+        s.append("}\n");
+        s.append("class Many {\n");
+        s.append("  public int run(int n) {\n");
+        s.append("    int sum;\n");
+        s.append("    sum = 0;\n");
+        for (int m = 0; m < methods; m++)
+            s.append("    sum = sum + this.m" + m + "(n);\n");
+        s.append("    return sum;\n");
+        s.append("  }\n");
+        for (int m = 0; m < methods; m++) {
+            s.append("  public int m" + m + "(int n) {\n");
+            for (int v = 0; v < locals; v++)
+                s.append("    int v" + v + ";\n");
+            s.append("    int i;\n");
+            for (int v = 0; v < locals; v++)
+                s.append("    v" + v + " = " + (v + m) + ";\n");
+            appendLoops(s, statements, locals);
+            s.append("    return v0");
+            for (int v = 1; v < locals; v++)
+                s.append(" + v" + v);
+            s.append(";\n");
+            s.append("  }\n");
+        }
+        s.append("}\n");
+        return new Input("synthetic-" + methods + "methods-" + statements + "x" + locals, s.toString());
+    }
+
+    /**
+     * A synthetic program that runs for a long time (roughly proportional to the
+     * given number of rounds) without needing much memory, for measuring the speed
+     * of executing code rather than of compiling it. Each round fills and sorts a
+     * small array and does some recursive calls.
+     */
+    public static Input longRunning(int rounds) {
+        StringBuilder s = new StringBuilder();
+        s.append("class Main {\n");
+        s.append("  public static void main(String[] args) {\n");
+        s.append("    System.out.println(new Work().run(" + rounds + "));\n");
+        s.append("  }\n");
+        s.append("}\n");
+        s.append("class Work {\n");
+        s.append("  int[] a;\n");
+        s.append("  public int run(int rounds) {\n");
+        s.append("    int r; int sum;\n");
+        s.append("    a = new int[40];\n");
+        s.append("    r = 0; sum = 0;\n");
+        s.append("    while (r < rounds) {\n");
+        s.append("      sum = sum + this.fill(r) + this.sort() + this.fib(10);\n");
+        s.append("      r = r + 1;\n");
+        s.append("    }\n");
+        s.append("    return sum;\n");
+        s.append("  }\n");
+        s.append("  public int fill(int seed) {\n");
+        s.append("    int i; int x;\n");
+        s.append("    i = 0; x = seed;\n");
+        s.append("    while (i < a.length) {\n");
+        s.append("      x = x * 17 + 5;\n");
+        s.append("      while (1009 < x) x = x - 1009;\n");
+        s.append("      a[i] = x;\n");
+        s.append("      i = i + 1;\n");
+        s.append("    }\n");
+        s.append("    return x;\n");
+        s.append("  }\n");
+        s.append("  public int sort() {\n");
+        s.append("    int i; int j; int t;\n");
+        s.append("    i = 0;\n");
+        s.append("    while (i < a.length) {\n");
+        s.append("      j = i + 1;\n");
+        s.append("      while (j < a.length) {\n");
+        s.append("        if (a[j] < a[i]) { t = a[i]; a[i] = a[j]; a[j] = t; } else { }\n");
+        s.append("        j = j + 1;\n");
+        s.append("      }\n");
+        s.append("      i = i + 1;\n");
+        s.append("    }\n");
+        s.append("    return a[0] + a[a.length - 1];\n");
+        s.append("  }\n");
+        s.append("  public int fib(int n) {\n");
+        s.append("    int r;\n");
+        s.append("    if (n < 2) r = n; else r = this.fib(n - 1) + this.fib(n - 2);\n");
+        s.append("    return r;\n");
+        s.append("  }\n");
+        s.append("}\n");
+        return new Input("synthetic-" + rounds + "rounds", s.toString());
+    }
+
+    /**
+     * A synthetic program that only computes with ints (no arrays or objects
+     * other than the one it is run on), running for a time roughly
+     * proportional to the given number of rounds: each round runs Euclid's
+     * algorithm (by subtraction) on a range of pairs of numbers.
+     */
+    public static Input arithmetic(int rounds) {
+        StringBuilder s = new StringBuilder();
+        s.append("class Main {\n");
+        s.append("  public static void main(String[] args) {\n");
+        s.append("    System.out.println(new Euclid().run(" + rounds + "));\n");
+        s.append("  }\n");
+        s.append("}\n");
+        s.append("class Euclid {\n");
+        s.append("  public int run(int rounds) {\n");
+        s.append("    int r; int a; int b; int x; int y; int steps;\n");
+        s.append("    r = 0; steps = 0;\n");
+        s.append("    while (r < rounds) {\n");
+        s.append("      a = 1;\n");
+        s.append("      while (a < 40) {\n");
+        s.append("        b = 1;\n");
+        s.append("        while (b < 40) {\n");
+        s.append("          x = a + r; y = b;\n");
+        s.append("          while (0 < x * y) {\n");
+        s.append("            if (x < y) y = y - x; else x = x - y;\n");
+        s.append("            steps = steps + 1;\n");
+        s.append("          }\n");
+        s.append("          b = b + 1;\n");
+        s.append("        }\n");
+        s.append("        a = a + 1;\n");
+        s.append("      }\n");
+        s.append("      r = r + 1;\n");
+        s.append("    }\n");
+        s.append("    return steps;\n");
+        s.append("  }\n");
+        s.append("}\n");
+        return new Input("synthetic-" + rounds + "rounds-int", s.toString());
+    }
+
+    /**
+     * The statements of a synthetic method: a number of loops containing
+     * assignments and conditionals.
+     */
+    private static void appendLoops(StringBuilder s, int statements, int locals) {
+        int emitted = 0;
+        int block = 0;
+        while (emitted < statements) {
+            s.append("    i = 0;\n");
+            s.append("    while (i < n) {\n");
+            for (int k = 0; k < 20 && emitted < statements; k++, emitted++) {
+                int a = (block * 7 + k * 3) % locals;
+                int b = (block * 5 + k * 11 + 1) % locals;
+                int c = (block * 3 + k * 13 + 2) % locals;
+                if (k % 5 == 4) {
+                    s.append("      if (v" + b + " < v" + c + ") v" + a + " = v" + b + " + 1; else v" + a + " = v" + c + " - 1;\n");
+                } else {
+                    s.append("      v" + a + " = v" + b + (k % 2 == 0 ? " + " : " - ") + "v" + c + ";\n");
+                }
+            }
+            s.append("      i = i + 1;\n");
+            s.append("    }\n");
+            block++;
+        }
+    }
+
+    /**
+     * Time a task, returning the best of a few runs in milliseconds
+     * (after a warm up run).
+     */
+    public static double time(int runs, Task task) throws Exception {
+        task.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    public interface Task {
+        void run() throws Exception;
+    }
+}
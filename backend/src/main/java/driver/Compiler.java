@@ -12,6 +12,8 @@ import util.IndentingWriter;
 
 import codegen.Assembly;
 import codegen.CodeGenerator;
+import codegen.peephole.Peephole;
+import codegen.x86_64.X86_64Peephole;
 
 import analysis.RegAlloc;
 
@@ -25,6 +27,11 @@ public class Compiler {
 
     private CodeGenerator codegenerator = new CodeGenerator();
 
+    /**
+     * The number of threads for the back end, see {@link #setParallelism(int)}.
+     */
+    private int parallelism = 1;
+
     /**
      * This determines the target architecture. The "default" implementation
      * is X86. Override to emit code for a different target architecture (this
@@ -34,6 +41,22 @@ public class Compiler {
         return X86_64Frame.factory;
     }
 
+    /**
+     * The peephole optimizer that cleans up the code after register allocation. Like
+     * the frame factory, this is specific to the target architecture.
+     */
+    protected Peephole getPeephole() {
+        return new X86_64Peephole();
+    }
+
+    /**
+     * Opt in to compiling the procedures of a program concurrently, using the given
+     * number of threads (see {@link ParallelBackend}). The output doesn't depend on it.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     /**
      * Given a source file, compile it and write assembly code into
      * another file.
@@ -52,8 +75,14 @@ public class Compiler {
     }
 
     private void compileIR(File assemOut, Fragments irCode) throws IOException {
-        Assembly assembly = codegenerator.apply(irCode);
-        RegAlloc.doit(assembly);
+        Assembly assembly;
+        if (parallelism > 1) {
+            assembly = new ParallelBackend(codegenerator, RegAlloc.DEFAULT, parallelism).apply(irCode);
+        } else {
+            assembly = codegenerator.apply(irCode);
+            RegAlloc.doit(assembly);
+        }
+        getPeephole().optimize(assembly);
         IndentingWriter out = new IndentingWriter(assemOut);
         try {
             assembly.dump(out);
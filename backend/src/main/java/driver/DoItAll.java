@@ -4,6 +4,7 @@ import ir.frame.Frame;
 import ir.frame.x86_64.X86_64Frame;
 import ir.interp.Interp;
 import ir.interp.InterpMode;
+import ir.interp.InterpProfile;
 import ir.temp.Color;
 import ir.temp.Temp;
 
@@ -24,7 +25,11 @@ import codegen.AssemFragment;
 import codegen.AssemProc;
 import codegen.Assembly;
 import codegen.CodeGenerator;
+import codegen.ProgramBuilder;
 import codegen.assem.Instr;
+import codegen.muncher.Muncher;
+import codegen.peephole.Peephole;
+import codegen.x86_64.X86_64Peephole;
 
 import parser.Parser;
 import parser.ParseException;
@@ -46,11 +51,17 @@ import typechecker.implementation.TypeCheckerImplementation;
 import util.IndentingWriter;
 import util.RunCommand;
 import util.Utils;
+import x86_64sim.CostModel;
 import x86_64sim.Sim;
+import x86_64sim.State;
 
 public class DoItAll {
     Map<String, String> args;
     private static final Frame architecture = X86_64Frame.factory;
+    /**
+     * How many basic blocks to show when profiling, e.g. simulate=profile
+     */
+    private static final int PROFILE_BLOCKS = 20;
     private File file;
     private File assemFile;
 
@@ -230,6 +241,14 @@ public class DoItAll {
                     System.out.print(result);
                     checkAnswer(result);
                 }
+                if (flags.contains("compiled")) {
+                    mode = InterpMode.COMPILED;
+                    System.out.println("Simulating IR code (compiled):");
+                    Interp interp = new Interp(frags, mode);
+                    String result = runInterp(interp);
+                    System.out.print(result);
+                    checkAnswer(result);
+                }
             }
         } else
             return;
@@ -240,15 +259,27 @@ public class DoItAll {
             InterpMode mode = InterpMode.TRACE_SCHEDULE;
 
             Interp interp = new Interp(frags, mode);
+            if (flags.contains("profile"))
+                interp.profile = new InterpProfile(sampleEvery());
             String result = runInterp(interp);
             System.out.print(result);
             checkAnswer(result);
+            if (interp.profile != null) {
+                System.out.print(interp.profile.report());
+                File profileFile = new File(Utils.changeSuffix(file, "iprof"));
+                try {
+                    interp.profile.write(profileFile);
+                    System.out.println("Wrote profile to " + profileFile);
+                } catch (IOException e) {
+                    System.out.println("Can't write profile to " + profileFile);
+                }
+            }
         }
         flags = args.get("code");
         if (flags != null) {
             if (flags.contains("verbose"))
                 System.out.println("Performing code generation");
-            assembly = new CodeGenerator().apply(frags);
+            assembly = new CodeGenerator(selection(flags)).apply(frags);
             if (flags.contains("verbose")) {
                 System.out.print(assembly);
             }
@@ -297,6 +328,8 @@ public class DoItAll {
         if (flags != null) {
             if (flags.contains("verbose"))
                 System.out.println("Doing register allocation");
+            // The peephole pass cleans up after the allocator, unless register=nopeephole
+            Peephole peephole = flags.contains("nopeephole") ? null : new X86_64Peephole();
 
             for (AssemFragment frag : assembly) {
                 if (frag instanceof AssemProc) {
@@ -304,7 +337,7 @@ public class DoItAll {
                     if (flags.contains("verbose"))
                         System.out.println("Fragment: " + proc.getLabel());
 
-                    RegAlloc alloc = RegAlloc.doit(proc);
+                    RegAlloc alloc = RegAlloc.doit(proc, regAllocKind(flags));
 
                     if (flags.contains("veryverbose")) {
                         System.out.println(alloc.getTrace());
@@ -339,15 +372,38 @@ public class DoItAll {
                         System.out.println("final code for : " + proc.getLabel());
                         System.out.println(proc);
                     }
+                    if (peephole != null)
+                        peephole.optimize(proc);
                 }
             }
+            if (peephole != null && flags.contains("verbose"))
+                System.out.print("Peephole optimization:\n" + peephole.getTrace());
         }
         flags = args.get("simulate");
         if (flags != null) {
-            String sProgram = assembly.toString();
+            // No need to print the code and parse it again
+            x86_64sim.Program sProgram = ProgramBuilder.build(assembly);
             if (flags.contains("verbose"))
                 System.out.println("Simulating X86_64 code");
-            String output = Sim.ulate(sProgram, flags.contains("verbose")).result;
+            String output;
+            if (flags.contains("profile")) {
+                State state = Sim.profile(sProgram);
+                output = state.result;
+                System.out.print(state.profile.report(PROFILE_BLOCKS));
+                File profileFile = new File(Utils.changeSuffix(file, "prof"));
+                try {
+                    state.profile.write(profileFile);
+                    System.out.println("Wrote profile to " + profileFile);
+                } catch (IOException e) {
+                    System.out.println("Can't write profile to " + profileFile);
+                }
+            } else if (flags.contains("cache")) {
+                output = Sim.simulateCaches(sProgram).result;
+            } else if (flags.contains("time")) {
+                output = Sim.time(sProgram, costModel()).result;
+            } else {
+                output = Sim.ulate(sProgram, flags.contains("verbose")).result;
+            }
             System.out.println("Program output:\n" + output);
             checkAnswer(output);
         }
@@ -383,6 +439,46 @@ public class DoItAll {
         }
     }
 
+    /**
+     * The cost model for simulate=time: the default one, or one read from the
+     * table given as costs=file
+     */
+    private CostModel costModel() {
+        String table = args.get("costs");
+        return table == null ? CostModel.DEFAULT : CostModel.read(new File(table));
+    }
+
+    /**
+     * How many allocations to make between samples of the live heap when
+     * profiling the IR, e.g. interpret=profile sample=1
+     */
+    private int sampleEvery() {
+        String n = args.get("sample");
+        return n == null ? InterpProfile.DEFAULT_SAMPLE_EVERY : Integer.parseInt(n);
+    }
+
+    /**
+     * Choose how instructions are selected from the flags of the code pass,
+     * e.g. code=cost
+     */
+    private static Muncher.Selection selection(String flags) {
+        if (flags.contains("cost"))
+            return Muncher.Selection.MINIMUM_COST;
+        return Muncher.Selection.MAXIMAL_MUNCH;
+    }
+
+    /**
+     * Choose the register allocator from the flags of the register pass,
+     * e.g. register=coalesce
+     */
+    private static RegAlloc.Kind regAllocKind(String flags) {
+        if (flags.contains("coalesc"))
+            return RegAlloc.Kind.COALESCING;
+        if (flags.contains("linear"))
+            return RegAlloc.Kind.LINEAR_SCAN;
+        return RegAlloc.DEFAULT;
+    }
+
     private static void remember(Map<String, Set<String>> regToTemp,
                                  Map<String, String> tempToReg, String reg, String temp) {
         Set<String> s = regToTemp.get(reg);
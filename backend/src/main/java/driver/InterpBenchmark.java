@@ -0,0 +1,89 @@
+package driver;
+
+import ir.interp.Interp;
+import ir.interp.InterpMode;
+
+import java.lang.management.ManagementFactory;
+
+import translate.Fragments;
+
+/**
+ * Compares the running time of the IR interpreter on trace scheduled code, as
+ * it walks the IR trees ({@link InterpMode#TRACE_SCHEDULE}), with that of the
+ * same code compiled into closures first ({@link InterpMode#COMPILED}), on the
+ * sample programs and on synthetic programs that run for a while. The times
+ * include setting up the Interp, so they include the compilation. A "!" marks
+ * a program for which the outputs differ.
+ * <p>
+ * It also reports how many bytes each mode allocates in one run, where the
+ * JVM can tell (a HotSpot one can). The compiled mode keeps ints unboxed, so
+ * on the synthetic program that only computes with ints it should allocate
+ * little more than what it takes to set up.
+ * <p>
+ * Run it from the backend directory:
+ * <pre>
+ *    java driver.InterpBenchmark [runs]
+ * </pre>
+ */
+public class InterpBenchmark {
+
+    private static String output;
+
+    private static void run(Fragments program, InterpMode mode) {
+        try {
+            output = new Interp(program, mode).run();
+        } catch (Error e) {
+            // The program failed (e.g. on an array index), which is part of its output
+            output = e.getMessage();
+        }
+    }
+
+    private static double time(final Fragments program, final InterpMode mode, int runs) throws Exception {
+        return BenchmarkPrograms.time(runs, () -> run(program, mode));
+    }
+
+    /**
+     * The number of bytes allocated by the current thread so far, or -1 if the
+     * JVM doesn't say.
+     */
+    private static long allocated() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    /**
+     * The KB allocated by one (warmed up) run.
+     */
+    private static String allocation(Fragments program, InterpMode mode) {
+        long before = allocated();
+        run(program, mode);
+        long after = allocated();
+        return before < 0 ? "?" : String.format("%.1f", (after - before) / 1024.0);
+    }
+
+    private static void bench(BenchmarkPrograms.Input input, int runs) throws Exception {
+        Fragments program = input.translate();
+        double walked = time(program, InterpMode.TRACE_SCHEDULE, runs);
+        String walkedKB = allocation(program, InterpMode.TRACE_SCHEDULE);
+        String expected = output;
+        double compiled = time(program, InterpMode.COMPILED, runs);
+        String compiledKB = allocation(program, InterpMode.COMPILED);
+        String ok = expected.equals(output) ? " " : "!";
+        System.out.printf("%-28s %12.3f %12.3f %8.1fx %12s %12s %s%n",
+                input.name, walked, compiled, walked / compiled, walkedKB, compiledKB, ok);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        System.out.printf("%-28s %12s %12s %9s %12s %12s%n",
+                "program", "walker ms", "compiled ms", "speedup", "walker KB", "compiled KB");
+        for (BenchmarkPrograms.Input input : BenchmarkPrograms.samples())
+            bench(input, runs);
+        for (int rounds : new int[]{10, 100})
+            bench(BenchmarkPrograms.longRunning(rounds), runs);
+        for (int rounds : new int[]{10, 100})
+            bench(BenchmarkPrograms.arithmetic(rounds), runs);
+    }
+}
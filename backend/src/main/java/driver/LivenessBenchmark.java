@@ -0,0 +1,53 @@
+package driver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import codegen.AssemProc;
+import codegen.assem.Instr;
+
+import analysis.FlowGraph;
+import analysis.implementation.ActiveSetLiveness;
+import analysis.implementation.LivenessImplementation;
+
+/**
+ * Compares the running time of the bitset based {@link LivenessImplementation}
+ * with the original {@link ActiveSetLiveness} on the sample programs and on
+ * synthetic programs with large methods.
+ * <p>
+ * Run it from the backend directory:
+ * <pre>
+ *    java driver.LivenessBenchmark [runs]
+ * </pre>
+ */
+public class LivenessBenchmark {
+
+    private static void bench(BenchmarkPrograms.Input input, int runs) throws Exception {
+        final List<FlowGraph<Instr>> graphs = new ArrayList<FlowGraph<Instr>>();
+        int instrs = 0;
+        for (AssemProc proc : input.procs()) {
+            graphs.add(FlowGraph.build(proc.getBody()));
+            instrs += proc.getBody().size();
+        }
+        double activeSet = BenchmarkPrograms.time(runs, () -> {
+            for (FlowGraph<Instr> g : graphs)
+                new ActiveSetLiveness<Instr>(g);
+        });
+        double bitSet = BenchmarkPrograms.time(runs, () -> {
+            for (FlowGraph<Instr> g : graphs)
+                new LivenessImplementation<Instr>(g);
+        });
+        System.out.printf("%-28s %8d %12.3f %12.3f %8.1fx%n",
+                input.name, instrs, activeSet, bitSet, activeSet / bitSet);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        System.out.printf("%-28s %8s %12s %12s %9s%n",
+                "program", "instrs", "activeset ms", "bitset ms", "speedup");
+        for (BenchmarkPrograms.Input input : BenchmarkPrograms.samples())
+            bench(input, runs);
+        for (int size : new int[]{500, 1000, 2000, 4000})
+            bench(BenchmarkPrograms.largeMethod(size, 40), runs);
+    }
+}
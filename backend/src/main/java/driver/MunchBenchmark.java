@@ -0,0 +1,70 @@
+package driver;
+
+import ir.tree.IRExp;
+import ir.tree.IRStm;
+
+import translate.Fragment;
+import translate.Fragments;
+import translate.ProcFragment;
+
+import codegen.CodeGenerator;
+import codegen.muncher.Muncher;
+
+/**
+ * Compares the time spent in instruction selection with and without the
+ * rule index of {@link codegen.muncher.MuncherRules}, per munched IR node, on
+ * the sample programs and on synthetic programs with large methods.
+ * <p>
+ * Run it from the backend directory:
+ * <pre>
+ *    java driver.MunchBenchmark [runs]
+ * </pre>
+ */
+public class MunchBenchmark {
+
+    private static int count(IRExp exp) {
+        int nodes = 1;
+        for (IRExp kid : exp.kids())
+            nodes += count(kid);
+        return nodes;
+    }
+
+    private static int count(Fragments frags) {
+        int nodes = 0;
+        for (Fragment frag : frags) {
+            if (frag instanceof ProcFragment) {
+                for (IRStm stm : ((ProcFragment) frag).getTraceScheduledBody()) {
+                    nodes++;
+                    for (IRExp kid : stm.kids())
+                        nodes += count(kid);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private static double time(final Fragments frags, Muncher.Selection selection, int runs) throws Exception {
+        return BenchmarkPrograms.time(runs, () -> new CodeGenerator(selection).apply(frags));
+    }
+
+    private static void bench(BenchmarkPrograms.Input input, int runs) throws Exception {
+        Fragments frags = input.translate();
+        // Counting also computes (and caches) the trace scheduled bodies, so that
+        // only instruction selection is timed below.
+        int nodes = count(frags);
+        double linear = time(frags, Muncher.Selection.MAXIMAL_MUNCH_UNINDEXED, runs);
+        double indexed = time(frags, Muncher.Selection.MAXIMAL_MUNCH, runs);
+        System.out.printf("%-28s %8d %10.1f %10.1f %8.1fx%n", input.name, nodes,
+                linear * 1e6 / nodes, indexed * 1e6 / nodes, linear / indexed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        System.out.printf("%-28s %8s %10s %10s %9s%n",
+                "program", "nodes", "linear ns", "index ns", "speedup");
+        for (BenchmarkPrograms.Input input : BenchmarkPrograms.samples())
+            bench(input, runs);
+        for (int size : new int[]{500, 1000, 2000, 4000})
+            bench(BenchmarkPrograms.largeMethod(size, 40), runs);
+    }
+}
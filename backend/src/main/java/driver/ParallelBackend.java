@@ -0,0 +1,101 @@
+package driver;
+
+import ir.temp.NameScope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import translate.Fragment;
+import translate.Fragments;
+
+import codegen.AssemFragment;
+import codegen.AssemProc;
+import codegen.Assembly;
+import codegen.CodeGenerator;
+
+import analysis.RegAlloc;
+
+/**
+ * Runs the back end of the compiler, from trace scheduling up to and including
+ * register allocation, on all the procedures of a program at the same time.
+ * <p>
+ * Once a program has been translated to IR its procedures don't depend on one
+ * another, so each fragment is compiled by a separate task on a ForkJoinPool.
+ * The resulting assembly code is put back together in the order of the IR
+ * fragments. The Temps and Labels made by each task are numbered afterwards
+ * (see {@link NameScope}), exactly as if CodeGenerator.apply had been called,
+ * followed by RegAlloc.doit, so the output is the same as that of the sequential
+ * back end.
+ */
+public class ParallelBackend {
+
+    private final CodeGenerator codeGenerator;
+    private final RegAlloc.Kind kind;
+    private final int parallelism;
+
+    public ParallelBackend(int parallelism) {
+        this(new CodeGenerator(), RegAlloc.DEFAULT, parallelism);
+    }
+
+    /**
+     * @param parallelism the number of threads to use.
+     */
+    public ParallelBackend(CodeGenerator codeGenerator, RegAlloc.Kind kind, int parallelism) {
+        this.codeGenerator = codeGenerator;
+        this.kind = kind;
+        this.parallelism = parallelism;
+    }
+
+    public Assembly apply(Fragments fragments) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<AssemFragment>> tasks = new ArrayList<ForkJoinTask<AssemFragment>>();
+            List<NameScope> generated = new ArrayList<NameScope>();
+            List<NameScope> allocated = new ArrayList<NameScope>();
+            for (final Fragment fragment : fragments) {
+                final NameScope generate = new NameScope();
+                final NameScope allocate = new NameScope();
+                generated.add(generate);
+                allocated.add(allocate);
+                tasks.add(pool.submit(new Callable<AssemFragment>() {
+                    @Override
+                    public AssemFragment call() {
+                        return compile(fragment, generate, allocate);
+                    }
+                }));
+            }
+            Assembly assembly = new Assembly();
+            for (ForkJoinTask<AssemFragment> task : tasks)
+                assembly.add(task.join());
+            // The sequential back end generates code for all the procedures before
+            // allocating registers for any of them.
+            NameScope.number(generated);
+            NameScope.number(allocated);
+            return assembly;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private AssemFragment compile(Fragment fragment, NameScope generate, NameScope allocate) {
+        AssemFragment result;
+        generate.enter();
+        try {
+            result = codeGenerator.apply(fragment);
+        } finally {
+            generate.exit();
+        }
+        if (result instanceof AssemProc) {
+            allocate.enter();
+            try {
+                RegAlloc.doit((AssemProc) result, kind);
+            } finally {
+                allocate.exit();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,142 @@
+package driver;
+
+import ir.temp.Label;
+import ir.temp.Temp;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import translate.Fragments;
+
+import codegen.Assembly;
+import codegen.CodeGenerator;
+
+import analysis.RegAlloc;
+
+/**
+ * Measures how the {@link ParallelBackend} scales with the number of threads,
+ * on a synthetic program with hundreds of methods, and checks that its output
+ * is the same as that of the sequential back end.
+ * <p>
+ * Run it from the backend directory:
+ * <pre>
+ *    java driver.ParallelBackendBenchmark [methods] [rounds]
+ * </pre>
+ */
+public class ParallelBackendBenchmark {
+
+    private static final Pattern TEMP = Pattern.compile("\\bt(\\d+)\\b");
+    private static final Pattern LABEL = Pattern.compile("\\b([A-Za-z]+)_(\\d+)\\b");
+
+    private static class Result {
+        double millis;
+        String output;
+    }
+
+    /**
+     * Compile the program with the sequential back end if threads is 0, or else
+     * with the parallel one.
+     */
+    private static Result run(BenchmarkPrograms.Input input, RegAlloc.Kind kind, int threads) throws Exception {
+        // Temps and Labels are numbered from wherever the counters happen to be, so
+        // remember where they start, to be able to compare the output of different runs.
+        int tempBase = number(TEMP, new Temp().getName()) + 1;
+        int labelBase = number(LABEL, Label.gen().toString()) + 1;
+        Fragments fragments = input.translate();
+        Result result = new Result();
+        long start = System.nanoTime();
+        Assembly assembly;
+        if (threads == 0) {
+            assembly = new CodeGenerator().apply(fragments);
+            RegAlloc.doit(assembly, kind);
+        } else {
+            assembly = new ParallelBackend(new CodeGenerator(), kind, threads).apply(fragments);
+        }
+        result.millis = (System.nanoTime() - start) / 1e6;
+        result.output = renumber(assembly.toString(), tempBase, labelBase);
+        return result;
+    }
+
+    private static int number(Pattern p, String name) {
+        Matcher m = p.matcher(name);
+        if (!m.find())
+            throw new Error("Unexpected name: " + name);
+        return Integer.parseInt(m.group(m.groupCount()));
+    }
+
+    private static String renumber(String program, int tempBase, int labelBase) {
+        StringBuffer s = new StringBuffer();
+        Matcher m = TEMP.matcher(program);
+        while (m.find())
+            m.appendReplacement(s, "t" + (Integer.parseInt(m.group(1)) - tempBase));
+        m.appendTail(s);
+        program = s.toString();
+        s = new StringBuffer();
+        m = LABEL.matcher(program);
+        while (m.find())
+            m.appendReplacement(s, m.group(1) + "_" + (Integer.parseInt(m.group(2)) - labelBase));
+        m.appendTail(s);
+        return s.toString();
+    }
+
+    /**
+     * The configurations that are compared: 0 for the sequential back end, and
+     * then the numbers of threads for the parallel one.
+     */
+    private static final int[] THREADS = {0, 1, 2, 4, 8};
+
+    private static String name(int threads) {
+        return threads == 0 ? "sequential" : threads + " threads";
+    }
+
+    /**
+     * The best of the given number of runs of each configuration. All of them
+     * are warmed up before any is timed, and the timed runs go round all the
+     * configurations in turn, so that none of them pays for the JIT more than
+     * the others, or is favoured by whatever else the machine is doing.
+     */
+    private static Result[] best(BenchmarkPrograms.Input input, RegAlloc.Kind kind, int rounds) throws Exception {
+        for (int i = 0; i < 2; i++)
+            for (int threads : THREADS)
+                run(input, kind, threads); // warm up
+        Result[] best = new Result[THREADS.length];
+        for (int round = 0; round < rounds; round++) {
+            for (int c = 0; c < THREADS.length; c++) {
+                Result r = run(input, kind, THREADS[c]);
+                if (best[c] == null || r.millis < best[c].millis)
+                    best[c] = r;
+            }
+        }
+        return best;
+    }
+
+    private static void report(BenchmarkPrograms.Input input, RegAlloc.Kind kind, int rounds) throws Exception {
+        int processors = Runtime.getRuntime().availableProcessors();
+        Result[] best = best(input, kind, rounds);
+        Result sequential = best[0];
+        System.out.printf("%-12s %-10s %10.1f ms%n", kind, name(0), sequential.millis);
+        for (int c = 1; c < THREADS.length; c++) {
+            Result r = best[c];
+            String same = r.output.equals(sequential.output) ? "identical" : "DIFFERENT";
+            System.out.printf("%-12s %-10s %10.1f ms  x%.2f on %d processors  %s%n", kind, name(THREADS[c]),
+                    r.millis, sequential.millis / r.millis, processors, same);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int processors = Runtime.getRuntime().availableProcessors();
+        BenchmarkPrograms.Input input = BenchmarkPrograms.manyMethods(methods, 60, 10);
+        System.out.println(input.name + " on " + processors + " processors");
+        if (processors == 1)
+            System.out.println("(with one processor, any speedup is noise, not parallelism)");
+        for (RegAlloc.Kind kind : new RegAlloc.Kind[]{RegAlloc.Kind.COALESCING, RegAlloc.Kind.LINEAR_SCAN})
+            report(input, kind, rounds);
+        // The simple spilling allocator doesn't finish on those, but it is the one
+        // Compiler.setParallelism uses, so check it on smaller methods.
+        input = BenchmarkPrograms.manyMethods(methods, 20, 4);
+        System.out.println(input.name);
+        report(input, RegAlloc.Kind.SPILLING, rounds);
+    }
+}
@@ -0,0 +1,99 @@
+package driver;
+
+import codegen.AssemFragment;
+import codegen.AssemProc;
+import codegen.Assembly;
+
+import analysis.RegAlloc;
+import x86_64sim.parser.SimParser;
+import x86_64sim.State;
+
+/**
+ * Compares the register allocators on the sample programs. For each allocator
+ * it reports the time spent in register allocation, the number of movq
+ * instructions left in the emitted assembly and the number of instructions
+ * executed by the simulator, on the samples and on synthetic large methods.
+ * <p>
+ * Run it from the backend directory:
+ * <pre>
+ *    java driver.RegAllocBenchmark
+ * </pre>
+ */
+public class RegAllocBenchmark {
+
+    private static class Result {
+        int instrs;
+        double millis;
+        int moves;
+        long dynamic;
+        String output;
+    }
+
+    private static int countMoves(String assembly) {
+        int moves = 0;
+        for (String line : assembly.split("\n")) {
+            if (line.trim().startsWith("movq"))
+                moves++;
+        }
+        return moves;
+    }
+
+    private static Result run(BenchmarkPrograms.Input input, RegAlloc.Kind kind) throws Exception {
+        // Register allocation paints the Temps, so every run needs a fresh translation.
+        Assembly assembly = input.generate();
+        Result result = new Result();
+        for (AssemFragment frag : assembly)
+            if (frag instanceof AssemProc)
+                result.instrs += ((AssemProc) frag).getBody().size();
+        // Compare the allocators as they are, even on the large methods.
+        long start = System.nanoTime();
+        for (AssemFragment frag : assembly)
+            if (frag instanceof AssemProc)
+                RegAlloc.doit((AssemProc) frag, kind, Integer.MAX_VALUE);
+        result.millis = (System.nanoTime() - start) / 1e6;
+        String program = assembly.toString();
+        result.moves = countMoves(program);
+        // Run the simulator directly rather than through Sim.ulate, which prints its own counts.
+        State state = new State(SimParser.parse(program)).runForResult();
+        result.dynamic = state.instructionsExecuted;
+        result.output = state.result;
+        return result;
+    }
+
+    private static void bench(BenchmarkPrograms.Input input, RegAlloc.Kind[] kinds) throws Exception {
+        String expected = null;
+        for (RegAlloc.Kind kind : kinds) {
+            // Once to warm up, then measure.
+            run(input, kind);
+            Result r = run(input, kind);
+            if (expected == null) {
+                expected = r.output;
+                System.out.printf("%-24s %7d", input.name, r.instrs);
+            }
+            String ok = expected.equals(r.output) ? "" : "!";
+            System.out.printf(" | %-10s %8.2f %6d %10d", ok, r.millis, r.moves, r.dynamic);
+        }
+        System.out.println();
+    }
+
+    private static void header(RegAlloc.Kind[] kinds) {
+        System.out.printf("%-24s %7s", "program", "instrs");
+        for (RegAlloc.Kind kind : kinds)
+            System.out.printf(" | %-10s %8s %6s %10s", kind, "ms", "movq", "dynamic");
+        System.out.println();
+    }
+
+    public static void main(String[] args) throws Exception {
+        RegAlloc.Kind[] kinds = RegAlloc.Kind.values();
+        header(kinds);
+        for (BenchmarkPrograms.Input input : BenchmarkPrograms.samples())
+            bench(input, kinds);
+
+        // The simple spilling allocator doesn't finish on these.
+        RegAlloc.Kind[] fast = {RegAlloc.Kind.COALESCING, RegAlloc.Kind.LINEAR_SCAN};
+        System.out.println();
+        header(fast);
+        for (int size : new int[]{250, 1000, 2000, 4000})
+            bench(BenchmarkPrograms.largeMethod(size, 40), fast);
+    }
+}
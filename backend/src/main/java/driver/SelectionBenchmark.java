@@ -0,0 +1,69 @@
+package driver;
+
+import codegen.AssemFragment;
+import codegen.AssemProc;
+import codegen.Assembly;
+import codegen.muncher.Muncher;
+
+import analysis.RegAlloc;
+import x86_64sim.parser.SimParser;
+import x86_64sim.State;
+
+/**
+ * Compares the ways of selecting instructions (see {@link Muncher.Selection}) on
+ * the sample programs. For each it reports the number of instructions emitted and
+ * the number of instructions executed by the simulator, after register allocation.
+ * <p>
+ * Run it from the backend directory:
+ * <pre>
+ *    java driver.SelectionBenchmark
+ * </pre>
+ */
+public class SelectionBenchmark {
+
+    private static class Result {
+        int instrs;
+        long dynamic;
+        String output;
+    }
+
+    private static Result run(BenchmarkPrograms.Input input, Muncher.Selection selection) throws Exception {
+        Assembly assembly = input.generate(selection);
+        Result result = new Result();
+        for (AssemFragment frag : assembly)
+            if (frag instanceof AssemProc)
+                result.instrs += ((AssemProc) frag).getBody().size();
+        RegAlloc.doit(assembly, RegAlloc.Kind.COALESCING);
+        State state = new State(SimParser.parse(assembly.toString())).runForResult();
+        result.dynamic = state.instructionsExecuted;
+        result.output = state.result;
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // MAXIMAL_MUNCH_UNINDEXED selects the same instructions as MAXIMAL_MUNCH.
+        Muncher.Selection[] selections = {Muncher.Selection.MAXIMAL_MUNCH, Muncher.Selection.MINIMUM_COST};
+        System.out.printf("%-24s", "program");
+        for (Muncher.Selection selection : selections)
+            System.out.printf(" | %-14s %6s %10s", selection, "instrs", "dynamic");
+        System.out.println();
+        long[] total = new long[selections.length];
+        for (BenchmarkPrograms.Input input : BenchmarkPrograms.samples()) {
+            String expected = null;
+            System.out.printf("%-24s", input.name);
+            for (int i = 0; i < selections.length; i++) {
+                Result r = run(input, selections[i]);
+                if (expected == null)
+                    expected = r.output;
+                String ok = expected.equals(r.output) ? "" : "!";
+                System.out.printf(" | %-14s %6d %10d", ok, r.instrs, r.dynamic);
+                total[i] += r.dynamic;
+            }
+            System.out.println();
+        }
+        System.out.printf("%-24s", "total");
+        for (long t : total)
+            System.out.printf(" | %-14s %6s %10d", "", "", t);
+        System.out.println();
+    }
+}
@@ -0,0 +1,138 @@
+package driver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import codegen.Assembly;
+
+import analysis.RegAlloc;
+import x86_64sim.Batch;
+import x86_64sim.Program;
+import x86_64sim.State;
+import x86_64sim.parser.SimParser;
+
+/**
+ * Measures the speed of the X86_64 simulator on the sample programs, both on
+ * the final code (after register allocation) and on the code with Temps that
+ * the simulator also accepts (and on a synthetic program that takes longer to
+ * run), with each of its engines (see {@link State.Engine}).
+ * For each it reports the number of instructions executed, and the best time
+ * to run the program and the number of simulated instructions per second for
+ * each engine. A "!" marks an engine that didn't produce the same output as the
+ * first. Finally it reports the time to run all the final code as a {@link Batch},
+ * on one thread and on one per processor.
+ * <p>
+ * Run it from the backend directory:
+ * <pre>
+ *    java driver.SimulatorBenchmark [runs]
+ * </pre>
+ */
+public class SimulatorBenchmark {
+
+    private static final int RUNS = 200;
+    private static final int LONG_RUNNING = 50;
+
+    private static final State.Engine[] engines = State.Engine.values();
+
+    private static class Result {
+        long dynamic;
+        double ms;
+        String output;
+    }
+
+    private static Result run(final Program program, final State.Engine engine, int runs) throws Exception {
+        final Result result = new Result();
+        result.ms = BenchmarkPrograms.time(runs, new BenchmarkPrograms.Task() {
+            @Override
+            public void run() {
+                State state = new State(program);
+                state.engine = engine;
+                state.runForResult();
+                result.dynamic = state.instructionsExecuted;
+                result.output = state.result;
+            }
+        });
+        return result;
+    }
+
+    private static String rate(long instructions, double ms) {
+        return String.format("%8.1f", instructions / ms / 1000);
+    }
+
+    /**
+     * Run the program with all engines, print the results and add the times to the totals.
+     */
+    private static long report(Program program, int runs, double[] totalMs) throws Exception {
+        long dynamic = 0;
+        String expected = null;
+        for (int e = 0; e < engines.length; e++) {
+            Result r = run(program, engines[e], runs);
+            if (expected == null) {
+                expected = r.output;
+                dynamic = r.dynamic;
+                System.out.printf(" | %10d", dynamic);
+            }
+            String ok = expected.equals(r.output) && dynamic == r.dynamic ? " " : "!";
+            System.out.printf(" %s%8.3f %s", ok, r.ms, rate(r.dynamic, r.ms));
+            totalMs[e] += r.ms;
+        }
+        return dynamic;
+    }
+
+    private static void header(String code) {
+        System.out.printf(" | %10s", code);
+        for (State.Engine engine : engines)
+            System.out.printf(" %9s %8s", engine.toString().toLowerCase().substring(0, 6) + " ms", "Minstr/s");
+    }
+
+    private static void total(long dynamic, double[] totalMs) {
+        System.out.printf(" | %10d", dynamic);
+        for (double ms : totalMs)
+            System.out.printf("  %8.3f %s", ms, rate(dynamic, ms));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : RUNS;
+        System.out.printf("%-24s", "program");
+        header("final");
+        header("temps");
+        System.out.println();
+        long finalTotal = 0, tempsTotal = 0;
+        double[] finalMs = new double[engines.length];
+        double[] tempsMs = new double[engines.length];
+        List<Batch.Job> batch = new ArrayList<Batch.Job>();
+        List<BenchmarkPrograms.Input> inputs = BenchmarkPrograms.samples();
+        inputs.add(BenchmarkPrograms.longRunning(LONG_RUNNING));
+        for (BenchmarkPrograms.Input input : inputs) {
+            Assembly temps = input.generate();
+            Program withTemps = SimParser.parse(temps.toString());
+            Assembly allocated = input.generate();
+            RegAlloc.doit(allocated, RegAlloc.Kind.COALESCING);
+            Program withRegisters = SimParser.parse(allocated.toString());
+            batch.add(new Batch.Job(input.name, withRegisters, State.MAX_INSTRUCTIONS));
+
+            System.out.printf("%-24s", input.name);
+            finalTotal += report(withRegisters, runs, finalMs);
+            tempsTotal += report(withTemps, runs, tempsMs);
+            System.out.println();
+        }
+        System.out.printf("%-24s", "total");
+        total(finalTotal, finalMs);
+        total(tempsTotal, tempsMs);
+        System.out.println();
+        reportBatch(batch, runs);
+    }
+
+    private static void reportBatch(final List<Batch.Job> batch, int runs) throws Exception {
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (final int threads : new int[]{1, processors}) {
+            double ms = BenchmarkPrograms.time(Math.max(1, runs / 10), new BenchmarkPrograms.Task() {
+                @Override
+                public void run() {
+                    Batch.run(batch, State.Engine.COMPILED, threads);
+                }
+            });
+            System.out.printf("batch of %d programs on %2d threads: %8.3f ms\n", batch.size(), threads, ms);
+        }
+    }
+}
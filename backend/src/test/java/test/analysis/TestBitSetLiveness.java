@@ -0,0 +1,43 @@
+package test.analysis;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+
+import ir.temp.Temp;
+import codegen.AssemProc;
+import codegen.assem.Instr;
+import analysis.FlowGraph;
+import analysis.Liveness;
+import analysis.implementation.ActiveSetLiveness;
+import analysis.implementation.LivenessImplementation;
+import util.List;
+import util.graph.Node;
+
+/**
+ * Checks that the bitset based liveness analysis computes exactly the same
+ * liveOut sets as the original ActiveSet based implementation, for every
+ * node in the flow graph of every procedure of the TestTranslate programs.
+ */
+public class TestBitSetLiveness extends TestFlowGraphs {
+
+    private static Set<Temp> asSet(List<Temp> temps) {
+        Set<Temp> set = new HashSet<Temp>();
+        for (Temp t : temps)
+            set.add(t);
+        return set;
+    }
+
+    @Override
+    protected void test(AssemProc proc) {
+        FlowGraph<Instr> flowGraph = FlowGraph.build(proc.getBody());
+        Liveness<Instr> expected = new ActiveSetLiveness<Instr>(flowGraph);
+        Liveness<Instr> actual = new LivenessImplementation<Instr>(flowGraph);
+        for (Node<Instr> node : flowGraph.nodes()) {
+            Assertions.assertEquals(asSet(expected.liveOut(node)), asSet(actual.liveOut(node)),
+                    proc.getLabel() + " node " + node + ": " + node.wrappee());
+        }
+    }
+
+}
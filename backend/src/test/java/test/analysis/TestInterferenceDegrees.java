@@ -0,0 +1,51 @@
+package test.analysis;
+
+import org.junit.jupiter.api.Assertions;
+
+import ir.temp.Temp;
+import codegen.AssemProc;
+import analysis.FlowGraph;
+import analysis.InterferenceGraph;
+import util.List;
+import util.graph.Node;
+
+/**
+ * Checks that the constant time queries of the interference graph (interferes,
+ * degree and the adjacency arrays) agree with its node lists, also after nodes
+ * have been removed from the graph, as the register allocator does while simplifying.
+ */
+public class TestInterferenceDegrees extends TestFlowGraphs {
+
+    private void checkConsistent(InterferenceGraph ig) {
+        for (Node<Temp> node : ig.nodes()) {
+            List<Node<Temp>> succ = node.succ();
+            Assertions.assertEquals(succ.size(), ig.degree(node), "degree of " + node);
+            for (Node<Temp> other : succ) {
+                Assertions.assertTrue(ig.interferes(node, other));
+                Assertions.assertTrue(ig.interferes(other, node));
+            }
+            Assertions.assertFalse(ig.interferes(node, node));
+            int live = 0;
+            for (int i = 0; i < ig.adjacentCount(node); i++) {
+                Node<Temp> other = ig.adjacent(node, i);
+                Assertions.assertTrue(ig.interferes(node, other));
+                if (ig.nodes().contains(other)) live++;
+            }
+            Assertions.assertEquals(ig.degree(node), live, "live neighbours of " + node);
+        }
+    }
+
+    @Override
+    protected void test(AssemProc proc) {
+        InterferenceGraph ig = FlowGraph.build(proc.getBody()).getInterferenceGraph();
+        checkConsistent(ig);
+
+        boolean remove = true;
+        for (Node<Temp> node : ig.nodes()) {
+            if (remove) ig.rmNode(node);
+            remove = !remove;
+        }
+        checkConsistent(ig);
+    }
+
+}
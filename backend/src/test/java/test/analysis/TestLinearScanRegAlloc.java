@@ -0,0 +1,16 @@
+package test.analysis;
+
+import codegen.AssemProc;
+import analysis.RegAlloc;
+
+/**
+ * Runs the TestRegAlloc checks against the linear scan allocator.
+ */
+public class TestLinearScanRegAlloc extends TestRegAlloc {
+
+    @Override
+    protected RegAlloc allocate(AssemProc proc) {
+        return RegAlloc.doit(proc, RegAlloc.Kind.LINEAR_SCAN);
+    }
+
+}
@@ -14,6 +14,13 @@ import static util.List.*;
 
 public class TestRegAlloc extends TestFlowGraphs {
 
+    /**
+     * Override this to test a different register allocator.
+     */
+    protected RegAlloc allocate(AssemProc proc) {
+        return RegAlloc.doit(proc);
+    }
+
     protected void test(AssemProc proc) {
 
         //To verify the coloring, let's make a list of the allowed colors.
@@ -26,7 +33,7 @@ public class TestRegAlloc extends TestFlowGraphs {
         }
 
         //Let's do register allocation and dump out the result.
-        RegAlloc alloc = RegAlloc.doit(proc);
+        RegAlloc alloc = allocate(proc);
         System.out.println("RegAlloc ");
         System.out.println(alloc);
 
@@ -0,0 +1,54 @@
+package test.codegen;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Assertions;
+
+import translate.Fragments;
+
+import codegen.CodeGenerator;
+import codegen.muncher.Muncher;
+
+/**
+ * Checks that munching with the rule index selects exactly the same rules as
+ * trying all the rules in turn: the generated assembly must be the same, apart
+ * from the numbering of the Temps.
+ */
+public class TestMunchIndex extends TestCodegen {
+
+    private static final Pattern tempName = Pattern.compile("\\bt[0-9]+\\b");
+
+    /**
+     * Renumber the Temps in order of first appearance.
+     */
+    private static String normalize(String assembly) {
+        Map<String, String> names = new HashMap<String, String>();
+        Matcher m = tempName.matcher(assembly);
+        StringBuffer sb = new StringBuffer();
+        while (m.find()) {
+            String name = names.get(m.group());
+            if (name == null) {
+                name = "t" + names.size();
+                names.put(m.group(), name);
+            }
+            m.appendReplacement(sb, name);
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static String generate(Fragments ir_fragments, Muncher.Selection selection) {
+        return new CodeGenerator(selection).apply(ir_fragments).toString();
+    }
+
+    @Override
+    protected void test(Fragments ir_fragments) {
+        String linear = generate(ir_fragments, Muncher.Selection.MAXIMAL_MUNCH_UNINDEXED);
+        String indexed = generate(ir_fragments, Muncher.Selection.MAXIMAL_MUNCH);
+        Assertions.assertEquals(normalize(linear), normalize(indexed));
+    }
+
+}
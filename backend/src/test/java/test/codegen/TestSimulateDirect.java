@@ -0,0 +1,40 @@
+package test.codegen;
+
+import org.junit.jupiter.api.Assertions;
+import translate.Fragments;
+import x86_64sim.Program;
+import x86_64sim.State;
+import x86_64sim.parser.SimParser;
+
+import codegen.Assembly;
+import codegen.ProgramBuilder;
+
+/**
+ * Simulates the programs of TestSimulateFinal made by {@link ProgramBuilder}
+ * rather than by parsing the assembly code, checking that both give the same
+ * Program, both before and after register allocation.
+ */
+public class TestSimulateDirect extends TestSimulateFinal {
+
+    private State compare(Assembly assembly) {
+        Program parsed = SimParser.parse(assembly.toString());
+        Program built = ProgramBuilder.build(assembly);
+        Assertions.assertEquals(parsed.dump(), built.dump());
+        State expected = new State(parsed).runForResult();
+        State state = new State(built).runForResult();
+        Assertions.assertEquals(expected.result, state.result);
+        Assertions.assertEquals(expected.instructionsExecuted, state.instructionsExecuted);
+        return state;
+    }
+
+    @Override
+    protected String test(Fragments ir_fragments) {
+        compare(codeGenerator().apply(ir_fragments));
+        State state = compare(backEnd(ir_fragments));
+        System.out.println("Static: " + state.p.countInstructions() + " instructions generated");
+        System.out.println("Dynamic: " + state.instructionsExecuted + " instructions executed");
+        System.out.println("Output:");
+        System.out.print(state.result);
+        return state.result;
+    }
+}
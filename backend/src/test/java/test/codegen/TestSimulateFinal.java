@@ -75,15 +75,37 @@ public class TestSimulateFinal extends TestTranslate {
         return null; // doesn't matter right now.
     }
 
-    protected String test(Fragments ir_fragments) {
-        CodeGenerator cogen = new CodeGenerator();
-        Assembly assembly = cogen.apply(ir_fragments);
+    /**
+     * Override this to simulate the code produced by a different register allocator.
+     */
+    protected void allocate(Assembly assembly) {
         RegAlloc.doit(assembly);
+    }
+
+    /**
+     * Override this to simulate the code produced by a differently configured code generator.
+     */
+    protected CodeGenerator codeGenerator() {
+        return new CodeGenerator();
+    }
+
+    /**
+     * Override this to run the back end in a different way.
+     */
+    protected Assembly backEnd(Fragments ir_fragments) {
+        CodeGenerator cogen = codeGenerator();
+        Assembly assembly = cogen.apply(ir_fragments);
+        allocate(assembly);
+        return assembly;
+    }
+
+    protected String test(Fragments ir_fragments) {
+        Assembly assembly = backEnd(ir_fragments);
         String program = assembly.toString();
         State state = null;
         String result;
         try {
-            state = Sim.ulate(program, false);
+            state = Sim.ulate(program, false, true);
             result = state.result;
         } catch (Error e) {
             result = e.getMessage();
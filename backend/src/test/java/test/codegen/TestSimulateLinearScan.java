@@ -0,0 +1,18 @@
+package test.codegen;
+
+import codegen.Assembly;
+
+import analysis.RegAlloc;
+
+/**
+ * Simulates the TestTranslate programs after register allocation with the
+ * linear scan allocator.
+ */
+public class TestSimulateLinearScan extends TestSimulateFinal {
+
+    @Override
+    protected void allocate(Assembly assembly) {
+        RegAlloc.doit(assembly, RegAlloc.Kind.LINEAR_SCAN);
+    }
+
+}
@@ -0,0 +1,17 @@
+package test.codegen;
+
+import codegen.CodeGenerator;
+import codegen.muncher.Muncher;
+
+/**
+ * Simulates the TestTranslate programs compiled by choosing the cheapest tiling
+ * of each IR tree rather than by maximal munch.
+ */
+public class TestSimulateMinimumCost extends TestSimulateFinal {
+
+    @Override
+    protected CodeGenerator codeGenerator() {
+        return new CodeGenerator(Muncher.Selection.MINIMUM_COST);
+    }
+
+}
@@ -0,0 +1,20 @@
+package test.codegen;
+
+import translate.Fragments;
+
+import codegen.Assembly;
+
+import driver.ParallelBackend;
+
+/**
+ * Simulates the TestTranslate programs after compiling their procedures
+ * concurrently with the ParallelBackend.
+ */
+public class TestSimulateParallel extends TestSimulateFinal {
+
+    @Override
+    protected Assembly backEnd(Fragments ir_fragments) {
+        return new ParallelBackend(4).apply(ir_fragments);
+    }
+
+}
@@ -0,0 +1,20 @@
+package test.codegen;
+
+import codegen.Assembly;
+import codegen.x86_64.X86_64Peephole;
+
+import analysis.RegAlloc;
+
+/**
+ * Simulates the TestTranslate programs after register allocation and peephole
+ * optimization, as done by the Compiler.
+ */
+public class TestSimulatePeephole extends TestSimulateFinal {
+
+    @Override
+    protected void allocate(Assembly assembly) {
+        RegAlloc.doit(assembly);
+        new X86_64Peephole().optimize(assembly);
+    }
+
+}
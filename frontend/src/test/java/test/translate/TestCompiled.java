@@ -0,0 +1,20 @@
+package test.translate;
+
+import ir.interp.InterpMode;
+
+/**
+ * This runs all the same tests as the TestTraceSchedule test suite.
+ * <p>
+ * The difference is that the trace scheduled IR is compiled into closures
+ * before it is executed, rather than interpreted as it is.
+ * <p>
+ * If a test passes in TestTraceSchedule but fails here, the problem is in
+ * the interpreter's CompiledProc, not in your IR translation code.
+ */
+public class TestCompiled extends TestTranslate {
+
+    @Override
+    protected InterpMode getSimulationMode() {
+        return InterpMode.COMPILED;
+    }
+}
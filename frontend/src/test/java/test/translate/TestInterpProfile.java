@@ -0,0 +1,128 @@
+package test.translate;
+
+import ir.frame.Frame;
+import ir.frame.x86_64.X86_64Frame;
+import ir.interp.Interp;
+import ir.interp.InterpMode;
+import ir.interp.InterpProfile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import translate.Fragments;
+import translate.Translator;
+
+import java.util.List;
+
+/**
+ * Checks the profile that the IR interpreter keeps (see {@link InterpProfile})
+ * in each of its modes.
+ */
+public class TestInterpProfile {
+
+    public static final Frame architecture = X86_64Frame.factory;
+
+    /**
+     * Makes n + 1 Cells (n of them in a loop in build) and one array of 5,
+     * and prints n.
+     */
+    private static String program(int n) {
+        return "class Main {\n" +
+                "  public static void main(String[] args) {\n" +
+                "      System.out.println(new Cell().build(" + n + "));\n" +
+                "  }\n" +
+                "}\n" +
+                "class Cell {\n" +
+                "  int[] a;\n" +
+                "  public int build(int n) {\n" +
+                "     Cell c;\n" +
+                "     int i;\n" +
+                "     i = 0;\n" +
+                "     while (i < n) {\n" +
+                "        c = new Cell();\n" +
+                "        i = i + 1;\n" +
+                "     }\n" +
+                "     a = new int[5];\n" +
+                "     return i;\n" +
+                "  }\n" +
+                "}";
+    }
+
+    private InterpProfile profile(InterpMode mode, int n) throws Exception {
+        Fragments translated = Translator.translate(architecture, program(n));
+        Interp interp = new Interp(translated, mode);
+        interp.profile = new InterpProfile(1);
+        Assertions.assertEquals(n + "\n", interp.run());
+        return interp.profile;
+    }
+
+    private static InterpProfile.Procedure procedure(InterpProfile profile, String name) {
+        for (InterpProfile.Procedure p : profile.procedures()) {
+            if (p.name.contains(name))
+                return p;
+        }
+        throw new AssertionError("No procedure " + name);
+    }
+
+    private void check(InterpMode mode) throws Exception {
+        InterpProfile ten = profile(mode, 10);
+        Assertions.assertEquals(2, ten.countCalls());
+        List<InterpProfile.Procedure> procedures = ten.procedures();
+        Assertions.assertEquals(2, procedures.size());
+        Assertions.assertTrue(procedures.get(0).name.contains("build"));
+        Assertions.assertEquals(1, procedures.get(0).calls);
+        Assertions.assertTrue(procedures.get(1).name.contains("main"));
+        Assertions.assertEquals(1, procedures.get(1).calls);
+        Assertions.assertEquals(procedures.get(0).statements + procedures.get(1).statements,
+                ten.countStatements());
+
+        // Every round of the loop executes the same statements, and main
+        // executes the same ones however long the loop runs.
+        InterpProfile twenty = profile(mode, 20);
+        InterpProfile thirty = profile(mode, 30);
+        long round = (procedure(twenty, "build").statements - procedure(ten, "build").statements) / 10;
+        Assertions.assertTrue(round > 0);
+        Assertions.assertEquals(procedure(twenty, "build").statements + 10 * round,
+                procedure(thirty, "build").statements);
+        Assertions.assertEquals(procedure(ten, "main").statements, procedure(thirty, "main").statements);
+
+        Assertions.assertEquals(12, ten.countObjects());
+        List<InterpProfile.Site> sites = ten.sites();
+        Assertions.assertEquals(3, sites.size());
+        InterpProfile.Site loop = sites.get(0);
+        Assertions.assertTrue(loop.procedure.contains("build"));
+        Assertions.assertEquals(10, loop.objects);
+        long cellWords = loop.words / loop.objects;
+        InterpProfile.Site array = sites.get(1).procedure.contains("build") ? sites.get(1) : sites.get(2);
+        Assertions.assertEquals(1, array.objects);
+        Assertions.assertEquals(6, array.words);
+        Assertions.assertEquals(10 * cellWords + 6 + cellWords, ten.countWords());
+
+        // At most the receiver, the last new Cell and the array are live at once
+        Assertions.assertEquals(3, ten.peakObjects());
+        Assertions.assertEquals(2 * cellWords + 6, ten.peakWords());
+        // One sample per allocation, and one at the end
+        Assertions.assertEquals(13, ten.countSamples());
+    }
+
+    @Test
+    public void linearized() throws Exception {
+        check(InterpMode.LINEARIZED_IR);
+    }
+
+    @Test
+    public void basicBlocks() throws Exception {
+        check(InterpMode.BASIC_BLOCKS);
+    }
+
+    @Test
+    public void traceSchedule() throws Exception {
+        check(InterpMode.TRACE_SCHEDULE);
+    }
+
+    @Test
+    public void compiled() throws Exception {
+        check(InterpMode.COMPILED);
+        // The same code as TRACE_SCHEDULE, only compiled
+        Assertions.assertEquals(profile(InterpMode.TRACE_SCHEDULE, 10).countStatements(),
+                profile(InterpMode.COMPILED, 10).countStatements());
+    }
+}
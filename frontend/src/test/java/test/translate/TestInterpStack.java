@@ -0,0 +1,83 @@
+package test.translate;
+
+import ir.frame.Frame;
+import ir.frame.x86_64.X86_64Frame;
+import ir.interp.Interp;
+import ir.interp.InterpMode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import translate.Fragments;
+import translate.Translator;
+
+/**
+ * Checks that the IR interpreter runs calls on its own stack of frames, not on
+ * the Java stack, so that deep recursion works in every mode, and that it
+ * stops a program that goes deeper than {@link Interp#maxDepth}.
+ */
+public class TestInterpStack {
+
+    public static final Frame architecture = X86_64Frame.factory;
+
+    /**
+     * Recurses n calls deep (n + 1 frames, and one more for main), and prints n.
+     */
+    private static Fragments recursion(int n) throws Exception {
+        return Translator.translate(architecture,
+                "class Main {\n" +
+                        "  public static void main(String[] args) {\n" +
+                        "      System.out.println(new D().down(" + n + "));\n" +
+                        "  }\n" +
+                        "}\n" +
+                        "class D {\n" +
+                        "  public int down(int n) {\n" +
+                        "     int r;\n" +
+                        "     if (n < 1) r = 0; else r = this.down(n - 1) + 1;\n" +
+                        "     return r;\n" +
+                        "  }\n" +
+                        "}");
+    }
+
+    private void deep(InterpMode mode) throws Exception {
+        Assertions.assertEquals("1000000\n", new Interp(recursion(1000000), mode).run());
+    }
+
+    @Test
+    public void deepLinearized() throws Exception {
+        deep(InterpMode.LINEARIZED_IR);
+    }
+
+    @Test
+    public void deepBasicBlocks() throws Exception {
+        deep(InterpMode.BASIC_BLOCKS);
+    }
+
+    @Test
+    public void deepTraceSchedule() throws Exception {
+        deep(InterpMode.TRACE_SCHEDULE);
+    }
+
+    @Test
+    public void deepCompiled() throws Exception {
+        deep(InterpMode.COMPILED);
+    }
+
+    @Test
+    public void maxDepth() throws Exception {
+        for (InterpMode mode : InterpMode.values()) {
+            // main and 999 frames of down: just fits
+            Interp interp = new Interp(recursion(998), mode);
+            interp.maxDepth = 1000;
+            Assertions.assertEquals("998\n", interp.run());
+
+            interp = new Interp(recursion(2000), mode);
+            interp.maxDepth = 1000;
+            String result;
+            try {
+                result = interp.run();
+            } catch (Error e) {
+                result = e.getMessage();
+            }
+            Assertions.assertEquals("MiniJava stack overflow: more than 1000 calls deep\n", result);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import ir.frame.x86_64.X86_64Frame;
 import ir.interp.Interp;
 import ir.interp.InterpMode;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import translate.Fragment;
 import translate.Fragments;
@@ -626,7 +627,13 @@ public class TestTranslate {
         }
     }
 
-    @Test // Don't run this unless you are implementing inheritance support!
+    /**
+     * The optional samples use inheritance, which the translator doesn't support, so
+     * this is disabled here and in every suite that extends this one. Enable it if
+     * you are implementing inheritance support!
+     */
+    @Test
+    @Disabled("inheritance not supported by translator")
     public void testOptionalSampleCode() throws Exception {
         File[] files = SampleCode.sampleFiles("java");
         for (int i = 0; i < files.length; i++) {
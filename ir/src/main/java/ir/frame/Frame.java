@@ -77,6 +77,12 @@ public abstract class Frame extends DefaultIndentable {
      */
     public abstract X86_64SimFrame newSimFrame(Interp interp, List<Word> args);
 
+    /**
+     * Like newSimFrame(interp, args), for a frame that keeps the Temps numbered
+     * by the given Slots in an array.
+     */
+    public abstract X86_64SimFrame newSimFrame(Interp interp, List<Word> args, X86_64SimFrame.Slots slots);
+
     //////////////////////////////////////////////////////////////////////
     /// Chapter 9 additions: (for codegeneration phase)
     ///
@@ -190,6 +190,11 @@ public class X86_64Frame extends Frame {
         return new X86_64SimFrame(interp, this, args);
     }
 
+    @Override
+    public X86_64SimFrame newSimFrame(Interp interp, List<Word> args, X86_64SimFrame.Slots slots) {
+        return new X86_64SimFrame(interp, this, args, slots);
+    }
+
     //////////////////////////////////
     // Chapter 9 CodeGenerator phase
 
@@ -24,6 +24,23 @@ public class Array extends Ptr {
             return new DisplacedPtr(this.wordsOffset + bytesOffset / wordSize);
         }
 
+        @Override
+        public Word get(int bytesOffset) {
+            assert (bytesOffset % wordSize == 0);
+            return words[wordsOffset + bytesOffset / wordSize];
+        }
+
+        @Override
+        public void set(int bytesOffset, Word newValue) {
+            assert (bytesOffset % wordSize == 0);
+            words[wordsOffset + bytesOffset / wordSize] = newValue;
+        }
+
+        @Override
+        Array array() {
+            return Array.this;
+        }
+
         @Override
         public Word get() {
             return words[wordsOffset];
@@ -70,6 +87,18 @@ public class Array extends Ptr {
         return new DisplacedPtr(bytesOffset / wordSize);
     }
 
+    @Override
+    public Word get(int bytesOffset) {
+        assert (bytesOffset % wordSize == 0);
+        return words[bytesOffset / wordSize];
+    }
+
+    @Override
+    public void set(int bytesOffset, Word newValue) {
+        assert (bytesOffset % wordSize == 0);
+        words[bytesOffset / wordSize] = newValue;
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder("#[");
@@ -93,6 +122,25 @@ public class Array extends Ptr {
         }
     }
 
+    @Override
+    Array array() {
+        return this;
+    }
+
+    /**
+     * The number of words in this Array.
+     */
+    int size() {
+        return words.length;
+    }
+
+    /**
+     * The word at the given index (not offset) in this Array.
+     */
+    Word word(int index) {
+        return words[index];
+    }
+
     public void fill(Word with) {
         for (int i = 0; i < words.length; i++) {
             words[i] = with;
@@ -0,0 +1,625 @@
+package ir.interp;
+
+import ir.temp.Label;
+import ir.tree.BINOP;
+import ir.tree.CALL;
+import ir.tree.CJUMP;
+import ir.tree.CMOVE;
+import ir.tree.CONST;
+import ir.tree.EXP;
+import ir.tree.IRExp;
+import ir.tree.IRStm;
+import ir.tree.JUMP;
+import ir.tree.LABEL;
+import ir.tree.MEM;
+import ir.tree.MOVE;
+import ir.tree.NAME;
+import ir.tree.TEMP;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import translate.ProcFragment;
+import util.List;
+
+/**
+ * A Callable for {@link InterpMode#COMPILED}: the trace scheduled body of a
+ * ProcFragment, translated once into a tree of closures.
+ * <p>
+ * Where the IR tree nodes decide what to do every time they are interpreted,
+ * the closures have it decided for them: each BINOP and relational operator
+ * gets a closure of its own, NAMEs are looked up once, Temps are numbered so
+ * that the frame keeps them in an array (see {@link X86_64SimFrame.Slots}),
+ * and LABELs disappear, since every jump is resolved to the index of the
+ * statement it goes to.
+ * <p>
+ * The closures also keep ints unboxed (see {@link Exp}), in Temps as well, so
+ * that code that only computes with ints makes no Words at all. Words are
+ * only made where the interpreter needs them: to store an int in an Array or
+ * to pass it to a procedure. Accessing an Array at an offset (a MEM of a
+ * PLUS, or of a MINUS of a CONST) doesn't make a Ptr either, but is checked
+ * as if it did. What happens when the closures run is
+ * exactly what happens when the IR tree nodes are interpreted, including the
+ * errors, which are only raised if the offending code is actually executed.
+ * <p>
+ * A statement that is a call stops the closures, so that the call goes on
+ * the interpreter's stack (see {@link StackProc}); calls nested deeper in an
+ * expression are made directly.
+ */
+public class CompiledProc extends StackProc {
+
+    /**
+     * A compiled IRExp. So as not to make an Int for every int it computes,
+     * it returns null for an Int, and leaves its value in the value field of
+     * the frame.
+     */
+    interface Exp {
+        Word eval(X86_64SimFrame frame);
+    }
+
+    /**
+     * A compiled comparison of two IRExps.
+     */
+    interface Test {
+        boolean test(X86_64SimFrame frame);
+    }
+
+    /**
+     * A compiled IRStm, which returns the index of the statement to execute
+     * next.
+     */
+    interface Stm {
+        int exec(X86_64SimFrame frame);
+    }
+
+    /**
+     * What a Stm returns when it makes a call on the interpreter's stack,
+     * having left the frame for it in the callee field of the frame.
+     */
+    private static final int CALLING = Integer.MIN_VALUE;
+
+    /**
+     * What a statement that makes a call does with the result.
+     */
+    interface Sink {
+        void put(X86_64SimFrame frame, Word result);
+    }
+
+    private final ProcFragment frag;
+    private final Stm[] code;
+
+    /**
+     * For each statement that makes a call, where the result goes (null if
+     * nowhere).
+     */
+    private final Sink[] sinks;
+    private final X86_64SimFrame.Slots slots = new X86_64SimFrame.Slots();
+
+    /**
+     * The index of the statement that follows each LABEL.
+     */
+    private final Map<Label, Integer> labels = new HashMap<Label, Integer>();
+
+    public CompiledProc(ProcFragment frag) {
+        this.frag = frag;
+        java.util.List<IRStm> body = new ArrayList<IRStm>();
+        for (IRStm stm : frag.getTraceScheduledBody()) {
+            if (stm instanceof LABEL) {
+                Label label = ((LABEL) stm).getLabel();
+                assert (!labels.containsKey(label)) :
+                        "Duplicate label in IR code: " + label;
+                labels.put(label, body.size());
+            } else {
+                body.add(stm);
+            }
+        }
+        code = new Stm[body.size()];
+        sinks = new Sink[body.size()];
+        for (int i = 0; i < code.length; i++)
+            code[i] = compile(body.get(i), i + 1);
+        numberFrameTemps(frag.getFrame(), slots);
+    }
+
+    @Override
+    ProcFragment getFragment() {
+        return frag;
+    }
+
+    @Override
+    int length() {
+        return code.length;
+    }
+
+    @Override
+    Map<Label, Integer> getLabels() {
+        return labels;
+    }
+
+    @Override
+    X86_64SimFrame newFrame(Interp interp, List<Word> args) {
+        X86_64SimFrame frame = frag.getFrame().newSimFrame(interp, args, slots);
+        frame.proc = this;
+        return frame;
+    }
+
+    @Override
+    X86_64SimFrame run(X86_64SimFrame frame) {
+        Stm[] code = this.code;
+        int pc = frame.pc;
+        long[] executed = executed(frame);
+        // Running off the end includes jumping to the done label, which is last.
+        while (pc < code.length) {
+            if (executed != null)
+                executed[pc]++;
+            int next = code[pc].exec(frame);
+            if (next == CALLING) {
+                frame.pc = pc;
+                X86_64SimFrame callee = frame.callee;
+                frame.callee = null;
+                return callee;
+            }
+            pc = next;
+        }
+        return null;
+    }
+
+    @Override
+    void resume(X86_64SimFrame frame, Word result) {
+        Sink sink = sinks[frame.pc];
+        if (sink != null)
+            sink.put(frame, result);
+        frame.pc++;
+    }
+
+    private Stm compile(final IRStm stm, final int next) {
+        if (stm instanceof MOVE && ((MOVE) stm).src instanceof CALL) {
+            MOVE move = (MOVE) stm;
+            return compileCall((CALL) move.src, compileSink(move.dst), next);
+        } else if (stm instanceof EXP && ((EXP) stm).exp instanceof CALL) {
+            return compileCall((CALL) ((EXP) stm).exp, null, next);
+        } else if (stm instanceof MOVE) {
+            MOVE move = (MOVE) stm;
+            return compileMove(move.dst, compile(move.src), next);
+        } else if (stm instanceof EXP) {
+            final Exp exp = compile(((EXP) stm).exp);
+            return frame -> {
+                exp.eval(frame);
+                return next;
+            };
+        } else if (stm instanceof JUMP) {
+            return compileJump((JUMP) stm);
+        } else if (stm instanceof CJUMP) {
+            return compileCJump((CJUMP) stm);
+        } else if (stm instanceof CMOVE) {
+            CMOVE cmove = (CMOVE) stm;
+            return compileCMove(cmove, compileMove(cmove.dst, compile(cmove.src), next), next);
+        } else {
+            // Anything else (e.g. a SEQ) is left to the tree walker, to fail as it does there.
+            return frame -> target(stm.interp(frame), next);
+        }
+    }
+
+    private Stm compileMove(final IRExp dst, final Exp src, final int next) {
+        if (dst instanceof TEMP) {
+            final int slot = slots.number(((TEMP) dst).temp);
+            return frame -> {
+                Word value = src.eval(frame);
+                if (value == null)
+                    frame.setInt(slot, frame.value);
+                else
+                    frame.setTemp(slot, value);
+                return next;
+            };
+        } else if (dst instanceof MEM && isOffset(((MEM) dst).exp)) {
+            BINOP address = (BINOP) ((MEM) dst).exp;
+            final Exp base = compile(address.left);
+            final Exp offset = compileOffset(address);
+            return frame -> {
+                Word value = box(src.eval(frame), frame.value);
+                Word b = base.eval(frame);
+                int bv = frame.value;
+                Word o = offset.eval(frame);
+                if (b instanceof Ptr && o == null)
+                    ((Ptr) b).set(frame.value, value);
+                else
+                    ((Ptr) box(b, bv).add(box(o, frame.value))).set(value);
+                return next;
+            };
+        } else if (dst instanceof MEM) {
+            final Exp address = compile(((MEM) dst).exp);
+            return frame -> {
+                Word value = box(src.eval(frame), frame.value);
+                ((Ptr) box(address.eval(frame), frame.value)).set(value);
+                return next;
+            };
+        } else {
+            return frame -> {
+                dst.set(box(src.eval(frame), frame.value), frame);
+                return next;
+            };
+        }
+    }
+
+    private Sink compileSink(final IRExp dst) {
+        if (dst instanceof TEMP) {
+            final int slot = slots.number(((TEMP) dst).temp);
+            return (frame, result) -> {
+                if (result instanceof Int)
+                    frame.setInt(slot, ((Int) result).value);
+                else
+                    frame.setTemp(slot, result);
+            };
+        } else if (dst instanceof MEM) {
+            final Exp address = compile(((MEM) dst).exp);
+            return (frame, result) -> ((Ptr) box(address.eval(frame), frame.value)).set(result);
+        } else {
+            return (frame, result) -> dst.set(result, frame);
+        }
+    }
+
+    /**
+     * A statement that makes a call (see {@link StackProc}), of which the
+     * result goes to the given Sink.
+     */
+    private Stm compileCall(CALL call, final Sink sink, final int next) {
+        sinks[next - 1] = sink;
+        final Exp func = compile(call.func);
+        final Exp[] args = compileArgs(call);
+        return frame -> {
+            Callable proc = (Callable) box(func.eval(frame), frame.value);
+            List<Word> argVals = List.list();
+            for (Exp arg : args)
+                argVals.add(box(arg.eval(frame), frame.value));
+            if (proc instanceof StackProc) {
+                frame.callee = ((StackProc) proc).newFrame(frame.getInterp(), argVals);
+                return CALLING;
+            }
+            frame.pc = next - 1;
+            Word result = proc.call(frame.getInterp(), argVals);
+            if (sink != null)
+                sink.put(frame, result);
+            return next;
+        };
+    }
+
+    private Stm compileJump(final JUMP jump) {
+        if (jump.exp instanceof NAME) {
+            Integer target = labels.get(((NAME) jump.exp).label);
+            if (target != null) {
+                final int pc = target;
+                return frame -> pc;
+            }
+        }
+        final Exp exp = compile(jump.exp);
+        return frame -> target(((LabelPtr) box(exp.eval(frame), frame.value)).getLabel(), -1);
+    }
+
+    private Stm compileCJump(final CJUMP cjump) {
+        if (!labels.containsKey(cjump.iftrue) || !labels.containsKey(cjump.iffalse))
+            return frame -> target(cjump.interp(frame), -1);
+        final int t = labels.get(cjump.iftrue);
+        final int f = labels.get(cjump.iffalse);
+        final Test test;
+        switch (cjump.relop) {
+            case LT:
+            case GE:
+                test = compileLT(cjump.left, cjump.right);
+                break;
+            case ULT:
+            case UGE:
+                test = compileULT(cjump.left, cjump.right);
+                break;
+            case EQ:
+            case NE:
+                test = compileEQ(cjump.left, cjump.right);
+                break;
+            default:
+                return missingCase(cjump.left, cjump.right, cjump.relop);
+        }
+        switch (cjump.relop) {
+            case GE:
+            case UGE:
+            case NE:
+                return frame -> test.test(frame) ? f : t;
+            default:
+                return frame -> test.test(frame) ? t : f;
+        }
+    }
+
+    private Stm compileCMove(final CMOVE cmove, final Stm move, final int next) {
+        switch (cmove.relop) {
+            case LT: {
+                final Test test = compileLT(cmove.left, cmove.right);
+                return frame -> test.test(frame) ? move.exec(frame) : next;
+            }
+            case NE: {
+                final Test test = compileEQ(cmove.left, cmove.right);
+                return frame -> test.test(frame) ? next : move.exec(frame);
+            }
+            case EQ: {
+                final Test test = compileEQ(cmove.left, cmove.right);
+                return frame -> test.test(frame) ? move.exec(frame) : next;
+            }
+            default:
+                return missingCase(cmove.left, cmove.right, cmove.relop);
+        }
+    }
+
+    private Stm missingCase(IRExp l, IRExp r, final CJUMP.RelOp relop) {
+        final Exp left = compile(l);
+        final Exp right = compile(r);
+        return frame -> {
+            left.eval(frame);
+            right.eval(frame);
+            throw new Error("Missing case? " + relop);
+        };
+    }
+
+    private Test compileLT(IRExp l, IRExp r) {
+        final Exp left = compile(l);
+        final Exp right = compile(r);
+        return frame -> {
+            Word lw = left.eval(frame);
+            int lv = frame.value;
+            Word rw = right.eval(frame);
+            if (lw == null && rw == null)
+                return lv < frame.value;
+            return box(lw, lv).isLT(box(rw, frame.value));
+        };
+    }
+
+    private Test compileULT(IRExp l, IRExp r) {
+        final Exp left = compile(l);
+        final Exp right = compile(r);
+        return frame -> {
+            Word lw = left.eval(frame);
+            int lv = frame.value;
+            Word rw = right.eval(frame);
+            if (lw == null && rw == null)
+                return lv < 0 ? false : lv < frame.value;
+            return box(lw, lv).isULT(box(rw, frame.value));
+        };
+    }
+
+    private Test compileEQ(IRExp l, IRExp r) {
+        final Exp left = compile(l);
+        final Exp right = compile(r);
+        return frame -> {
+            Word lw = left.eval(frame);
+            int lv = frame.value;
+            Word rw = right.eval(frame);
+            if (lw == null && rw == null)
+                return lv == frame.value;
+            return box(lw, lv).isEQ(box(rw, frame.value));
+        };
+    }
+
+    /**
+     * Where to go after a statement that returned the given label: next if it
+     * didn't jump, else the statement after the label (which must be in this
+     * procedure).
+     */
+    private int target(Label label, int next) {
+        if (label == null)
+            return next;
+        Integer pc = labels.get(label);
+        if (pc == null)
+            throw new Error("Jump to " + label + ", which is not in " + frag.getLabel());
+        return pc;
+    }
+
+    /**
+     * The Word an Exp computed: the one it returned, or else an Int.
+     */
+    private static Word box(Word word, int value) {
+        return word != null ? word : Int.valueOf(value);
+    }
+
+    /**
+     * Return a Word the way an Exp does.
+     */
+    private static Word unbox(X86_64SimFrame frame, Word word) {
+        if (word instanceof Int) {
+            frame.value = ((Int) word).value;
+            return null;
+        }
+        return word;
+    }
+
+    /**
+     * Whether an address is a base plus an offset: a PLUS, or a MINUS of a
+     * CONST, which is the same as a PLUS of the opposite.
+     */
+    private static boolean isOffset(IRExp exp) {
+        if (!(exp instanceof BINOP))
+            return false;
+        BINOP binop = (BINOP) exp;
+        return binop.binop == BINOP.Op.PLUS || binop.binop == BINOP.Op.MINUS && binop.right instanceof CONST;
+    }
+
+    private Exp compileOffset(BINOP address) {
+        if (address.binop == BINOP.Op.MINUS)
+            return compile(new CONST(-((CONST) address.right).getValue()));
+        return compile(address.right);
+    }
+
+    private Exp compile(final IRExp exp) {
+        if (exp instanceof CONST) {
+            final int value = ((CONST) exp).getValue();
+            return frame -> {
+                frame.value = value;
+                return null;
+            };
+        } else if (exp instanceof TEMP) {
+            final int slot = slots.number(((TEMP) exp).temp);
+            return frame -> frame.getUnboxed(slot);
+        } else if (exp instanceof MEM && isOffset(((MEM) exp).exp)) {
+            BINOP address = (BINOP) ((MEM) exp).exp;
+            final Exp base = compile(address.left);
+            final Exp offset = compileOffset(address);
+            return frame -> {
+                Word b = base.eval(frame);
+                int bv = frame.value;
+                Word o = offset.eval(frame);
+                if (b instanceof Ptr && o == null)
+                    return unbox(frame, ((Ptr) b).get(frame.value));
+                return unbox(frame, ((Ptr) box(b, bv).add(box(o, frame.value))).get());
+            };
+        } else if (exp instanceof MEM) {
+            final Exp address = compile(((MEM) exp).exp);
+            return frame -> unbox(frame, ((Ptr) box(address.eval(frame), frame.value)).get());
+        } else if (exp instanceof NAME) {
+            return new Name(((NAME) exp).label);
+        } else if (exp instanceof BINOP) {
+            return compileBinop((BINOP) exp);
+        } else if (exp instanceof CALL) {
+            return compileCall((CALL) exp);
+        } else {
+            // ESEQ, which fails when it is interpreted
+            return frame -> unbox(frame, exp.interp(frame));
+        }
+    }
+
+    /**
+     * A NAME. What it stands for can only be looked up once the Interp has
+     * seen all the fragments, so that is done the first time it is evaluated.
+     */
+    private static class Name implements Exp {
+        private final Label label;
+        private Word value;
+
+        Name(Label label) {
+            this.label = label;
+        }
+
+        @Override
+        public Word eval(X86_64SimFrame frame) {
+            if (value == null)
+                value = frame.getLabel(label);
+            return value;
+        }
+    }
+
+    private Exp compileBinop(final BINOP binop) {
+        final Exp left = compile(binop.left);
+        if (binop.right instanceof CONST) {
+            final int value = ((CONST) binop.right).getValue();
+            // Adding an Int is what Word.add and Word.minus come down to
+            switch (binop.binop) {
+                case PLUS:
+                    return frame -> {
+                        Word l = left.eval(frame);
+                        if (l == null) {
+                            frame.value += value;
+                            return null;
+                        }
+                        return unbox(frame, l.add(value));
+                    };
+                case MINUS:
+                    return frame -> {
+                        Word l = left.eval(frame);
+                        if (l == null) {
+                            frame.value -= value;
+                            return null;
+                        }
+                        return unbox(frame, l.add(-value));
+                    };
+                default:
+                    break;
+            }
+        }
+        final Exp right = compile(binop.right);
+        switch (binop.binop) {
+            case PLUS:
+                return frame -> {
+                    Word l = left.eval(frame);
+                    int lv = frame.value;
+                    Word r = right.eval(frame);
+                    if (l == null && r == null) {
+                        frame.value = lv + frame.value;
+                        return null;
+                    }
+                    return unbox(frame, box(l, lv).add(box(r, frame.value)));
+                };
+            case MINUS:
+                return frame -> {
+                    Word l = left.eval(frame);
+                    int lv = frame.value;
+                    Word r = right.eval(frame);
+                    if (l == null && r == null) {
+                        frame.value = lv - frame.value;
+                        return null;
+                    }
+                    return unbox(frame, box(l, lv).minus(box(r, frame.value)));
+                };
+            case MUL:
+                return frame -> {
+                    Word l = left.eval(frame);
+                    int lv = frame.value;
+                    Word r = right.eval(frame);
+                    if (l == null && r == null) {
+                        frame.value = lv * frame.value;
+                        return null;
+                    }
+                    return unbox(frame, box(l, lv).mul(box(r, frame.value)));
+                };
+            case DIV:
+                return frame -> {
+                    Word l = left.eval(frame);
+                    int lv = frame.value;
+                    Word r = right.eval(frame);
+                    if (l == null && r == null) {
+                        frame.value = lv / frame.value;
+                        return null;
+                    }
+                    return unbox(frame, box(l, lv).div(box(r, frame.value)));
+                };
+            case ARSHIFT:
+                return frame -> {
+                    Word l = left.eval(frame);
+                    int lv = frame.value;
+                    Word r = right.eval(frame);
+                    if (l == null && r == null) {
+                        frame.value = lv >> frame.value;
+                        return null;
+                    }
+                    return unbox(frame, box(l, lv).arshift(box(r, frame.value)));
+                };
+            default:
+                return frame -> {
+                    left.eval(frame);
+                    right.eval(frame);
+                    throw new Error("Binop case missing? " + binop.binop);
+                };
+        }
+    }
+
+    private Exp[] compileArgs(CALL call) {
+        Exp[] args = new Exp[call.args.size()];
+        for (int i = 0; i < args.length; i++)
+            args[i] = compile(call.args.get(i));
+        return args;
+    }
+
+    /**
+     * A call anywhere but at the top of a statement, which is simply made.
+     */
+    private Exp compileCall(CALL call) {
+        final Exp func = compile(call.func);
+        final Exp[] args = compileArgs(call);
+        return frame -> {
+            Callable proc = (Callable) box(func.eval(frame), frame.value);
+            List<Word> argVals = List.list();
+            for (Exp arg : args)
+                argVals.add(box(arg.eval(frame), frame.value));
+            return unbox(frame, proc.call(frame.getInterp(), argVals));
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledProc(" + frag.getLabel() + ")";
+    }
+
+}
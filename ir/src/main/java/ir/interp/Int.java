@@ -4,10 +4,30 @@ public class Int extends Word {
 
     public final int value;
 
+    /**
+     * The Ints that are used the most, made once.
+     */
+    private static final int CACHE_LOW = -128, CACHE_HIGH = 1023;
+    private static final Int[] cache = new Int[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < cache.length; i++)
+            cache[i] = new Int(CACHE_LOW + i);
+    }
+
     public Int(int v) {
         value = v;
     }
 
+    /**
+     * An Int with the given value, which is not necessarily a new one.
+     */
+    public static Int valueOf(int v) {
+        if (v >= CACHE_LOW && v <= CACHE_HIGH)
+            return cache[v - CACHE_LOW];
+        return new Int(v);
+    }
+
     @Override
     public String toString() {
         return "" + value;
@@ -39,11 +39,12 @@ import util.List;
  * You choose which of these types of IR to use by passing in a value of the
  * {@link InterpMode} enumeration to the Interp constructor.
  * <p>
- * Caveats: 1) this interpreter doesn't use an explicit stack. It rather uses
- * the Java stack implicitly (the interpreter recurses when interpreting CALL
- * instructions). Thus some things that would be possible on a "real machine can
- * not be simulated (e.g. code that manipulates the return address on the
- * stack).
+ * Caveats: 1) this interpreter keeps a stack of its own, of simulated frames
+ * (see {@link StackProc}), rather than recursing on the Java stack for every
+ * CALL, so a program can make calls as deeply as {@link #maxDepth} allows.
+ * But it is a stack of frames, not of words: some things that would be
+ * possible on a "real machine can not be simulated (e.g. code that
+ * manipulates the return address on the stack).
  * <p>
  * 2) The simulated frame (X86SimFrame class) has no provision for storing local
  * variables other than the formal parameters "in frame". It is assumed that all
@@ -87,6 +88,30 @@ public class Interp {
      */
     private InterpMode simulationMode;
 
+    public static final int DEFAULT_MAX_DEPTH = 2000000;
+
+    /**
+     * How many calls deep a program may go, before it fails with a stack
+     * overflow.
+     */
+    public int maxDepth = DEFAULT_MAX_DEPTH;
+
+    /**
+     * How many calls deep the program is now.
+     */
+    private int depth = 0;
+
+    /**
+     * The frame on top of the stack, whose procedure is running.
+     */
+    private X86_64SimFrame top = null;
+
+    /**
+     * If this is set before the program is run, the interpreter keeps a
+     * profile of the run in it.
+     */
+    public InterpProfile profile = null;
+
     /**
      * Setup the interpreter for running a given program.
      */
@@ -96,7 +121,9 @@ public class Interp {
         for (Fragment fragment : program) {
             if (fragment instanceof ProcFragment) {
                 ProcFragment methodFrag = (ProcFragment) fragment;
-                SimProc callable = new SimProc(methodFrag, simulationMode);
+                StackProc callable = simulationMode == InterpMode.COMPILED
+                        ? new CompiledProc(methodFrag)
+                        : new SimProc(methodFrag, simulationMode);
                 if (mainLabel.equals(methodFrag.getLabel())) {
                     wordSize = methodFrag.wordSize();
                     main = callable;
@@ -134,6 +161,8 @@ public class Interp {
                 assert (numBytes % wordSize == 0);
                 Array arr = new Array(numBytes / wordSize, wordSize);
                 arr.fill(new Int(0));
+                if (profile != null)
+                    profile.allocated(top, this, arr);
                 return arr;
             }
 
@@ -151,6 +180,8 @@ public class Interp {
                 Array arr = new Array(numElements + 1, wordSize);
                 arr.fill(new Int(0));
                 arr.set(new Int(numElements));
+                if (profile != null)
+                    profile.allocated(top, this, arr);
                 return arr.add(wordSize);
             }
 
@@ -186,6 +217,44 @@ public class Interp {
         return out.toString();
     }
 
+    /**
+     * Call a procedure, and run it and all the calls it makes on the stack of
+     * frames, until it returns.
+     */
+    Word execute(StackProc proc, List<Word> args) {
+        X86_64SimFrame entry = push(proc.newFrame(this, args), top);
+        X86_64SimFrame frame = entry;
+        while (true) {
+            top = frame;
+            X86_64SimFrame callee = frame.proc.run(frame);
+            if (callee != null) {
+                frame = push(callee, frame);
+            } else {
+                Word result = frame.getReturnValue();
+                depth--;
+                if (frame == entry) {
+                    if (profile != null && entry.caller == null)
+                        profile.sample(entry, null);
+                    top = entry.caller;
+                    return result;
+                }
+                frame = frame.caller;
+                frame.proc.resume(frame, result);
+            }
+        }
+    }
+
+    private X86_64SimFrame push(X86_64SimFrame frame, X86_64SimFrame caller) {
+        if (++depth > maxDepth) {
+            out.append("MiniJava stack overflow: more than " + maxDepth + " calls deep\n");
+            throw new Error(out.toString());
+        }
+        frame.caller = caller;
+        if (profile != null)
+            profile.called(frame.proc);
+        return frame;
+    }
+
     public Callable getProcLabel(Label label) {
         Callable result = methods.get(label);
         return result;
@@ -0,0 +1,337 @@
+package ir.interp;
+
+import ir.temp.Label;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where the IR interpreter spent its time and memory: how many calls were
+ * made to each procedure (each ProcFragment) and how many IR statements were
+ * executed in it (not counting LABELs), how many objects and words were
+ * allocated at each allocation site (a call of the runtime's allocation
+ * functions, which is named after the procedure and the label it is under),
+ * and how big the live heap got.
+ * <p>
+ * The live heap is the Arrays that are reachable from the frames on the
+ * stack. Finding them takes a walk over all of them, so it is only sampled,
+ * at every so many allocations and when the program finishes. The heap can
+ * only grow at an allocation, so sampling at every allocation finds the peak
+ * exactly, and sampling less often gives a lower bound for it.
+ * <p>
+ * An Interp only keeps an InterpProfile if it is given one (see
+ * {@link Interp#profile}).
+ */
+public class InterpProfile {
+
+    public static final int DEFAULT_SAMPLE_EVERY = 100;
+
+    /**
+     * The number of allocations from one sample of the live heap to the next.
+     */
+    private final int sampleEvery;
+
+    /**
+     * What is counted for a procedure, by statement index.
+     */
+    private static class Counts {
+        final StackProc proc;
+        long calls;
+        final long[] executed;
+        final long[] objects;
+        final long[] words;
+        /**
+         * The allocation function called at each allocation site.
+         */
+        final Callable[] allocator;
+
+        Counts(StackProc proc) {
+            this.proc = proc;
+            int n = proc.length();
+            executed = new long[n];
+            objects = new long[n];
+            words = new long[n];
+            allocator = new Callable[n];
+        }
+    }
+
+    private final Map<StackProc, Counts> counts = new IdentityHashMap<StackProc, Counts>();
+
+    private long allocations = 0;
+    private long samples = 0;
+    private long peakWords = 0;
+    private long peakObjects = 0;
+
+    public InterpProfile() {
+        this(DEFAULT_SAMPLE_EVERY);
+    }
+
+    public InterpProfile(int sampleEvery) {
+        assert (sampleEvery > 0);
+        this.sampleEvery = sampleEvery;
+    }
+
+    private Counts counts(StackProc proc) {
+        Counts result = counts.get(proc);
+        if (result == null) {
+            result = new Counts(proc);
+            counts.put(proc, result);
+        }
+        return result;
+    }
+
+    /**
+     * Count a call of the given procedure.
+     */
+    void called(StackProc proc) {
+        counts(proc).calls++;
+    }
+
+    /**
+     * Where to count the statements executed in the given procedure.
+     */
+    long[] executed(StackProc proc) {
+        return counts(proc).executed;
+    }
+
+    /**
+     * Count the allocation of an Array by the given allocation function,
+     * called from the statement that the given frame's pc is at.
+     */
+    void allocated(X86_64SimFrame frame, Callable allocator, Array array) {
+        Counts c = counts(frame.proc);
+        c.objects[frame.pc]++;
+        c.words[frame.pc] += array.size();
+        c.allocator[frame.pc] = allocator;
+        if (++allocations % sampleEvery == 0)
+            sample(frame, array);
+    }
+
+    /**
+     * Measure the live heap: the Arrays reachable from the given frame and its
+     * callers, and the given new Array (if any), which is on its way to one of
+     * them.
+     */
+    void sample(X86_64SimFrame top, Array fresh) {
+        Set<Array> seen = Collections.newSetFromMap(new IdentityHashMap<Array, Boolean>());
+        List<Word> work = new ArrayList<Word>();
+        for (X86_64SimFrame frame = top; frame != null; frame = frame.caller)
+            seen.add(frame.roots(work));
+        if (fresh != null)
+            work.add(fresh);
+        long words = 0;
+        long objects = 0;
+        while (!work.isEmpty()) {
+            Word word = work.remove(work.size() - 1);
+            if (!(word instanceof Ptr))
+                continue;
+            Array array = ((Ptr) word).array();
+            if (seen.add(array)) {
+                objects++;
+                words += array.size();
+                for (int i = 0; i < array.size(); i++)
+                    work.add(array.word(i));
+            }
+        }
+        samples++;
+        if (words > peakWords || words == peakWords && objects > peakObjects) {
+            peakWords = words;
+            peakObjects = objects;
+        }
+    }
+
+    public static class Procedure {
+        public final String name;
+        public final long statements;
+        public final long calls;
+
+        Procedure(String name, long statements, long calls) {
+            this.name = name;
+            this.statements = statements;
+            this.calls = calls;
+        }
+    }
+
+    public static class Site {
+        /**
+         * The procedure that makes the allocations, the label the call is
+         * under (with the number of statements after it, if it isn't right
+         * after it) and the allocation function it calls.
+         */
+        public final String procedure;
+        public final String label;
+        public final String function;
+        public final long objects;
+        public final long words;
+
+        Site(String procedure, String label, String function, long objects, long words) {
+            this.procedure = procedure;
+            this.label = label;
+            this.function = function;
+            this.objects = objects;
+            this.words = words;
+        }
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long n : counts)
+            total += n;
+        return total;
+    }
+
+    public long countStatements() {
+        long total = 0;
+        for (Counts c : counts.values())
+            total += sum(c.executed);
+        return total;
+    }
+
+    public long countCalls() {
+        long total = 0;
+        for (Counts c : counts.values())
+            total += c.calls;
+        return total;
+    }
+
+    public long countObjects() {
+        long total = 0;
+        for (Counts c : counts.values())
+            total += sum(c.objects);
+        return total;
+    }
+
+    public long countWords() {
+        long total = 0;
+        for (Counts c : counts.values())
+            total += sum(c.words);
+        return total;
+    }
+
+    /**
+     * The largest live heap that was sampled, in words and in objects.
+     */
+    public long peakWords() {
+        return peakWords;
+    }
+
+    public long peakObjects() {
+        return peakObjects;
+    }
+
+    public long countSamples() {
+        return samples;
+    }
+
+    /**
+     * The statements executed in each procedure that was called and the calls
+     * made to it, most statements first.
+     */
+    public List<Procedure> procedures() {
+        List<Procedure> procedures = new ArrayList<Procedure>();
+        for (Counts c : counts.values())
+            procedures.add(new Procedure(c.proc.getFragment().getLabel().toString(), sum(c.executed), c.calls));
+        procedures.sort((a, b) -> a.statements != b.statements ? Long.compare(b.statements, a.statements)
+                : a.calls != b.calls ? Long.compare(b.calls, a.calls) : a.name.compareTo(b.name));
+        return procedures;
+    }
+
+    /**
+     * The allocation sites that allocated anything, most words first.
+     */
+    public List<Site> sites() {
+        List<Site> sites = new ArrayList<Site>();
+        for (Counts c : counts.values()) {
+            for (int pc = 0; pc < c.objects.length; pc++) {
+                if (c.objects[pc] > 0)
+                    sites.add(new Site(c.proc.getFragment().getLabel().toString(), labelAt(c.proc, pc),
+                            c.allocator[pc].toString(), c.objects[pc], c.words[pc]));
+            }
+        }
+        sites.sort((a, b) -> a.words != b.words ? Long.compare(b.words, a.words)
+                : a.objects != b.objects ? Long.compare(b.objects, a.objects)
+                : (a.procedure + a.label).compareTo(b.procedure + b.label));
+        return sites;
+    }
+
+    /**
+     * The name of the statement at the given index: the last label before
+     * it (or the procedure's, if there is none), plus how many statements
+     * after that label it is.
+     */
+    private static String labelAt(StackProc proc, int pc) {
+        String name = null;
+        int at = -1;
+        for (Map.Entry<Label, Integer> label : proc.getLabels().entrySet()) {
+            int index = label.getValue();
+            if (index <= pc && (index > at || index == at && label.getKey().toString().compareTo(name) < 0)) {
+                name = label.getKey().toString();
+                at = index;
+            }
+        }
+        if (name == null) {
+            name = proc.getFragment().getLabel().toString();
+            at = 0;
+        }
+        return pc == at ? name : name + "+" + (pc - at);
+    }
+
+    private static String percent(long part, long total) {
+        return String.format("%6.2f%%", total == 0 ? 0.0 : 100.0 * part / total);
+    }
+
+    /**
+     * A readable report: the flat profile by procedure, the allocation sites
+     * and the peak of the live heap.
+     */
+    public String report() {
+        long statements = countStatements();
+        long words = countWords();
+        StringBuilder sb = new StringBuilder();
+        sb.append("IR profile: ").append(statements).append(" statements executed, ")
+                .append(countCalls()).append(" calls\n");
+        sb.append(String.format("%7s %14s %10s  %s\n", "%", "statements", "calls", "procedure"));
+        for (Procedure p : procedures())
+            sb.append(String.format("%7s %14d %10d  %s\n", percent(p.statements, statements), p.statements, p.calls, p.name));
+        sb.append("\nAllocation sites: ").append(countObjects()).append(" objects, ")
+                .append(words).append(" words allocated\n");
+        sb.append(String.format("%7s %14s %10s  %s\n", "%", "words", "objects", "site"));
+        for (Site s : sites())
+            sb.append(String.format("%7s %14d %10d  %s %s (%s)\n", percent(s.words, words), s.words, s.objects,
+                    s.procedure, s.label, s.function));
+        sb.append("\nPeak live heap: ").append(peakWords).append(" words in ").append(peakObjects)
+                .append(" objects (").append(samples).append(" samples, one every ")
+                .append(sampleEvery).append(" allocations)\n");
+        return sb.toString();
+    }
+
+    /**
+     * Write the whole profile to a file, one tab separated record per line:
+     * <pre>
+     * procedure name       statements calls
+     * site      procedure  label      function objects words
+     * heap      peakWords  peakObjects samples sampleEvery
+     * </pre>
+     */
+    public void write(File file) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file)) {
+            for (Procedure p : procedures())
+                out.println("procedure\t" + p.name + "\t" + p.statements + "\t" + p.calls);
+            for (Site s : sites())
+                out.println("site\t" + s.procedure + "\t" + s.label + "\t" + s.function + "\t" + s.objects + "\t" + s.words);
+            out.println("heap\t" + peakWords + "\t" + peakObjects + "\t" + samples + "\t" + sampleEvery);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
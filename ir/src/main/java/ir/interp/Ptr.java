@@ -12,4 +12,23 @@ public abstract class Ptr extends Word {
     @Override
     public abstract Ptr add(int bytesOffset);
 
+    /**
+     * The same as add(bytesOffset).get(), without making the Ptr.
+     */
+    public Word get(int bytesOffset) {
+        return add(bytesOffset).get();
+    }
+
+    /**
+     * The same as add(bytesOffset).set(newValue), without making the Ptr.
+     */
+    public void set(int bytesOffset, Word newValue) {
+        add(bytesOffset).set(newValue);
+    }
+
+    /**
+     * The Array this points into.
+     */
+    abstract Array array();
+
 }
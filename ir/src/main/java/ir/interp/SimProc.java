@@ -2,20 +2,60 @@ package ir.interp;
 
 import ir.canon.BasicBlocks;
 import ir.temp.Label;
+import ir.temp.Temp;
+import ir.tree.CALL;
+import ir.tree.CJUMP;
+import ir.tree.CMOVE;
+import ir.tree.EXP;
+import ir.tree.IRExp;
 import ir.tree.IRStm;
 import ir.tree.LABEL;
+import ir.tree.MOVE;
+import ir.tree.TEMP;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 
 import translate.ProcFragment;
 import util.List;
 
 
-public class SimProc extends Callable {
+/**
+ * The code of a procedure is kept as an array of statements, without the
+ * LABELs, in which each label stands for the index of the statement that
+ * follows it. The labels a statement can jump to are resolved to indices
+ * when the procedure is loaded, and its Temps are numbered, so that its
+ * frames can keep them in an array (see {@link X86_64SimFrame.Slots}).
+ * Statements that make calls are found then too, so that those calls can
+ * go on the interpreter's stack (see {@link StackProc}).
+ */
+public class SimProc extends StackProc {
 
     private ProcFragment frag;
-    private HashMap<Label, List<IRStm>> labels = new HashMap<Label, List<IRStm>>();
-    private List<IRStm> start;
+    private HashMap<Label, Integer> labels = new HashMap<Label, Integer>();
+
+    /**
+     * The statements. In the basic blocks setup, a null follows each block:
+     * running into it is like running off the end of the code.
+     */
+    private IRStm[] code;
+
+    /**
+     * For each statement, the labels it can jump to, and the indices they
+     * stand for.
+     */
+    private Label[][] jumpLabels;
+    private int[][] jumpTargets;
+
+    /**
+     * For each statement that is a call (a MOVE of a CALL or an EXP of a
+     * CALL), the CALL, and where the MOVE puts its result.
+     */
+    private CALL[] calls;
+    private IRExp[] results;
+
+    private X86_64SimFrame.Slots slots = new X86_64SimFrame.Slots();
 
     //When using the basic blocks setup, the code should finish by executing a JUMP to
     //this special label:
@@ -23,69 +63,181 @@ public class SimProc extends Callable {
 
     public SimProc(ProcFragment methodFrag, InterpMode setup) {
         this.frag = methodFrag;
+        java.util.List<IRStm> body = new ArrayList<IRStm>();
         switch (setup) {
             case LINEARIZED_IR:
-                init(frag.getLinearizedBody());
+                init(frag.getLinearizedBody(), body);
                 break;
             case BASIC_BLOCKS:
-                init(frag.getBasicBlocks());
+                init(frag.getBasicBlocks(), body);
                 break;
             case TRACE_SCHEDULE:
-                init(frag.getTraceScheduledBody());
+                init(frag.getTraceScheduledBody(), body);
                 break;
             default:
                 throw new Error("Missing case?");
         }
+        code = body.toArray(new IRStm[body.size()]);
+        jumpLabels = new Label[code.length][];
+        jumpTargets = new int[code.length][];
+        calls = new CALL[code.length];
+        results = new IRExp[code.length];
+        for (int i = 0; i < code.length; i++) {
+            if (code[i] != null) {
+                resolveJumps(i);
+                findCall(i);
+                number(code[i]);
+            }
+        }
+        numberFrameTemps(frag.getFrame(), slots);
     }
 
-    private void init(BasicBlocks bb) {
+    private void init(BasicBlocks bb, java.util.List<IRStm> body) {
         List<List<IRStm>> basicBlocks = bb.blocks;
         doneLabel = bb.doneLabel;
-        this.start = basicBlocks.head();
         for (List<IRStm> basicBlock : basicBlocks) {
             //First statement in the basic block should be a label
             Label l = ((LABEL) basicBlock.head()).getLabel();
-            putLabel(l, basicBlock.tail());
+            putLabel(l, body.size());
+            for (IRStm stm : basicBlock.tail())
+                add(stm, body);
+            body.add(null);
         }
     }
 
-    private void init(List<IRStm> program) {
-        this.start = program;
-        for (List<IRStm> stms = start; !stms.isEmpty(); stms = stms.tail()) {
-            IRStm currentStm = stms.head();
-            if (currentStm instanceof LABEL) {
-                putLabel(((LABEL) currentStm).getLabel(), stms.tail());
-            }
-        }
+    private void init(List<IRStm> program, java.util.List<IRStm> body) {
+        for (IRStm stm : program)
+            add(stm, body);
+    }
+
+    private void add(IRStm stm, java.util.List<IRStm> body) {
+        if (stm instanceof LABEL)
+            putLabel(((LABEL) stm).getLabel(), body.size());
+        else
+            body.add(stm);
     }
 
-    private void putLabel(Label label, List<IRStm> tail) {
-        List<IRStm> existing = labels.get(label);
+    private void putLabel(Label label, int index) {
+        Integer existing = labels.get(label);
         assert (existing == null) :
                 "Duplicate label in IR code: " + label;
-        labels.put(label, tail);
+        labels.put(label, index);
+    }
+
+    private void resolveJumps(int i) {
+        List<Label> targets;
+        if (code[i] instanceof CJUMP)
+            targets = List.list(((CJUMP) code[i]).iftrue, ((CJUMP) code[i]).iffalse);
+        else if (code[i].isJump())
+            targets = code[i].getJumpTargets();
+        else
+            return;
+        java.util.List<Label> known = new ArrayList<Label>();
+        java.util.List<Integer> indices = new ArrayList<Integer>();
+        for (Label target : targets) {
+            Integer index = labels.get(target);
+            if (index != null) {
+                known.add(target);
+                indices.add(index);
+            }
+        }
+        jumpLabels[i] = known.toArray(new Label[known.size()]);
+        jumpTargets[i] = new int[indices.size()];
+        for (int j = 0; j < jumpTargets[i].length; j++)
+            jumpTargets[i][j] = indices.get(j);
+    }
+
+    private void findCall(int i) {
+        if (code[i] instanceof MOVE && ((MOVE) code[i]).src instanceof CALL) {
+            calls[i] = (CALL) ((MOVE) code[i]).src;
+            results[i] = ((MOVE) code[i]).dst;
+        } else if (code[i] instanceof EXP && ((EXP) code[i]).exp instanceof CALL) {
+            calls[i] = (CALL) ((EXP) code[i]).exp;
+        }
+    }
+
+    private void number(IRStm stm) {
+        for (Temp temp : stm.use())
+            slots.number(temp);
+        for (Temp temp : stm.def())
+            slots.number(temp);
+        if (stm instanceof CMOVE && ((CMOVE) stm).dst instanceof TEMP)
+            slots.number(((TEMP) ((CMOVE) stm).dst).temp);
+    }
+
+    /**
+     * The index of the statement a label stands for, when the statement at
+     * the given index jumps to it.
+     */
+    private int jump(int from, Label to) {
+        Label[] known = jumpLabels[from];
+        if (known != null) {
+            for (int i = 0; i < known.length; i++) {
+                if (known[i] == to)
+                    return jumpTargets[from][i];
+            }
+        }
+        Integer index = labels.get(to);
+        if (index == null)
+            throw new Error("Jump to " + to + ", which is not in " + frag.getLabel());
+        return index;
+    }
+
+    @Override
+    ProcFragment getFragment() {
+        return frag;
     }
 
     @Override
-    public Word call(Interp interp, List<Word> args) {
-        List<IRStm> instructionPtr = start;
-        X86_64SimFrame frame = frag.getFrame().newSimFrame(interp, args);
-        while (!instructionPtr.isEmpty()) {
-            Label jumpTo = instructionPtr.head().interp(frame);
-            if (jumpTo == null) {
-                //System.out.println("jumpto null");
-                instructionPtr = instructionPtr.tail();
+    int length() {
+        return code.length;
+    }
+
+    @Override
+    Map<Label, Integer> getLabels() {
+        return labels;
+    }
+
+    @Override
+    X86_64SimFrame newFrame(Interp interp, List<Word> args) {
+        X86_64SimFrame frame = frag.getFrame().newSimFrame(interp, args, slots);
+        frame.proc = this;
+        return frame;
+    }
+
+    @Override
+    X86_64SimFrame run(X86_64SimFrame frame) {
+        IRStm[] code = this.code;
+        int instructionPtr = frame.pc;
+        long[] executed = executed(frame);
+        while (instructionPtr < code.length && code[instructionPtr] != null) {
+            if (executed != null)
+                executed[instructionPtr]++;
+            CALL call = calls[instructionPtr];
+            if (call != null) {
+                Callable proc = (Callable) call.func.interp(frame);
+                List<Word> argVals = List.list();
+                for (IRExp arg : call.args) {
+                    argVals.add(arg.interp(frame));
+                }
+                frame.pc = instructionPtr;
+                if (proc instanceof StackProc)
+                    return ((StackProc) proc).newFrame(frame.getInterp(), argVals);
+                resume(frame, proc.call(frame.getInterp(), argVals));
+                instructionPtr = frame.pc;
+                continue;
             }
+            Label jumpTo = code[instructionPtr].interp(frame);
+            if (jumpTo == null)
+                instructionPtr++;
             else if (jumpTo == doneLabel)
-                return frame.getReturnValue();
-            else {
-                //System.out.println("our jumpto label is: " + jumpTo);
-                instructionPtr = labels.get(jumpTo);
-            }
+                return null;
+            else
+                instructionPtr = jump(instructionPtr, jumpTo);
         }
         if (doneLabel == null) {
             // Not using basic blocks, normal termination is by "getting to the end"
-            return frame.getReturnValue();
+            return null;
         } else {
             // since the done label was defined, we expect that "correct" IR code
             // should use it to jump out of the method body.
@@ -93,6 +245,14 @@ public class SimProc extends Callable {
         }
     }
 
+    @Override
+    void resume(X86_64SimFrame frame, Word result) {
+        IRExp dst = results[frame.pc];
+        if (dst != null)
+            dst.set(result, frame);
+        frame.pc++;
+    }
+
     @Override
     public String toString() {
         return "SimProc(" + frag.getLabel() + ")";
@@ -0,0 +1,91 @@
+package ir.interp;
+
+import ir.frame.Frame;
+import ir.temp.Label;
+import ir.tree.IRExp;
+import ir.tree.TEMP;
+
+import java.util.Map;
+
+import translate.ProcFragment;
+import util.List;
+
+/**
+ * A procedure that the interpreter runs on its own stack of frames, rather
+ * than on the Java stack (see {@link Interp#execute(StackProc, List)}).
+ * <p>
+ * A call of another StackProc at the top of a statement (a MOVE of a CALL
+ * or an EXP of a CALL, which is where the canonical IR has them) doesn't
+ * recurse: the procedure stops, with the frame's pc at the call, and hands
+ * the frame for the callee back to the interpreter, which resumes it with
+ * the result when the callee returns. Calls of other Callables, and calls
+ * anywhere else, are simply made.
+ */
+abstract class StackProc extends Callable {
+
+    /**
+     * Make the frame for a call of this procedure.
+     */
+    abstract X86_64SimFrame newFrame(Interp interp, List<Word> args);
+
+    /**
+     * Run the code of this procedure in the given frame, from its pc.
+     *
+     * @return the frame for a call that it makes, or null when it returns.
+     */
+    abstract X86_64SimFrame run(X86_64SimFrame frame);
+
+    /**
+     * Finish the call that the frame's pc is at, which returned the given
+     * result, so that the code can run on from the next statement.
+     */
+    abstract void resume(X86_64SimFrame frame, Word result);
+
+    /**
+     * The fragment this is the code of.
+     */
+    abstract ProcFragment getFragment();
+
+    /**
+     * The number of statements in the code, which the pc is an index of.
+     */
+    abstract int length();
+
+    /**
+     * The index of the statement that follows each LABEL in the code.
+     */
+    abstract Map<Label, Integer> getLabels();
+
+    /**
+     * Where to count the statements executed in the given frame, by their
+     * index, or null if the interpreter isn't keeping a profile (see
+     * {@link Interp#profile}).
+     */
+    long[] executed(X86_64SimFrame frame) {
+        InterpProfile profile = frame.getInterp().profile;
+        return profile == null ? null : profile.executed(this);
+    }
+
+    /**
+     * Number the Temps that a frame is set up with (the frame pointer and
+     * the registers that pass the arguments) and that the return value is
+     * read from, so that a frame with the given Slots needs no map for them
+     * (which, on a deep stack, adds up).
+     */
+    static void numberFrameTemps(Frame frame, X86_64SimFrame.Slots slots) {
+        number(frame.FP(), slots);
+        number(frame.RV(), slots);
+        for (int i = 0; i < frame.getFormals().size(); i++)
+            number(frame.getInArg(i).exp(frame.FP()), slots);
+    }
+
+    private static void number(IRExp exp, X86_64SimFrame.Slots slots) {
+        if (exp instanceof TEMP)
+            slots.number(((TEMP) exp).temp);
+    }
+
+    @Override
+    public Word call(Interp interp, List<Word> args) {
+        return interp.execute(this, args);
+    }
+}
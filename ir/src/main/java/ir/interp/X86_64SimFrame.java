@@ -7,7 +7,9 @@ import ir.temp.Temp;
 import ir.tree.IRData;
 import ir.tree.IRExp;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -34,7 +36,94 @@ import util.List;
  */
 public class X86_64SimFrame extends DefaultIndentable {
 
-    private Map<Temp, Word> temps = new HashMap<Temp, Word>();
+    /**
+     * A numbering of (some of) the Temps of a procedure, so that a frame can
+     * keep them in an array, where they can be found by their number.
+     */
+    public static class Slots {
+
+        private final Map<Temp, Integer> numbers = new HashMap<Temp, Integer>();
+        /**
+         * The same numbers, for finding them without hashing the Temps' names.
+         */
+        private final Map<Temp, Integer> identities = new IdentityHashMap<Temp, Integer>();
+        private final java.util.List<Temp> temps = new ArrayList<Temp>();
+        /**
+         * What reading each Temp gives before it is written to.
+         */
+        private final java.util.List<UninitializedWord> uninitialized = new ArrayList<UninitializedWord>();
+
+        /**
+         * The number of a Temp, which gets the next one if it has none yet.
+         */
+        public int number(Temp temp) {
+            Integer number = numbers.get(temp);
+            if (number == null) {
+                number = temps.size();
+                numbers.put(temp, number);
+                identities.put(temp, number);
+                temps.add(temp);
+                uninitialized.add(new UninitializedWord("?" + temp));
+            }
+            return number;
+        }
+
+        public int size() {
+            return temps.size();
+        }
+
+        /**
+         * The number of a Temp, or null if it has none.
+         */
+        Integer find(Temp temp) {
+            Integer number = identities.get(temp);
+            return number != null ? number : numbers.get(temp);
+        }
+    }
+
+    /**
+     * The Temps that have no slot (made when the first one is written to).
+     */
+    private Map<Temp, Word> temps = null;
+
+    private final Slots slots;
+    private final Word[] slotValues;
+
+    /**
+     * Marks a slot that holds an Int, whose value is kept in slotInts
+     * rather than in an Int object.
+     */
+    private static final Word UNBOXED = new UninitializedWord("?unboxed");
+
+    /**
+     * What is in the slot of the return address, in every frame.
+     */
+    private static final Word RETURN_ADDRESS = new UninitializedWord("?return");
+    private final int[] slotInts;
+
+    /**
+     * Where compiled code (see {@link CompiledProc}) leaves an int that it
+     * computed, rather than making an Int of it.
+     */
+    int value;
+
+    /**
+     * The procedure this frame is for, and the frame of its caller on the
+     * interpreter's stack (see {@link StackProc}).
+     */
+    StackProc proc;
+    X86_64SimFrame caller;
+
+    /**
+     * Where the procedure is in its code: while it makes a call, the index of
+     * the statement that makes it.
+     */
+    int pc;
+
+    /**
+     * Where compiled code leaves the frame for a call it makes.
+     */
+    X86_64SimFrame callee;
 
     /**
      * Compile time counterpart of this frame (has some crucial information such
@@ -55,7 +144,19 @@ public class X86_64SimFrame extends DefaultIndentable {
     private Interp interp;
 
     public X86_64SimFrame(Interp interp, X86_64Frame frame, List<Word> args) {
+        this(interp, frame, args, null);
+    }
+
+    /**
+     * A frame that keeps the Temps that are numbered in the given Slots in
+     * an array. The Slots must not number any more Temps while the frame is
+     * in use.
+     */
+    public X86_64SimFrame(Interp interp, X86_64Frame frame, List<Word> args, Slots slots) {
         this.interp = interp;
+        this.slots = slots;
+        this.slotValues = slots == null ? null : new Word[slots.size()];
+        this.slotInts = slots == null ? null : new int[slots.size()];
         this.ct_frame = frame;
         this.frameBytes = new Array((args.size() < X86_64Frame.arguments.size() ? 0 : args.size() - X86_64Frame.arguments.size()) + 2 + frame.numLocals(), frame.wordSize());
 
@@ -72,7 +173,7 @@ public class X86_64SimFrame extends DefaultIndentable {
         }
         framePtr().set(FP().interp(this));
         FP().set(framePtr(), this);
-        framePtr().add(frame.wordSize()).set(new UninitializedWord("?return"));
+        framePtr().add(frame.wordSize()).set(RETURN_ADDRESS);
     }
 
     /**
@@ -84,7 +185,12 @@ public class X86_64SimFrame extends DefaultIndentable {
      * @return
      */
     public Word getTemp(Temp name) {
-        Word result = temps.get(name);
+        if (slots != null) {
+            Integer slot = slots.find(name);
+            if (slot != null)
+                return getTemp(slot);
+        }
+        Word result = temps == null ? null : temps.get(name);
         if (result == null) {
             return new UninitializedWord("?" + name);
         }
@@ -97,9 +203,67 @@ public class X86_64SimFrame extends DefaultIndentable {
      */
     public void setTemp(Temp name, Word value) {
         assert (value != null);
+        if (slots != null) {
+            Integer slot = slots.find(name);
+            if (slot != null) {
+                slotValues[slot] = value;
+                return;
+            }
+        }
+        if (temps == null)
+            temps = new HashMap<Temp, Word>();
         temps.put(name, value);
     }
 
+    /**
+     * Like getTemp(Temp), for the Temp with the given number in the Slots of
+     * this frame.
+     */
+    public Word getTemp(int slot) {
+        Word result = slotValues[slot];
+        if (result == UNBOXED) {
+            return Int.valueOf(slotInts[slot]);
+        } else if (result == null) {
+            return slots.uninitialized.get(slot);
+        }
+        return result;
+    }
+
+    /**
+     * Like getTemp(int), except that an Int is not returned but left in
+     * the value field, and null is returned instead.
+     */
+    Word getUnboxed(int slot) {
+        Word result = slotValues[slot];
+        if (result == UNBOXED) {
+            value = slotInts[slot];
+            return null;
+        } else if (result instanceof Int) {
+            value = ((Int) result).value;
+            return null;
+        } else if (result == null) {
+            return slots.uninitialized.get(slot);
+        }
+        return result;
+    }
+
+    /**
+     * Like setTemp(int, Word), for an Int.
+     */
+    void setInt(int slot, int value) {
+        slotValues[slot] = UNBOXED;
+        slotInts[slot] = value;
+    }
+
+    /**
+     * Like setTemp(Temp, Word), for the Temp with the given number in the
+     * Slots of this frame.
+     */
+    public void setTemp(int slot, Word value) {
+        assert (value != null);
+        slotValues[slot] = value;
+    }
+
     /**
      * Return snippet of IR code that computes the frame pointer.
      * (e.g. in x86 this snippet of code references the %ebp
@@ -126,6 +290,24 @@ public class X86_64SimFrame extends DefaultIndentable {
         return ct_frame.RV();
     }
 
+    /**
+     * Add the Words in this frame's Temps and in the frame itself to the
+     * given list (see {@link InterpProfile}).
+     *
+     * @return the Array that is the frame itself, which is not on the heap.
+     */
+    Array roots(java.util.List<Word> roots) {
+        for (int slot = 0; slotValues != null && slot < slotValues.length; slot++) {
+            if (slotValues[slot] != null)
+                roots.add(slotValues[slot]);
+        }
+        if (temps != null)
+            roots.addAll(temps.values());
+        for (int i = 0; i < frameBytes.size(); i++)
+            roots.add(frameBytes.word(i));
+        return frameBytes;
+    }
+
     public Interp getInterp() {
         return interp;
     }
@@ -140,9 +322,17 @@ public class X86_64SimFrame extends DefaultIndentable {
 
         out.println("temps : ");
         out.indent();
-        for (Entry<Temp, Word> entry : temps.entrySet()) {
-            out.print(entry.getKey() + " = ");
-            out.println(entry.getValue());
+        for (int slot = 0; slotValues != null && slot < slotValues.length; slot++) {
+            if (slotValues[slot] != null) {
+                out.print(slots.temps.get(slot) + " = ");
+                out.println(getTemp(slot));
+            }
+        }
+        if (temps != null) {
+            for (Entry<Temp, Word> entry : temps.entrySet()) {
+                out.print(entry.getKey() + " = ");
+                out.println(entry.getValue());
+            }
         }
         out.outdent();
 
@@ -1,7 +1,8 @@
 package ir.temp;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import util.Utils;
 
@@ -48,10 +49,10 @@ public class Label {
      * A map for use in the fromString method (to return the same Label object if a
      * label with this name already exists).
      */
-    private static Map<String, Label> labels = new HashMap<String, Label>();
+    private static final ConcurrentMap<String, Label> labels = new ConcurrentHashMap<String, Label>();
 
     private String name;
-    private static int count;
+    private static final AtomicInteger count = new AtomicInteger();
 
     /**
      * a printable representation of the label, for use in assembly
@@ -88,7 +89,23 @@ public class Label {
      * debugging).
      */
     public static Label generate(String debugName) {
-        return new Label(debugName + "_" + count++);
+        NameScope scope = NameScope.current();
+        if (scope == null)
+            return new Label(nextName(debugName));
+        Label label = new Label(null);
+        label.name = scope.provisional(label, debugName);
+        return label;
+    }
+
+    private static String nextName(String debugName) {
+        return debugName + "_" + count.getAndIncrement();
+    }
+
+    /**
+     * Give a Label that was made in a {@link NameScope} its final name.
+     */
+    void rename(String debugName) {
+        name = nextName(debugName);
     }
 
     /**
@@ -99,8 +116,8 @@ public class Label {
         Label existing = labels.get(name);
         if (existing != null) return existing;
         Label newLabel = new Label(name);
-        labels.put(name, newLabel);
-        return newLabel;
+        existing = labels.putIfAbsent(name, newLabel);
+        return existing != null ? existing : newLabel;
     }
 
 }
@@ -0,0 +1,81 @@
+package ir.temp;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Temps and Labels are numbered in the order in which they are made, so when
+ * several procedures are compiled at the same time their names would depend on
+ * how the threads happen to be scheduled.
+ * <p>
+ * To avoid that, the work for each procedure is done in its own NameScope
+ * (see {@link #enter()} and {@link #exit()}). Temps and Labels made by a thread
+ * while it is in a scope get a provisional name, which is unique but not pretty.
+ * Once all the work is done, {@link #number(Iterable)} gives them their final
+ * names, exactly as if the scopes had been run one after the other.
+ * <p>
+ * The provisional names should not be relied upon for anything but telling
+ * Temps and Labels apart: renaming changes their hashCode, so they must not be
+ * kept in hash tables while they are renamed.
+ */
+public class NameScope {
+
+    private static final ThreadLocal<NameScope> current = new ThreadLocal<NameScope>();
+    private static final AtomicInteger ids = new AtomicInteger();
+
+    private final int id = ids.getAndIncrement();
+    private final ArrayList<Temp> temps = new ArrayList<Temp>();
+    private final ArrayList<Label> labels = new ArrayList<Label>();
+    private final ArrayList<String> debugNames = new ArrayList<String>();
+    private NameScope outer;
+
+    /**
+     * @return The scope the current thread is in, or null if it is not in one.
+     */
+    public static NameScope current() {
+        return current.get();
+    }
+
+    /**
+     * Make this the current thread's scope, until {@link #exit()} is called.
+     */
+    public void enter() {
+        outer = current.get();
+        current.set(this);
+    }
+
+    public void exit() {
+        if (current.get() != this)
+            throw new Error("Exiting a NameScope that isn't the current one");
+        current.set(outer);
+        outer = null;
+    }
+
+    String provisional(Temp temp) {
+        temps.add(temp);
+        return "t?" + id + "_" + (temps.size() - 1);
+    }
+
+    String provisional(Label label, String debugName) {
+        labels.add(label);
+        debugNames.add(debugName);
+        return debugName + "_?" + id + "_" + (labels.size() - 1);
+    }
+
+    /**
+     * Give the Temps and Labels made in these scopes their final names, taking the
+     * scopes in order, and the Temps and Labels of each scope in the order they were made.
+     * None of the scopes should still be in use.
+     */
+    public static void number(Iterable<NameScope> scopes) {
+        for (NameScope scope : scopes) {
+            for (Temp temp : scope.temps)
+                temp.rename();
+            for (int i = 0; i < scope.labels.size(); i++)
+                scope.labels.get(i).rename(scope.debugNames.get(i));
+            scope.temps.clear();
+            scope.labels.clear();
+            scope.debugNames.clear();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ir.temp;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class Temp implements Comparable<Temp> {
@@ -30,7 +31,7 @@ public class Temp implements Comparable<Temp> {
         return true;
     }
 
-    private static int count;
+    private static final AtomicInteger count = new AtomicInteger();
 
     protected Color color = null;
 
@@ -49,7 +50,22 @@ public class Temp implements Comparable<Temp> {
     }
 
     public Temp() {
-        name = "t" + ndigit(count++, 3);
+        NameScope scope = NameScope.current();
+        if (scope == null)
+            name = nextName();
+        else
+            name = scope.provisional(this);
+    }
+
+    private static String nextName() {
+        return "t" + ndigit(count.getAndIncrement(), 3);
+    }
+
+    /**
+     * Give a Temp that was made in a {@link NameScope} its final name.
+     */
+    void rename() {
+        name = nextName();
     }
 
     /**
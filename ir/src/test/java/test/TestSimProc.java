@@ -0,0 +1,119 @@
+package test;
+
+import ir.interp.Interp;
+import ir.interp.InterpMode;
+import ir.interp.InterpProfile;
+import ir.temp.Label;
+import ir.temp.Temp;
+import ir.tree.CJUMP.RelOp;
+import ir.tree.IR;
+import ir.tree.IRStm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import translate.Fragments;
+import translate.TranslatorLabels;
+
+/**
+ * Checks the code of a SimProc, which the interpreter keeps in an array with
+ * the jumps resolved to indices, and the frames it runs it in, which keep
+ * the Temps in slots.
+ */
+public class TestSimProc {
+
+    private static final InterpMode[] modes = {
+            InterpMode.LINEARIZED_IR, InterpMode.BASIC_BLOCKS, InterpMode.TRACE_SCHEDULE
+    };
+
+    private static String run(Fragments program, InterpMode mode) {
+        try {
+            return new Interp(program, mode).run();
+        } catch (Error e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Adds up 1 to 10 in a loop, with a jump back to a label in the middle of
+     * the code, two labels for the same statement and a jump to the label at
+     * the end of the code.
+     */
+    private static Fragments loop() {
+        Temp i = new Temp(), s = new Temp();
+        Label test = Label.gen(), body = Label.gen(), done = Label.gen(), print = Label.gen(), end = Label.gen();
+        return TestIR.makeFragments(null, IR.SEQ(
+                IR.MOVE(i, IR.CONST(0)),
+                IR.MOVE(s, IR.CONST(0)),
+                IR.LABEL(test),
+                IR.CJUMP(RelOp.LT, IR.TEMP(i), IR.CONST(10), body, done),
+                IR.LABEL(body),
+                IR.MOVE(i, IR.PLUS(IR.TEMP(i), 1)),
+                IR.MOVE(s, IR.PLUS(IR.TEMP(s), IR.TEMP(i))),
+                IR.JUMP(test),
+                IR.LABEL(done),
+                IR.LABEL(print),
+                IR.EXP(IR.CALL(TranslatorLabels.L_PRINT, IR.TEMP(s))),
+                IR.JUMP(end),
+                IR.LABEL(end)));
+    }
+
+    @Test
+    public void jumps() throws Exception {
+        for (InterpMode mode : modes)
+            Assertions.assertEquals("55\n", new Interp(loop(), mode).run(), mode.toString());
+    }
+
+    @Test
+    public void statementsExecuted() throws Exception {
+        Interp interp = new Interp(loop(), InterpMode.LINEARIZED_IR);
+        interp.profile = new InterpProfile();
+        Assertions.assertEquals("55\n", interp.run());
+        // 2 MOVEs, 11 CJUMPs, 10 rounds of 2 MOVEs and a JUMP, the print and
+        // the last JUMP: the LABELs aren't statements.
+        Assertions.assertEquals(45, interp.profile.countStatements());
+    }
+
+    @Test
+    public void jumpOutOfProcedure() throws Exception {
+        Label nowhere = Label.get("nowhere");
+        Fragments program = TestIR.makeFragments(null, IR.SEQ(
+                IR.JUMP(nowhere),
+                IR.EXP(IR.CALL(TranslatorLabels.L_PRINT, IR.CONST(1)))));
+        Assertions.assertEquals("Jump to nowhere, which is not in " + TranslatorLabels.L_MAIN,
+                run(program, InterpMode.LINEARIZED_IR));
+    }
+
+    @Test
+    public void readBeforeWrite() throws Exception {
+        // t has a slot, since it is written to, but not yet when it is read
+        Temp t = new Temp(), u = new Temp();
+        Fragments program = TestIR.makeFragments(null, IR.SEQ(
+                IR.MOVE(u, IR.PLUS(IR.TEMP(t), 1)),
+                IR.MOVE(t, IR.CONST(1)),
+                IR.EXP(IR.CALL(TranslatorLabels.L_PRINT, IR.TEMP(u)))));
+        for (InterpMode mode : modes)
+            Assertions.assertEquals("Operation performed on an unitialized word!?" + t, run(program, mode),
+                    mode.toString());
+    }
+
+    @Test
+    public void readBeforeWriteInLoop() throws Exception {
+        // The first round reads t before the end of the round writes it
+        Temp i = new Temp(), t = new Temp(), s = new Temp();
+        Label test = Label.gen(), body = Label.gen(), done = Label.gen();
+        Fragments program = TestIR.makeFragments(null, IR.SEQ(
+                IR.MOVE(i, IR.CONST(0)),
+                IR.MOVE(s, IR.CONST(0)),
+                IR.LABEL(test),
+                IR.CJUMP(RelOp.LT, IR.TEMP(i), IR.CONST(3), body, done),
+                IR.LABEL(body),
+                IR.MOVE(s, IR.PLUS(IR.TEMP(s), IR.TEMP(t))),
+                IR.MOVE(t, IR.CONST(1)),
+                IR.MOVE(i, IR.PLUS(IR.TEMP(i), 1)),
+                IR.JUMP(test),
+                IR.LABEL(done),
+                IR.EXP(IR.CALL(TranslatorLabels.L_PRINT, IR.TEMP(s)))));
+        for (InterpMode mode : modes)
+            Assertions.assertEquals("Operation performed on an unitialized word!?" + t, run(program, mode),
+                    mode.toString());
+    }
+}
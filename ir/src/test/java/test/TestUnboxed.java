@@ -0,0 +1,212 @@
+package test;
+
+import ir.interp.Interp;
+import ir.interp.InterpMode;
+import ir.temp.Label;
+import ir.temp.Temp;
+import ir.tree.BINOP.Op;
+import ir.tree.CJUMP.RelOp;
+import ir.tree.IR;
+import ir.tree.IRExp;
+import ir.tree.IRStm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import translate.TranslatorLabels;
+
+/**
+ * Runs the same IR code boxed (interpreted, with every value a Word) and
+ * unboxed (compiled, see {@link InterpMode#COMPILED}, which computes with
+ * plain ints), and checks that both print the same, or fail with the same
+ * error.
+ */
+public class TestUnboxed {
+
+    private static String run(IRStm body, InterpMode mode) {
+        try {
+            return new Interp(TestIR.makeFragments(null, body), mode).run();
+        } catch (Error | RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * What the code prints, or how it fails, checking that it is the same
+     * boxed and unboxed.
+     */
+    private static String same(IRStm... code) {
+        IRStm body = IR.SEQ(code);
+        String boxed = run(body, InterpMode.TRACE_SCHEDULE);
+        Assertions.assertEquals(boxed, run(body, InterpMode.COMPILED));
+        return boxed;
+    }
+
+    private static IRStm print(IRExp e) {
+        return IR.EXP(IR.CALL(TranslatorLabels.L_PRINT, e));
+    }
+
+    private static IRExp binop(Op op, IRExp l, IRExp r) {
+        return IR.BINOP(op, l, r);
+    }
+
+    @Test
+    public void arithmetic() {
+        Temp max = new Temp(), b = new Temp(), two = new Temp();
+        Assertions.assertEquals("-2147483648\n2147483642\n-21\n-3\n-4\n-14\n2147483647\n-5\n9\n-10\n",
+                same(IR.MOVE(max, IR.CONST(Integer.MAX_VALUE)),
+                        IR.MOVE(b, IR.CONST(-7)),
+                        IR.MOVE(two, IR.CONST(2)),
+                        print(binop(Op.PLUS, IR.TEMP(max), IR.CONST(1))),
+                        print(binop(Op.MINUS, IR.TEMP(b), IR.TEMP(max))),
+                        print(binop(Op.MUL, IR.TEMP(b), IR.CONST(3))),
+                        print(binop(Op.DIV, IR.TEMP(b), IR.TEMP(two))),
+                        print(binop(Op.ARSHIFT, IR.TEMP(b), IR.CONST(1))),
+                        print(binop(Op.MUL, IR.CONST(2), IR.TEMP(b))),
+                        print(binop(Op.MINUS, binop(Op.PLUS, IR.TEMP(max), IR.TEMP(b)), IR.CONST(-7))),
+                        print(binop(Op.PLUS, IR.TEMP(two), IR.TEMP(b))),
+                        print(binop(Op.MINUS, IR.TEMP(two), IR.TEMP(b))),
+                        print(binop(Op.MINUS, binop(Op.MUL, IR.TEMP(b), IR.TEMP(two)), IR.CONST(-4)))));
+    }
+
+    @Test
+    public void divideByZero() {
+        Temp zero = new Temp();
+        Assertions.assertEquals("java.lang.ArithmeticException: / by zero",
+                same(IR.MOVE(zero, IR.CONST(0)),
+                        print(binop(Op.DIV, IR.CONST(1), IR.TEMP(zero)))));
+    }
+
+    /**
+     * Prints 1 if the comparison holds, else 0.
+     */
+    private static IRStm[] compare(RelOp op, IRExp l, IRExp r) {
+        Label t = Label.gen(), f = Label.gen(), join = Label.gen();
+        return new IRStm[]{
+                IR.CJUMP(op, l, r, t, f),
+                IR.LABEL(t),
+                print(IR.CONST(1)),
+                IR.JUMP(join),
+                IR.LABEL(f),
+                print(IR.CONST(0)),
+                IR.LABEL(join)
+        };
+    }
+
+    @Test
+    public void comparisons() {
+        RelOp[] ops = {RelOp.LT, RelOp.GE, RelOp.EQ, RelOp.NE, RelOp.ULT, RelOp.UGE};
+        String[] expected = {
+                // (-1, 1), (1, -1), (2, 2) for each op
+                "1\n0\n0\n", "0\n1\n1\n", "0\n0\n1\n", "1\n1\n0\n", "0\n0\n0\n", "1\n1\n1\n"
+        };
+        int[][] pairs = {{-1, 1}, {1, -1}, {2, 2}};
+        for (int i = 0; i < ops.length; i++) {
+            StringBuilder result = new StringBuilder();
+            for (int[] pair : pairs) {
+                Temp l = new Temp(), r = new Temp();
+                IRStm[] code = compare(ops[i], IR.TEMP(l), IR.TEMP(r));
+                result.append(same(IR.SEQ(IR.MOVE(l, IR.CONST(pair[0])), IR.MOVE(r, IR.CONST(pair[1])),
+                        IR.SEQ(code))));
+            }
+            Assertions.assertEquals(expected[i], result.toString(), ops[i].toString());
+        }
+    }
+
+    @Test
+    public void conditionalMoves() {
+        Temp x = new Temp(), y = new Temp();
+        Assertions.assertEquals("5\n5\n3\n",
+                same(IR.MOVE(x, IR.CONST(3)),
+                        IR.MOVE(y, IR.CONST(3)),
+                        IR.CMOVE(RelOp.LT, IR.TEMP(x), IR.CONST(4), IR.TEMP(y), IR.CONST(5)),
+                        print(IR.TEMP(y)),
+                        IR.CMOVE(RelOp.NE, IR.TEMP(x), IR.CONST(3), IR.TEMP(y), IR.CONST(6)),
+                        print(IR.TEMP(y)),
+                        IR.CMOVE(RelOp.EQ, IR.TEMP(x), IR.CONST(3), IR.TEMP(y), IR.TEMP(x)),
+                        print(IR.TEMP(y))));
+    }
+
+    @Test
+    public void missingComparison() {
+        Temp x = new Temp();
+        // Trace scheduling may have turned it into a LE
+        String result = same(IR.MOVE(x, IR.CONST(1)), IR.SEQ(compare(RelOp.GT, IR.TEMP(x), IR.CONST(0))));
+        Assertions.assertTrue(result.startsWith("java.lang.Error: Missing case?"), result);
+    }
+
+    /**
+     * Makes an array of 3 in a, and puts 10, 11 and 12 in it.
+     */
+    private static IRStm array(Temp a) {
+        return IR.SEQ(IR.MOVE(a, IR.CALL(TranslatorLabels.L_NEW_ARRAY, IR.CONST(3))),
+                IR.MOVE(IR.MEM(IR.TEMP(a)), IR.CONST(10)),
+                IR.MOVE(IR.MEM(IR.PLUS(IR.TEMP(a), 8)), IR.CONST(11)),
+                IR.MOVE(IR.MEM(IR.PLUS(IR.TEMP(a), 16)), IR.CONST(12)));
+    }
+
+    @Test
+    public void arrays() {
+        Temp a = new Temp(), i = new Temp();
+        Assertions.assertEquals("3\n10\n12\n23\n",
+                same(array(a),
+                        IR.MOVE(i, IR.CONST(2)),
+                        print(IR.MEM(IR.MINUS(IR.TEMP(a), 8))),
+                        print(IR.MEM(IR.TEMP(a))),
+                        print(IR.MEM(IR.PLUS(IR.TEMP(a), IR.MUL(IR.TEMP(i), 8)))),
+                        print(binop(Op.PLUS, IR.MEM(IR.PLUS(IR.TEMP(a), 8)), IR.MEM(IR.PLUS(IR.TEMP(a), 16))))));
+    }
+
+    @Test
+    public void arrayBounds() {
+        Temp a = new Temp(), i = new Temp();
+        String past = same(array(a), print(IR.MEM(IR.PLUS(IR.TEMP(a), 24))));
+        Assertions.assertTrue(past.startsWith("java.lang.ArrayIndexOutOfBoundsException"), past);
+        String before = same(array(a), print(IR.MEM(IR.MINUS(IR.TEMP(a), 16))));
+        Assertions.assertTrue(before.startsWith("java.lang.ArrayIndexOutOfBoundsException"), before);
+        String store = same(array(a),
+                IR.MOVE(i, IR.CONST(3)),
+                IR.MOVE(IR.MEM(IR.PLUS(IR.TEMP(a), IR.MUL(IR.TEMP(i), 8))), IR.CONST(1)));
+        Assertions.assertTrue(store.startsWith("java.lang.ArrayIndexOutOfBoundsException"), store);
+    }
+
+    @Test
+    public void arrayBoundsCheck() {
+        // The check the translator puts before a[i]: 0 <= i < a.length
+        Temp a = new Temp(), i = new Temp();
+        Label ok = Label.gen(), pass = Label.gen(), err = Label.gen();
+        Assertions.assertEquals("java.lang.Error: MiniJava failure 1\n",
+                same(array(a),
+                        IR.MOVE(i, IR.CONST(3)),
+                        IR.CJUMP(RelOp.LT, IR.TEMP(i), IR.CONST(0), err, ok),
+                        IR.LABEL(ok),
+                        IR.CJUMP(RelOp.LT, IR.TEMP(i), IR.MEM(IR.MINUS(IR.TEMP(a), 8)), pass, err),
+                        IR.LABEL(err),
+                        IR.EXP(IR.CALL(TranslatorLabels.L_ERROR, IR.CONST(1))),
+                        IR.LABEL(pass),
+                        print(IR.MEM(IR.PLUS(IR.TEMP(a), IR.MUL(IR.TEMP(i), 8))))));
+    }
+
+    @Test
+    public void nullPointers() {
+        Temp a = new Temp();
+        String load = same(IR.MOVE(a, IR.CONST(0)), print(IR.MEM(IR.PLUS(IR.TEMP(a), 8))));
+        Assertions.assertTrue(load.startsWith("java.lang.ClassCastException"), load);
+        String length = same(IR.MOVE(a, IR.CONST(0)), print(IR.MEM(IR.MINUS(IR.TEMP(a), 8))));
+        Assertions.assertTrue(length.startsWith("java.lang.ClassCastException"), length);
+        String store = same(IR.MOVE(a, IR.CONST(0)), IR.MOVE(IR.MEM(IR.TEMP(a)), IR.CONST(1)));
+        Assertions.assertTrue(store.startsWith("java.lang.ClassCastException"), store);
+    }
+
+    @Test
+    public void nullCheck() {
+        // The translator compares an object to 0 to find null
+        Temp o = new Temp(), n = new Temp();
+        IRStm object = IR.MOVE(o, IR.CALL(TranslatorLabels.L_NEW_OBJECT, IR.CONST(16)));
+        Assertions.assertEquals("0\n1\n",
+                same(object,
+                        IR.MOVE(n, IR.CONST(0)),
+                        IR.SEQ(compare(RelOp.EQ, IR.TEMP(o), IR.CONST(0))),
+                        IR.SEQ(compare(RelOp.EQ, IR.TEMP(n), IR.CONST(0)))));
+        String notNull = same(object, IR.SEQ(compare(RelOp.EQ, IR.TEMP(o), IR.CONST(1))));
+        Assertions.assertTrue(notNull.startsWith("java.lang.Error: EQ on"), notNull);
+    }
+}
@@ -0,0 +1,104 @@
+package x86_64sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import x86_64sim.parser.SimParser;
+
+/**
+ * Simulates many programs at the same time. Each program is parsed once, and
+ * each run has a State of its own, with its own output and instruction limit,
+ * so nothing is shared between runs but the (read only) Program.
+ */
+public class Batch {
+
+    /**
+     * A program to run, with a name to recognise its Result by.
+     */
+    public static class Job {
+        public final String name;
+        public final Program program;
+        public final long maxInstructions;
+
+        public Job(String name, Program program, long maxInstructions) {
+            program.link();
+            this.name = name;
+            this.program = program;
+            this.maxInstructions = maxInstructions;
+        }
+
+        public Job(String name, String assembly) {
+            this(name, SimParser.parse(assembly), State.MAX_INSTRUCTIONS);
+        }
+    }
+
+    public static class Result {
+        public final String name;
+        /**
+         * What the program printed, or what went wrong (see {@link State#runForResult()}).
+         */
+        public final String output;
+        public final long instructions;
+        public final long nanos;
+
+        Result(String name, String output, long instructions, long nanos) {
+            this.name = name;
+            this.output = output;
+            this.instructions = instructions;
+            this.nanos = nanos;
+        }
+    }
+
+    public static Result run(Job job, State.Engine engine) {
+        long start = System.nanoTime();
+        State state = new State(job.program);
+        state.engine = engine;
+        state.maxInstructions = job.maxInstructions;
+        state.runForResult();
+        return new Result(job.name, state.result, state.instructionsExecuted, System.nanoTime() - start);
+    }
+
+    /**
+     * Run all the jobs using the given number of threads.
+     *
+     * @return the results, in the order of the jobs.
+     */
+    public static List<Result> run(List<Job> jobs, State.Engine engine, int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            return run(jobs, engine, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Run all the jobs on the given executor (e.g. one that makes a virtual
+     * thread for each task, on a JVM that has them), which is left running.
+     *
+     * @return the results, in the order of the jobs.
+     */
+    public static List<Result> run(List<Job> jobs, final State.Engine engine, ExecutorService executor) {
+        List<Future<Result>> futures = new ArrayList<Future<Result>>();
+        for (final Job job : jobs)
+            futures.add(executor.submit(() -> run(job, engine)));
+        List<Result> results = new ArrayList<Result>();
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                throw new Error("Interrupted while waiting for the simulations\n");
+            } catch (ExecutionException e) {
+                // runForResult catches the Errors of the program itself, so this is a bug
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+                throw new Error(e.getCause());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,91 @@
+package x86_64sim;
+
+import java.util.Arrays;
+
+/**
+ * One level of a simulated data cache: set associative, allocating a line on
+ * both reads and writes, and replacing the least recently used line of a set.
+ * It only keeps track of which lines it holds, not of their contents, and
+ * counts the hits, misses and evictions of each {@link CacheSimulation.Region}.
+ */
+public class Cache {
+    public final String name;
+    public final int size, ways, lineSize;
+    private final int sets;
+    private final int lineShift;
+    /**
+     * The line number held by each way of each set (or -1), and when it was last used.
+     */
+    private final long[] lines;
+    private final long[] used;
+    private long time;
+
+    final long[] hits = new long[CacheSimulation.Region.values().length];
+    final long[] misses = new long[CacheSimulation.Region.values().length];
+    final long[] evictions = new long[CacheSimulation.Region.values().length];
+
+    /**
+     * @param size     in bytes.
+     * @param ways     the number of lines in each set.
+     * @param lineSize in bytes.
+     */
+    public Cache(String name, int size, int ways, int lineSize) {
+        if (Integer.bitCount(lineSize) != 1 || lineSize < Memory.SIZEOF_LONG)
+            throw new Error("The line size of cache " + name + " must be a power of 2 of at least 8 bytes\n");
+        if (ways <= 0 || size % (ways * lineSize) != 0 || Integer.bitCount(size / (ways * lineSize)) != 1)
+            throw new Error("The number of sets of cache " + name + " must be a power of 2\n");
+        this.name = name;
+        this.size = size;
+        this.ways = ways;
+        this.lineSize = lineSize;
+        this.sets = size / (ways * lineSize);
+        this.lineShift = Integer.numberOfTrailingZeros(lineSize);
+        this.lines = new long[sets * ways];
+        this.used = new long[sets * ways];
+        Arrays.fill(lines, -1L);
+    }
+
+    /**
+     * Access the line holding an address, bringing it into the cache if it isn't.
+     *
+     * @return whether it was a hit.
+     */
+    boolean access(long address, CacheSimulation.Region region) {
+        long line = address >>> lineShift;
+        int first = (int) (line & (sets - 1)) * ways;
+        int victim = first;
+        time++;
+        for (int way = first; way < first + ways; way++) {
+            if (lines[way] == line) {
+                used[way] = time;
+                hits[region.ordinal()]++;
+                return true;
+            }
+            if (used[way] < used[victim])
+                victim = way;
+        }
+        misses[region.ordinal()]++;
+        if (lines[victim] != -1L)
+            evictions[region.ordinal()]++;
+        lines[victim] = line;
+        used[victim] = time;
+        return false;
+    }
+
+    public long hits(CacheSimulation.Region region) {
+        return hits[region.ordinal()];
+    }
+
+    public long misses(CacheSimulation.Region region) {
+        return misses[region.ordinal()];
+    }
+
+    public long evictions(CacheSimulation.Region region) {
+        return evictions[region.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + size / 1024 + "KB, " + ways + " ways, " + lineSize + " byte lines)";
+    }
+}
@@ -0,0 +1,135 @@
+package x86_64sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A simulated two level data cache hierarchy, which sees every read and write of
+ * the {@link Memory} of a State (see {@link State#simulateCaches(CacheSimulation)}).
+ * An access that misses the L1 cache goes to the L2 cache.
+ * <p>
+ * The accesses are counted by the region of memory they are in, and the
+ * accesses and misses of each instruction are kept so they can be put down to
+ * the functions that made them. Like profiling, this makes the State use the
+ * interpreter, so that the pc is that of the instruction doing the access.
+ */
+public class CacheSimulation {
+
+    /**
+     * Where an address is: on the stack (below HEAP_BASE), in the static data
+     * (the vtables) or in the objects and arrays allocated on the heap.
+     */
+    public enum Region {STACK, STATIC, HEAP}
+
+    public static final int L1_SIZE = 32 * 1024, L1_WAYS = 8;
+    public static final int L2_SIZE = 256 * 1024, L2_WAYS = 8;
+    public static final int LINE_SIZE = 64;
+
+    public final Cache l1, l2;
+    private State state;
+    /**
+     * By instruction address.
+     */
+    private long[] accesses, l1Misses, l2Misses;
+
+    public CacheSimulation() {
+        this(new Cache("L1", L1_SIZE, L1_WAYS, LINE_SIZE), new Cache("L2", L2_SIZE, L2_WAYS, LINE_SIZE));
+    }
+
+    public CacheSimulation(Cache l1, Cache l2) {
+        this.l1 = l1;
+        this.l2 = l2;
+    }
+
+    void attach(State state) {
+        this.state = state;
+        int n = state.p.countInstructions();
+        accesses = new long[n];
+        l1Misses = new long[n];
+        l2Misses = new long[n];
+    }
+
+    private Region region(long address) {
+        if (address < State.HEAP_BASE)
+            return Region.STACK;
+        return address < state.p.dc ? Region.STATIC : Region.HEAP;
+    }
+
+    void access(long address) {
+        Region region = region(address);
+        // The pc has already moved past the instruction being executed
+        long pc = state.pc - 1;
+        boolean known = pc >= 0 && pc < accesses.length;
+        if (known)
+            accesses[(int) pc]++;
+        if (!l1.access(address, region)) {
+            if (known)
+                l1Misses[(int) pc]++;
+            if (!l2.access(address, region) && known)
+                l2Misses[(int) pc]++;
+        }
+    }
+
+    public static class Function {
+        public final String name;
+        public final long accesses, l1Misses, l2Misses;
+
+        Function(String name, long accesses, long l1Misses, long l2Misses) {
+            this.name = name;
+            this.accesses = accesses;
+            this.l1Misses = l1Misses;
+            this.l2Misses = l2Misses;
+        }
+    }
+
+    /**
+     * The memory accesses made by each function, most L1 misses first.
+     */
+    public List<Function> functions() {
+        Program p = state.p;
+        int n = p.countFunctions();
+        long[] a = new long[n + 1], m1 = new long[n + 1], m2 = new long[n + 1];
+        for (int pc = 0; pc < accesses.length; pc++) {
+            if (accesses[pc] == 0)
+                continue;
+            // Anything before the first function goes in the last slot
+            int f = p.getFunctionIndexAt(pc);
+            if (f < 0)
+                f = n;
+            a[f] += accesses[pc];
+            m1[f] += l1Misses[pc];
+            m2[f] += l2Misses[pc];
+        }
+        List<Function> functions = new ArrayList<Function>();
+        for (int f = 0; f <= n; f++) {
+            if (a[f] > 0)
+                functions.add(new Function(f < n ? p.getFunctionName(f) : "unknown", a[f], m1[f], m2[f]));
+        }
+        functions.sort((x, y) -> x.l1Misses != y.l1Misses
+                ? Long.compare(y.l1Misses, x.l1Misses) : Long.compare(y.accesses, x.accesses));
+        return functions;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Data caches: ").append(l1).append(", ").append(l2).append("\n");
+        sb.append(String.format("%-4s %-7s %12s %12s %12s %12s %9s\n",
+                "", "region", "accesses", "hits", "misses", "evictions", "miss rate"));
+        for (Cache c : new Cache[]{l1, l2}) {
+            for (Region r : Region.values()) {
+                long total = c.hits(r) + c.misses(r);
+                sb.append(String.format("%-4s %-7s %12d %12d %12d %12d %8.2f%%\n", c.name, r.name().toLowerCase(),
+                        total, c.hits(r), c.misses(r), c.evictions(r), total == 0 ? 0.0 : 100.0 * c.misses(r) / total));
+            }
+        }
+        sb.append(String.format("%12s %12s %12s  %s\n", "accesses", "L1 misses", "L2 misses", "function"));
+        for (Function f : functions())
+            sb.append(String.format("%12d %12d %12d  %s\n", f.accesses, f.l1Misses, f.l2Misses, f.name));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
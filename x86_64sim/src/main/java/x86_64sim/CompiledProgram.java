@@ -0,0 +1,107 @@
+package x86_64sim;
+
+import x86_64sim.instruction.Instruction;
+import x86_64sim.instruction.Operation;
+
+/**
+ * A Program compiled for faster simulation: the instructions are turned into
+ * Operations with their operands bound in, and grouped into blocks that are
+ * run without fetching, tracing or counting each instruction separately.
+ * <p>
+ * A block starts at an instruction that is the target of some jump, call or
+ * return, and runs up to and including the next instruction that may go
+ * somewhere else. Blocks are made the first time control gets to their first
+ * instruction (so there may be several blocks that end at the same instruction).
+ * They never change once made, so a CompiledProgram can be shared by States
+ * running at the same time.
+ */
+public class CompiledProgram {
+
+    private final Program program;
+    private final Block[] blocks;
+
+    CompiledProgram(Program program) {
+        this.program = program;
+        this.blocks = new Block[program.instructions.size()];
+    }
+
+    private static class Block {
+        final Operation[] operations;
+        /**
+         * Where the instruction after the last one of this block is.
+         */
+        final long end;
+
+        Block(Operation[] operations, long end) {
+            this.operations = operations;
+            this.end = end;
+        }
+
+        void run(State state) {
+            // Only the last operation can depend on the pc, and it expects it to be
+            // the address of the next instruction, as when stepping through the code.
+            state.pc = end;
+            Operation[] operations = this.operations;
+            int i = 0;
+            try {
+                for (; i < operations.length; i++)
+                    operations[i].execute(state);
+            } finally {
+                state.instructionsExecuted += i;
+            }
+        }
+    }
+
+    private Block block(int start) {
+        Block block = blocks[start];
+        if (block == null) {
+            int end = start;
+            while (end < blocks.length && !program.instructions.get(end).endsBlock())
+                end++;
+            end = Math.min(end + 1, blocks.length);
+            Operation[] operations = new Operation[end - start];
+            for (int i = start; i < end; i++)
+                operations[i - start] = program.instructions.get(i).compile();
+            block = new Block(operations, end);
+            blocks[start] = block;
+        }
+        return block;
+    }
+
+    /**
+     * Run the program in the given State until it is done, or has executed the
+     * given number of instructions.
+     */
+    void run(State state, long limit) {
+        while (state.pc != State.DONE && state.instructionsExecuted < limit) {
+            long pc = state.pc;
+            if (pc < 0 || pc >= blocks.length) {
+                // Let step report it
+                state.step();
+                continue;
+            }
+            Block block = block((int) pc);
+            if (state.instructionsExecuted + block.operations.length > limit) {
+                // Don't go over the limit
+                state.step();
+                continue;
+            }
+            block.run(state);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int start = 0; start < blocks.length; start++) {
+            if (blocks[start] == null)
+                continue;
+            sb.append("block at ").append(start).append(" (").append(program.getFunctionAt(start)).append("):\n");
+            for (long i = start; i < blocks[start].end; i++) {
+                Instruction instr = program.instructions.get((int) i);
+                sb.append(instr).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package x86_64sim;
+
+/**
+ * The condition codes of the conditional jumps and moves. An instruction looks
+ * up its condition when it is parsed, so testing it at run time is just a
+ * comparison of the operands of the last cmpq.
+ */
+public enum Condition {
+    L("l") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return conditionl < conditionr;
+        }
+    },
+    B("b") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return unsignedCompare(conditionl, conditionr) < 0;
+        }
+    },
+    E("e") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return conditionl == conditionr;
+        }
+    },
+    G("g") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return conditionl > conditionr;
+        }
+    },
+    A("a") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return unsignedCompare(conditionl, conditionr) > 0;
+        }
+    },
+    LE("le") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return conditionl <= conditionr;
+        }
+    },
+    BE("be") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return unsignedCompare(conditionl, conditionr) <= 0;
+        }
+    },
+    NE("ne") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return conditionl != conditionr;
+        }
+    },
+    GE("ge") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return conditionl >= conditionr;
+        }
+    },
+    AE("ae") {
+        @Override
+        public boolean test(long conditionl, long conditionr) {
+            return unsignedCompare(conditionl, conditionr) >= 0;
+        }
+    };
+
+    private final String code;
+
+    Condition(String code) {
+        this.code = code;
+    }
+
+    public abstract boolean test(long conditionl, long conditionr);
+
+    /**
+     * The Condition for a condition code as it appears in the assembly code (e.g. "le").
+     */
+    public static Condition parse(String code) {
+        for (Condition c : values()) {
+            if (c.code.equals(code))
+                return c;
+        }
+        throw new Error("Illegal condition " + code + "\n");
+    }
+
+    private static long unsignedCompare(long conditionl, long conditionr) {
+        if (conditionl < 0 && conditionr < 0) {
+            // more negative is smaller unsigned
+            return conditionl - conditionr;
+        } else if (conditionl < 0 && conditionr > 0) {
+            // negative is bigger than any positive
+            return 1;
+        } else if (conditionl > 0 && conditionr < 0) {
+            // negative is still bigger than any positive
+            return -1;
+        } else {
+            return conditionl - conditionr;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
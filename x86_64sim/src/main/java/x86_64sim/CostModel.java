@@ -0,0 +1,156 @@
+package x86_64sim;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import util.Utils;
+
+/**
+ * A rough model of what instructions cost on a real processor, used by
+ * {@link Timing} to estimate the number of cycles a program takes.
+ * <p>
+ * Each kind of instruction (Instruction class, e.g. MoveM2R) belongs to one or
+ * more classes, such as "load" and "alu" for an add from memory, and costs
+ * the sum of the cycles of those. On top of that, a conditional jump that the
+ * branch predictor gets wrong, or an indirect call to a different place than
+ * the last time, costs the misprediction penalty. The branch predictor has a
+ * table of 2-bit counters indexed by the address of the jump.
+ * <p>
+ * A model is read from a table like {@link #DEFAULT_TABLE}, one entry per line:
+ * <pre>
+ * class      name cycles
+ * kind       instruction-class name...
+ * mispredict cycles
+ * predictor  number-of-counters (a power of 2)
+ * </pre>
+ * Kinds that aren't mentioned cost DEFAULT_COST cycles. Anything after a # is
+ * a comment.
+ */
+public class CostModel {
+
+    public static final int DEFAULT_COST = 1;
+
+    /**
+     * Costs in the ballpark of a recent x86_64 processor: the reciprocal
+     * throughput of the simple instructions, and the latency of the ones whose
+     * results are usually needed right away (loads, multiplies and divides).
+     */
+    public static final String DEFAULT_TABLE =
+            "class alu 1\n" +
+            "class load 4\n" +
+            "class store 1\n" +
+            "class mul 3\n" +
+            "class div 40\n" +
+            "class jump 1\n" +
+            "class call 2\n" +
+            "class return 2\n" +
+            "kind AddI2R alu\n" +
+            "kind AddR2R alu\n" +
+            "kind AddM2R load alu\n" +
+            "kind SubI2R alu\n" +
+            "kind SubR2R alu\n" +
+            "kind SubM2R load alu\n" +
+            "kind CmpI2R alu\n" +
+            "kind CmpR2R alu\n" +
+            "kind CmpI2M load alu\n" +
+            "kind CmpM2R load alu\n" +
+            "kind CmpR2M load alu\n" +
+            "kind Inc alu\n" +
+            "kind Dec alu\n" +
+            "kind SarI2R alu\n" +
+            "kind XorR2R alu\n" +
+            "kind CMovR2R alu\n" +
+            "kind CQTO alu\n" +
+            "kind Lea alu\n" +
+            "kind MoveI2R alu\n" +
+            "kind MoveR2R alu\n" +
+            "kind MoveM2R load\n" +
+            "kind MoveIM2R load\n" +
+            "kind MoveR2M store\n" +
+            "kind MoveR2IM store\n" +
+            "kind MoveI2M store\n" +
+            "kind MoveI2IM store\n" +
+            "kind Push store\n" +
+            "kind Leave load alu\n" +
+            "kind MulI2R mul\n" +
+            "kind MulR2R mul\n" +
+            "kind MulIR2R mul\n" +
+            "kind MulM2R load mul\n" +
+            "kind DivR div\n" +
+            "kind Jmp jump\n" +
+            "kind CJmp jump\n" +
+            "kind Call call\n" +
+            "kind Ret load return\n" +
+            "mispredict 15\n" +
+            "predictor 1024\n";
+
+    public static final CostModel DEFAULT = parse(DEFAULT_TABLE);
+
+    private final Map<String, Integer> costs;
+    final int mispredict;
+    final int predictorSize;
+
+    private CostModel(Map<String, Integer> costs, int mispredict, int predictorSize) {
+        this.costs = costs;
+        this.mispredict = mispredict;
+        this.predictorSize = predictorSize;
+    }
+
+    public static CostModel read(File table) {
+        return parse(Utils.getContents(table));
+    }
+
+    public static CostModel parse(String table) {
+        Map<String, Integer> classes = new HashMap<String, Integer>();
+        Map<String, Integer> costs = new HashMap<String, Integer>();
+        int mispredict = 0;
+        int predictorSize = 1;
+        int lineNumber = 0;
+        for (String line : table.split("\n")) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0)
+                line = line.substring(0, comment);
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty())
+                continue;
+            try {
+                if (words[0].equals("class") && words.length == 3) {
+                    classes.put(words[1], Integer.parseInt(words[2]));
+                } else if (words[0].equals("kind") && words.length >= 3) {
+                    int cost = 0;
+                    for (int i = 2; i < words.length; i++) {
+                        Integer c = classes.get(words[i]);
+                        if (c == null)
+                            throw new Error("Undefined instruction class " + words[i] + " in line " + lineNumber
+                                    + " of the cost table\n");
+                        cost += c;
+                    }
+                    costs.put(words[1], cost);
+                } else if (words[0].equals("mispredict") && words.length == 2) {
+                    mispredict = Integer.parseInt(words[1]);
+                } else if (words[0].equals("predictor") && words.length == 2) {
+                    predictorSize = Integer.parseInt(words[1]);
+                    if (predictorSize <= 0 || Integer.bitCount(predictorSize) != 1)
+                        throw new Error("The predictor size in line " + lineNumber
+                                + " of the cost table isn't a power of 2\n");
+                } else {
+                    throw new Error("Can't understand line " + lineNumber + " of the cost table: " + line + "\n");
+                }
+            } catch (NumberFormatException e) {
+                throw new Error("Bad number in line " + lineNumber + " of the cost table: " + line + "\n");
+            }
+        }
+        return new CostModel(costs, mispredict, predictorSize);
+    }
+
+    /**
+     * The cost in cycles of a kind of instruction (e.g. "MoveM2R"), not
+     * counting any misprediction.
+     */
+    public int cost(String kind) {
+        Integer cost = costs.get(kind);
+        return cost == null ? DEFAULT_COST : cost;
+    }
+}
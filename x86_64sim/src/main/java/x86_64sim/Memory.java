@@ -1,56 +1,108 @@
 package x86_64sim;
 
+import java.util.Arrays;
+
+/**
+ * The memory of the simulated machine: a single range of addresses, from base
+ * up to (not including) maxheap, that holds the stack followed by the heap.
+ * <p>
+ * Either end can move without changing any addresses. The stack grows down
+ * (to no lower than the stack limit) whenever it is accessed just below base,
+ * and the heap grows up (to no higher than the heap limit) when the State
+ * needs to allocate more than there is.
+ */
 public class Memory {
-    long[] heap, stack;
-    long minheap;
-    public long maxheap;
-    long minstack, maxstack;
     public static final int SIZEOF_LONG = 8;
+    private static final int LOG_SIZEOF_LONG = 3;
+
+    long base;
+    long[] words;
+    public long maxheap;
+    final long stackLimit, heapLimit;
+    /**
+     * If not null, the data caches that see all the accesses.
+     */
+    CacheSimulation caches;
 
-    Memory(long minheap, long maxheap, long minstack, long maxstack) {
-        this.minheap = minheap;
+    /**
+     * @param stackLimit the lowest address the memory can grow down to.
+     * @param base       the initial start of the memory.
+     * @param maxheap    the initial end of the memory.
+     * @param heapLimit  the highest address the memory can grow up to.
+     */
+    Memory(long stackLimit, long base, long maxheap, long heapLimit) {
+        this.stackLimit = stackLimit;
+        this.heapLimit = heapLimit;
+        this.base = base;
         this.maxheap = maxheap;
-        this.heap = new long[(int) ((maxheap - minheap) / SIZEOF_LONG)];
-        this.minstack = minstack;
-        this.maxstack = maxstack;
-        this.stack = new long[(int) ((maxstack - minstack) / SIZEOF_LONG)];
+        this.words = new long[size(base, maxheap)];
     }
 
-    private boolean inHeap(long address) {
-        return minheap <= address && address <= maxheap;
+    private static int size(long from, long to) {
+        long words = (to - from) >> LOG_SIZEOF_LONG;
+        if (words > Integer.MAX_VALUE - 8)
+            throw new Error("Simulated memory of " + (to - from) + " bytes is too large\n");
+        return (int) words;
     }
 
-    private boolean inStack(long address) {
-        return minstack <= address && address <= maxstack;
+    /**
+     * Move the end of the memory up to at least the given address, if that is
+     * within the heap limit.
+     *
+     * @return whether the memory now goes up to end.
+     */
+    boolean grow(long end) {
+        if (end <= maxheap)
+            return true;
+        if (end > heapLimit)
+            return false;
+        long newEnd = Math.min(heapLimit, Math.max(end, maxheap + (maxheap - base)));
+        words = Arrays.copyOf(words, size(base, newEnd));
+        maxheap = newEnd;
+        return true;
+    }
+
+    /**
+     * Move the start of the memory down to at most the given (aligned) address.
+     */
+    private void growDown(long start) {
+        long newBase = Math.max(stackLimit, Math.min(start, base - (maxheap - base)));
+        long[] newWords = new long[size(newBase, maxheap)];
+        System.arraycopy(words, 0, newWords, (int) ((base - newBase) >> LOG_SIZEOF_LONG), words.length);
+        words = newWords;
+        base = newBase;
     }
 
     public long read(long address) {
-        if (address % SIZEOF_LONG != 0) {
-            throw new Error("Read at address " + address + " fails, bad alignment");
-        }
-        if (inHeap(address)) {
-            int arrayindex = (int) ((address - minheap) / SIZEOF_LONG);
-            return heap[arrayindex];
-        } else if (inStack(address)) {
-            int arrayindex = (int) ((address - minstack) / SIZEOF_LONG);
-            return stack[arrayindex];
-        } else {
-            throw new Error("Read at address " + address + " out of bounds");
-        }
+        if (caches != null)
+            caches.access(address);
+        long offset = address - base;
+        // One test for both alignment and range: a negative offset is a large unsigned number.
+        if ((offset & (SIZEOF_LONG - 1)) != 0 || offset >>> LOG_SIZEOF_LONG >= words.length)
+            return words[fault("Read", address)];
+        return words[(int) (offset >>> LOG_SIZEOF_LONG)];
     }
 
     public void write(long address, long value) {
-        if (address % SIZEOF_LONG != 0) {
-            throw new Error("Write at address " + address + " fails, bad alignment");
-        }
-        if (inHeap(address)) {
-            int arrayindex = (int) ((address - minheap) / SIZEOF_LONG);
-            heap[arrayindex] = value;
-        } else if (inStack(address)) {
-            int arrayindex = (int) ((address - minstack) / SIZEOF_LONG);
-            stack[arrayindex] = value;
-        } else {
-            throw new Error("Write at address " + address + " out of bounds");
-        }
+        if (caches != null)
+            caches.access(address);
+        long offset = address - base;
+        if ((offset & (SIZEOF_LONG - 1)) != 0 || offset >>> LOG_SIZEOF_LONG >= words.length)
+            words[fault("Write", address)] = value;
+        else
+            words[(int) (offset >>> LOG_SIZEOF_LONG)] = value;
+    }
+
+    /**
+     * An access outside of the memory: grow the stack if the address is in its
+     * range, and return the index of the address. Otherwise, fail.
+     */
+    private int fault(String access, long address) {
+        if (address % SIZEOF_LONG != 0)
+            throw new Error(access + " at address " + address + " fails, bad alignment");
+        if (address < stackLimit || address >= base)
+            throw new Error(access + " at address " + address + " out of bounds");
+        growDown(address);
+        return (int) ((address - base) >> LOG_SIZEOF_LONG);
     }
 }
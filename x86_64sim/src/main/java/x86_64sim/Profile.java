@@ -0,0 +1,252 @@
+package x86_64sim;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import x86_64sim.instruction.Call;
+import x86_64sim.instruction.Instruction;
+
+/**
+ * Where a State spent its time: how many times each instruction was executed,
+ * and how many calls were made to each function. From those a Profile works
+ * out a flat profile by function, the mix of the kinds of instructions (the
+ * Instruction classes, e.g. MoveR2M), and the number of times each basic block
+ * was run.
+ * <p>
+ * A State only keeps a Profile if it is given one (see {@link State#profile}),
+ * and it always uses the interpreter when it does.
+ */
+public class Profile {
+
+    private final Program program;
+    /**
+     * By instruction address.
+     */
+    private final long[] executed;
+    /**
+     * By function number (see {@link Program#getFunctionIndexAt(long)}).
+     */
+    private final long[] calls;
+    private final Map<String, Long> builtinCalls = new TreeMap<String, Long>();
+
+    public Profile(Program program) {
+        program.link();
+        this.program = program;
+        this.executed = new long[program.countInstructions()];
+        this.calls = new long[program.countFunctions()];
+    }
+
+    /**
+     * Count the execution of instruction i at the given address, after which
+     * control went to next.
+     */
+    void record(long at, Instruction i, long next) {
+        executed[(int) at]++;
+        if (i instanceof Call) {
+            String builtin = ((Call) i).getBuiltin();
+            if (builtin != null) {
+                Long n = builtinCalls.get(builtin);
+                builtinCalls.put(builtin, n == null ? 1 : n + 1);
+            } else {
+                int function = program.getFunctionIndexAt(next);
+                if (function >= 0)
+                    calls[function]++;
+            }
+        }
+    }
+
+    public static class Function {
+        public final String name;
+        public final long instructions;
+        public final long calls;
+
+        Function(String name, long instructions, long calls) {
+            this.name = name;
+            this.instructions = instructions;
+            this.calls = calls;
+        }
+    }
+
+    public static class Block {
+        public final long start;
+        public final String name;
+        public final int length;
+        public final long runs;
+
+        Block(long start, String name, int length, long runs) {
+            this.start = start;
+            this.name = name;
+            this.length = length;
+            this.runs = runs;
+        }
+
+        public long instructions() {
+            return runs * length;
+        }
+    }
+
+    public long countInstructions() {
+        long total = 0;
+        for (long n : executed)
+            total += n;
+        return total;
+    }
+
+    public long countCalls() {
+        long total = 0;
+        for (long n : calls)
+            total += n;
+        for (long n : builtinCalls.values())
+            total += n;
+        return total;
+    }
+
+    /**
+     * The instructions executed in each function and the calls made to it
+     * (including the runtime functions implemented by the simulator, which
+     * don't execute any instructions), most instructions first.
+     */
+    public List<Function> functions() {
+        long[] instructions = new long[calls.length];
+        long unknown = 0;
+        for (int pc = 0; pc < executed.length; pc++) {
+            if (executed[pc] == 0)
+                continue;
+            int function = program.getFunctionIndexAt(pc);
+            if (function < 0)
+                unknown += executed[pc];
+            else
+                instructions[function] += executed[pc];
+        }
+        List<Function> functions = new ArrayList<Function>();
+        if (unknown > 0)
+            functions.add(new Function("unknown", unknown, 0));
+        for (int f = 0; f < calls.length; f++) {
+            if (instructions[f] > 0 || calls[f] > 0)
+                functions.add(new Function(program.getFunctionName(f), instructions[f], calls[f]));
+        }
+        for (Map.Entry<String, Long> builtin : builtinCalls.entrySet())
+            functions.add(new Function(builtin.getKey(), 0, builtin.getValue()));
+        functions.sort((a, b) -> a.instructions != b.instructions
+                ? Long.compare(b.instructions, a.instructions) : Long.compare(b.calls, a.calls));
+        return functions;
+    }
+
+    /**
+     * The number of instructions executed of each kind, most first.
+     */
+    public Map<String, Long> instructionMix() {
+        Map<String, Long> mix = new HashMap<String, Long>();
+        for (int pc = 0; pc < executed.length; pc++) {
+            if (executed[pc] == 0)
+                continue;
+            String kind = program.instructions.get(pc).getClass().getSimpleName();
+            Long n = mix.get(kind);
+            mix.put(kind, n == null ? executed[pc] : n + executed[pc]);
+        }
+        List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(mix.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        Map<String, Long> sorted = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Long> e : entries)
+            sorted.put(e.getKey(), e.getValue());
+        return sorted;
+    }
+
+    /**
+     * The basic blocks that were run, most instructions executed first. A block
+     * starts at a label or after an instruction that may go somewhere else, so
+     * control can only enter it at the top: the number of times it was run is
+     * the number of times its first instruction was executed.
+     */
+    public List<Block> blocks() {
+        int n = executed.length;
+        String[] labelAt = new String[n];
+        for (Map.Entry<String, Long> label : program.labels.entrySet()) {
+            long address = label.getValue();
+            if (address >= 0 && address < n && (labelAt[(int) address] == null
+                    || label.getKey().compareTo(labelAt[(int) address]) < 0))
+                labelAt[(int) address] = label.getKey();
+        }
+        List<Block> blocks = new ArrayList<Block>();
+        int start = 0;
+        while (start < n) {
+            int end = start + 1;
+            while (end < n && labelAt[end] == null && !program.instructions.get(end - 1).endsBlock())
+                end++;
+            if (executed[start] > 0)
+                blocks.add(new Block(start, blockName(start, labelAt[start]), end - start, executed[start]));
+            start = end;
+        }
+        blocks.sort((a, b) -> Long.compare(b.instructions(), a.instructions()));
+        return blocks;
+    }
+
+    private String blockName(int start, String label) {
+        if (label != null)
+            return label;
+        int function = program.getFunctionIndexAt(start);
+        if (function < 0)
+            return "" + start;
+        String name = program.getFunctionName(function);
+        return name + "+" + (start - program.getLabel(name));
+    }
+
+    private static String percent(long part, long total) {
+        return String.format("%6.2f%%", total == 0 ? 0.0 : 100.0 * part / total);
+    }
+
+    /**
+     * A readable report: the flat profile by function, the instruction mix and
+     * the given number of the hottest basic blocks.
+     */
+    public String report(int topBlocks) {
+        long total = countInstructions();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Flat profile: ").append(total).append(" instructions executed, ")
+                .append(countCalls()).append(" calls\n");
+        sb.append(String.format("%7s %14s %10s  %s\n", "%", "instructions", "calls", "function"));
+        for (Function f : functions())
+            sb.append(String.format("%7s %14d %10d  %s\n", percent(f.instructions, total), f.instructions, f.calls, f.name));
+        sb.append("\nInstruction mix:\n");
+        sb.append(String.format("%7s %14s  %s\n", "%", "instructions", "kind"));
+        for (Map.Entry<String, Long> kind : instructionMix().entrySet())
+            sb.append(String.format("%7s %14d  %s\n", percent(kind.getValue(), total), kind.getValue(), kind.getKey()));
+        sb.append("\nHottest basic blocks:\n");
+        sb.append(String.format("%7s %14s %10s %6s  %s\n", "%", "instructions", "runs", "length", "block"));
+        List<Block> blocks = blocks();
+        for (Block b : blocks.subList(0, Math.min(topBlocks, blocks.size())))
+            sb.append(String.format("%7s %14d %10d %6d  %s\n", percent(b.instructions(), total), b.instructions(), b.runs, b.length, b.name));
+        return sb.toString();
+    }
+
+    /**
+     * Write the whole profile to a file, one tab separated record per line:
+     * <pre>
+     * function    name     instructions calls
+     * instruction kind     instructions
+     * block       address  name         length runs
+     * </pre>
+     */
+    public void write(File file) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file)) {
+            for (Function f : functions())
+                out.println("function\t" + f.name + "\t" + f.instructions + "\t" + f.calls);
+            for (Map.Entry<String, Long> kind : instructionMix().entrySet())
+                out.println("instruction\t" + kind.getKey() + "\t" + kind.getValue());
+            for (Block b : blocks())
+                out.println("block\t" + b.start + "\t" + b.name + "\t" + b.length + "\t" + b.runs);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return report(10);
+    }
+}
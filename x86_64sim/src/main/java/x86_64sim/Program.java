@@ -9,12 +9,21 @@ import java.util.regex.Pattern;
 
 import x86_64sim.instruction.Instruction;
 
+/**
+ * A parsed assembly program. Once it has been linked (see {@link #link()}) a
+ * Program doesn't change any more, other than filling in its caches (the
+ * function index and the compiled code) under its lock, so it can be run by any
+ * number of States at the same time, in different threads.
+ */
 public class Program {
     List<Instruction> instructions;
     Map<String, Long> labels;
     Map<Long, Long> staticData = new HashMap<Long, Long>();
     Map<Long, String> relocationData = new HashMap<Long, String>();
+    Map<String, Integer> registers = new HashMap<String, Integer>();
     boolean inText = true;
+    boolean linked = false;
+    CompiledProgram compiled;
     long pc;
     long dc = State.HEAP_BASE;
 
@@ -22,6 +31,8 @@ public class Program {
         instructions = new ArrayList<Instruction>();
         labels = new HashMap<String, Long>();
         pc = 0;
+        for (String reg : State.regs)
+            register(reg);
     }
 
     public long getLabel(String label) {
@@ -40,12 +51,10 @@ public class Program {
         assert (value.equals("4"));
     }
 
-    Pattern numberPattern = Pattern.compile("-?[0-9]+");
-    Matcher numberMatcher = numberPattern.matcher("");
+    private static final Pattern numberPattern = Pattern.compile("-?[0-9]+");
 
     public void doQuad(String value) {
-        numberMatcher.reset(value);
-        if (numberMatcher.matches())
+        if (numberPattern.matcher(value).matches())
             staticData.put(dc, Long.parseLong(value));
         else if (labels.containsKey(value))
             staticData.put(dc, labels.get(value));
@@ -55,6 +64,7 @@ public class Program {
     }
 
     public void add(String label) {
+        functionNames = null;
         if (inText)
             labels.put(label, pc);
         else
@@ -66,33 +76,152 @@ public class Program {
         pc++;
     }
 
+    /**
+     * Let all the instructions look up the registers and labels they use (see
+     * {@link Instruction#link(Program)}). This is done once, when the whole
+     * program has been parsed.
+     */
+    public synchronized void link() {
+        if (linked)
+            return;
+        for (Instruction i : instructions)
+            i.link(this);
+        linked = true;
+    }
+
+    /**
+     * This program, ready to be run by the compiled engine.
+     */
+    public synchronized CompiledProgram compile() {
+        link();
+        if (compiled == null)
+            compiled = new CompiledProgram(this);
+        return compiled;
+    }
+
+    /**
+     * The address of a label, which must be defined somewhere in the program.
+     */
+    public long resolve(String label) {
+        Long address = labels.get(label);
+        if (address == null)
+            throw new Error("Undefined label " + label + "\n");
+        return address;
+    }
+
+    /**
+     * The number of a register in the register file of a State running this
+     * program. The machine registers are numbered in the order of State.regs;
+     * any other names (the Temps of code without register allocation) are
+     * numbered after those, in the order they are first used.
+     */
+    public int register(String name) {
+        Integer number = registers.get(name);
+        if (number == null) {
+            number = registers.size();
+            registers.put(name, number);
+        }
+        return number;
+    }
+
+    /**
+     * The number of a register, or -1 if this program doesn't use it.
+     */
+    public int findRegister(String name) {
+        Integer number = registers.get(name);
+        return number == null ? -1 : number;
+    }
+
+    /**
+     * The size of the register file for this program.
+     */
+    public int countRegisters() {
+        return registers.size();
+    }
+
+    /**
+     * The first (by name) of the labels at an address, so that dumps of the same
+     * program are the same however it was made.
+     */
     private String labelAt(int pc) {
+        String answer = null;
         for (String label : labels.keySet()) {
             Long addr = labels.get(label);
-            if (addr == pc)
-                return label;
+            if (addr == pc && (answer == null || label.compareTo(answer) < 0))
+                answer = label;
         }
-        return null;
+        return answer;
     }
 
-    Pattern boringLabel = Pattern.compile(".*_[0-9]+$");
-    Matcher m = boringLabel.matcher("");
+    private static final Pattern boringLabel = Pattern.compile(".*_[0-9]+$");
+    /**
+     * The labels that start functions (those that don't look like they were
+     * made up by the code generator), sorted by address, and their addresses.
+     * Made when first needed, and forgotten when a label is added.
+     */
+    private String[] functionNames;
+    private long[] functionStarts;
 
-    public String getFunctionAt(long pc) {
-        String closestLabel = null;
-        long closestAddr = -1;
-        if (pc == 99999999999999L)
-            return "__start";
+    private void indexFunctions() {
+        List<String> names = new ArrayList<String>();
+        Matcher m = boringLabel.matcher("");
         for (String label : labels.keySet()) {
             m.reset(label);
-            if (m.matches()) continue;
-            Long addr = labels.get(label);
-            if (addr <= pc && addr > closestAddr) {
-                closestAddr = addr;
-                closestLabel = label;
+            if (!m.matches())
+                names.add(label);
+        }
+        // Sort by address, and by name for labels at the same address so the
+        // order doesn't depend on that of the map.
+        names.sort((a, b) -> {
+            int c = Long.compare(labels.get(a), labels.get(b));
+            return c != 0 ? c : a.compareTo(b);
+        });
+        functionNames = names.toArray(new String[0]);
+        functionStarts = new long[functionNames.length];
+        for (int i = 0; i < functionNames.length; i++)
+            functionStarts[i] = labels.get(functionNames[i]);
+    }
+
+    /**
+     * The number of the function (see {@link #getFunctionName(int)}) that the
+     * given address is in, or -1 if it is before all of them.
+     */
+    public synchronized int getFunctionIndexAt(long pc) {
+        if (functionNames == null)
+            indexFunctions();
+        int low = 0, high = functionStarts.length - 1, answer = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (functionStarts[mid] <= pc) {
+                answer = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
             }
         }
-        return closestLabel == null ? "unknown" : closestLabel;
+        // Of several labels at the same address, take the first one
+        while (answer > 0 && functionStarts[answer - 1] == functionStarts[answer])
+            answer--;
+        return answer;
+    }
+
+    public synchronized String getFunctionName(int index) {
+        if (functionNames == null)
+            indexFunctions();
+        return functionNames[index];
+    }
+
+    public synchronized int countFunctions() {
+        if (functionNames == null)
+            indexFunctions();
+        return functionNames.length;
+    }
+
+    public String getFunctionAt(long pc) {
+        if (pc == State.DONE)
+            return "__start";
+        int index = getFunctionIndexAt(pc);
+        return index < 0 ? "unknown" : getFunctionName(index);
     }
 
     public String dump() {
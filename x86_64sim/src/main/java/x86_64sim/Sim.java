@@ -1,5 +1,7 @@
 package x86_64sim;
 
+import java.util.function.Consumer;
+
 import x86_64sim.parser.SimParser;
 
 public class Sim {
@@ -8,6 +10,57 @@ public class Sim {
     }
 
     public static State ulate(String program, boolean beVerbose) {
+        return ulate(program, beVerbose, false);
+    }
+
+    /**
+     * @param checkCalls whether to check that calls preserve the callee-save
+     *                   registers (see {@link State#checkCalls}).
+     */
+    public static State ulate(String program, boolean beVerbose, boolean checkCalls) {
+        return ulate(program, beVerbose, checkCalls, State.Engine.INTERPRETED);
+    }
+
+    /**
+     * @param engine how to run the program (see {@link State.Engine}).
+     */
+    public static State ulate(String program, boolean beVerbose, boolean checkCalls, State.Engine engine) {
+        return ulate(program, beVerbose, checkCalls, engine, s -> { });
+    }
+
+    /**
+     * Run a program that has already been parsed (or made some other way).
+     */
+    public static State ulate(Program program, boolean beVerbose) {
+        return ulate(program, beVerbose, false, State.Engine.INTERPRETED, s -> { });
+    }
+
+    /**
+     * Run a program keeping a profile of it (see {@link Profile}), which is left
+     * in the profile field of the State.
+     */
+    public static State profile(Program program) {
+        return ulate(program, false, false, State.Engine.INTERPRETED, s -> s.profile = new Profile(s.p));
+    }
+
+    /**
+     * Run a program estimating the number of cycles it takes with the given
+     * cost model (see {@link Timing}), which is left in the timing field of the State.
+     */
+    public static State time(Program program, CostModel costs) {
+        return ulate(program, false, false, State.Engine.INTERPRETED, s -> s.timing = new Timing(s.p, costs));
+    }
+
+    /**
+     * Run a program simulating the default data caches (see {@link CacheSimulation}),
+     * which are left in the caches field of the State.
+     */
+    public static State simulateCaches(Program program) {
+        return ulate(program, false, false, State.Engine.INTERPRETED, s -> s.simulateCaches(new CacheSimulation()));
+    }
+
+    private static State ulate(String program, boolean beVerbose, boolean checkCalls, State.Engine engine,
+                               Consumer<State> setup) {
         if (beVerbose) System.out.print("Parsing string:\n" + program);
         Program p;
         try {
@@ -19,11 +72,23 @@ public class Sim {
         }
         //			System.out.println("Program:");
         //			System.out.println(p.dump());
+        return ulate(p, beVerbose, checkCalls, engine, setup);
+    }
+
+    private static State ulate(Program p, boolean beVerbose, boolean checkCalls, State.Engine engine,
+                               Consumer<State> setup) {
         State s = new State(p);
         s.beVerbose = beVerbose;
+        s.checkCalls = checkCalls;
+        s.engine = engine;
+        setup.accept(s);
         String result = s.runForResult().result;
         System.out.println("Static: " + p.countInstructions() + " instructions generated");
         System.out.println("Dynamic: " + s.instructionsExecuted + " instructions executed");
+        if (s.timing != null)
+            System.out.println(s.timing);
+        if (s.caches != null)
+            System.out.print(s.caches.report());
         return s;
     }
 }
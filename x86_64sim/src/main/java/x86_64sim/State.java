@@ -4,31 +4,83 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 import x86_64sim.instruction.Instruction;
 
 
 public class State {
-    public static final long HEAP_BASE = 0x1000L, HEAP_SIZE = 0x1000L;
-    public static final long STACK_BASE = 0x8000L, STACK_SIZE = 0x1000L;
+    /**
+     * The ways of running a program: one instruction at a time, or by the blocks
+     * of a {@link CompiledProgram}. Both give the same results, but only the first
+     * can trace, profile, time or simulate the caches of the execution, so a State
+     * doing any of those always uses that.
+     */
+    public enum Engine {INTERPRETED, COMPILED}
+
+    /**
+     * The memory (see {@link Memory}) holds the stack just below HEAP_BASE, and the
+     * heap from HEAP_BASE up. The heap starts out with the static data and HEAP_SIZE
+     * bytes, and grows when necessary up to MAX_HEAP_SIZE bytes. The stack starts
+     * out with INITIAL_STACK_SIZE bytes, and grows down up to STACK_SIZE bytes. The
+     * addresses below the stack, in particular those near 0, are never valid.
+     */
+    public static final long HEAP_BASE = 0x1000000L, HEAP_SIZE = 0x1000L, MAX_HEAP_SIZE = 0x4000000L;
+    public static final long STACK_SIZE = 0x100000L;
+    static final long INITIAL_STACK_SIZE = 0x1000L;
+    static final long LOWEST_ADDRESS = 0x10000L;
     static final long DONE = 99999999999999L;
     public boolean beVerbose = false;
-    public long maxInstructions = 10000000;
+    public static final long MAX_INSTRUCTIONS = 10000000;
+    public long maxInstructions = MAX_INSTRUCTIONS;
+    /**
+     * Check that every call preserves the callee-save registers and the stack pointer.
+     */
+    public boolean checkCalls = false;
+    public Engine engine = Engine.INTERPRETED;
+    /**
+     * If not null, count the instructions executed and the calls made (see
+     * {@link Profile}). A State that is profiling always uses the interpreter.
+     */
+    public Profile profile;
+    /**
+     * If not null, estimate the number of cycles the program takes (see
+     * {@link Timing}). A State that is timing always uses the interpreter.
+     */
+    public Timing timing;
+    /**
+     * If not null, the data caches being simulated (see {@link #simulateCaches(CacheSimulation)}).
+     */
+    public CacheSimulation caches;
     final static String[] regs = {Instruction.AX /*"%rax"*/, "%rbx", "%rcx", Instruction.DX /*"%rdx"*/, "%rsi", Instruction.ARG1 /*"%rdi"*/, Instruction.SP, Instruction.BP,
             "%r8", "%r9", "%r10", "%r11", "%r12", "%r13", "%r14", "%r15"};
+    /**
+     * The registers that are checked by {@link #checkCalls}, with the stack pointer first.
+     */
+    final static int[] preserved = {Instruction.SP_REG, 1 /*"%rbx"*/, Instruction.BP_REG, 12, 13, 14, 15};
 
     static {
-        assert (HEAP_BASE + HEAP_SIZE < STACK_BASE - STACK_SIZE);
+        assert (regs[Instruction.AX_REG].equals(Instruction.AX) && regs[Instruction.DX_REG].equals(Instruction.DX)
+                && regs[Instruction.ARG1_REG].equals(Instruction.ARG1) && regs[Instruction.SP_REG].equals(Instruction.SP)
+                && regs[Instruction.BP_REG].equals(Instruction.BP));
     }
 
     public Program p;
     public Memory ram;
-    Map<String, Long> registers;
-    List<Map<String, Long>> registerstack;
+    final long maxHeapSize;
+    /**
+     * The register file, indexed by the register numbers of the Program (see
+     * {@link Program#register(String)}).
+     */
+    long[] registers;
+    /**
+     * For each active call the Temps of its caller, followed by the preserved
+     * registers if we are checking calls. These are only ever added and removed
+     * at the end, so one array (grown when necessary) does for all of them.
+     */
+    long[] registerstack;
+    int registerstackTop;
+    int calls;
     public long conditionl;
     public long conditionr;
     public long pc;
@@ -38,19 +90,53 @@ public class State {
     public String result;
 
     public State(Program p) {
-        ram = new Memory(HEAP_BASE, HEAP_BASE + HEAP_SIZE, STACK_BASE - STACK_SIZE, STACK_BASE);
-        registers = new HashMap<String, Long>();
-        registerstack = new LinkedList<Map<String, Long>>();
+        this(p, STACK_SIZE, HEAP_SIZE, MAX_HEAP_SIZE);
+    }
+
+    /**
+     * A State with the given amounts of memory (in bytes) for the stack and the
+     * heap. The stack grows up to stackSize, the heap only grows beyond heapSize
+     * if maxHeapSize is larger.
+     */
+    public State(Program p, long stackSize, long heapSize, long maxHeapSize) {
+        if (stackSize <= 0 || HEAP_BASE - stackSize < LOWEST_ADDRESS || stackSize % Memory.SIZEOF_LONG != 0)
+            throw new Error("Can't have a stack of " + stackSize + " bytes\n");
+        this.maxHeapSize = Math.max(heapSize, maxHeapSize);
+        ram = new Memory(HEAP_BASE - stackSize, HEAP_BASE - Math.min(stackSize, INITIAL_STACK_SIZE),
+                HEAP_BASE + heapSize, HEAP_BASE + this.maxHeapSize);
+        p.link();
+        registers = new long[p.countRegisters()];
+        registerstack = new long[64];
         pc = p.findMain();
         this.p = p;
-        long sp = STACK_BASE - Memory.SIZEOF_LONG;
+        long sp = HEAP_BASE - Memory.SIZEOF_LONG;
         ram.write(sp, DONE);
-        setReg(Instruction.SP, sp);
+        setReg(Instruction.SP_REG, sp);
+        if (!ram.grow(p.dc))
+            throw new Error("The static data doesn't fit in a heap of " + this.maxHeapSize + " bytes\n");
         hp = p.writeStatic(ram);
     }
 
+    /**
+     * Pass all the memory accesses from now on through the given data caches.
+     */
+    public void simulateCaches(CacheSimulation caches) {
+        caches.attach(this);
+        this.caches = caches;
+        ram.caches = caches;
+    }
+
+    /**
+     * Make room for size more bytes on the heap.
+     */
+    private void reserve(long size) {
+        if (!ram.grow(hp + size))
+            throw new Error("Out of heap memory: can't allocate " + size + " more bytes, "
+                    + (hp - HEAP_BASE) + " of the " + maxHeapSize + " bytes of heap are in use\n");
+    }
+
     public long alloc(long size) {
-        assert (hp + size <= HEAP_BASE + HEAP_SIZE);
+        reserve(size);
         long answer = hp;
         hp += size;
         return answer;
@@ -58,74 +144,78 @@ public class State {
 
     public long allocArray(long nElements) {
         long size = (nElements + 1) * Memory.SIZEOF_LONG;
-        assert (hp + size <= HEAP_BASE + HEAP_SIZE);
+        reserve(size);
         long answer = hp;
         ram.write(answer, nElements);
         hp += size;
         return answer + Memory.SIZEOF_LONG;
     }
 
+    /**
+     * The machine registers are passed on to the callee. Any other registers
+     * (Temps) start out as 0 and are restored on return.
+     */
     public void do_call() {
-        Map<String, Long> newregisters = new HashMap<String, Long>();
-        for (int i = 0; i < regs.length; ++i)
-            newregisters.put(regs[i], registers.get(regs[i]));
-        registerstack.add(0, registers);
-        registers = newregisters;
+        int temps = registers.length - regs.length;
+        int frame = temps + (checkCalls ? preserved.length : 0);
+        if (registerstackTop + frame > registerstack.length)
+            registerstack = Arrays.copyOf(registerstack, Math.max(2 * registerstack.length, registerstackTop + frame));
+        if (temps > 0) {
+            System.arraycopy(registers, regs.length, registerstack, registerstackTop, temps);
+            Arrays.fill(registers, regs.length, registers.length, 0L);
+            registerstackTop += temps;
+        }
+        if (checkCalls) {
+            // The return address has been pushed already
+            registerstack[registerstackTop++] = registers[Instruction.SP_REG] + Memory.SIZEOF_LONG;
+            for (int i = 1; i < preserved.length; i++)
+                registerstack[registerstackTop++] = registers[preserved[i]];
+        }
+        calls++;
     }
 
     public void do_return() {
         // If there is nothing on the stack, we are returning off the end so do nothing
-        if (registerstack.size() > 0) {
-            Map<String, Long> oldregisters = registerstack.remove(0);
-            for (int i = 0; i < regs.length; ++i)
-                oldregisters.put(regs[i], registers.get(regs[i]));
-            registers = oldregisters;
+        if (calls > 0) {
+            calls--;
+            if (checkCalls) {
+                registerstackTop -= preserved.length;
+                for (int i = 0; i < preserved.length; i++) {
+                    if (registerstack[registerstackTop + i] != registers[preserved[i]])
+                        throw new Error("Register " + regs[preserved[i]] + " not preserved by the call returning at "
+                                + (pc - 1) + " (" + p.getFunctionAt(pc - 1) + ")\n");
+                }
+            }
+            int temps = registers.length - regs.length;
+            if (temps > 0) {
+                registerstackTop -= temps;
+                System.arraycopy(registerstack, registerstackTop, registers, regs.length, temps);
+            }
         }
     }
 
+    public void setReg(int reg, long value) {
+        registers[reg] = value;
+    }
+
+    public long getReg(int reg) {
+        return registers[reg];
+    }
+
     public void setReg(String reg, long value) {
-        registers.put(reg, value);
+        int number = p.findRegister(reg);
+        if (number < 0)
+            throw new Error("Register " + reg + " is not used by the program\n");
+        registers[number] = value;
     }
 
     public long getReg(String reg) {
-        Long l = registers.get(reg);
-        return (l == null) ? 0 : l;
-    }
-
-    private static long unsignedCompare(long conditionl, long conditionr) {
-        if (conditionl < 0 && conditionr < 0) {
-            // more negative is smaller unsigned
-            return conditionl - conditionr;
-        } else if (conditionl < 0 && conditionr > 0) {
-            // negative is bigger than any positive
-            return 1;
-        } else if (conditionl > 0 && conditionr < 0) {
-            // negative is still bigger than any positive
-            return -1;
-        } else {
-            return conditionl - conditionr;
-        }
+        int number = p.findRegister(reg);
+        return (number < 0) ? 0 : registers[number];
     }
 
     public static boolean conditionTrue(String condition, long conditionl, long conditionr) {
-        if (!(condition.equals("l") || condition.equals("e") ||
-                condition.equals("g") || condition.equals("le") ||
-                condition.equals("ne") || condition.equals("ge") ||
-                condition.equals("b") || condition.equals("be") ||
-                condition.equals("a") || condition.equals("ae"))) {
-            System.out.println("Illegal condition in branch " + condition);
-        }
-        return
-                condition.equals("l") && conditionl < conditionr ||
-                        condition.equals("b") && unsignedCompare(conditionl, conditionr) < 0 ||
-                        condition.equals("e") && conditionl == conditionr ||
-                        condition.equals("g") && conditionl > conditionr ||
-                        condition.equals("a") && unsignedCompare(conditionl, conditionr) > 0 ||
-                        condition.equals("le") && conditionl <= conditionr ||
-                        condition.equals("be") && unsignedCompare(conditionl, conditionr) <= 0 ||
-                        condition.equals("ne") && conditionl != conditionr ||
-                        condition.equals("ge") && (conditionr < 0 || conditionl >= conditionr) ||
-                        condition.equals("ae") && unsignedCompare(conditionl, conditionr) >= 0;
+        return Condition.parse(condition).test(conditionl, conditionr);
     }
 
     public boolean conditionTrue(String condition) {
@@ -145,33 +235,47 @@ public class State {
     }
 
     public void step() {
-        Instruction i = p.instructions.get((int) pc);
+        long at = pc;
+        Instruction i = p.instructions.get((int) at);
         if (beVerbose)
-            System.out.println("" + pc + ": " + i);
-        pc = pc + 1;
+            System.out.println("" + at + ": " + i);
+        pc = at + 1;
         i.execute(this);
         instructionsExecuted++;
+        if (profile != null)
+            profile.record(at, i, pc);
+        if (timing != null)
+            timing.record(at, i, pc);
     }
 
     public String hex(long reg) {
         return "0x" + Long.toString(reg, 16);
     }
 
-    public void run() {
-        while (pc != DONE) {
-            step();
+    /**
+     * Run until the program is done, or has executed the given number of instructions.
+     */
+    private void execute(long limit) {
+        if (engine == Engine.COMPILED && !beVerbose && profile == null && timing == null && caches == null) {
+            p.compile().run(this, limit);
+        } else {
+            while (pc != DONE && instructionsExecuted < limit) {
+                step();
+            }
         }
     }
 
+    public void run() {
+        execute(Long.MAX_VALUE);
+    }
+
     public void run(File out) {
         try {
             this.out = new PrintStream(out);
         } catch (FileNotFoundException e) {
             // do nothing, use System.out
         }
-        while (pc != DONE && instructionsExecuted < maxInstructions) {
-            step();
-        }
+        execute(maxInstructions);
         if (instructionsExecuted >= maxInstructions)
             throw new Error("X86_64 simulator exceeded max instructions\n");
         this.out.close();
@@ -182,9 +286,7 @@ public class State {
         os = new ByteArrayOutputStream();
         this.out = new PrintStream(os);
         try {
-            while (pc != DONE && instructionsExecuted < maxInstructions) {
-                step();
-            }
+            execute(maxInstructions);
             if (instructionsExecuted >= maxInstructions)
                 throw new Error("X86_64 simulator exceeded max instructions\n");
             this.out.close();
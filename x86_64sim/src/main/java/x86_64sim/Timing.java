@@ -0,0 +1,98 @@
+package x86_64sim;
+
+import java.util.Arrays;
+
+import x86_64sim.instruction.CJmp;
+import x86_64sim.instruction.Call;
+import x86_64sim.instruction.Instruction;
+
+/**
+ * An estimate of the number of cycles a State takes to run a program on a real
+ * processor, according to a {@link CostModel}. Like a {@link Profile}, a State
+ * only keeps one if it is given one (see {@link State#timing}), and it always
+ * uses the interpreter when it does.
+ */
+public class Timing {
+
+    private static final byte PLAIN = 0, CONDITIONAL = 1, INDIRECT = 2;
+
+    private final CostModel model;
+    /**
+     * The cost and the kind of control transfer of each instruction, by address.
+     */
+    private final int[] costs;
+    private final byte[] kinds;
+    /**
+     * The branch predictor: 2-bit counters, taken if 2 or more. The indirect
+     * calls are predicted to go where they went the last time.
+     */
+    private final byte[] counters;
+    private final long[] targets;
+    private final int mask;
+
+    public long cycles;
+    public long instructions;
+    public long branches;
+    public long mispredicted;
+
+    public Timing(Program program) {
+        this(program, CostModel.DEFAULT);
+    }
+
+    public Timing(Program program, CostModel model) {
+        program.link();
+        this.model = model;
+        int n = program.countInstructions();
+        costs = new int[n];
+        kinds = new byte[n];
+        for (int pc = 0; pc < n; pc++) {
+            Instruction i = program.instructions.get(pc);
+            costs[pc] = model.cost(i.getClass().getSimpleName());
+            if (i instanceof CJmp)
+                kinds[pc] = CONDITIONAL;
+            else if (i instanceof Call && ((Call) i).isIndirect())
+                kinds[pc] = INDIRECT;
+        }
+        counters = new byte[model.predictorSize];
+        Arrays.fill(counters, (byte) 1);
+        targets = new long[model.predictorSize];
+        mask = model.predictorSize - 1;
+    }
+
+    /**
+     * Count the execution of instruction i at the given address, after which
+     * control went to next.
+     */
+    void record(long at, Instruction i, long next) {
+        int pc = (int) at;
+        instructions++;
+        cycles += costs[pc];
+        if (kinds[pc] == CONDITIONAL) {
+            branches++;
+            int slot = pc & mask;
+            boolean taken = next != at + 1;
+            int counter = counters[slot];
+            if (taken != (counter >= 2)) {
+                mispredicted++;
+                cycles += model.mispredict;
+            }
+            counters[slot] = (byte) (taken ? Math.min(counter + 1, 3) : Math.max(counter - 1, 0));
+        } else if (kinds[pc] == INDIRECT) {
+            branches++;
+            int slot = pc & mask;
+            if (targets[slot] != next) {
+                mispredicted++;
+                cycles += model.mispredict;
+                targets[slot] = next;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Estimated: %d cycles for %d instructions (%.2f per instruction), "
+                        + "%d of %d conditional jumps and indirect calls mispredicted",
+                cycles, instructions, instructions == 0 ? 0.0 : (double) cycles / instructions,
+                mispredicted, branches);
+    }
+}
@@ -1,22 +1,36 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class AddI2R extends Instruction {
     long source;
     String target;
+    int targetReg;
 
     public AddI2R(String source, String target) {
         this.source = Long.parseLong(source);
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        long value = state.getReg(target) + source;
+        long value = state.getReg(targetReg) + source;
         if (state.beVerbose)
             System.out.println(target + " <- " + value);
-        state.setReg(target, value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int t = targetReg;
+        final long v = source;
+        return state -> state.setReg(t, state.getReg(t) + v);
     }
 
     @Override
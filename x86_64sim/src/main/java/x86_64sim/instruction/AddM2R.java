@@ -0,0 +1,56 @@
+package x86_64sim.instruction;
+
+import x86_64sim.Program;
+import x86_64sim.State;
+
+public class AddM2R extends Instruction {
+    long offset, scale;
+    String source, target, index;
+    int sourceReg, targetReg, indexReg;
+
+    public AddM2R(String offset, String source, String target) {
+        this.offset = Long.parseLong(offset);
+        this.source = source;
+        this.target = target;
+        this.index = null;
+        this.scale = 1;
+    }
+
+    public AddM2R(String offset, String source, String target, String index, String scale) {
+        this.offset = Long.parseLong(offset);
+        this.source = source;
+        this.target = target;
+        this.index = index;
+        this.scale = Long.parseLong(scale);
+    }
+
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+        indexReg = index == null ? -1 : p.register(index);
+    }
+
+    @Override
+    public void execute(State state) {
+        long address = state.getReg(sourceReg) + offset + (indexReg < 0 ? 0 : state.getReg(indexReg) * scale);
+        long value = state.getReg(targetReg) + state.ram.read(address);
+        if (state.beVerbose)
+            System.out.println(target + " <- " + value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg, x = indexReg;
+        final long off = offset, sc = scale;
+        if (x < 0)
+            return state -> state.setReg(t, state.getReg(t) + state.ram.read(state.getReg(s) + off));
+        return state -> state.setReg(t, state.getReg(t) + state.ram.read(state.getReg(s) + off + state.getReg(x) * sc));
+    }
+
+    @Override
+    public String toString() {
+        return "\taddq\t" + (offset == 0 ? "" : offset) + "(" + source + (index == null ? "" : ", " + index + ", " + scale) + "), " + target;
+    }
+}
@@ -1,21 +1,79 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Condition;
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class CJmp extends Instruction {
-    String condition, label;
+    Condition condition;
+    String label;
+    long target;
 
     public CJmp(String condition, String label) {
-        this.condition = condition;
+        this.condition = Condition.parse(condition);
         this.label = label;
     }
 
+    @Override
+    public void link(Program p) {
+        target = p.resolve(label);
+    }
+
     @Override
     public void execute(State state) {
-        if (state.conditionTrue(condition)) {
+        if (condition.test(state.conditionl, state.conditionr)) {
             if (state.beVerbose)
                 System.out.println("j" + condition + " taken -> " + label);
-            state.jump(label);
+            state.jump(target);
+        }
+    }
+
+    @Override
+    public boolean endsBlock() {
+        return true;
+    }
+
+    @Override
+    public Operation compile() {
+        final Condition c = condition;
+        final long to = target;
+        // The common conditions are tested directly, rather than by a call of Condition.test.
+        switch (condition) {
+            case L:
+                return state -> {
+                    if (state.conditionl < state.conditionr)
+                        state.jump(to);
+                };
+            case LE:
+                return state -> {
+                    if (state.conditionl <= state.conditionr)
+                        state.jump(to);
+                };
+            case G:
+                return state -> {
+                    if (state.conditionl > state.conditionr)
+                        state.jump(to);
+                };
+            case GE:
+                return state -> {
+                    if (state.conditionl >= state.conditionr)
+                        state.jump(to);
+                };
+            case E:
+                return state -> {
+                    if (state.conditionl == state.conditionr)
+                        state.jump(to);
+                };
+            case NE:
+                return state -> {
+                    if (state.conditionl != state.conditionr)
+                        state.jump(to);
+                };
+            default:
+                return state -> {
+                    if (c.test(state.conditionl, state.conditionr))
+                        state.jump(to);
+                };
         }
     }
 
@@ -1,26 +1,46 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Condition;
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class CMovR2R extends Instruction {
-    String condition, target, source;
+    Condition condition;
+    String target, source;
+    int sourceReg, targetReg;
 
     public CMovR2R(String condition, String source, String target) {
-        this.condition = condition;
+        this.condition = Condition.parse(condition);
         this.source = source;
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        if (state.conditionTrue(condition)) {
-            long value = state.getReg(source);
+        if (condition.test(state.conditionl, state.conditionr)) {
+            long value = state.getReg(sourceReg);
             if (state.beVerbose)
                 System.out.println("cmov" + condition + " true " + target + " <- " + value);
-            state.setReg(target, value);
+            state.setReg(targetReg, value);
         }
     }
 
+    @Override
+    public Operation compile() {
+        final Condition c = condition;
+        final int s = sourceReg, t = targetReg;
+        return state -> {
+            if (c.test(state.conditionl, state.conditionr))
+                state.setReg(t, state.getReg(s));
+        };
+    }
+
     @Override
     public String toString() {
         return "\tcmov" + condition + "\t" + source + ", " + target;
@@ -9,11 +9,16 @@ public class CQTO extends Instruction {
 
     @Override
     public void execute(State state) {
-        long ax = state.getReg(Instruction.AX);
+        long ax = state.getReg(Instruction.AX_REG);
         long dx = ax > 0 ? 0 : -1;
         if (state.beVerbose)
             System.out.println(DX + " <- " + dx);
-        state.setReg(DX, dx);
+        state.setReg(DX_REG, dx);
+    }
+
+    @Override
+    public Operation compile() {
+        return state -> state.setReg(DX_REG, state.getReg(AX_REG) > 0 ? 0 : -1);
     }
 
     @Override
@@ -1,67 +1,147 @@
 package x86_64sim.instruction;
 
 import x86_64sim.Memory;
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class Call extends Instruction {
+    /**
+     * The runtime functions the simulator implements itself.
+     */
+    enum Builtin {NONE, PRINTLN, NEWOBJECT, NEWARRAY, ERROR}
+
     String label;
     String register;
+    int registerReg;
+    Builtin builtin = Builtin.NONE;
+    long target;
 
     public Call(String label) {
         this.label = label;
+        if (label.equals("_cs411println") || label.equals("cs411println"))
+            builtin = Builtin.PRINTLN;
+        else if (label.equals("_cs411newobject") || label.equals("cs411newobject"))
+            builtin = Builtin.NEWOBJECT;
+        else if (label.equals("_cs411newarray") || label.equals("cs411newarray"))
+            builtin = Builtin.NEWARRAY;
+        else if (label.equals("_cs411error") || label.equals("cs411error"))
+            builtin = Builtin.ERROR;
     }
 
     public Call(String star, String register) {
         this.register = register;
     }
 
+    @Override
+    public void link(Program p) {
+        registerReg = register == null ? -1 : p.register(register);
+        if (label != null && builtin == Builtin.NONE)
+            target = p.resolve(label);
+    }
+
+    /**
+     * The name of the runtime function this calls, if the simulator implements
+     * it itself, and null otherwise.
+     */
+    public String getBuiltin() {
+        return builtin == Builtin.NONE ? null : label;
+    }
+
+    /**
+     * Is this a call through a register?
+     */
+    public boolean isIndirect() {
+        return register != null;
+    }
+
     @Override
     public void execute(State state) {
 
         if (register != null) {
             // An indirect call
             if (state.beVerbose)
-                System.out.println("Call *" + register + "(" + state.getReg(register) + ")");
-            long sp = state.getReg(Instruction.SP) - Memory.SIZEOF_LONG;
+                System.out.println("Call *" + register + "(" + state.getReg(registerReg) + ")");
+            long sp = state.getReg(Instruction.SP_REG) - Memory.SIZEOF_LONG;
             state.ram.write(sp, state.pc);
-            state.setReg(Instruction.SP, sp);
-            long addr = state.getReg(register);
+            state.setReg(Instruction.SP_REG, sp);
+            long addr = state.getReg(registerReg);
             state.do_call();
             state.jump(addr);
         } else {
             if (state.beVerbose)
                 System.out.println("Call " + label);
-            if (label.equals("_cs411println") || label.equals("cs411println")) {
+            if (builtin == Builtin.PRINTLN) {
                 // Simulate println
-                state.out.print(state.getReg(Instruction.ARG1) + "\n");
+                state.out.print(state.getReg(Instruction.ARG1_REG) + "\n");
                 if (state.beVerbose)
                     System.out.println("Return to " + state.pc + " " + state.p.getFunctionAt(state.pc));
-            } else if (label.equals("_cs411newobject") || label.equals("cs411newobject")) {
+            } else if (builtin == Builtin.NEWOBJECT) {
                 // Simulate new object
-                state.setReg(Instruction.AX, state.alloc(state.getReg(Instruction.ARG1)));
+                state.setReg(Instruction.AX_REG, state.alloc(state.getReg(Instruction.ARG1_REG)));
                 if (state.beVerbose)
                     System.out.println("Return to " + state.pc + " " + state.p.getFunctionAt(state.pc));
-            } else if (label.equals("_cs411newarray") || label.equals("cs411newarray")) {
+            } else if (builtin == Builtin.NEWARRAY) {
                 // Simulate new array
-                state.setReg(Instruction.AX, state.allocArray(state.getReg(Instruction.ARG1)));
+                state.setReg(Instruction.AX_REG, state.allocArray(state.getReg(Instruction.ARG1_REG)));
                 if (state.beVerbose)
                     System.out.println("Return to " + state.pc + " " + state.p.getFunctionAt(state.pc));
-            } else if (label.equals("_cs411error") || label.equals("cs411error")) {
+            } else if (builtin == Builtin.ERROR) {
                 // Simulate error
                 // System.err.println("MiniJava failure " + state.getReg(Instruction.ARG1));
-                throw new Error("MiniJava failure " + state.getReg(Instruction.ARG1) + "\n");
+                throw new Error("MiniJava failure " + state.getReg(Instruction.ARG1_REG) + "\n");
                 // Bail
             } else {
                 // push ra
-                long sp = state.getReg(Instruction.SP) - Memory.SIZEOF_LONG;
+                long sp = state.getReg(Instruction.SP_REG) - Memory.SIZEOF_LONG;
                 state.ram.write(sp, state.pc);
-                state.setReg(Instruction.SP, sp);
+                state.setReg(Instruction.SP_REG, sp);
                 state.do_call();
-                state.jump(label);
+                state.jump(target);
             }
         }
     }
 
+    @Override
+    public boolean endsBlock() {
+        return true;
+    }
+
+    @Override
+    public Operation compile() {
+        if (register != null) {
+            final int r = registerReg;
+            return state -> {
+                long sp = state.getReg(SP_REG) - Memory.SIZEOF_LONG;
+                state.ram.write(sp, state.pc);
+                state.setReg(SP_REG, sp);
+                long addr = state.getReg(r);
+                state.do_call();
+                state.jump(addr);
+            };
+        }
+        switch (builtin) {
+            case PRINTLN:
+                return state -> state.out.print(state.getReg(ARG1_REG) + "\n");
+            case NEWOBJECT:
+                return state -> state.setReg(AX_REG, state.alloc(state.getReg(ARG1_REG)));
+            case NEWARRAY:
+                return state -> state.setReg(AX_REG, state.allocArray(state.getReg(ARG1_REG)));
+            case ERROR:
+                return state -> {
+                    throw new Error("MiniJava failure " + state.getReg(ARG1_REG) + "\n");
+                };
+            default:
+                final long to = target;
+                return state -> {
+                    long sp = state.getReg(SP_REG) - Memory.SIZEOF_LONG;
+                    state.ram.write(sp, state.pc);
+                    state.setReg(SP_REG, sp);
+                    state.do_call();
+                    state.jump(to);
+                };
+        }
+    }
+
     @Override
     public String toString() {
         if (label == null)
@@ -1,26 +1,60 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class CmpI2M extends Instruction {
-    long source, offset;
-    String target;
+    long source, offset, scale;
+    String target, index;
+    int targetReg, indexReg;
 
     public CmpI2M(String source, String offset, String target) {
         this.source = Long.parseLong(source);
         this.offset = Long.parseLong(offset);
         this.target = target;
+        this.index = null;
+        this.scale = 1;
+    }
+
+    public CmpI2M(String source, String offset, String target, String index, String scale) {
+        this.source = Long.parseLong(source);
+        this.offset = Long.parseLong(offset);
+        this.target = target;
+        this.index = index;
+        this.scale = Long.parseLong(scale);
+    }
+
+    @Override
+    public void link(Program p) {
+        targetReg = p.register(target);
+        indexReg = index == null ? -1 : p.register(index);
     }
 
     @Override
     public void execute(State state) {
+        long address = state.getReg(targetReg) + offset + (indexReg < 0 ? 0 : state.getReg(indexReg) * scale);
         state.conditionr = source;
-        state.conditionl = state.ram.read(state.getReg(target) + offset);
+        state.conditionl = state.ram.read(address);
+    }
+
+    @Override
+    public Operation compile() {
+        final int t = targetReg, x = indexReg;
+        final long v = source, off = offset, sc = scale;
+        if (x < 0)
+            return state -> {
+                state.conditionr = v;
+                state.conditionl = state.ram.read(state.getReg(t) + off);
+            };
+        return state -> {
+            state.conditionr = v;
+            state.conditionl = state.ram.read(state.getReg(t) + off + state.getReg(x) * sc);
+        };
     }
 
     @Override
     public String toString() {
-        return "\tcmpq\t$" + source + ", " + offset + "(" + target + ")";
+        return "\tcmpq\t$" + source + ", " + offset + "(" + target + (index == null ? "" : ", " + index + ", " + scale) + ")";
     }
 
 }
@@ -1,20 +1,37 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class CmpI2R extends Instruction {
     long source;
     String target;
+    int targetReg;
 
     public CmpI2R(String source, String target) {
         this.source = Long.parseLong(source);
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
         state.conditionr = source;
-        state.conditionl = state.getReg(target);
+        state.conditionl = state.getReg(targetReg);
+    }
+
+    @Override
+    public Operation compile() {
+        final int t = targetReg;
+        final long v = source;
+        return state -> {
+            state.conditionr = v;
+            state.conditionl = state.getReg(t);
+        };
     }
 
     @Override
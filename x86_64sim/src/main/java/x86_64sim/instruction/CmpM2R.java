@@ -1,28 +1,63 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class CmpM2R extends Instruction {
-    String target, source;
-    long offset;
+    String target, source, index;
+    long offset, scale;
+    int sourceReg, targetReg, indexReg;
 
     public CmpM2R(String offset, String source, String target) {
         this.offset = Long.parseLong(offset);
         this.source = source;
         this.target = target;
+        this.index = null;
+        this.scale = 1;
+    }
+
+    public CmpM2R(String offset, String source, String target, String index, String scale) {
+        this.offset = Long.parseLong(offset);
+        this.source = source;
+        this.target = target;
+        this.index = index;
+        this.scale = Long.parseLong(scale);
+    }
+
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+        indexReg = index == null ? -1 : p.register(index);
     }
 
     @Override
     public void execute(State state) {
-        long value = state.ram.read(state.getReg(source) + offset);
+        long address = state.getReg(sourceReg) + offset + (indexReg < 0 ? 0 : state.getReg(indexReg) * scale);
+        long value = state.ram.read(address);
 
         state.conditionr = value;
-        state.conditionl = state.getReg(target);
+        state.conditionl = state.getReg(targetReg);
+    }
+
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg, x = indexReg;
+        final long off = offset, sc = scale;
+        if (x < 0)
+            return state -> {
+                state.conditionr = state.ram.read(state.getReg(s) + off);
+                state.conditionl = state.getReg(t);
+            };
+        return state -> {
+            state.conditionr = state.ram.read(state.getReg(s) + off + state.getReg(x) * sc);
+            state.conditionl = state.getReg(t);
+        };
     }
 
     @Override
     public String toString() {
-        return "\tcmpq\t" + offset + "(" + source + "), " + target;
+        return "\tcmpq\t" + offset + "(" + source + (index == null ? "" : ", " + index + ", " + scale) + "), " + target;
     }
 
 }
@@ -1,28 +1,63 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class CmpR2M extends Instruction {
-    String target, source;
-    long offset;
+    String target, source, index;
+    long offset, scale;
+    int sourceReg, targetReg, indexReg;
 
     public CmpR2M(String source, String offset, String target) {
         this.offset = Long.parseLong(offset);
         this.source = source;
         this.target = target;
+        this.index = null;
+        this.scale = 1;
+    }
+
+    public CmpR2M(String source, String offset, String target, String index, String scale) {
+        this.offset = Long.parseLong(offset);
+        this.source = source;
+        this.target = target;
+        this.index = index;
+        this.scale = Long.parseLong(scale);
+    }
+
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+        indexReg = index == null ? -1 : p.register(index);
     }
 
     @Override
     public void execute(State state) {
-        long value = state.ram.read(state.getReg(target) + offset);
+        long address = state.getReg(targetReg) + offset + (indexReg < 0 ? 0 : state.getReg(indexReg) * scale);
+        long value = state.ram.read(address);
 
-        state.conditionr = state.getReg(source);
+        state.conditionr = state.getReg(sourceReg);
         state.conditionl = value;
     }
 
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg, x = indexReg;
+        final long off = offset, sc = scale;
+        if (x < 0)
+            return state -> {
+                state.conditionr = state.getReg(s);
+                state.conditionl = state.ram.read(state.getReg(t) + off);
+            };
+        return state -> {
+            state.conditionr = state.getReg(s);
+            state.conditionl = state.ram.read(state.getReg(t) + off + state.getReg(x) * sc);
+        };
+    }
+
     @Override
     public String toString() {
-        return "\tcmpq\t" + source + ", " + offset + "(" + target + ")";
+        return "\tcmpq\t" + source + ", " + offset + "(" + target + (index == null ? "" : ", " + index + ", " + scale) + ")";
     }
 
 }
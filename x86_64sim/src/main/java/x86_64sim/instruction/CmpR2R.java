@@ -1,19 +1,36 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class CmpR2R extends Instruction {
     String target, source;
+    int sourceReg, targetReg;
 
     public CmpR2R(String source, String target) {
         this.source = source;
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        state.conditionr = state.getReg(source);
-        state.conditionl = state.getReg(target);
+        state.conditionr = state.getReg(sourceReg);
+        state.conditionl = state.getReg(targetReg);
+    }
+
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg;
+        return state -> {
+            state.conditionr = state.getReg(s);
+            state.conditionl = state.getReg(t);
+        };
     }
 
     @Override
@@ -1,20 +1,33 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class Inc extends Instruction {
     String reg;
+    int regReg;
 
     public Inc(String reg) {
         this.reg = reg;
     }
 
+    @Override
+    public void link(Program p) {
+        regReg = p.register(reg);
+    }
+
     @Override
     public void execute(State state) {
-        long value = state.getReg(reg) + 1;
+        long value = state.getReg(regReg) + 1;
         if (state.beVerbose)
             System.out.println(reg + " <- " + value);
-        state.setReg(reg, value);
+        state.setReg(regReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int r = regReg;
+        return state -> state.setReg(r, state.getReg(r) + 1);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public abstract class Instruction {
@@ -9,7 +10,40 @@ public abstract class Instruction {
     public static final String AX = "%rax";
     public static final String DX = "%rdx";
 
+    /**
+     * The numbers of these registers in the register file of a {@link State}.
+     */
+    public static final int AX_REG = 0;
+    public static final int DX_REG = 3;
+    public static final int ARG1_REG = 5;
+    public static final int SP_REG = 6;
+    public static final int BP_REG = 7;
+
+    /**
+     * Called once the whole Program has been parsed, to look up the numbers of the
+     * registers (see {@link Program#register(String)}) and the addresses of the labels
+     * this instruction uses, so that executing it doesn't involve any names.
+     */
+    public void link(Program p) {
+    }
+
     abstract public void execute(State state);
 
+    /**
+     * What this instruction does, for the compiled engine (see {@link x86_64sim.CompiledProgram}):
+     * the same as execute, but without any of the tracing, and with the operands
+     * bound in. Called after {@link #link(Program)}.
+     */
+    public Operation compile() {
+        return this::execute;
+    }
+
+    /**
+     * Does this instruction (possibly) transfer control elsewhere?
+     */
+    public boolean endsBlock() {
+        return false;
+    }
+
     abstract public String toString();
 }
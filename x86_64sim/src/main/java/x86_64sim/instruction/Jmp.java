@@ -1,19 +1,37 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class Jmp extends Instruction {
     String label;
+    long target;
 
     public Jmp(String label) {
         this.label = label;
     }
 
+    @Override
+    public void link(Program p) {
+        target = p.resolve(label);
+    }
+
     @Override
     public void execute(State state) {
         if (state.beVerbose)
             System.out.println("jmp -> " + label);
-        state.jump(label);
+        state.jump(target);
+    }
+
+    @Override
+    public boolean endsBlock() {
+        return true;
+    }
+
+    @Override
+    public Operation compile() {
+        final long to = target;
+        return state -> state.jump(to);
     }
 
     @Override
@@ -1,10 +1,13 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class Lea extends Instruction {
     String base, index, target, id;
     long offset, scale;
+    int baseReg, indexReg, targetReg;
+    long address;
 
     public Lea(String offset, String base, String target, String index, String scale) {
         this.base = base;
@@ -28,17 +31,43 @@ public class Lea extends Instruction {
         this.scale = 1;
     }
 
+    @Override
+    public void link(Program p) {
+        baseReg = base == null ? -1 : p.register(base);
+        indexReg = index == null ? -1 : p.register(index);
+        targetReg = p.register(target);
+        if (id != null)
+            address = p.resolve(id);
+    }
+
     @Override
     public void execute(State state) {
         long value;
         if (id != null) {
-            value = state.p.getLabel(id);
+            value = address;
         } else {
-            value = offset + (base == null ? 0 : state.getReg(base)) + (index == null ? 0 : state.getReg(index) * scale);
+            value = offset + (baseReg < 0 ? 0 : state.getReg(baseReg)) + (indexReg < 0 ? 0 : state.getReg(indexReg) * scale);
         }
         if (state.beVerbose)
             System.out.println(target + " <- " + value);
-        state.setReg(target, value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int b = baseReg, t = targetReg, x = indexReg;
+        final long off = offset, sc = scale;
+        if (id != null) {
+            final long v = address;
+            return state -> state.setReg(t, v);
+        }
+        if (b < 0 && x < 0)
+            return state -> state.setReg(t, off);
+        if (x < 0)
+            return state -> state.setReg(t, off + state.getReg(b));
+        if (b < 0)
+            return state -> state.setReg(t, off + state.getReg(x) * sc);
+        return state -> state.setReg(t, off + state.getReg(b) + state.getReg(x) * sc);
     }
 
     @Override
@@ -9,15 +9,24 @@ public class Leave extends Instruction {
 
     @Override
     public void execute(State state) {
-        long sp = state.getReg(BP);
+        long sp = state.getReg(BP_REG);
         long bp = state.ram.read(sp);
         long newsp = sp + Memory.SIZEOF_LONG;
         if (state.beVerbose) {
             System.out.println(BP + " <- " + state.hex(bp));
             System.out.println(SP + " <- " + state.hex(newsp));
         }
-        state.setReg(BP, bp);
-        state.setReg(SP, newsp);
+        state.setReg(BP_REG, bp);
+        state.setReg(SP_REG, newsp);
+    }
+
+    @Override
+    public Operation compile() {
+        return state -> {
+            long sp = state.getReg(BP_REG);
+            state.setReg(BP_REG, state.ram.read(sp));
+            state.setReg(SP_REG, sp + Memory.SIZEOF_LONG);
+        };
     }
 
     @Override
@@ -1,5 +1,6 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveI2IM extends Instruction {
@@ -8,6 +9,7 @@ public class MoveI2IM extends Instruction {
     boolean isNumber = true;
     long source;
     String id;
+    int targetReg, indexReg;
 
     public MoveI2IM(String offset, String source, String target, String index, String scale) {
         this.offset = Long.parseLong(offset);
@@ -23,23 +25,33 @@ public class MoveI2IM extends Instruction {
         this.scale = Long.parseLong(scale);
     }
 
+    @Override
+    public void link(Program p) {
+        if (!isNumber)
+            source = p.resolve(id);
+        targetReg = p.register(target);
+        indexReg = index == null ? -1 : p.register(index);
+    }
+
     @Override
     public void execute(State state) {
-        long address = state.getReg(target) + offset + state.getReg(index) * scale;
-        long value;
-        if (isNumber)
-            value = source;
-        else {
-            value = state.getLabel(id);
-        }
+        long address = state.getReg(targetReg) + offset + state.getReg(indexReg) * scale;
+        long value = source;
         if (state.beVerbose)
             System.out.println("M[" + state.hex(address) + "] <- " + value);
 
         state.ram.write(address, value);
     }
 
+    @Override
+    public Operation compile() {
+        final int t = targetReg, x = indexReg;
+        final long v = source, off = offset, sc = scale;
+        return state -> state.ram.write(state.getReg(t) + off + state.getReg(x) * sc, v);
+    }
+
     @Override
     public String toString() {
-        return "\tmovq\t" + source + ", " + (offset == 0 ? "" : offset) + "(" + target + ", " + index + ", " + scale + ")";
+        return "\tmovq\t" + (isNumber ? source : id) + ", " + (offset == 0 ? "" : offset) + "(" + target + ", " + index + ", " + scale + ")";
     }
 }
@@ -1,5 +1,6 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveI2M extends Instruction {
@@ -8,6 +9,7 @@ public class MoveI2M extends Instruction {
     boolean isNumber = true;
     long source;
     String id;
+    int targetReg;
 
     public MoveI2M(String offset, String source, String target) {
         this.offset = Long.parseLong(offset);
@@ -21,22 +23,31 @@ public class MoveI2M extends Instruction {
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        if (!isNumber)
+            source = p.resolve(id);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        long address = state.getReg(target) + offset;
-        long value;
-        if (isNumber)
-            value = source;
-        else {
-            value = state.getLabel(id);
-        }
+        long address = state.getReg(targetReg) + offset;
+        long value = source;
         if (state.beVerbose)
             System.out.println("M[" + state.hex(address) + "] <- " + value);
         state.ram.write(address, value);
     }
 
+    @Override
+    public Operation compile() {
+        final int t = targetReg;
+        final long v = source, off = offset;
+        return state -> state.ram.write(state.getReg(t) + off, v);
+    }
+
     @Override
     public String toString() {
-        return "\tmovq\t" + source + ", " + (offset == 0 ? "" : offset) + "(" + target + ")";
+        return "\tmovq\t" + (isNumber ? source : id) + ", " + (offset == 0 ? "" : offset) + "(" + target + ")";
     }
 }
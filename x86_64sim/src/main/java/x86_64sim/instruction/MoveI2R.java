@@ -1,5 +1,6 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveI2R extends Instruction {
@@ -7,6 +8,7 @@ public class MoveI2R extends Instruction {
     long source;
     String id;
     String target;
+    int targetReg;
 
     public MoveI2R(String source, String target) {
         try {
@@ -19,22 +21,31 @@ public class MoveI2R extends Instruction {
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        if (!isNumber)
+            source = p.resolve(id);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        long value;
-        if (isNumber)
-            value = source;
-        else {
-            value = state.getLabel(id);
-        }
+        long value = source;
         if (state.beVerbose)
             System.out.println(target + " <- " + value);
 
-        state.setReg(target, value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int t = targetReg;
+        final long v = source;
+        return state -> state.setReg(t, v);
     }
 
     @Override
     public String toString() {
-        return "\tmovq\t" + source + ", " + target;
+        return "\tmovq\t" + (isNumber ? source : id) + ", " + target;
     }
 }
@@ -1,10 +1,12 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveIM2R extends Instruction {
     long offset, scale;
     String source, target, index;
+    int sourceReg, targetReg, indexReg;
 
     public MoveIM2R(String offset, String source, String target, String index, String scale) {
         this.offset = Long.parseLong(offset);
@@ -14,12 +16,26 @@ public class MoveIM2R extends Instruction {
         this.scale = Long.parseLong(scale);
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+        indexReg = index == null ? -1 : p.register(index);
+    }
+
     @Override
     public void execute(State state) {
-        long value = state.ram.read(state.getReg(source) + offset + state.getReg(index) * scale);
+        long value = state.ram.read(state.getReg(sourceReg) + offset + state.getReg(indexReg) * scale);
         if (state.beVerbose)
             System.out.println(target + " <- " + value);
-        state.setReg(target, value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg, x = indexReg;
+        final long off = offset, sc = scale;
+        return state -> state.setReg(t, state.ram.read(state.getReg(s) + off + state.getReg(x) * sc));
     }
 
     @Override
@@ -1,10 +1,12 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveM2R extends Instruction {
     long offset;
     String source, target;
+    int sourceReg, targetReg;
 
     public MoveM2R(String offset, String source, String target) {
         this.offset = Long.parseLong(offset);
@@ -12,12 +14,25 @@ public class MoveM2R extends Instruction {
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        long value = state.ram.read(state.getReg(source) + offset);
+        long value = state.ram.read(state.getReg(sourceReg) + offset);
         if (state.beVerbose)
             System.out.println(target + " <- " + value);
-        state.setReg(target, value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg;
+        final long off = offset;
+        return state -> state.setReg(t, state.ram.read(state.getReg(s) + off));
     }
 
     @Override
@@ -1,10 +1,12 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveR2IM extends Instruction {
     long offset, scale;
     String source, target, index;
+    int sourceReg, targetReg, indexReg;
 
     public MoveR2IM(String offset, String source, String target, String index, String scale) {
         this.offset = Long.parseLong(offset);
@@ -14,16 +16,30 @@ public class MoveR2IM extends Instruction {
         this.scale = Long.parseLong(scale);
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+        indexReg = index == null ? -1 : p.register(index);
+    }
+
     @Override
     public void execute(State state) {
-        long address = state.getReg(target) + offset + state.getReg(index) * scale;
-        long value = state.getReg(source);
+        long address = state.getReg(targetReg) + offset + state.getReg(indexReg) * scale;
+        long value = state.getReg(sourceReg);
         if (state.beVerbose)
             System.out.println("M[" + state.hex(address) + "] <- " + value);
 
         state.ram.write(address, value);
     }
 
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg, x = indexReg;
+        final long off = offset, sc = scale;
+        return state -> state.ram.write(state.getReg(t) + off + state.getReg(x) * sc, state.getReg(s));
+    }
+
     @Override
     public String toString() {
         return "\tmovq\t" + source + ", " + (offset == 0 ? "" : offset) + "(" + target + ", " + index + ", " + scale + ")";
@@ -1,10 +1,12 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveR2M extends Instruction {
     long offset;
     String source, target;
+    int sourceReg, targetReg;
 
     public MoveR2M(String offset, String source, String target) {
         this.offset = Long.parseLong(offset);
@@ -12,15 +14,28 @@ public class MoveR2M extends Instruction {
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        long address = state.getReg(target) + offset;
-        long value = state.getReg(source);
+        long address = state.getReg(targetReg) + offset;
+        long value = state.getReg(sourceReg);
         if (state.beVerbose)
             System.out.println("M[" + state.hex(address) + "] <- " + value);
         state.ram.write(address, value);
     }
 
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg;
+        final long off = offset;
+        return state -> state.ram.write(state.getReg(t) + off, state.getReg(s));
+    }
+
     @Override
     public String toString() {
         return "\tmovq\t" + source + ", " + (offset == 0 ? "" : offset) + "(" + target + ")";
@@ -1,21 +1,35 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MoveR2R extends Instruction {
     String target, source;
+    int sourceReg, targetReg;
 
     public MoveR2R(String source, String target) {
         this.source = source;
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        long value = state.getReg(source);
+        long value = state.getReg(sourceReg);
         if (state.beVerbose)
             System.out.println(target + " <- " + value);
-        state.setReg(target, value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg;
+        return state -> state.setReg(t, state.getReg(s));
     }
 
     @Override
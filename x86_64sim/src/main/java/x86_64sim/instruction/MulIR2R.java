@@ -1,11 +1,13 @@
 package x86_64sim.instruction;
 
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class MulIR2R extends Instruction {
     long immediate;
     String source;
     String target;
+    int sourceReg, targetReg;
 
     public MulIR2R(String immediate, String source, String target) {
         this.immediate = Long.parseLong(immediate);
@@ -13,12 +15,25 @@ public class MulIR2R extends Instruction {
         this.target = target;
     }
 
+    @Override
+    public void link(Program p) {
+        sourceReg = p.register(source);
+        targetReg = p.register(target);
+    }
+
     @Override
     public void execute(State state) {
-        long value = state.getReg(source) * immediate;
+        long value = state.getReg(sourceReg) * immediate;
         if (state.beVerbose)
             System.out.println(target + " <- " + value);
-        state.setReg(target, value);
+        state.setReg(targetReg, value);
+    }
+
+    @Override
+    public Operation compile() {
+        final int s = sourceReg, t = targetReg;
+        final long v = immediate;
+        return state -> state.setReg(t, state.getReg(s) * v);
     }
 
     @Override
@@ -0,0 +1,10 @@
+package x86_64sim.instruction;
+
+import x86_64sim.State;
+
+/**
+ * What an Instruction does, with its operands bound in (see {@link Instruction#compile()}).
+ */
+public interface Operation {
+    void execute(State state);
+}
@@ -1,26 +1,43 @@
 package x86_64sim.instruction;
 
 import x86_64sim.Memory;
+import x86_64sim.Program;
 import x86_64sim.State;
 
 public class Push extends Instruction {
     String reg;
+    int regReg;
 
     public Push(String reg) {
         this.reg = reg;
     }
 
+    @Override
+    public void link(Program p) {
+        regReg = p.register(reg);
+    }
+
     @Override
     public void execute(State state) {
-        long sp = state.getReg(SP);
+        long sp = state.getReg(SP_REG);
         long newsp = sp - Memory.SIZEOF_LONG;
-        long value = state.getReg(reg);
+        long value = state.getReg(regReg);
         if (state.beVerbose) {
             System.out.println("M[" + state.hex(newsp) + "] <- " + value);
             System.out.println(SP + " <- " + state.hex(newsp));
         }
         state.ram.write(newsp, value);
-        state.setReg(SP, newsp);
+        state.setReg(SP_REG, newsp);
+    }
+
+    @Override
+    public Operation compile() {
+        final int r = regReg;
+        return state -> {
+            long newsp = state.getReg(SP_REG) - Memory.SIZEOF_LONG;
+            state.ram.write(newsp, state.getReg(r));
+            state.setReg(SP_REG, newsp);
+        };
     }
 
     @Override
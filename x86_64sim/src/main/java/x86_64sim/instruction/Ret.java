@@ -9,18 +9,34 @@ public class Ret extends Instruction {
 
     @Override
     public void execute(State state) {
-        long sp = state.getReg(SP);
+        long sp = state.getReg(SP_REG);
         long ra = state.ram.read(sp);
         long newsp = sp + Memory.SIZEOF_LONG;
         if (state.beVerbose) {
             System.out.println("Return to " + ra + " " + state.p.getFunctionAt(ra));
             System.out.println(SP + " <- " + state.hex(newsp));
         }
-        state.setReg(SP, newsp);
+        state.setReg(SP_REG, newsp);
         state.do_return();
         state.jump(ra);
     }
 
+    @Override
+    public boolean endsBlock() {
+        return true;
+    }
+
+    @Override
+    public Operation compile() {
+        return state -> {
+            long sp = state.getReg(SP_REG);
+            long ra = state.ram.read(sp);
+            state.setReg(SP_REG, sp + Memory.SIZEOF_LONG);
+            state.do_return();
+            state.jump(ra);
+        };
+    }
+
     @Override
     public String toString() {
         return "\tret";
@@ -0,0 +1,354 @@
+package x86_64sim.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import x86_64sim.Program;
+import x86_64sim.instruction.*;
+
+/**
+ * One or more lines of assembly code, possibly with holes for registers and
+ * labels (as in the code generator's templates, e.g. "movq    `s1, 8(`s0)"),
+ * decoded once so that Instructions can be made from it without parsing any
+ * text. This accepts the same instructions as X86_64SimParser, and makes the
+ * same Instructions of them (TestInstructionTemplate checks this for every
+ * instruction form), so that code generated in memory can be simulated
+ * without printing it and parsing it again.
+ * <p>
+ * A hole is a ` followed by a letter and a digit. Lines that are empty or
+ * comments make no instructions; labels and directives aren't accepted.
+ */
+public class InstructionTemplate {
+
+    /**
+     * What goes in the holes: the name of a register or a label.
+     */
+    public interface Holes {
+        String fill(char kind, int number);
+    }
+
+    private interface Maker {
+        Instruction make(String[] operands);
+    }
+
+    /**
+     * An instruction: the constructor to call and the operands to call it with.
+     */
+    private static class Line {
+        final Maker maker;
+        final String[] operands;
+
+        Line(Maker maker, String... operands) {
+            this.maker = maker;
+            this.operands = operands;
+        }
+    }
+
+    private static final Pattern integer = Pattern.compile("-?[0-9]+");
+    private static final Pattern register = Pattern.compile(
+            "%r(ax|bx|cx|dx|si|di|sp|bp|8|9|10|11|12|13|14|15)|t[0-9]+|`[a-z][0-9]");
+    private static final Pattern identifier = Pattern.compile("[A-Za-z_][A-Za-z_.$0-9]*|`[a-z][0-9]");
+    private static final String[] conditions = {"l", "e", "g", "le", "ne", "ge", "b", "a", "be", "ae"};
+
+    private final String assem;
+    private final Line[] lines;
+
+    private InstructionTemplate(String assem, Line[] lines) {
+        this.assem = assem;
+        this.lines = lines;
+    }
+
+    public static InstructionTemplate decode(String assem) {
+        List<Line> lines = new ArrayList<Line>();
+        for (String line : assem.split("\n")) {
+            Line decoded = decodeLine(assem, line);
+            if (decoded != null)
+                lines.add(decoded);
+        }
+        return new InstructionTemplate(assem, lines.toArray(new Line[0]));
+    }
+
+    /**
+     * Make the instructions with the holes filled in, and add them to the program.
+     */
+    public void addTo(Program p, Holes holes) {
+        for (Line line : lines) {
+            String[] operands = line.operands;
+            for (int i = 0; i < operands.length; i++) {
+                String o = operands[i];
+                if (o != null && o.length() == 3 && o.charAt(0) == '`') {
+                    if (operands == line.operands)
+                        operands = operands.clone();
+                    operands[i] = holes.fill(o.charAt(1), Character.digit(o.charAt(2), 10));
+                }
+            }
+            p.add(line.maker.make(operands));
+        }
+    }
+
+    public int size() {
+        return lines.length;
+    }
+
+    @Override
+    public String toString() {
+        return assem;
+    }
+
+    /**
+     * The kinds of operands. SCALED is memory with an index but no base
+     * register, which only leaq takes.
+     */
+    private enum Kind {IMMEDIATE, IMMEDIATE_LABEL, REGISTER, MEMORY, SCALED, RIP, INDIRECT, LABEL}
+
+    private static class Operand {
+        Kind kind;
+        /**
+         * The immediate value, register or label; for memory the offset.
+         */
+        String value;
+        String base, index, scale = "1";
+    }
+
+    private static Error bad(String assem, String why) {
+        return new Error("Can't decode instruction \"" + assem + "\": " + why + "\n");
+    }
+
+    private static Line decodeLine(String assem, String line) {
+        line = line.replaceAll("/\\*.*?\\*/", "");
+        int comment = line.indexOf('#');
+        if (comment >= 0)
+            line = line.substring(0, comment);
+        line = line.trim();
+        if (line.isEmpty())
+            return null;
+        int space = 0;
+        while (space < line.length() && !Character.isWhitespace(line.charAt(space)))
+            space++;
+        String mnemonic = line.substring(0, space);
+        List<Operand> operands = new ArrayList<Operand>();
+        String rest = line.substring(space).trim();
+        if (!rest.isEmpty()) {
+            int depth = 0, start = 0;
+            for (int i = 0; i <= rest.length(); i++) {
+                char c = i < rest.length() ? rest.charAt(i) : ',';
+                if (c == '(')
+                    depth++;
+                else if (c == ')')
+                    depth--;
+                else if (c == ',' && depth == 0) {
+                    operands.add(operand(assem, rest.substring(start, i).trim()));
+                    start = i + 1;
+                }
+            }
+        }
+        return instruction(assem, mnemonic, operands);
+    }
+
+    private static String check(String assem, Pattern pattern, String s, String what) {
+        if (!pattern.matcher(s).matches())
+            throw bad(assem, "bad " + what + " " + s);
+        return s;
+    }
+
+    private static Operand operand(String assem, String text) {
+        Operand o = new Operand();
+        if (text.startsWith("$")) {
+            o.value = text.substring(1).trim();
+            if (integer.matcher(o.value).matches()) {
+                o.kind = Kind.IMMEDIATE;
+            } else {
+                o.kind = Kind.IMMEDIATE_LABEL;
+                check(assem, identifier, o.value, "label");
+            }
+        } else if (text.startsWith("*")) {
+            o.kind = Kind.INDIRECT;
+            o.value = check(assem, register, text.substring(1).trim(), "register");
+        } else if (text.endsWith(")")) {
+            int open = text.indexOf('(');
+            if (open < 0)
+                throw bad(assem, "bad operand " + text);
+            String offset = text.substring(0, open).trim();
+            String[] inside = text.substring(open + 1, text.length() - 1).split(",", -1);
+            if (inside.length == 1 && inside[0].trim().equals("%rip")) {
+                o.kind = Kind.RIP;
+                o.value = offset.isEmpty() ? "0" : check(assem, identifier, offset, "label");
+                return o;
+            }
+            o.kind = Kind.MEMORY;
+            o.value = offset.isEmpty() ? "0" : check(assem, integer, offset, "offset");
+            String base = inside[0].trim();
+            o.base = base.isEmpty() ? null : check(assem, register, base, "register");
+            if (inside.length > 1)
+                o.index = check(assem, register, inside[1].trim(), "register");
+            if (inside.length > 2)
+                o.scale = check(assem, integer, inside[2].trim(), "scale");
+            if (inside.length > 3 || (o.base == null && (o.index == null || inside.length < 3)))
+                throw bad(assem, "bad operand " + text);
+            if (o.base == null)
+                o.kind = Kind.SCALED;
+        } else if (register.matcher(text).matches() && !(text.startsWith("`j"))) {
+            o.kind = Kind.REGISTER;
+            o.value = text;
+        } else {
+            o.kind = Kind.LABEL;
+            o.value = check(assem, identifier, text, "label");
+        }
+        return o;
+    }
+
+    private static boolean is(List<Operand> operands, Kind... kinds) {
+        if (operands.size() != kinds.length)
+            return false;
+        for (int i = 0; i < kinds.length; i++) {
+            Kind k = operands.get(i).kind;
+            if (k != kinds[i] && !(kinds[i] == Kind.IMMEDIATE && k == Kind.IMMEDIATE_LABEL))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isImmediate(List<Operand> operands, Kind... kinds) {
+        return is(operands, kinds) && operands.get(0).kind == Kind.IMMEDIATE;
+    }
+
+    /**
+     * The memory operand with its base register (if any), index and scale, after
+     * the given operands.
+     */
+    private static String[] memory(Operand m, String... before) {
+        String[] all = new String[before.length + 3];
+        System.arraycopy(before, 0, all, 0, before.length);
+        all[before.length] = m.base;
+        all[before.length + 1] = m.index;
+        all[before.length + 2] = m.scale;
+        return all;
+    }
+
+    private static Line instruction(String assem, String mnemonic, List<Operand> o) {
+        final Kind I = Kind.IMMEDIATE, R = Kind.REGISTER, M = Kind.MEMORY;
+        Operand first = o.isEmpty() ? null : o.get(0);
+        Operand second = o.size() < 2 ? null : o.get(1);
+        switch (mnemonic) {
+            case "addq":
+            case "subq": {
+                boolean add = mnemonic.equals("addq");
+                if (isImmediate(o, I, R))
+                    return new Line(a -> add ? new AddI2R(a[0], a[1]) : new SubI2R(a[0], a[1]), first.value, second.value);
+                if (is(o, R, R))
+                    return new Line(a -> add ? new AddR2R(a[0], a[1]) : new SubR2R(a[0], a[1]), first.value, second.value);
+                if (is(o, M, R))
+                    return new Line(a -> a[3] == null
+                            ? (add ? new AddM2R(a[0], a[2], a[1]) : new SubM2R(a[0], a[2], a[1]))
+                            : (add ? new AddM2R(a[0], a[2], a[1], a[3], a[4]) : new SubM2R(a[0], a[2], a[1], a[3], a[4])),
+                            memory(first, first.value, second.value));
+                break;
+            }
+            case "imulq":
+                if (isImmediate(o, I, R))
+                    return new Line(a -> new MulI2R(a[0], a[1]), first.value, second.value);
+                if (isImmediate(o, I, R, R))
+                    return new Line(a -> new MulIR2R(a[0], a[1], a[2]), first.value, second.value, o.get(2).value);
+                if (is(o, R, R))
+                    return new Line(a -> new MulR2R(a[0], a[1]), first.value, second.value);
+                if (is(o, M, R))
+                    return new Line(a -> a[3] == null ? new MulM2R(a[0], a[2], a[1])
+                            : new MulM2R(a[0], a[2], a[1], a[3], a[4]), memory(first, first.value, second.value));
+                break;
+            case "cmpq":
+                if (isImmediate(o, I, R))
+                    return new Line(a -> new CmpI2R(a[0], a[1]), first.value, second.value);
+                if (is(o, R, R))
+                    return new Line(a -> new CmpR2R(a[0], a[1]), first.value, second.value);
+                if (is(o, M, R))
+                    return new Line(a -> a[3] == null ? new CmpM2R(a[0], a[2], a[1])
+                            : new CmpM2R(a[0], a[2], a[1], a[3], a[4]), memory(first, first.value, second.value));
+                if (is(o, R, M))
+                    return new Line(a -> a[3] == null ? new CmpR2M(a[0], a[1], a[2])
+                            : new CmpR2M(a[0], a[1], a[2], a[3], a[4]), memory(second, first.value, second.value));
+                if (isImmediate(o, I, M))
+                    return new Line(a -> a[3] == null ? new CmpI2M(a[0], a[1], a[2])
+                            : new CmpI2M(a[0], a[1], a[2], a[3], a[4]), memory(second, first.value, second.value));
+                break;
+            case "movq":
+                if (is(o, I, R))
+                    return new Line(a -> new MoveI2R(a[0], a[1]), first.value, second.value);
+                if (is(o, R, R))
+                    return new Line(a -> new MoveR2R(a[0], a[1]), first.value, second.value);
+                if (is(o, M, R))
+                    return new Line(a -> a[3] == null ? new MoveM2R(a[0], a[2], a[1])
+                            : new MoveIM2R(a[0], a[2], a[1], a[3], a[4]), memory(first, first.value, second.value));
+                if (is(o, R, M))
+                    return new Line(a -> a[3] == null ? new MoveR2M(a[1], a[0], a[2])
+                            : new MoveR2IM(a[1], a[0], a[2], a[3], a[4]), memory(second, first.value, second.value));
+                if (is(o, I, M))
+                    return new Line(a -> a[3] == null ? new MoveI2M(a[1], a[0], a[2])
+                            : new MoveI2IM(a[1], a[0], a[2], a[3], a[4]), memory(second, first.value, second.value));
+                break;
+            case "leaq":
+                if (is(o, M, R) || is(o, Kind.SCALED, R))
+                    return new Line(a -> a[3] == null ? new Lea(a[0], a[2], a[1])
+                            : new Lea(a[0], a[2], a[1], a[3], a[4]), memory(first, first.value, second.value));
+                if (is(o, Kind.RIP, R))
+                    return new Line(a -> new Lea(a[0], a[1]), first.value, second.value);
+                break;
+            case "xorq":
+                if (is(o, R, R))
+                    return new Line(a -> new XorR2R(a[0], a[1]), first.value, second.value);
+                break;
+            case "sarq":
+                if (isImmediate(o, I, R))
+                    return new Line(a -> new SarI2R(a[0], a[1]), first.value, second.value);
+                break;
+            case "idivq":
+                if (is(o, R))
+                    return new Line(a -> new DivR(a[0]), first.value);
+                break;
+            case "incq":
+                if (is(o, R))
+                    return new Line(a -> new Inc(a[0]), first.value);
+                break;
+            case "decq":
+                if (is(o, R))
+                    return new Line(a -> new Dec(a[0]), first.value);
+                break;
+            case "pushq":
+                if (is(o, R))
+                    return new Line(a -> new Push(a[0]), first.value);
+                break;
+            case "call":
+                if (is(o, Kind.LABEL))
+                    return new Line(a -> new Call(a[0]), first.value);
+                if (is(o, Kind.INDIRECT))
+                    return new Line(a -> new Call("*", a[0]), first.value);
+                break;
+            case "jmp":
+                if (is(o, Kind.LABEL))
+                    return new Line(a -> new Jmp(a[0]), first.value);
+                break;
+            case "cqto":
+                if (o.isEmpty())
+                    return new Line(a -> new CQTO());
+                break;
+            case "leave":
+                if (o.isEmpty())
+                    return new Line(a -> new Leave());
+                break;
+            case "ret":
+                if (o.isEmpty())
+                    return new Line(a -> new Ret());
+                break;
+            default:
+                for (final String c : conditions) {
+                    if (mnemonic.equals("j" + c) && is(o, Kind.LABEL))
+                        return new Line(a -> new CJmp(c, a[0]), first.value);
+                    // The parser knows cmovb as cmovlb
+                    if (mnemonic.equals(c.equals("b") ? "cmovlb" : "cmov" + c) && is(o, R, R))
+                        return new Line(a -> new CMovR2R(c, a[0], a[1]), first.value, second.value);
+                }
+                throw bad(assem, "unknown instruction " + mnemonic);
+        }
+        throw bad(assem, "bad operands for " + mnemonic);
+    }
+}
@@ -105,198 +105,263 @@ public class X86_64SimParser implements X86_64SimParserConstants {
 
     final public void Instruction(Program p) throws ParseException {
         String offset = "0", source = null, index = null, target = null, scale = "1";
-        if (jj_2_39(5)) {
+        if (jj_2_54(5)) {
             jj_consume_token(ADD);
             source = IntLit();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new AddI2R(source, target));
-        } else if (jj_2_40(5)) {
+        } else if (jj_2_55(5)) {
             jj_consume_token(ADD);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new AddR2R(source, target));
-        } else if (jj_2_41(5)) {
+        } else if (jj_2_56(5)) {
+            jj_consume_token(ADD);
+            if (jj_2_17(5)) {
+                offset = Integer();
+            } else {
+                ;
+            }
+            jj_consume_token(LPAREN);
+            source = Register();
+            if (jj_2_19(5)) {
+                jj_consume_token(COMMA);
+                index = Register();
+                if (jj_2_18(5)) {
+                    jj_consume_token(COMMA);
+                    scale = Integer();
+                } else {
+                    ;
+                }
+            } else {
+                ;
+            }
+            jj_consume_token(RPAREN);
+            jj_consume_token(COMMA);
+            target = Register();
+            if (index == null) p.add(new AddM2R(offset, source, target));
+            else p.add(new AddM2R(offset, source, target, index, scale));
+        } else if (jj_2_57(5)) {
             jj_consume_token(CALL);
             target = Identifier();
             p.add(new Call(target));
-        } else if (jj_2_42(5)) {
+        } else if (jj_2_58(5)) {
             jj_consume_token(CALL);
             jj_consume_token(STAR);
             target = Register();
             p.add(new Call("*", target));
-        } else if (jj_2_43(5)) {
+        } else if (jj_2_59(5)) {
             jj_consume_token(CMOVL);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("l", source, target));
-        } else if (jj_2_44(5)) {
+        } else if (jj_2_60(5)) {
             jj_consume_token(CMOVE);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("e", source, target));
-        } else if (jj_2_45(5)) {
+        } else if (jj_2_61(5)) {
             jj_consume_token(CMOVG);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("g", source, target));
-        } else if (jj_2_46(5)) {
+        } else if (jj_2_62(5)) {
             jj_consume_token(CMOVLE);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("le", source, target));
-        } else if (jj_2_47(5)) {
+        } else if (jj_2_63(5)) {
             jj_consume_token(CMOVNE);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("ne", source, target));
-        } else if (jj_2_48(5)) {
+        } else if (jj_2_64(5)) {
             jj_consume_token(CMOVGE);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("ge", source, target));
-        } else if (jj_2_49(5)) {
+        } else if (jj_2_65(5)) {
             jj_consume_token(CMOVB);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("b", source, target));
-        } else if (jj_2_50(5)) {
+        } else if (jj_2_66(5)) {
             jj_consume_token(CMOVA);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("a", source, target));
-        } else if (jj_2_51(5)) {
+        } else if (jj_2_67(5)) {
             jj_consume_token(CMOVBE);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("be", source, target));
-        } else if (jj_2_52(5)) {
+        } else if (jj_2_68(5)) {
             jj_consume_token(CMOVAE);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CMovR2R("ae", source, target));
-        } else if (jj_2_53(5)) {
+        } else if (jj_2_69(5)) {
             jj_consume_token(CMP);
             source = IntLit();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CmpI2R(source, target));
-        } else if (jj_2_54(5)) {
+        } else if (jj_2_70(5)) {
             jj_consume_token(CMP);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new CmpR2R(source, target));
-        } else if (jj_2_55(5)) {
+        } else if (jj_2_71(5)) {
             jj_consume_token(CMP);
-            if (jj_2_17(5)) {
+            if (jj_2_20(5)) {
                 offset = Integer();
             } else {
                 ;
             }
             jj_consume_token(LPAREN);
             source = Register();
+            if (jj_2_22(5)) {
+                jj_consume_token(COMMA);
+                index = Register();
+                if (jj_2_21(5)) {
+                    jj_consume_token(COMMA);
+                    scale = Integer();
+                } else {
+                    ;
+                }
+            } else {
+                ;
+            }
             jj_consume_token(RPAREN);
             jj_consume_token(COMMA);
             target = Register();
-            p.add(new CmpM2R(offset, source, target));
-        } else if (jj_2_56(5)) {
+            if (index == null) p.add(new CmpM2R(offset, source, target));
+            else p.add(new CmpM2R(offset, source, target, index, scale));
+        } else if (jj_2_72(5)) {
             jj_consume_token(CMP);
             source = Register();
             jj_consume_token(COMMA);
-            if (jj_2_18(5)) {
+            if (jj_2_23(5)) {
                 offset = Integer();
             } else {
                 ;
             }
             jj_consume_token(LPAREN);
             target = Register();
+            if (jj_2_25(5)) {
+                jj_consume_token(COMMA);
+                index = Register();
+                if (jj_2_24(5)) {
+                    jj_consume_token(COMMA);
+                    scale = Integer();
+                } else {
+                    ;
+                }
+            } else {
+                ;
+            }
             jj_consume_token(RPAREN);
-            p.add(new CmpR2M(source, offset, target));
-        } else if (jj_2_57(5)) {
+            if (index == null) p.add(new CmpR2M(source, offset, target));
+            else p.add(new CmpR2M(source, offset, target, index, scale));
+        } else if (jj_2_73(5)) {
             jj_consume_token(CMP);
             source = IntLit();
             jj_consume_token(COMMA);
-            if (jj_2_19(5)) {
+            if (jj_2_26(5)) {
                 offset = Integer();
             } else {
                 ;
             }
             jj_consume_token(LPAREN);
             target = Register();
+            if (jj_2_28(5)) {
+                jj_consume_token(COMMA);
+                index = Register();
+                if (jj_2_27(5)) {
+                    jj_consume_token(COMMA);
+                    scale = Integer();
+                } else {
+                    ;
+                }
+            } else {
+                ;
+            }
             jj_consume_token(RPAREN);
-            p.add(new CmpI2M(source, offset, target));
-        } else if (jj_2_58(5)) {
+            if (index == null) p.add(new CmpI2M(source, offset, target));
+            else p.add(new CmpI2M(source, offset, target, index, scale));
+        } else if (jj_2_74(5)) {
             jj_consume_token(DEC);
             target = Register();
             p.add(new Dec(target));
-        } else if (jj_2_59(5)) {
+        } else if (jj_2_75(5)) {
             jj_consume_token(INC);
             target = Register();
             p.add(new Inc(target));
-        } else if (jj_2_60(5)) {
+        } else if (jj_2_76(5)) {
             jj_consume_token(JL);
             target = Identifier();
             p.add(new CJmp("l", target));
-        } else if (jj_2_61(5)) {
+        } else if (jj_2_77(5)) {
             jj_consume_token(JE);
             target = Identifier();
             p.add(new CJmp("e", target));
-        } else if (jj_2_62(5)) {
+        } else if (jj_2_78(5)) {
             jj_consume_token(JG);
             target = Identifier();
             p.add(new CJmp("g", target));
-        } else if (jj_2_63(5)) {
+        } else if (jj_2_79(5)) {
             jj_consume_token(JLE);
             target = Identifier();
             p.add(new CJmp("le", target));
-        } else if (jj_2_64(5)) {
+        } else if (jj_2_80(5)) {
             jj_consume_token(JNE);
             target = Identifier();
             p.add(new CJmp("ne", target));
-        } else if (jj_2_65(5)) {
+        } else if (jj_2_81(5)) {
             jj_consume_token(JGE);
             target = Identifier();
             p.add(new CJmp("ge", target));
-        } else if (jj_2_66(5)) {
+        } else if (jj_2_82(5)) {
             jj_consume_token(JB);
             target = Identifier();
             p.add(new CJmp("b", target));
-        } else if (jj_2_67(5)) {
+        } else if (jj_2_83(5)) {
             jj_consume_token(JA);
             target = Identifier();
             p.add(new CJmp("a", target));
-        } else if (jj_2_68(5)) {
+        } else if (jj_2_84(5)) {
             jj_consume_token(JBE);
             target = Identifier();
             p.add(new CJmp("be", target));
-        } else if (jj_2_69(5)) {
+        } else if (jj_2_85(5)) {
             jj_consume_token(JAE);
             target = Identifier();
             p.add(new CJmp("ae", target));
-        } else if (jj_2_70(5)) {
+        } else if (jj_2_86(5)) {
             jj_consume_token(JMP);
             target = Identifier();
             p.add(new Jmp(target));
-        } else if (jj_2_71(5)) {
+        } else if (jj_2_87(5)) {
             jj_consume_token(LEAVE);
             p.add(new Leave());
-        } else if (jj_2_72(5)) {
+        } else if (jj_2_88(5)) {
             jj_consume_token(MOV);
-            if (jj_2_20(5)) {
+            if (jj_2_29(5)) {
                 source = IntLit();
-            } else if (jj_2_21(5)) {
+            } else if (jj_2_30(5)) {
                 source = IdLit();
             } else {
                 jj_consume_token(-1);
@@ -305,25 +370,25 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             jj_consume_token(COMMA);
             target = Register();
             p.add(new MoveI2R(source, target));
-        } else if (jj_2_73(5)) {
+        } else if (jj_2_89(5)) {
             jj_consume_token(MOV);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new MoveR2R(source, target));
-        } else if (jj_2_74(5)) {
+        } else if (jj_2_90(5)) {
             jj_consume_token(MOV);
-            if (jj_2_22(5)) {
+            if (jj_2_31(5)) {
                 offset = Integer();
             } else {
                 ;
             }
             jj_consume_token(LPAREN);
             source = Register();
-            if (jj_2_24(5)) {
+            if (jj_2_33(5)) {
                 jj_consume_token(COMMA);
                 index = Register();
-                if (jj_2_23(5)) {
+                if (jj_2_32(5)) {
                     jj_consume_token(COMMA);
                     scale = Integer();
                 } else {
@@ -337,21 +402,21 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             target = Register();
             if (index == null) p.add(new MoveM2R(offset, source, target));
             else p.add(new MoveIM2R(offset, source, target, index, scale));
-        } else if (jj_2_75(5)) {
+        } else if (jj_2_91(5)) {
             jj_consume_token(MOV);
             source = Register();
             jj_consume_token(COMMA);
-            if (jj_2_25(5)) {
+            if (jj_2_34(5)) {
                 offset = Integer();
             } else {
                 ;
             }
             jj_consume_token(LPAREN);
             target = Register();
-            if (jj_2_27(5)) {
+            if (jj_2_36(5)) {
                 jj_consume_token(COMMA);
                 index = Register();
-                if (jj_2_26(5)) {
+                if (jj_2_35(5)) {
                     jj_consume_token(COMMA);
                     scale = Integer();
                 } else {
@@ -363,28 +428,28 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             jj_consume_token(RPAREN);
             if (index == null) p.add(new MoveR2M(offset, source, target));
             else p.add(new MoveR2IM(offset, source, target, index, scale));
-        } else if (jj_2_76(5)) {
+        } else if (jj_2_92(5)) {
             jj_consume_token(MOV);
-            if (jj_2_28(5)) {
+            if (jj_2_37(5)) {
                 source = IntLit();
-            } else if (jj_2_29(5)) {
+            } else if (jj_2_38(5)) {
                 source = IdLit();
             } else {
                 jj_consume_token(-1);
                 throw new ParseException();
             }
             jj_consume_token(COMMA);
-            if (jj_2_30(5)) {
+            if (jj_2_39(5)) {
                 offset = Integer();
             } else {
                 ;
             }
             jj_consume_token(LPAREN);
             target = Register();
-            if (jj_2_32(5)) {
+            if (jj_2_41(5)) {
                 jj_consume_token(COMMA);
                 index = Register();
-                if (jj_2_31(5)) {
+                if (jj_2_40(5)) {
                     jj_consume_token(COMMA);
                     scale = Integer();
                 } else {
@@ -396,19 +461,19 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             jj_consume_token(RPAREN);
             if (index == null) p.add(new MoveI2M(offset, source, target));
             else p.add(new MoveI2IM(offset, source, target, index, scale));
-        } else if (jj_2_77(5)) {
+        } else if (jj_2_93(5)) {
             jj_consume_token(LEA);
-            if (jj_2_33(5)) {
+            if (jj_2_42(5)) {
                 offset = Integer();
             } else {
                 ;
             }
             jj_consume_token(LPAREN);
             source = Register();
-            if (jj_2_35(5)) {
+            if (jj_2_44(5)) {
                 jj_consume_token(COMMA);
                 index = Register();
-                if (jj_2_34(5)) {
+                if (jj_2_43(5)) {
                     jj_consume_token(COMMA);
                     scale = Integer();
                 } else {
@@ -422,9 +487,9 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             target = Register();
             if (index == null) p.add(new Lea(offset, source, target));
             else p.add(new Lea(offset, source, target, index, scale));
-        } else if (jj_2_78(5)) {
+        } else if (jj_2_94(5)) {
             jj_consume_token(LEA);
-            if (jj_2_36(5)) {
+            if (jj_2_45(5)) {
                 offset = Integer();
             } else {
                 ;
@@ -438,9 +503,9 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             jj_consume_token(COMMA);
             target = Register();
             p.add(new Lea(offset, source, target, index, scale));
-        } else if (jj_2_79(5)) {
+        } else if (jj_2_95(5)) {
             jj_consume_token(LEA);
-            if (jj_2_37(5)) {
+            if (jj_2_46(5)) {
                 offset = Identifier();
             } else {
                 ;
@@ -451,12 +516,12 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             jj_consume_token(COMMA);
             target = Register();
             p.add(new Lea(offset, target));
-        } else if (jj_2_80(5)) {
+        } else if (jj_2_96(5)) {
             jj_consume_token(MUL);
             scale = IntLit();
             jj_consume_token(COMMA);
             source = Register();
-            if (jj_2_38(5)) {
+            if (jj_2_47(5)) {
                 jj_consume_token(COMMA);
                 target = Register();
             } else {
@@ -464,45 +529,97 @@ public class X86_64SimParser implements X86_64SimParserConstants {
             }
             if (target == null) p.add(new MulI2R(scale, source));
             else p.add(new MulIR2R(scale, source, target));
-        } else if (jj_2_81(5)) {
+        } else if (jj_2_97(5)) {
             jj_consume_token(MUL);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new MulR2R(source, target));
-        } else if (jj_2_82(5)) {
+        } else if (jj_2_98(5)) {
+            jj_consume_token(MUL);
+            if (jj_2_48(5)) {
+                offset = Integer();
+            } else {
+                ;
+            }
+            jj_consume_token(LPAREN);
+            source = Register();
+            if (jj_2_50(5)) {
+                jj_consume_token(COMMA);
+                index = Register();
+                if (jj_2_49(5)) {
+                    jj_consume_token(COMMA);
+                    scale = Integer();
+                } else {
+                    ;
+                }
+            } else {
+                ;
+            }
+            jj_consume_token(RPAREN);
+            jj_consume_token(COMMA);
+            target = Register();
+            if (index == null) p.add(new MulM2R(offset, source, target));
+            else p.add(new MulM2R(offset, source, target, index, scale));
+        } else if (jj_2_99(5)) {
             jj_consume_token(DIV);
             source = Register();
             p.add(new DivR(source));
-        } else if (jj_2_83(5)) {
+        } else if (jj_2_100(5)) {
             jj_consume_token(CQTO);
             p.add(new CQTO());
-        } else if (jj_2_84(5)) {
+        } else if (jj_2_101(5)) {
             jj_consume_token(PUSH);
             target = Register();
             p.add(new Push(target));
-        } else if (jj_2_85(5)) {
+        } else if (jj_2_102(5)) {
             jj_consume_token(RET);
             p.add(new Ret());
-        } else if (jj_2_86(5)) {
+        } else if (jj_2_103(5)) {
             jj_consume_token(SAR);
             source = IntLit();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new SarI2R(source, target));
-        } else if (jj_2_87(5)) {
+        } else if (jj_2_104(5)) {
             jj_consume_token(SUB);
             source = IntLit();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new SubI2R(source, target));
-        } else if (jj_2_88(5)) {
+        } else if (jj_2_105(5)) {
             jj_consume_token(SUB);
             source = Register();
             jj_consume_token(COMMA);
             target = Register();
             p.add(new SubR2R(source, target));
-        } else if (jj_2_89(5)) {
+        } else if (jj_2_106(5)) {
+            jj_consume_token(SUB);
+            if (jj_2_51(5)) {
+                offset = Integer();
+            } else {
+                ;
+            }
+            jj_consume_token(LPAREN);
+            source = Register();
+            if (jj_2_53(5)) {
+                jj_consume_token(COMMA);
+                index = Register();
+                if (jj_2_52(5)) {
+                    jj_consume_token(COMMA);
+                    scale = Integer();
+                } else {
+                    ;
+                }
+            } else {
+                ;
+            }
+            jj_consume_token(RPAREN);
+            jj_consume_token(COMMA);
+            target = Register();
+            if (index == null) p.add(new SubM2R(offset, source, target));
+            else p.add(new SubM2R(offset, source, target, index, scale));
+        } else if (jj_2_107(5)) {
             jj_consume_token(XOR);
             source = Register();
             jj_consume_token(COMMA);
@@ -1647,242 +1764,484 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         }
     }
 
-    private boolean jj_3_53() {
-        if (jj_scan_token(CMP)) return true;
-        if (jj_3R_8()) return true;
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
-        return false;
+    private boolean jj_2_90(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_90();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(89, xla);
+        }
     }
 
-    private boolean jj_3_52() {
-        if (jj_scan_token(CMOVAE)) return true;
-        if (jj_3R_10()) return true;
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
-        return false;
+    private boolean jj_2_91(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_91();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(90, xla);
+        }
     }
 
-    private boolean jj_3_31() {
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_6()) return true;
-        return false;
+    private boolean jj_2_92(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_92();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(91, xla);
+        }
     }
 
-    private boolean jj_3_51() {
-        if (jj_scan_token(CMOVBE)) return true;
-        if (jj_3R_10()) return true;
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
-        return false;
+    private boolean jj_2_93(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_93();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(92, xla);
+        }
     }
 
-    private boolean jj_3_50() {
-        if (jj_scan_token(CMOVA)) return true;
-        if (jj_3R_10()) return true;
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
-        return false;
+    private boolean jj_2_94(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_94();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(93, xla);
+        }
     }
 
-    private boolean jj_3_49() {
-        if (jj_scan_token(CMOVB)) return true;
-        if (jj_3R_10()) return true;
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
-        return false;
+    private boolean jj_2_95(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_95();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(94, xla);
+        }
     }
 
-    private boolean jj_3_48() {
-        if (jj_scan_token(CMOVGE)) return true;
-        if (jj_3R_10()) return true;
+    private boolean jj_2_96(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_96();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(95, xla);
+        }
+    }
+
+    private boolean jj_2_97(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_97();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(96, xla);
+        }
+    }
+
+    private boolean jj_2_98(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_98();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(97, xla);
+        }
+    }
+
+    private boolean jj_2_99(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_99();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(98, xla);
+        }
+    }
+
+    private boolean jj_2_100(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_100();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(99, xla);
+        }
+    }
+
+    private boolean jj_2_101(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_101();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(100, xla);
+        }
+    }
+
+    private boolean jj_2_102(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_102();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(101, xla);
+        }
+    }
+
+    private boolean jj_2_103(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_103();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(102, xla);
+        }
+    }
+
+    private boolean jj_2_104(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_104();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(103, xla);
+        }
+    }
+
+    private boolean jj_2_105(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_105();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(104, xla);
+        }
+    }
+
+    private boolean jj_2_106(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_106();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(105, xla);
+        }
+    }
+
+    private boolean jj_2_107(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_107();
+        } catch (LookaheadSuccess ls) {
+            return true;
+        } finally {
+            jj_save(106, xla);
+        }
+    }
+
+    private boolean jj_3_40() {
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_47() {
+    private boolean jj_3_68() {
+        if (jj_scan_token(CMOVAE)) return true;
+        if (jj_3R_8()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        return false;
+    }
+
+    private boolean jj_3_67() {
+        if (jj_scan_token(CMOVBE)) return true;
+        if (jj_3R_8()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        return false;
+    }
+
+    private boolean jj_3_66() {
+        if (jj_scan_token(CMOVA)) return true;
+        if (jj_3R_8()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        return false;
+    }
+
+    private boolean jj_3_65() {
+        if (jj_scan_token(CMOVB)) return true;
+        if (jj_3R_8()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        return false;
+    }
+
+    private boolean jj_3_64() {
+        if (jj_scan_token(CMOVGE)) return true;
+        if (jj_3R_8()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        return false;
+    }
+
+    private boolean jj_3_63() {
         if (jj_scan_token(CMOVNE)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_46() {
+    private boolean jj_3_62() {
         if (jj_scan_token(CMOVLE)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_45() {
+    private boolean jj_3_17() {
+        if (jj_3R_6()) return true;
+        return false;
+    }
+
+    private boolean jj_3_61() {
         if (jj_scan_token(CMOVG)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_44() {
+    private boolean jj_3_60() {
         if (jj_scan_token(CMOVE)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_7() {
-        if (jj_3R_7()) return true;
+    private boolean jj_3_59() {
+        if (jj_scan_token(CMOVL)) return true;
+        if (jj_3R_8()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_43() {
-        if (jj_scan_token(CMOVL)) return true;
-        if (jj_3R_10()) return true;
+    private boolean jj_3_35() {
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_26() {
+    private boolean jj_3_52() {
         if (jj_scan_token(COMMA)) return true;
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_42() {
+    private boolean jj_3_7() {
+        if (jj_3R_7()) return true;
+        return false;
+    }
+
+    private boolean jj_3_58() {
         if (jj_scan_token(CALL)) return true;
         if (jj_scan_token(STAR)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_41() {
+    private boolean jj_3_57() {
         if (jj_scan_token(CALL)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
+    private boolean jj_3_56() {
+        if (jj_scan_token(ADD)) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_17()) jj_scanpos = xsp;
+        if (jj_scan_token(LPAREN)) return true;
+        if (jj_3R_8()) return true;
+        xsp = jj_scanpos;
+        if (jj_3_19()) jj_scanpos = xsp;
+        if (jj_scan_token(RPAREN)) return true;
+        if (jj_scan_token(COMMA)) return true;
+        return false;
+    }
+
     private boolean jj_3_3() {
         if (jj_3R_4()) return true;
         return false;
     }
 
-    private boolean jj_3_40() {
+    private boolean jj_3_55() {
         if (jj_scan_token(ADD)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
     private boolean jj_3R_4() {
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_39()) {
+        if (jj_3_54()) {
             jj_scanpos = xsp;
-            if (jj_3_40()) {
+            if (jj_3_55()) {
                 jj_scanpos = xsp;
-                if (jj_3_41()) {
+                if (jj_3_56()) {
                     jj_scanpos = xsp;
-                    if (jj_3_42()) {
+                    if (jj_3_57()) {
                         jj_scanpos = xsp;
-                        if (jj_3_43()) {
+                        if (jj_3_58()) {
                             jj_scanpos = xsp;
-                            if (jj_3_44()) {
+                            if (jj_3_59()) {
                                 jj_scanpos = xsp;
-                                if (jj_3_45()) {
+                                if (jj_3_60()) {
                                     jj_scanpos = xsp;
-                                    if (jj_3_46()) {
+                                    if (jj_3_61()) {
                                         jj_scanpos = xsp;
-                                        if (jj_3_47()) {
+                                        if (jj_3_62()) {
                                             jj_scanpos = xsp;
-                                            if (jj_3_48()) {
+                                            if (jj_3_63()) {
                                                 jj_scanpos = xsp;
-                                                if (jj_3_49()) {
+                                                if (jj_3_64()) {
                                                     jj_scanpos = xsp;
-                                                    if (jj_3_50()) {
+                                                    if (jj_3_65()) {
                                                         jj_scanpos = xsp;
-                                                        if (jj_3_51()) {
+                                                        if (jj_3_66()) {
                                                             jj_scanpos = xsp;
-                                                            if (jj_3_52()) {
+                                                            if (jj_3_67()) {
                                                                 jj_scanpos = xsp;
-                                                                if (jj_3_53()) {
+                                                                if (jj_3_68()) {
                                                                     jj_scanpos = xsp;
-                                                                    if (jj_3_54()) {
+                                                                    if (jj_3_69()) {
                                                                         jj_scanpos = xsp;
-                                                                        if (jj_3_55()) {
+                                                                        if (jj_3_70()) {
                                                                             jj_scanpos = xsp;
-                                                                            if (jj_3_56()) {
+                                                                            if (jj_3_71()) {
                                                                                 jj_scanpos = xsp;
-                                                                                if (jj_3_57()) {
+                                                                                if (jj_3_72()) {
                                                                                     jj_scanpos = xsp;
-                                                                                    if (jj_3_58()) {
+                                                                                    if (jj_3_73()) {
                                                                                         jj_scanpos = xsp;
-                                                                                        if (jj_3_59()) {
+                                                                                        if (jj_3_74()) {
                                                                                             jj_scanpos = xsp;
-                                                                                            if (jj_3_60()) {
+                                                                                            if (jj_3_75()) {
                                                                                                 jj_scanpos = xsp;
-                                                                                                if (jj_3_61()) {
+                                                                                                if (jj_3_76()) {
                                                                                                     jj_scanpos = xsp;
-                                                                                                    if (jj_3_62()) {
+                                                                                                    if (jj_3_77()) {
                                                                                                         jj_scanpos = xsp;
-                                                                                                        if (jj_3_63()) {
+                                                                                                        if (jj_3_78()) {
                                                                                                             jj_scanpos = xsp;
-                                                                                                            if (jj_3_64()) {
+                                                                                                            if (jj_3_79()) {
                                                                                                                 jj_scanpos = xsp;
-                                                                                                                if (jj_3_65()) {
+                                                                                                                if (jj_3_80()) {
                                                                                                                     jj_scanpos = xsp;
-                                                                                                                    if (jj_3_66()) {
+                                                                                                                    if (jj_3_81()) {
                                                                                                                         jj_scanpos = xsp;
-                                                                                                                        if (jj_3_67()) {
+                                                                                                                        if (jj_3_82()) {
                                                                                                                             jj_scanpos = xsp;
-                                                                                                                            if (jj_3_68()) {
+                                                                                                                            if (jj_3_83()) {
                                                                                                                                 jj_scanpos = xsp;
-                                                                                                                                if (jj_3_69()) {
+                                                                                                                                if (jj_3_84()) {
                                                                                                                                     jj_scanpos = xsp;
-                                                                                                                                    if (jj_3_70()) {
+                                                                                                                                    if (jj_3_85()) {
                                                                                                                                         jj_scanpos = xsp;
-                                                                                                                                        if (jj_3_71()) {
+                                                                                                                                        if (jj_3_86()) {
                                                                                                                                             jj_scanpos = xsp;
-                                                                                                                                            if (jj_3_72()) {
+                                                                                                                                            if (jj_3_87()) {
                                                                                                                                                 jj_scanpos = xsp;
-                                                                                                                                                if (jj_3_73()) {
+                                                                                                                                                if (jj_3_88()) {
                                                                                                                                                     jj_scanpos = xsp;
-                                                                                                                                                    if (jj_3_74()) {
+                                                                                                                                                    if (jj_3_89()) {
                                                                                                                                                         jj_scanpos = xsp;
-                                                                                                                                                        if (jj_3_75()) {
+                                                                                                                                                        if (jj_3_90()) {
                                                                                                                                                             jj_scanpos = xsp;
-                                                                                                                                                            if (jj_3_76()) {
+                                                                                                                                                            if (jj_3_91()) {
                                                                                                                                                                 jj_scanpos = xsp;
-                                                                                                                                                                if (jj_3_77()) {
+                                                                                                                                                                if (jj_3_92()) {
                                                                                                                                                                     jj_scanpos = xsp;
-                                                                                                                                                                    if (jj_3_78()) {
+                                                                                                                                                                    if (jj_3_93()) {
                                                                                                                                                                         jj_scanpos = xsp;
-                                                                                                                                                                        if (jj_3_79()) {
+                                                                                                                                                                        if (jj_3_94()) {
                                                                                                                                                                             jj_scanpos = xsp;
-                                                                                                                                                                            if (jj_3_80()) {
+                                                                                                                                                                            if (jj_3_95()) {
                                                                                                                                                                                 jj_scanpos = xsp;
-                                                                                                                                                                                if (jj_3_81()) {
+                                                                                                                                                                                if (jj_3_96()) {
                                                                                                                                                                                     jj_scanpos = xsp;
-                                                                                                                                                                                    if (jj_3_82()) {
+                                                                                                                                                                                    if (jj_3_97()) {
                                                                                                                                                                                         jj_scanpos = xsp;
-                                                                                                                                                                                        if (jj_3_83()) {
+                                                                                                                                                                                        if (jj_3_98()) {
                                                                                                                                                                                             jj_scanpos = xsp;
-                                                                                                                                                                                            if (jj_3_84()) {
+                                                                                                                                                                                            if (jj_3_99()) {
                                                                                                                                                                                                 jj_scanpos = xsp;
-                                                                                                                                                                                                if (jj_3_85()) {
+                                                                                                                                                                                                if (jj_3_100()) {
                                                                                                                                                                                                     jj_scanpos = xsp;
-                                                                                                                                                                                                    if (jj_3_86()) {
+                                                                                                                                                                                                    if (jj_3_101()) {
                                                                                                                                                                                                         jj_scanpos = xsp;
-                                                                                                                                                                                                        if (jj_3_87()) {
+                                                                                                                                                                                                        if (jj_3_102()) {
                                                                                                                                                                                                             jj_scanpos = xsp;
-                                                                                                                                                                                                            if (jj_3_88()) {
+                                                                                                                                                                                                            if (jj_3_103()) {
                                                                                                                                                                                                                 jj_scanpos = xsp;
-                                                                                                                                                                                                                if (jj_3_89())
-                                                                                                                                                                                                                    return true;
+                                                                                                                                                                                                                if (jj_3_104()) {
+                                                                                                                                                                                                                    jj_scanpos = xsp;
+                                                                                                                                                                                                                    if (jj_3_105()) {
+                                                                                                                                                                                                                        jj_scanpos = xsp;
+                                                                                                                                                                                                                        if (jj_3_106()) {
+                                                                                                                                                                                                                            jj_scanpos = xsp;
+                                                                                                                                                                                                                            if (jj_3_107())
+                                                                                                                                                                                                                                return true;
+                                                                                                                                                                                                                        }
+                                                                                                                                                                                                                    }
+                                                                                                                                                                                                                }
                                                                                                                                                                                                             }
                                                                                                                                                                                                         }
                                                                                                                                                                                                     }
@@ -1936,20 +2295,26 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3_39() {
+    private boolean jj_3_54() {
         if (jj_scan_token(ADD)) return true;
-        if (jj_3R_8()) return true;
+        if (jj_3R_9()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_32() {
+    private boolean jj_3_41() {
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_31()) jj_scanpos = xsp;
+        if (jj_3_40()) jj_scanpos = xsp;
+        return false;
+    }
+
+    private boolean jj_3_49() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_6()) return true;
         return false;
     }
 
@@ -1964,6 +2329,12 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
+    private boolean jj_3_43() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_6()) return true;
+        return false;
+    }
+
     private boolean jj_3_12() {
         if (jj_scan_token(GLOBL)) return true;
         if (jj_scan_token(IDENTIFIER)) return true;
@@ -1980,12 +2351,6 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3_34() {
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_6()) return true;
-        return false;
-    }
-
     private boolean jj_3_14() {
         if (jj_scan_token(SECTION)) return true;
         return false;
@@ -1997,6 +2362,24 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
+    private boolean jj_3_36() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_35()) jj_scanpos = xsp;
+        return false;
+    }
+
+    private boolean jj_3_53() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_52()) jj_scanpos = xsp;
+        return false;
+    }
+
     private boolean jj_3_10() {
         if (jj_scan_token(QUAD)) return true;
         Token xsp;
@@ -2008,12 +2391,9 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3_27() {
+    private boolean jj_3_32() {
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
-        Token xsp;
-        xsp = jj_scanpos;
-        if (jj_3_26()) jj_scanpos = xsp;
+        if (jj_3R_6()) return true;
         return false;
     }
 
@@ -2028,9 +2408,8 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3_23() {
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_6()) return true;
+    private boolean jj_3R_11() {
+        if (jj_scan_token(RIP)) return true;
         return false;
     }
 
@@ -2070,8 +2449,20 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3R_11() {
-        if (jj_scan_token(RIP)) return true;
+    private boolean jj_3_24() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_6()) return true;
+        return false;
+    }
+
+    private boolean jj_3_27() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_6()) return true;
+        return false;
+    }
+
+    private boolean jj_3R_8() {
+        if (jj_scan_token(REGISTER)) return true;
         return false;
     }
 
@@ -2105,8 +2496,18 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
+    private boolean jj_3_50() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_49()) jj_scanpos = xsp;
+        return false;
+    }
+
     private boolean jj_3R_10() {
-        if (jj_scan_token(REGISTER)) return true;
+        if (jj_scan_token(DOLLAR)) return true;
+        if (jj_scan_token(IDENTIFIER)) return true;
         return false;
     }
 
@@ -2115,42 +2516,60 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3R_9() {
-        if (jj_scan_token(DOLLAR)) return true;
+    private boolean jj_3_44() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_43()) jj_scanpos = xsp;
+        return false;
+    }
+
+    private boolean jj_3R_7() {
         if (jj_scan_token(IDENTIFIER)) return true;
         return false;
     }
 
-    private boolean jj_3_35() {
+    private boolean jj_3_47() {
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
+        return false;
+    }
+
+    private boolean jj_3_33() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_34()) jj_scanpos = xsp;
+        if (jj_3_32()) jj_scanpos = xsp;
         return false;
     }
 
-    private boolean jj_3_38() {
-        if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+    private boolean jj_3_39() {
+        if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3R_7() {
-        if (jj_scan_token(IDENTIFIER)) return true;
+    private boolean jj_3_25() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_24()) jj_scanpos = xsp;
         return false;
     }
 
-    private boolean jj_3_24() {
+    private boolean jj_3_28() {
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_23()) jj_scanpos = xsp;
+        if (jj_3_27()) jj_scanpos = xsp;
         return false;
     }
 
-    private boolean jj_3_30() {
+    private boolean jj_3_21() {
+        if (jj_scan_token(COMMA)) return true;
         if (jj_3R_6()) return true;
         return false;
     }
@@ -2160,122 +2579,175 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3_25() {
+    private boolean jj_3R_9() {
+        if (jj_scan_token(DOLLAR)) return true;
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3R_8() {
-        if (jj_scan_token(DOLLAR)) return true;
+    private boolean jj_3_34() {
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_29() {
-        if (jj_3R_9()) return true;
+    private boolean jj_3_51() {
+        if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_89() {
+    private boolean jj_3_107() {
         if (jj_scan_token(XOR)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_88() {
+    private boolean jj_3_106() {
         if (jj_scan_token(SUB)) return true;
-        if (jj_3R_10()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_51()) jj_scanpos = xsp;
+        if (jj_scan_token(LPAREN)) return true;
+        if (jj_3R_8()) return true;
+        xsp = jj_scanpos;
+        if (jj_3_53()) jj_scanpos = xsp;
+        if (jj_scan_token(RPAREN)) return true;
         if (jj_scan_token(COMMA)) return true;
+        return false;
+    }
+
+    private boolean jj_3_38() {
         if (jj_3R_10()) return true;
         return false;
     }
 
-    private boolean jj_3_87() {
+    private boolean jj_3_105() {
         if (jj_scan_token(SUB)) return true;
         if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_21() {
+    private boolean jj_3_104() {
+        if (jj_scan_token(SUB)) return true;
         if (jj_3R_9()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_85() {
+    private boolean jj_3_18() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_6()) return true;
+        return false;
+    }
+
+    private boolean jj_3_22() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_21()) jj_scanpos = xsp;
+        return false;
+    }
+
+    private boolean jj_3_48() {
+        if (jj_3R_6()) return true;
+        return false;
+    }
+
+    private boolean jj_3_30() {
+        if (jj_3R_10()) return true;
+        return false;
+    }
+
+    private boolean jj_3_102() {
         if (jj_scan_token(RET)) return true;
         return false;
     }
 
-    private boolean jj_3_86() {
+    private boolean jj_3_103() {
         if (jj_scan_token(SAR)) return true;
-        if (jj_3R_8()) return true;
+        if (jj_3R_9()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_84() {
+    private boolean jj_3_101() {
         if (jj_scan_token(PUSH)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_37() {
+    private boolean jj_3_100() {
+        if (jj_scan_token(CQTO)) return true;
+        return false;
+    }
+
+    private boolean jj_3_46() {
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_83() {
-        if (jj_scan_token(CQTO)) return true;
+    private boolean jj_3_99() {
+        if (jj_scan_token(DIV)) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_36() {
+    private boolean jj_3_45() {
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_82() {
-        if (jj_scan_token(DIV)) return true;
-        if (jj_3R_10()) return true;
+    private boolean jj_3_98() {
+        if (jj_scan_token(MUL)) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_48()) jj_scanpos = xsp;
+        if (jj_scan_token(LPAREN)) return true;
+        if (jj_3R_8()) return true;
+        xsp = jj_scanpos;
+        if (jj_3_50()) jj_scanpos = xsp;
+        if (jj_scan_token(RPAREN)) return true;
+        if (jj_scan_token(COMMA)) return true;
         return false;
     }
 
-    private boolean jj_3_33() {
+    private boolean jj_3_42() {
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_81() {
+    private boolean jj_3_97() {
         if (jj_scan_token(MUL)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_28() {
-        if (jj_3R_8()) return true;
+    private boolean jj_3_37() {
+        if (jj_3R_9()) return true;
         return false;
     }
 
-    private boolean jj_3_80() {
+    private boolean jj_3_96() {
         if (jj_scan_token(MUL)) return true;
-        if (jj_3R_8()) return true;
+        if (jj_3R_9()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_79() {
+    private boolean jj_3_95() {
         if (jj_scan_token(LEA)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_37()) jj_scanpos = xsp;
+        if (jj_3_46()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
         if (jj_3R_11()) return true;
         if (jj_scan_token(RPAREN)) return true;
@@ -2283,242 +2755,261 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         return false;
     }
 
-    private boolean jj_3_22() {
+    private boolean jj_3_31() {
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_78() {
+    private boolean jj_3_94() {
         if (jj_scan_token(LEA)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_36()) jj_scanpos = xsp;
+        if (jj_3_45()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
         return false;
     }
 
-    private boolean jj_3_77() {
+    private boolean jj_3_93() {
         if (jj_scan_token(LEA)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_33()) jj_scanpos = xsp;
+        if (jj_3_42()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         xsp = jj_scanpos;
-        if (jj_3_35()) jj_scanpos = xsp;
+        if (jj_3_44()) jj_scanpos = xsp;
         if (jj_scan_token(RPAREN)) return true;
         if (jj_scan_token(COMMA)) return true;
         return false;
     }
 
-    private boolean jj_3_20() {
-        if (jj_3R_8()) return true;
+    private boolean jj_3_29() {
+        if (jj_3R_9()) return true;
         return false;
     }
 
-    private boolean jj_3_18() {
+    private boolean jj_3_23() {
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_76() {
+    private boolean jj_3_92() {
         if (jj_scan_token(MOV)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_28()) {
+        if (jj_3_37()) {
             jj_scanpos = xsp;
-            if (jj_3_29()) return true;
+            if (jj_3_38()) return true;
         }
         if (jj_scan_token(COMMA)) return true;
         xsp = jj_scanpos;
-        if (jj_3_30()) jj_scanpos = xsp;
+        if (jj_3_39()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
         return false;
     }
 
-    private boolean jj_3_19() {
+    private boolean jj_3_26() {
         if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_75() {
+    private boolean jj_3_91() {
         if (jj_scan_token(MOV)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_25()) jj_scanpos = xsp;
+        if (jj_3_34()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_74() {
+    private boolean jj_3_90() {
         if (jj_scan_token(MOV)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_22()) jj_scanpos = xsp;
+        if (jj_3_31()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         xsp = jj_scanpos;
-        if (jj_3_24()) jj_scanpos = xsp;
+        if (jj_3_33()) jj_scanpos = xsp;
         if (jj_scan_token(RPAREN)) return true;
         if (jj_scan_token(COMMA)) return true;
         return false;
     }
 
-    private boolean jj_3_73() {
+    private boolean jj_3_89() {
         if (jj_scan_token(MOV)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_72() {
+    private boolean jj_3_19() {
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_18()) jj_scanpos = xsp;
+        return false;
+    }
+
+    private boolean jj_3_88() {
         if (jj_scan_token(MOV)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_20()) {
+        if (jj_3_29()) {
             jj_scanpos = xsp;
-            if (jj_3_21()) return true;
+            if (jj_3_30()) return true;
         }
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_71() {
+    private boolean jj_3_87() {
         if (jj_scan_token(LEAVE)) return true;
         return false;
     }
 
-    private boolean jj_3_70() {
+    private boolean jj_3_86() {
         if (jj_scan_token(JMP)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_69() {
+    private boolean jj_3_85() {
         if (jj_scan_token(JAE)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_68() {
+    private boolean jj_3_84() {
         if (jj_scan_token(JBE)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_67() {
+    private boolean jj_3_83() {
         if (jj_scan_token(JA)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_66() {
+    private boolean jj_3_82() {
         if (jj_scan_token(JB)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_65() {
+    private boolean jj_3_81() {
         if (jj_scan_token(JGE)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_64() {
+    private boolean jj_3_80() {
         if (jj_scan_token(JNE)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_63() {
+    private boolean jj_3_79() {
         if (jj_scan_token(JLE)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_62() {
+    private boolean jj_3_78() {
         if (jj_scan_token(JG)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_61() {
+    private boolean jj_3_77() {
         if (jj_scan_token(JE)) return true;
         if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_17() {
-        if (jj_3R_6()) return true;
+    private boolean jj_3_76() {
+        if (jj_scan_token(JL)) return true;
+        if (jj_3R_7()) return true;
         return false;
     }
 
-    private boolean jj_3_60() {
-        if (jj_scan_token(JL)) return true;
-        if (jj_3R_7()) return true;
+    private boolean jj_3_20() {
+        if (jj_3R_6()) return true;
         return false;
     }
 
-    private boolean jj_3_59() {
+    private boolean jj_3_75() {
         if (jj_scan_token(INC)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_58() {
+    private boolean jj_3_74() {
         if (jj_scan_token(DEC)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_57() {
+    private boolean jj_3_73() {
         if (jj_scan_token(CMP)) return true;
-        if (jj_3R_8()) return true;
+        if (jj_3R_9()) return true;
         if (jj_scan_token(COMMA)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_19()) jj_scanpos = xsp;
+        if (jj_3_26()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
         return false;
     }
 
-    private boolean jj_3_56() {
+    private boolean jj_3_72() {
         if (jj_scan_token(CMP)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_18()) jj_scanpos = xsp;
+        if (jj_3_23()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
-    private boolean jj_3_55() {
+    private boolean jj_3_71() {
         if (jj_scan_token(CMP)) return true;
         Token xsp;
         xsp = jj_scanpos;
-        if (jj_3_17()) jj_scanpos = xsp;
+        if (jj_3_20()) jj_scanpos = xsp;
         if (jj_scan_token(LPAREN)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
+        xsp = jj_scanpos;
+        if (jj_3_22()) jj_scanpos = xsp;
         if (jj_scan_token(RPAREN)) return true;
         if (jj_scan_token(COMMA)) return true;
         return false;
     }
 
-    private boolean jj_3_54() {
+    private boolean jj_3_70() {
         if (jj_scan_token(CMP)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
         if (jj_scan_token(COMMA)) return true;
-        if (jj_3R_10()) return true;
+        if (jj_3R_8()) return true;
+        return false;
+    }
+
+    private boolean jj_3_69() {
+        if (jj_scan_token(CMP)) return true;
+        if (jj_3R_9()) return true;
+        if (jj_scan_token(COMMA)) return true;
+        if (jj_3R_8()) return true;
         return false;
     }
 
@@ -2562,7 +3053,7 @@ public class X86_64SimParser implements X86_64SimParserConstants {
         jj_la1_2 = new int[]{};
     }
 
-    final private JJCalls[] jj_2_rtns = new JJCalls[89];
+    final private JJCalls[] jj_2_rtns = new JJCalls[107];
     private boolean jj_rescan = false;
     private int jj_gc = 0;
 
@@ -2837,7 +3328,7 @@ public class X86_64SimParser implements X86_64SimParserConstants {
 
     private void jj_rescan_token() {
         jj_rescan = true;
-        for (int i = 0; i < 89; i++) {
+        for (int i = 0; i < 107; i++) {
             try {
                 JJCalls p = jj_2_rtns[i];
                 do {
@@ -3112,6 +3603,60 @@ public class X86_64SimParser implements X86_64SimParserConstants {
                             case 88:
                                 jj_3_89();
                                 break;
+                            case 89:
+                                jj_3_90();
+                                break;
+                            case 90:
+                                jj_3_91();
+                                break;
+                            case 91:
+                                jj_3_92();
+                                break;
+                            case 92:
+                                jj_3_93();
+                                break;
+                            case 93:
+                                jj_3_94();
+                                break;
+                            case 94:
+                                jj_3_95();
+                                break;
+                            case 95:
+                                jj_3_96();
+                                break;
+                            case 96:
+                                jj_3_97();
+                                break;
+                            case 97:
+                                jj_3_98();
+                                break;
+                            case 98:
+                                jj_3_99();
+                                break;
+                            case 99:
+                                jj_3_100();
+                                break;
+                            case 100:
+                                jj_3_101();
+                                break;
+                            case 101:
+                                jj_3_102();
+                                break;
+                            case 102:
+                                jj_3_103();
+                                break;
+                            case 103:
+                                jj_3_104();
+                                break;
+                            case 104:
+                                jj_3_105();
+                                break;
+                            case 105:
+                                jj_3_106();
+                                break;
+                            case 106:
+                                jj_3_107();
+                                break;
                         }
                     }
                     p = p.next;
@@ -0,0 +1,165 @@
+package x86_64sim.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import x86_64sim.Program;
+import x86_64sim.parser.InstructionTemplate;
+import x86_64sim.parser.SimParser;
+import util.SampleCode;
+
+/**
+ * Checks that InstructionTemplate decodes instructions the same way as the
+ * parser: every instruction of the sample programs, and every instruction
+ * form, with holes, must make the same Program both ways, and what the parser
+ * rejects must not be decoded either.
+ */
+public class TestInstructionTemplate {
+
+    private static final Pattern hole = Pattern.compile("`([a-z])([0-9])");
+
+    private static final InstructionTemplate.Holes holes = (kind, number) -> {
+        switch (kind) {
+            case 's':
+                return new String[]{"%rax", "%rbx", "%rcx"}[number];
+            case 'd':
+                return new String[]{"%rdx", "t17"}[number];
+            case 'j':
+                return "L" + number;
+            default:
+                throw new Error("Unexpected hole `" + kind + number);
+        }
+    };
+
+    /**
+     * The template with the holes filled in as text.
+     */
+    private static String fill(String assem) {
+        StringBuffer sb = new StringBuffer();
+        Matcher m = hole.matcher(assem);
+        while (m.find())
+            m.appendReplacement(sb, holes.fill(m.group(1).charAt(0), Integer.parseInt(m.group(2))));
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    /**
+     * The labels the forms refer to, defined after them so that they link.
+     */
+    private static final String[] labels = {"L0", "L1", "_label", "_data"};
+
+    private static void same(String assem) {
+        StringBuilder text = new StringBuilder(".text\n" + fill(assem) + "\n");
+        Program decoded = new Program();
+        decoded.doText();
+        InstructionTemplate.decode(assem).addTo(decoded, holes);
+        for (String label : labels) {
+            text.append(label).append(":\n");
+            decoded.add(label);
+        }
+        decoded.link();
+        Assertions.assertEquals(SimParser.parse(text.toString()).dump(), decoded.dump(), assem);
+    }
+
+    private static void rejected(String assem) {
+        try {
+            SimParser.parse(".text\n" + fill(assem) + "\n");
+            Assertions.fail("Parsed " + assem);
+        } catch (Error expected) {
+        }
+        try {
+            InstructionTemplate.decode(assem);
+            Assertions.fail("Decoded " + assem);
+        } catch (Error expected) {
+        }
+    }
+
+    @Test
+    public void testForms() {
+        String[] forms = {
+                "addq    $8, `d0", "addq    `s0, `d0",
+                "addq    -16(`s0), `d0", "addq    8(`s0,`s1,8), `d0",
+                "subq    $-3, `d0", "subq    `s0, `d0",
+                "subq    (`s0), `d0", "subq    (`s0,`s1,4), `d0",
+                "imulq   $7, `d0", "imulq   $7, `s0, `d0", "imulq   `s0, `d0",
+                "imulq   24(`s0), `d0", "leaq    8(,`s1,8), `d0",
+                "cmpq    $0, `s0", "cmpq    `s1, `s0", "cmpq    8(`s0), `s1",
+                "cmpq    `s1, 8(`s0)", "cmpq    $1, (`s0,`s1,8)", "cmpq    $1, 16(`s0)",
+                "cmpq    `s2, (`s0,`s1,8)",
+                "movq    $5, `d0", "movq    $_label, `d0", "movq    `s0, `d0",
+                "movq    -8(%rbp), `d0", "movq    8(`s0,`s1,8), `d0", "movq    8(`s0,`s1), `d0",
+                "movq    `s0, 8(`s1)", "movq    `s0, (`s1,`s2,8)",
+                "movq    $9, 8(`s0)", "movq    $9, 8(`s0,`s1,8)",
+                "leaq    8(`s0), `d0", "leaq    (`s0,`s1,8), `d0", "leaq    _data(%rip), `d0",
+                "xorq    `s0, `d0", "sarq    $1, `d0", "idivq   `s0",
+                "incq    `d0", "decq    `d0", "pushq   `s0",
+                "call    _cs411println", "call    *`s0",
+                "jmp     `j0", "cqto", "leave", "ret",
+                "je      `j0", "jne     `j1", "jl      `j0", "jle     `j0", "jg      `j0", "jge     `j0",
+                "jb      `j0", "jbe     `j0", "ja      `j0", "jae     `j0",
+                "cmove   `s0, `d0", "cmovne  `s0, `d0", "cmovl   `s0, `d0", "cmovle  `s0, `d0",
+                "cmovg   `s0, `d0", "cmovge  `s0, `d0", "cmovlb  `s0, `d0", "cmovbe  `s0, `d0",
+                "cmova   `s0, `d0", "cmovae  `s0, `d0",
+                "movq    `s0, `d0  # with a comment",
+                "cmpq    $0, `s0\njge     `j0",
+        };
+        for (String form : forms)
+            same(form);
+    }
+
+    @Test
+    public void testRejected() {
+        String[] forms = {
+                "movq    (`s0), (`s1)", "sarq    `s0, `d0", "xorq    $1, `d0", "idivq   $3",
+                "leaq    `s0, `d0", "jmp     *`s0", "pushq   $1", "popq    `d0",
+                "addq    $_label, `d0", "addq    `s0, 8(`s1)", "movq    8(`s0,`s1,8,2), `d0", "ret     `s0",
+                "imulq   (,`s1,8), `d0", "movq    `s0, (,`s1,8)", "leaq    (,`s1), `d0",
+        };
+        for (String form : forms)
+            rejected(form);
+    }
+
+    private static final Pattern label = Pattern.compile("\\s*([A-Za-z_][A-Za-z_.$0-9]*):(.*)");
+
+    /**
+     * Builds the program in the file with an InstructionTemplate for each line
+     * of code, and the labels and directives added as the parser does.
+     */
+    private static Program decode(File file) throws Exception {
+        Program p = new Program();
+        for (String line : Files.readAllLines(file.toPath())) {
+            Matcher m = label.matcher(line);
+            if (m.matches()) {
+                p.add(m.group(1));
+                line = m.group(2);
+            }
+            String[] directive = line.replaceAll("#.*", "").trim().split("\\s+", 2);
+            if (directive[0].equals(".text"))
+                p.doText();
+            else if (directive[0].equals(".data"))
+                p.doData();
+            else if (directive[0].equals(".quad"))
+                p.doQuad(directive[1]);
+            else if (directive[0].equals(".align"))
+                p.doAlign(directive[1]);
+            else if (!directive[0].startsWith("."))
+                InstructionTemplate.decode(line).addTo(p, holes);
+        }
+        p.link();
+        return p;
+    }
+
+    @Test
+    public void testSamples() throws Exception {
+        File[][] samples = {SampleCode.sampleSFiles(), SampleCode.sampleSSFiles()};
+        for (File[] files : samples) {
+            Assertions.assertTrue(files.length > 0);
+            for (File file : files)
+                Assertions.assertEquals(SimParser.parse(file).dump(), decode(file).dump(), file.getName());
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package x86_64sim.test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import x86_64sim.Batch;
+import x86_64sim.Cache;
+import x86_64sim.CacheSimulation;
+import x86_64sim.Condition;
+import x86_64sim.CostModel;
+import x86_64sim.Profile;
 import x86_64sim.Program;
 import x86_64sim.Sim;
 import x86_64sim.State;
+import x86_64sim.Timing;
 import x86_64sim.parser.SimParser;
 import util.SampleCode;
 
@@ -133,9 +143,26 @@ public class TestX86_64SimExecute {
                         "ret\n"));
     }
 
+    @Test
+    public void testGreaterOrEqual() throws Exception {
+        // A negative right operand must not make "ge" true
+        Assertions.assertFalse(State.conditionTrue("ge", -5, -1));
+        Assertions.assertTrue(State.conditionTrue("ge", -1, -5));
+        Assertions.assertTrue(State.conditionTrue("ge", -1, -1));
+        Assertions.assertFalse(State.conditionTrue("ge", 1, 2));
+        State s = accept("main:\n" +
+                "movq $-5, %rax\n" +
+                "cmpq $-1, %rax\n" +
+                "jge done\n" +
+                "movq $4, %rbx\n" +
+                "done:\n" +
+                "ret\n");
+        Assertions.assertEquals(4, s.getReg("%rbx"));
+    }
+
     @Test
     public void testMemoryW() throws Exception {
-        String program = "movq $4096, %rbx\n" +
+        String program = "movq $" + State.HEAP_BASE + ", %rbx\n" +
                 "movq $11, %rax\n" +
                 "movq %rax, (%rbx)\n" +
                 "movq $13, %rax\n" +
@@ -144,17 +171,17 @@ public class TestX86_64SimExecute {
                 "movq %rax, 16(%rbx)\n" +
                 "ret\n";
         State s = accept(program);
-        assert (s.ram.read(4096L) == 11);
-        assert (s.ram.read(4096L + 8L) == 13);
-        assert (s.ram.read(4096L + 16L) == 15);
-        for (long a = 4096L + 24; a < s.ram.maxheap; a += 8) {
+        assert (s.ram.read(State.HEAP_BASE) == 11);
+        assert (s.ram.read(State.HEAP_BASE + 8L) == 13);
+        assert (s.ram.read(State.HEAP_BASE + 16L) == 15);
+        for (long a = State.HEAP_BASE + 24; a < s.ram.maxheap; a += 8) {
             assert (s.ram.read(a) == 0L);
         }
     }
 
     @Test
     public void testMemoryRW() throws Exception {
-        String program = "movq $4096, %rbx\n" +
+        String program = "movq $" + State.HEAP_BASE + ", %rbx\n" +
                 "movq $11, %rax\n" +
                 "movq %rax, (%rbx)\n" +
                 "movq $13, %rax\n" +
@@ -169,18 +196,285 @@ public class TestX86_64SimExecute {
                 "movq %rax, 48(%rbx)\n" +
                 "ret\n";
         State s = accept(program);
-        assert (s.ram.read(4096L + 0L) == 11);
-        assert (s.ram.read(4096L + 8L) == 13);
-        assert (s.ram.read(4096L + 16L) == 15);
-        assert (s.ram.read(4096L + 24L) == 0);
-        assert (s.ram.read(4096L + 32L) == 13);
-        assert (s.ram.read(4096L + 40L) == 11);
-        assert (s.ram.read(4096L + 48L) == 15);
-        for (long a = 4096L + 56; a < s.ram.maxheap; a += 8) {
+        assert (s.ram.read(State.HEAP_BASE + 0L) == 11);
+        assert (s.ram.read(State.HEAP_BASE + 8L) == 13);
+        assert (s.ram.read(State.HEAP_BASE + 16L) == 15);
+        assert (s.ram.read(State.HEAP_BASE + 24L) == 0);
+        assert (s.ram.read(State.HEAP_BASE + 32L) == 13);
+        assert (s.ram.read(State.HEAP_BASE + 40L) == 11);
+        assert (s.ram.read(State.HEAP_BASE + 48L) == 15);
+        for (long a = State.HEAP_BASE + 56; a < s.ram.maxheap; a += 8) {
             assert (s.ram.read(a) == 0L);
         }
     }
 
+    @Test
+    public void testHeap() throws Exception {
+        String program = "main:\n" +
+                "movq $100000, %rdi\n" +
+                "call cs411newarray\n" +
+                "ret\n";
+        State grown = new State(SimParser.parse(program));
+        grown.run();
+        Assertions.assertEquals(State.HEAP_BASE + 8, grown.getReg("%rax"));
+        Assertions.assertEquals(100000, grown.ram.read(State.HEAP_BASE));
+        grown.ram.write(State.HEAP_BASE + 8 * 100000, 1);
+        State fixed = new State(SimParser.parse(program), State.STACK_SIZE, State.HEAP_SIZE, State.HEAP_SIZE);
+        Error e = Assertions.assertThrows(Error.class, fixed::run);
+        Assertions.assertTrue(e.getMessage().startsWith("Out of heap memory"));
+        Assertions.assertThrows(Error.class, () -> grown.ram.read(0));
+        Assertions.assertThrows(Error.class, () -> grown.ram.read(State.HEAP_BASE - State.STACK_SIZE - 8));
+        Assertions.assertThrows(Error.class, () -> grown.ram.read(State.HEAP_BASE + 4));
+    }
+
+    @Test
+    public void testStack() throws Exception {
+        String program = "main:\n" +
+                "movq $10000, %rcx\n" +
+                "loop:\n" +
+                "pushq %rcx\n" +
+                "subq $1, %rcx\n" +
+                "cmpq $0, %rcx\n" +
+                "jne loop\n" +
+                "movq (%rsp), %rax\n" +
+                "movq 79992(%rsp), %rbx\n" +
+                "addq $80000, %rsp\n" +
+                "ret\n";
+        State grown = new State(SimParser.parse(program));
+        grown.run();
+        Assertions.assertEquals(1, grown.getReg("%rax"));
+        Assertions.assertEquals(10000, grown.getReg("%rbx"));
+        State fixed = new State(SimParser.parse(program), 0x1000, State.HEAP_SIZE, State.MAX_HEAP_SIZE);
+        Assertions.assertThrows(Error.class, fixed::run);
+    }
+
+    @Test
+    public void testRegisters() throws Exception {
+        // Machine registers are shared with the callee, temps are local to each call.
+        String program = "main:\n" +
+                "movq $5, t1\n" +
+                "movq $7, %rbx\n" +
+                "call foo\n" +
+                "movq t1, %rcx\n" +
+                "ret\n" +
+                "foo:\n" +
+                "movq t1, %rdx\n" +
+                "movq $9, t1\n" +
+                "addq $1, %rbx\n" +
+                "ret\n";
+        State s = accept(program);
+        Assertions.assertEquals(8, s.getReg("%rbx"));
+        Assertions.assertEquals(5, s.getReg("%rcx"));
+        Assertions.assertEquals(0, s.getReg("%rdx"));
+        Assertions.assertEquals(5, s.getReg("t1"));
+        Assertions.assertEquals(0, s.getReg("t2"));
+    }
+
+    @Test
+    public void testCheckCalls() throws Exception {
+        String program = "main:\n" +
+                "movq $7, %rbx\n" +
+                "call foo\n" +
+                "ret\n" +
+                "foo:\n" +
+                "movq $8, %rbx\n" +
+                "ret\n";
+        State s = new State(SimParser.parse(program));
+        s.run();
+        Assertions.assertEquals(8, s.getReg("%rbx"));
+        State checked = new State(SimParser.parse(program));
+        checked.checkCalls = true;
+        Assertions.assertThrows(Error.class, checked::run);
+    }
+
+    @Test
+    public void testLinking() throws Exception {
+        Assertions.assertThrows(Error.class, () -> SimParser.parse("main:\njmp nowhere\nret\n"));
+        Assertions.assertThrows(Error.class, () -> Condition.parse("xx"));
+        Assertions.assertTrue(Condition.parse("b").test(1, -1));
+        Assertions.assertTrue(Condition.parse("l").test(-1, 1));
+        State s = accept("main:\n" +
+                "movq $3, %rax\n" +
+                "cmpq $2, %rax\n" +
+                "jle done\n" +
+                "movq $4, %rbx\n" +
+                "done:\n" +
+                "ret\n");
+        Assertions.assertEquals(4, s.getReg("%rbx"));
+    }
+
+    @Test
+    public void testCompiledEngine() throws Exception {
+        List<File> files = new ArrayList<File>();
+        files.addAll(Arrays.asList(SampleCode.sampleSFiles()));
+        files.addAll(Arrays.asList(SampleCode.sampleSSFiles()));
+        Assertions.assertFalse(files.isEmpty());
+        for (File file : files) {
+            Program p = SimParser.parse(file);
+            State interpreted = new State(p).runForResult();
+            State compiled = new State(p);
+            compiled.engine = State.Engine.COMPILED;
+            compiled.runForResult();
+            System.out.println(file + ": " + compiled.instructionsExecuted + " instructions executed");
+            Assertions.assertEquals(interpreted.result, compiled.result, file.toString());
+            Assertions.assertEquals(interpreted.instructionsExecuted, compiled.instructionsExecuted, file.toString());
+        }
+    }
+
+    @Test
+    public void testCompiledEngineLimit() throws Exception {
+        String program = "main:\n" +
+                "movq $0, %rax\n" +
+                "loop:\n" +
+                "addq $1, %rax\n" +
+                "jmp loop\n";
+        State s = new State(SimParser.parse(program));
+        s.engine = State.Engine.COMPILED;
+        s.maxInstructions = 1001;
+        s.runForResult();
+        Assertions.assertEquals(1001, s.instructionsExecuted);
+        Assertions.assertEquals(500, s.getReg("%rax"));
+    }
+
+    @Test
+    public void testProfile() throws Exception {
+        String program = "main:\n" +
+                "movq $3, %rbx\n" +
+                "main_1:\n" +
+                "call foo\n" +
+                "subq $1, %rbx\n" +
+                "cmpq $0, %rbx\n" +
+                "jne main_1\n" +
+                "movq %rax, %rdi\n" +
+                "call cs411println\n" +
+                "ret\n" +
+                "foo:\n" +
+                "movq $7, %rax\n" +
+                "ret\n";
+        Program p = SimParser.parse(program);
+        Assertions.assertEquals("main", p.getFunctionAt(4));
+        Assertions.assertEquals("foo", p.getFunctionAt(8));
+        State s = new State(p);
+        s.profile = new Profile(p);
+        s.engine = State.Engine.COMPILED;
+        s.runForResult();
+        Assertions.assertEquals("7\n", s.result);
+        Profile profile = s.profile;
+        Assertions.assertEquals(s.instructionsExecuted, profile.countInstructions());
+        Assertions.assertEquals(4, profile.countCalls());
+        List<Profile.Function> functions = profile.functions();
+        Assertions.assertEquals("main", functions.get(0).name);
+        Assertions.assertEquals(16, functions.get(0).instructions);
+        Assertions.assertEquals("foo", functions.get(1).name);
+        Assertions.assertEquals(6, functions.get(1).instructions);
+        Assertions.assertEquals(3, functions.get(1).calls);
+        Assertions.assertEquals("cs411println", functions.get(2).name);
+        Assertions.assertEquals(1, functions.get(2).calls);
+        Assertions.assertEquals(Long.valueOf(4), profile.instructionMix().get("Call"));
+        Profile.Block loop = profile.blocks().get(0);
+        Assertions.assertEquals("main+2", loop.name);
+        Assertions.assertEquals(3, loop.runs);
+        Assertions.assertEquals(3, loop.length);
+        System.out.print(profile.report(5));
+    }
+
+    @Test
+    public void testTiming() throws Exception {
+        String program = "main:\n" +
+                "movq $4, %rbx\n" +
+                "loop:\n" +
+                "subq $1, %rbx\n" +
+                "cmpq $0, %rbx\n" +
+                "jne loop\n" +
+                "movq $20, %rax\n" +
+                "cqto\n" +
+                "movq $3, %rcx\n" +
+                "idivq %rcx\n" +
+                "imulq %rcx, %rax\n" +
+                "ret\n";
+        Program p = SimParser.parse(program);
+        State s = new State(p);
+        s.timing = new Timing(p);
+        s.run();
+        Assertions.assertEquals(18, s.getReg("%rax"));
+        Assertions.assertEquals(s.instructionsExecuted, s.timing.instructions);
+        // 65 cycles for the instructions, and the first and last jne are mispredicted
+        Assertions.assertEquals(4, s.timing.branches);
+        Assertions.assertEquals(2, s.timing.mispredicted);
+        Assertions.assertEquals(65 + 2 * 15, s.timing.cycles);
+        CostModel costs = CostModel.parse("class alu 2\n" +
+                "kind SubI2R alu alu # two of them\n" +
+                "mispredict 0\n" +
+                "predictor 4\n");
+        State custom = new State(p);
+        custom.timing = new Timing(p, costs);
+        custom.run();
+        Assertions.assertEquals(31, custom.timing.cycles);
+        Assertions.assertThrows(Error.class, () -> CostModel.parse("predictor 3\n"));
+        Assertions.assertThrows(Error.class, () -> CostModel.parse("kind MoveR2R nothing\n"));
+    }
+
+    @Test
+    public void testCaches() throws Exception {
+        String program = "main:\n" +
+                "movq $10000, %rdi\n" +
+                "call cs411newarray\n" +
+                "movq $0, %rcx\n" +
+                "main_1:\n" +
+                "movq %rcx, (%rax)\n" +
+                "addq $8, %rax\n" +
+                "addq $1, %rcx\n" +
+                "cmpq $10000, %rcx\n" +
+                "jne main_1\n" +
+                "ret\n";
+        State s = new State(SimParser.parse(program));
+        CacheSimulation caches = new CacheSimulation();
+        s.simulateCaches(caches);
+        s.engine = State.Engine.COMPILED;
+        s.run();
+        System.out.print(caches.report());
+        // One miss per 64 byte line of the array (and its length), and the return address
+        Assertions.assertEquals(10001 - 1251, caches.l1.hits(CacheSimulation.Region.HEAP));
+        Assertions.assertEquals(1251, caches.l1.misses(CacheSimulation.Region.HEAP));
+        Assertions.assertEquals(1251 - 32 * 1024 / 64, caches.l1.evictions(CacheSimulation.Region.HEAP));
+        Assertions.assertEquals(1251, caches.l2.misses(CacheSimulation.Region.HEAP));
+        Assertions.assertEquals(0, caches.l2.evictions(CacheSimulation.Region.HEAP));
+        Assertions.assertEquals(1, caches.l1.misses(CacheSimulation.Region.STACK));
+        Assertions.assertEquals(0, caches.l1.misses(CacheSimulation.Region.STATIC));
+        CacheSimulation.Function main = caches.functions().get(0);
+        Assertions.assertEquals("main", main.name);
+        Assertions.assertEquals(10002, main.accesses);
+        Assertions.assertEquals(1252, main.l1Misses);
+        Assertions.assertThrows(Error.class, () -> new Cache("bad", 1000, 3, 64));
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        List<Batch.Job> jobs = new ArrayList<Batch.Job>();
+        for (File file : SampleCode.sampleSFiles())
+            jobs.add(new Batch.Job(file.getName(), SimParser.parse(file), State.MAX_INSTRUCTIONS));
+        Assertions.assertFalse(jobs.isEmpty());
+        Program loop = SimParser.parse("main:\nloop:\njmp loop\n");
+        jobs.add(new Batch.Job("loop", loop, 1000));
+        // Every program twice, so that the same Program is run by several threads
+        jobs.addAll(new ArrayList<Batch.Job>(jobs));
+        List<Batch.Result> results = Batch.run(jobs, State.Engine.COMPILED, 4);
+        Assertions.assertEquals(jobs.size(), results.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            Batch.Job job = jobs.get(i);
+            Batch.Result result = results.get(i);
+            State expected = new State(job.program);
+            expected.maxInstructions = job.maxInstructions;
+            expected.runForResult();
+            Assertions.assertEquals(job.name, result.name);
+            Assertions.assertEquals(expected.result, result.output, job.name);
+            Assertions.assertEquals(expected.instructionsExecuted, result.instructions, job.name);
+        }
+        Batch.Result limited = results.get(jobs.size() / 2 - 1);
+        Assertions.assertEquals(1000, limited.instructions);
+        Assertions.assertTrue(limited.output.startsWith("X86_64 simulator exceeded max instructions"));
+    }
+
     @Test
     public void testExecuteSampleSCode() throws Exception {
         File[] files = SampleCode.sampleSFiles();